@@ -17,6 +17,7 @@ package com.planet57.gshell.command;
 
 import java.util.Collection;
 import java.util.LinkedHashSet;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import javax.annotation.Nullable;
 
@@ -59,7 +60,10 @@ public class Node
 
   private final Node parent;
 
-  private final Collection<Node> children = new LinkedHashSet<>();
+  /**
+   * Copy-on-write; the tree is read concurrently by resolvers and completers of all shells.
+   */
+  private final Collection<Node> children = new CopyOnWriteArraySet<>();
 
   public Node(final String name, final CommandAction action, @Nullable final Node parent) {
     this.name = checkNotNull(name);
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.command;
+
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Lazy, single-use stream of typed records returned from {@link CommandAction#execute}.
+ *
+ * Records are pulled by the consumer; nothing is produced until requested, which provides natural backpressure.
+ * Records are rendered to text only when the stream reaches the terminal (or a byte pipe); functions consuming
+ * the stream as an object see the typed records.
+ *
+ * @since 3.0
+ */
+public interface ResultStream<T>
+  extends Iterator<T>, Iterable<T>, AutoCloseable
+{
+  /**
+   * Render a record as a line of text.
+   */
+  CharSequence render(T record);
+
+  /**
+   * Returns this stream; streams may only be iterated once.
+   */
+  @Override
+  default Iterator<T> iterator() {
+    return this;
+  }
+
+  /**
+   * Release resources held by the stream; further records are not produced.
+   */
+  @Override
+  default void close() {
+    // empty
+  }
+
+  /**
+   * Lazily filter records.
+   */
+  default ResultStream<T> filter(final Predicate<? super T> predicate) {
+    checkNotNull(predicate);
+    return new ResultStreams.Filtering<>(this, predicate);
+  }
+
+  /**
+   * Lazily limit number of records.
+   */
+  default ResultStream<T> limit(final long max) {
+    checkArgument(max >= 0, "Invalid limit: %s", max);
+    return new ResultStreams.Limiting<>(this, max);
+  }
+
+  /**
+   * Lazily transform records.
+   */
+  default <R> ResultStream<R> map(final Function<? super T, ? extends R> mapper,
+                                  final Function<? super R, ? extends CharSequence> renderer)
+  {
+    checkNotNull(mapper);
+    ResultStream<T> source = this;
+    Iterator<R> mapped = new Iterator<R>()
+    {
+      @Override
+      public boolean hasNext() {
+        return source.hasNext();
+      }
+
+      @Override
+      public R next() {
+        return mapper.apply(source.next());
+      }
+    };
+    return of(mapped, renderer, source::close);
+  }
+
+  //
+  // Factories
+  //
+
+  static <T> ResultStream<T> of(final Iterator<T> records, final Function<? super T, ? extends CharSequence> renderer) {
+    return of(records, renderer, () -> {});
+  }
+
+  static <T> ResultStream<T> of(final Iterator<T> records,
+                                final Function<? super T, ? extends CharSequence> renderer,
+                                final Runnable onClose)
+  {
+    return new ResultStreams.Adapter<>(records, renderer, onClose);
+  }
+
+  /**
+   * Adapt a {@link Stream}; closing the result closes the stream.
+   */
+  static <T> ResultStream<T> of(final Stream<T> records, final Function<? super T, ? extends CharSequence> renderer) {
+    checkNotNull(records);
+    return of(records.iterator(), renderer, records::close);
+  }
+
+  /**
+   * Adapt a push-style source; the producer runs on its own thread and blocks once {@code capacity} records are
+   * waiting to be consumed.
+   */
+  static <T> ResultStream<T> produce(final int capacity,
+                                     final Producer<T> producer,
+                                     final Function<? super T, ? extends CharSequence> renderer)
+  {
+    return new ResultStreams.Producing<>(capacity, producer, renderer);
+  }
+
+  /**
+   * Push-style source of records for {@link #produce}.
+   */
+  interface Producer<T>
+  {
+    /**
+     * Emit records to given sink; which blocks while the consumer is behind.
+     */
+    void produce(Sink<T> sink) throws Exception;
+  }
+
+  /**
+   * Receives records from a {@link Producer}.
+   */
+  interface Sink<T>
+  {
+    /**
+     * @throws InterruptedException The stream was closed by the consumer.
+     */
+    void accept(T record) throws InterruptedException;
+  }
+}
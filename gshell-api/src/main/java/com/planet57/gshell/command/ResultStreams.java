@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.command;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.google.common.base.Throwables;
+import com.planet57.gshell.util.concurrent.Workers;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link ResultStream} implementations.
+ *
+ * @since 3.0
+ */
+final class ResultStreams
+{
+  private ResultStreams() {
+    // empty
+  }
+
+  /**
+   * Adapts an {@link Iterator}.
+   */
+  static class Adapter<T>
+    implements ResultStream<T>
+  {
+    private final Iterator<T> records;
+
+    private final Function<? super T, ? extends CharSequence> renderer;
+
+    private final Runnable onClose;
+
+    Adapter(final Iterator<T> records,
+            final Function<? super T, ? extends CharSequence> renderer,
+            final Runnable onClose)
+    {
+      this.records = checkNotNull(records);
+      this.renderer = checkNotNull(renderer);
+      this.onClose = checkNotNull(onClose);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return records.hasNext();
+    }
+
+    @Override
+    public T next() {
+      return records.next();
+    }
+
+    @Override
+    public CharSequence render(final T record) {
+      return renderer.apply(record);
+    }
+
+    @Override
+    public void close() {
+      onClose.run();
+    }
+  }
+
+  /**
+   * Support for streams decorating another stream.
+   */
+  abstract static class Decorator<T>
+    implements ResultStream<T>
+  {
+    protected final ResultStream<T> source;
+
+    Decorator(final ResultStream<T> source) {
+      this.source = checkNotNull(source);
+    }
+
+    @Override
+    public CharSequence render(final T record) {
+      return source.render(record);
+    }
+
+    @Override
+    public void close() {
+      source.close();
+    }
+  }
+
+  static class Filtering<T>
+    extends Decorator<T>
+  {
+    private final Predicate<? super T> predicate;
+
+    private T next;
+
+    private boolean ready;
+
+    Filtering(final ResultStream<T> source, final Predicate<? super T> predicate) {
+      super(source);
+      this.predicate = predicate;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (!ready && source.hasNext()) {
+        T candidate = source.next();
+        if (predicate.test(candidate)) {
+          next = candidate;
+          ready = true;
+        }
+      }
+      return ready;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      T result = next;
+      next = null;
+      ready = false;
+      return result;
+    }
+  }
+
+  static class Limiting<T>
+    extends Decorator<T>
+  {
+    private long remaining;
+
+    Limiting(final ResultStream<T> source, final long max) {
+      super(source);
+      this.remaining = max;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (remaining <= 0) {
+        // stop upstream production once satisfied
+        source.close();
+        return false;
+      }
+      return source.hasNext();
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      remaining--;
+      return source.next();
+    }
+  }
+
+  /**
+   * Bridges a push-style producer through a bounded queue.
+   *
+   * The producer thread is started on the first pull; a stream which is closed without being consumed never runs it.
+   */
+  static class Producing<T>
+    implements ResultStream<T>
+  {
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> queue;
+
+    private final Function<? super T, ? extends CharSequence> renderer;
+
+    private final Thread thread;
+
+    private volatile Throwable failure;
+
+    private Object next;
+
+    private boolean done;
+
+    private boolean started;
+
+    Producing(final int capacity,
+              final ResultStream.Producer<T> producer,
+              final Function<? super T, ? extends CharSequence> renderer)
+    {
+      checkArgument(capacity > 0, "Invalid capacity: %s", capacity);
+      checkNotNull(producer);
+      this.queue = new ArrayBlockingQueue<>(capacity);
+      this.renderer = checkNotNull(renderer);
+
+      this.thread = Workers.threadFactory("result-producer").newThread(() -> {
+        try {
+          producer.produce(queue::put);
+        }
+        catch (InterruptedException e) {
+          // closed by consumer
+          return;
+        }
+        catch (Throwable e) {
+          failure = e;
+        }
+        try {
+          queue.put(END);
+        }
+        catch (InterruptedException e) {
+          // closed by consumer
+        }
+      });
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (done) {
+        return false;
+      }
+      if (!started) {
+        started = true;
+        thread.start();
+      }
+      if (next == null) {
+        try {
+          next = queue.take();
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          close();
+          return false;
+        }
+      }
+      if (next == END) {
+        done = true;
+        if (failure != null) {
+          Throwables.throwIfUnchecked(failure);
+          throw new RuntimeException(failure);
+        }
+        return false;
+      }
+      return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      T result = (T) next;
+      next = null;
+      return result;
+    }
+
+    @Override
+    public CharSequence render(final T record) {
+      return renderer.apply(record);
+    }
+
+    @Override
+    public void close() {
+      done = true;
+      if (started) {
+        thread.interrupt();
+        queue.clear();
+      }
+    }
+  }
+}
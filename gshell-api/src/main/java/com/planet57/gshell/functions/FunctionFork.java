@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.functions;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.apache.felix.gogo.runtime.Closure;
+import org.apache.felix.gogo.runtime.CommandSessionImpl;
+import org.apache.felix.service.command.CommandSession;
+import org.apache.felix.service.command.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Executes a {@link Function} concurrently.
+ *
+ * GOGO closures keep their arguments in instance state, so concurrent executions of the same closure clobber each
+ * other's {@code $it} and {@code $args}.  Each {@link #execute(List)} of a closure runs a new instance sharing the
+ * parsed program and parent of the original, with its own variable scope: assignments made by a task are local to it,
+ * other variables resolve from the session.
+ *
+ * @since 3.0
+ */
+public final class FunctionFork
+{
+  private static final Logger log = LoggerFactory.getLogger(FunctionFork.class);
+
+  /**
+   * GOGO exposes neither the parsed program nor the parent of a closure.
+   */
+  @Nullable
+  private static final Field PARENT = field("parent");
+
+  @Nullable
+  private static final Field PROGRAM = field("program");
+
+  private final CommandSession session;
+
+  private final Function function;
+
+  @Nullable
+  private final Closure parent;
+
+  /**
+   * Parsed program of closure; {@code null} when not forking.
+   */
+  @Nullable
+  private final CharSequence program;
+
+  private FunctionFork(final CommandSession session, final Function function) throws Exception {
+    this.session = checkNotNull(session);
+    this.function = checkNotNull(function);
+
+    if (function instanceof Closure && session instanceof CommandSessionImpl) {
+      Closure closure = (Closure) function;
+      if (PARENT != null && PROGRAM != null) {
+        parent = (Closure) PARENT.get(closure);
+        program = (CharSequence) PROGRAM.get(closure);
+      }
+      else {
+        // parse once; enclosing closure arguments are not available
+        parent = null;
+        program = source(closure);
+      }
+    }
+    else {
+      parent = null;
+      program = null;
+    }
+  }
+
+  public static FunctionFork of(final CommandSession session, final Function function) throws Exception {
+    return new FunctionFork(session, function);
+  }
+
+  /**
+   * Execute with given arguments; or {@code null} for closures to inherit those of the enclosing closure.
+   */
+  public Object execute(@Nullable final List<Object> arguments) throws Exception {
+    if (program == null) {
+      return function.execute(session, arguments != null ? arguments : Collections.emptyList());
+    }
+    return new TaskClosure((CommandSessionImpl) session, parent, program).execute(session, arguments);
+  }
+
+  /**
+   * Closure with variables assigned during execution kept local; variables of enclosing tasks remain visible.
+   */
+  private static class TaskClosure
+      extends Closure
+  {
+    private final Map<String, Object> locals = new HashMap<>();
+
+    @Nullable
+    private final TaskClosure enclosing;
+
+    private TaskClosure(final CommandSessionImpl session, @Nullable final Closure parent, final CharSequence program)
+        throws Exception
+    {
+      super(session, parent, program);
+      this.enclosing = parent instanceof TaskClosure ? (TaskClosure) parent : null;
+    }
+
+    @Override
+    public Object get(final String name) {
+      for (TaskClosure task = this; task != null; task = task.enclosing) {
+        if (task.locals.containsKey(name)) {
+          return task.locals.get(name);
+        }
+      }
+      return super.get(name);
+    }
+
+    @Override
+    public Object put(final String name, final Object value) {
+      return locals.put(name, value);
+    }
+  }
+
+  private static CharSequence source(final Closure closure) {
+    String source = closure.toString().trim();
+    if (source.startsWith("{") && source.endsWith("}")) {
+      source = source.substring(1, source.length() - 1);
+    }
+    return source;
+  }
+
+  @Nullable
+  private static Field field(final String name) {
+    try {
+      Field field = Closure.class.getDeclaredField(name);
+      field.setAccessible(true);
+      return field;
+    }
+    catch (Exception e) {
+      log.debug("Closure field unavailable: {}", name, e);
+      return null;
+    }
+  }
+}
@@ -32,6 +32,17 @@ public interface LoggingSystem
 
   Collection<String> getLoggerNames();
 
+  /**
+   * Returns a counter which changes when loggers are reconfigured; or {@code -1} if changes are not tracked.
+   *
+   * Loggers created on demand need not change the counter.
+   *
+   * @since 3.0
+   */
+  default long getModificationCount() {
+    return -1;
+  }
+
   Collection<? extends LoggingComponent> getComponents();
 
   // TODO: Add configure(URL/File)
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.shell;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.planet57.gshell.util.io.CaptureBuffer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Result of {@link ShellExecutor#execute(CharSequence)}.
+ *
+ * Captured output is held until the result is closed; large output is kept in a temporary file rather than memory.
+ * Output of any size can be read with {@link #openOutput()} and {@link #openError()}; the buffer and string accessors
+ * are limited to 2GB.
+ *
+ * @since 3.0
+ */
+public final class ExecutionResult
+  implements Closeable
+{
+  @Nullable
+  private final Object result;
+
+  @Nullable
+  private final Throwable failure;
+
+  private final int exitCode;
+
+  private final CaptureBuffer output;
+
+  private final CaptureBuffer error;
+
+  public ExecutionResult(@Nullable final Object result,
+                         @Nullable final Throwable failure,
+                         final int exitCode,
+                         final CaptureBuffer output,
+                         final CaptureBuffer error)
+  {
+    this.result = result;
+    this.failure = failure;
+    this.exitCode = exitCode;
+    this.output = checkNotNull(output);
+    this.error = checkNotNull(error);
+  }
+
+  /**
+   * Result of the command-line; {@code null} if execution failed.
+   */
+  @Nullable
+  public Object getResult() {
+    return result;
+  }
+
+  @Nullable
+  public Throwable getFailure() {
+    return failure;
+  }
+
+  public boolean isSuccess() {
+    return failure == null && exitCode == 0;
+  }
+
+  public int getExitCode() {
+    return exitCode;
+  }
+
+  public long getOutputSize() {
+    return output.size();
+  }
+
+  public long getErrorSize() {
+    return error.size();
+  }
+
+  /**
+   * Stream over captured standard output.
+   */
+  @Nonnull
+  public InputStream openOutput() throws IOException {
+    return output.openStream();
+  }
+
+  /**
+   * Stream over captured standard error.
+   */
+  @Nonnull
+  public InputStream openError() throws IOException {
+    return error.openStream();
+  }
+
+  /**
+   * Captured standard output; read-only.
+   *
+   * @throws IllegalStateException Output is larger than 2GB; use {@link #openOutput()}.
+   */
+  @Nonnull
+  public ByteBuffer getOutput() {
+    return buffer(output);
+  }
+
+  /**
+   * Captured standard error; read-only.
+   *
+   * @throws IllegalStateException Error is larger than 2GB; use {@link #openError()}.
+   */
+  @Nonnull
+  public ByteBuffer getError() {
+    return buffer(error);
+  }
+
+  public String getOutput(final Charset charset) {
+    return charset.decode(getOutput()).toString();
+  }
+
+  public String getError(final Charset charset) {
+    return charset.decode(getError()).toString();
+  }
+
+  private static ByteBuffer buffer(final CaptureBuffer capture) {
+    try {
+      return capture.toByteBuffer();
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Release captured output.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      output.close();
+    }
+    finally {
+      error.close();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "{" +
+      "exitCode=" + exitCode +
+      ", result=" + result +
+      ", failure=" + failure +
+      ", output=" + output.size() +
+      ", error=" + error.size() +
+      '}';
+  }
+}
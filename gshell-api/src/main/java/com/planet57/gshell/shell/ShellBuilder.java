@@ -22,6 +22,9 @@ import com.planet57.gshell.variables.Variables;
 /**
  * {@link Shell} builder.
  *
+ * A container may build any number of shells; each shell is an independent session with its own {@link IO},
+ * {@link Variables} and jobs, while command, alias and function registries are shared.
+ *
  * @since 3.0
  */
 public interface ShellBuilder
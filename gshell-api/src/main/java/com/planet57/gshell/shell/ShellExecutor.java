@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.shell;
+
+import java.io.Closeable;
+
+/**
+ * Executes command-lines without a terminal.
+ *
+ * Intended for embedding; commands run on a pool of headless sessions with plain (un-styled) output which is
+ * captured per execution.  Session variables are reset after each execution.
+ *
+ * @since 3.0
+ */
+public interface ShellExecutor
+  extends Closeable
+{
+  /**
+   * Execute a command-line; blocks while all pooled sessions are busy.
+   *
+   * The result should be closed to release captured output.
+   */
+  ExecutionResult execute(CharSequence line) throws InterruptedException;
+
+  /**
+   * Stop all pooled sessions.
+   */
+  @Override
+  void close();
+}
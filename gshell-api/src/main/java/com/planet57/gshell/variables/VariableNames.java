@@ -56,4 +56,34 @@ public class VariableNames
   public static final String SHELL_GROUP_PATH = "shell.group.path";
 
   public static final String LAST_RESULT = "shell.result";
+
+  /**
+   * Maximum number of elements of a {@code Collection} or {@code Map} result retained as {@link #LAST_RESULT};
+   * larger results are replaced by a description.  Unset or negative to retain all results.
+   *
+   * @since 3.0
+   */
+  public static final String SHELL_RESULT_RETAIN = "shell.result.retain";
+
+  /**
+   * Set to {@code true} to print {@code Collection} and {@code Map} results of interactive commands; results taller
+   * than the terminal are paged.
+   *
+   * @since 3.0
+   */
+  public static final String SHELL_RESULT_RENDER = "shell.result.render";
+
+  /**
+   * Environment of the invoking client, as {@code Map<String,String>}; when unset the process environment applies.
+   *
+   * @since 3.0
+   */
+  public static final String SHELL_ENV = "shell.env";
+
+  /**
+   * Resources of the shell session, as {@code Map<String,AutoCloseable>}; closed when the shell stops.
+   *
+   * @since 3.0
+   */
+  public static final String SHELL_RESOURCES = ".shell.resources";
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.command;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ResultStream}.
+ */
+public class ResultStreamTest
+  extends TestSupport
+{
+  private static <T> List<T> drain(final ResultStream<T> stream) {
+    List<T> result = new ArrayList<>();
+    try (ResultStream<T> records = stream) {
+      records.forEachRemaining(result::add);
+    }
+    return result;
+  }
+
+  @Test
+  public void testFilterAndLimit() {
+    AtomicInteger pulled = new AtomicInteger();
+    ResultStream<Integer> stream = ResultStream.of(
+        Arrays.asList(1, 2, 3, 4, 5, 6).stream().peek(i -> pulled.incrementAndGet()),
+        String::valueOf);
+
+    assertEquals(Arrays.asList(2, 4), drain(stream.filter(i -> i % 2 == 0).limit(2)));
+    // records after the limit are never pulled
+    assertEquals(4, pulled.get());
+  }
+
+  @Test
+  public void testMapRenders() {
+    ResultStream<String> stream = ResultStream.of(Arrays.asList(1, 2).iterator(), String::valueOf)
+        .map(i -> "#" + i, s -> s + "!");
+
+    String record = stream.next();
+    assertEquals("#1", record);
+    assertEquals("#1!", stream.render(record).toString());
+  }
+
+  @Test
+  public void testCloseClosesSource() {
+    AtomicBoolean closed = new AtomicBoolean();
+    ResultStream<Integer> stream = ResultStream.of(Arrays.asList(1, 2).iterator(), String::valueOf,
+        () -> closed.set(true));
+
+    drain(stream.limit(1));
+    assertTrue(closed.get());
+  }
+
+  @Test
+  public void testProducerBackpressure() throws Exception {
+    AtomicInteger produced = new AtomicInteger();
+    ResultStream<Integer> stream = ResultStream.produce(2, sink -> {
+      for (int i = 0; i < 100; i++) {
+        sink.accept(i);
+        produced.incrementAndGet();
+      }
+    }, String::valueOf);
+
+    assertEquals(Integer.valueOf(0), stream.next());
+    Thread.sleep(100);
+    // producer blocks once the queue is full
+    assertTrue(produced.get() <= 4);
+
+    List<Integer> rest = drain(stream);
+    assertEquals(99, rest.size());
+  }
+
+  @Test
+  public void testProducerStartsOnFirstPull() throws Exception {
+    AtomicBoolean ran = new AtomicBoolean();
+    ResultStream<Integer> stream = ResultStream.produce(2, sink -> {
+      ran.set(true);
+      sink.accept(1);
+    }, String::valueOf);
+
+    Thread.sleep(100);
+    assertFalse(ran.get());
+
+    stream.close();
+    assertFalse(stream.hasNext());
+    assertFalse(ran.get());
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testProducerFailurePropagates() {
+    ResultStream<Integer> stream = ResultStream.produce(2, sink -> {
+      sink.accept(1);
+      throw new Exception("failed");
+    }, String::valueOf);
+
+    drain(stream);
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.planet57.gshell.command.Command;
+import com.planet57.gshell.command.CommandContext;
+import com.planet57.gshell.util.cli2.Argument;
+import com.planet57.gshell.util.cli2.Option;
+import com.planet57.gshell.util.concurrent.Workers;
+import com.planet57.gshell.util.io.FileAssert;
+import com.planet57.gshell.util.io.FileSystemAccess;
+import com.planet57.gshell.util.io.IO;
+import com.planet57.gshell.util.jline.Complete;
+
+/**
+ * Compute or verify file checksums.
+ *
+ * @since 3.0
+ */
+@Command(name = "checksum", description = "Compute or verify file checksums")
+public class ChecksumAction
+    extends FileCommandActionSupport
+{
+  @Argument(required = true, description = "Files or directories to checksum", token = "PATH")
+  @Complete("file-name")
+  private List<String> paths;
+
+  @Option(name = "a", longName = "algorithm", description = "Checksum algorithm: md5, sha1, sha256 or crc32c", token = "NAME")
+  private String algorithm = "sha256";
+
+  @Option(name = "c", longName = "check", description = "Verify against sidecar checksum files")
+  private boolean check;
+
+  @Option(name = "j", longName = "jobs", description = "Number of files to checksum concurrently", token = "COUNT")
+  private int jobs;
+
+  private ChecksumAlgorithm checksumAlgorithm;
+
+  private IO io;
+
+  private Path userDir;
+
+  private int failures;
+
+  /**
+   * Returns {@code null} when all files were processed, and when checking, verified; else {@code 1}.
+   */
+  @Override
+  public Object execute(@Nonnull final CommandContext context) throws Exception {
+    io = context.getIo();
+    FileSystemAccess fs = getFileSystem();
+    userDir = fs.getUserDir().toPath();
+
+    try {
+      checksumAlgorithm = ChecksumAlgorithm.parse(algorithm);
+    }
+    catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unsupported algorithm: " + algorithm);
+    }
+
+    // files are hashed concurrently, but results are printed in order as soon as they are available
+    int parallelism = Workers.parallelism(jobs);
+    int window = parallelism * 4;
+    Deque<Future<Result>> pending = new ArrayDeque<>(window);
+
+    ExecutorService executor = Workers.newExecutor("checksum", parallelism);
+    try {
+      for (String path : paths) {
+        File root = fs.resolveFile(path);
+        new FileAssert(root).exists();
+
+        Path rootPath = root.toPath();
+        Files.walkFileTree(rootPath, new SimpleFileVisitor<Path>()
+        {
+          @Override
+          public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+            // sidecars are skipped when walking a directory; files named explicitly are always processed
+            if (!attrs.isRegularFile() || (!file.equals(rootPath) && isSidecar(file))) {
+              return FileVisitResult.CONTINUE;
+            }
+            pending.add(executor.submit(() -> compute(file)));
+            while (pending.size() >= window) {
+              print(pending.poll());
+            }
+            return FileVisitResult.CONTINUE;
+          }
+        });
+      }
+
+      while (!pending.isEmpty()) {
+        print(pending.poll());
+      }
+    }
+    finally {
+      Workers.shutdownNow(executor);
+    }
+
+    return failures == 0 ? null : 1;
+  }
+
+  private static boolean isSidecar(final Path file) {
+    String name = file.getFileName().toString();
+    for (ChecksumAlgorithm value : ChecksumAlgorithm.values()) {
+      if (name.endsWith("." + value.extension)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Result compute(final Path file) throws IOException {
+    String checksum = checksumAlgorithm.checksum(file);
+    String expected = null;
+    if (check) {
+      expected = readSidecar(file.resolveSibling(file.getFileName() + "." + checksumAlgorithm.extension));
+    }
+    return new Result(file, checksum, expected);
+  }
+
+  /**
+   * Returns the first token of a sidecar file; files may contain only the checksum or also the file name.
+   */
+  @Nullable
+  private static String readSidecar(final Path file) throws IOException {
+    try {
+      String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+      int i = 0;
+      while (i < content.length() && !Character.isWhitespace(content.charAt(i))) {
+        i++;
+      }
+      return content.substring(0, i);
+    }
+    catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  private void print(final Future<Result> future) throws IOException {
+    Result result;
+    try {
+      result = future.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+    catch (ExecutionException e) {
+      failures++;
+      io.err.println(e.getCause().toString());
+      return;
+    }
+
+    // paths under the current directory are shown relative to it
+    Path file = result.file.startsWith(userDir) ? userDir.relativize(result.file) : result.file;
+    if (!check) {
+      io.format("%s  %s%n", result.checksum, file);
+    }
+    else if (result.expected == null) {
+      failures++;
+      io.format("%s: MISSING%n", file);
+    }
+    else if (result.expected.equalsIgnoreCase(result.checksum)) {
+      io.format("%s: OK%n", file);
+    }
+    else {
+      failures++;
+      io.format("%s: FAILED%n", file);
+    }
+  }
+
+  private static class Result
+  {
+    private final Path file;
+
+    private final String checksum;
+
+    @Nullable
+    private final String expected;
+
+    Result(final Path file, final String checksum, @Nullable final String expected) {
+      this.file = file;
+      this.checksum = checksum;
+      this.expected = expected;
+    }
+  }
+}
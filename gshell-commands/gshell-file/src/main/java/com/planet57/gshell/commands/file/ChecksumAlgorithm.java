@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.common.primitives.Ints;
+
+/**
+ * Supported checksum algorithms.
+ *
+ * @since 3.0
+ */
+enum ChecksumAlgorithm
+{
+  MD5("md5"),
+  SHA1("sha1"),
+  SHA256("sha256"),
+  CRC32C("crc32c");
+
+  /**
+   * Size of regions mapped at once.
+   */
+  private static final int CHUNK_SIZE = 16 * 1024 * 1024;
+
+  /**
+   * Extension of sidecar checksum files; as used by Maven repositories.
+   */
+  final String extension;
+
+  ChecksumAlgorithm(final String extension) {
+    this.extension = extension;
+  }
+
+  static ChecksumAlgorithm parse(final String name) {
+    String normalized = name.replace("-", "").toUpperCase();
+    return valueOf(normalized);
+  }
+
+  /**
+   * Returns lower-case hex checksum of file.
+   */
+  String checksum(final Path file) throws IOException {
+    Digester digester = newDigester();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      for (long position = 0; position < size; position += CHUNK_SIZE) {
+        long length = Math.min(CHUNK_SIZE, size - position);
+        MappedByteBuffer buff = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        digester.update(buff);
+      }
+    }
+    return BaseEncoding.base16().lowerCase().encode(digester.digest());
+  }
+
+  private Digester newDigester() {
+    switch (this) {
+      case MD5:
+        return messageDigest("MD5");
+      case SHA1:
+        return messageDigest("SHA-1");
+      case SHA256:
+        return messageDigest("SHA-256");
+      case CRC32C:
+        return new HasherDigester(Hashing.crc32c().newHasher());
+      default:
+        throw new IllegalStateException();
+    }
+  }
+
+  private static Digester messageDigest(final String name) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance(name);
+      return new Digester()
+      {
+        @Override
+        public void update(final ByteBuffer buff) {
+          digest.update(buff);
+        }
+
+        @Override
+        public byte[] digest() {
+          return digest.digest();
+        }
+      };
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private interface Digester
+  {
+    void update(ByteBuffer buff);
+
+    byte[] digest();
+  }
+
+  /**
+   * Guava 20 hashers only accept arrays; copies through a scratch buffer.
+   */
+  private static class HasherDigester
+      implements Digester
+  {
+    private final Hasher hasher;
+
+    private final byte[] scratch = new byte[64 * 1024];
+
+    HasherDigester(final Hasher hasher) {
+      this.hasher = hasher;
+    }
+
+    @Override
+    public void update(final ByteBuffer buff) {
+      while (buff.hasRemaining()) {
+        int length = Math.min(scratch.length, buff.remaining());
+        buff.get(scratch, 0, length);
+        hasher.putBytes(scratch, 0, length);
+      }
+    }
+
+    /**
+     * Guava renders 32-bit hashes little-endian; checksums are conventionally shown big-endian.
+     */
+    @Override
+    public byte[] digest() {
+      return Ints.toByteArray(hasher.hash().asInt());
+    }
+  }
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.base.CharMatcher;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Finds lines of files matching a literal or pattern.
+ *
+ * Files are memory-mapped and scanned as bytes; only matching lines are decoded.  ASCII patterns run directly over the
+ * mapped bytes, as UTF-8 never encodes other characters with ASCII bytes.  Patterns which could match a non-ASCII
+ * character, such as {@code .}, are matched against each decoded line instead; ignoring case then folds Unicode.
+ *
+ * @since 3.0
+ */
+abstract class ContentScanner
+{
+  /**
+   * Largest region mapped at once; regions end on a line boundary.
+   */
+  private static final int SEGMENT_SIZE = 1 << 30;
+
+  /**
+   * Bytes inspected for {@code NUL} to detect binary files.
+   */
+  private static final int BINARY_PROBE = 8 * 1024;
+
+  static class Match
+  {
+    final long line;
+
+    final String text;
+
+    Match(final long line, final String text) {
+      this.line = line;
+      this.text = text;
+    }
+  }
+
+  static ContentScanner literal(final String text) {
+    checkArgument(!text.isEmpty(), "Empty literal");
+    return new Literal(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static ContentScanner regex(final String regex, final boolean ignoreCase, final boolean literal) {
+    int flags = Pattern.MULTILINE;
+    if (literal) {
+      flags |= Pattern.LITERAL;
+    }
+    if (isBytePattern(regex, literal)) {
+      if (ignoreCase) {
+        flags |= Pattern.CASE_INSENSITIVE;
+      }
+      return new Regex(Pattern.compile(regex, flags));
+    }
+    if (ignoreCase) {
+      flags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+    }
+    return new LineRegex(Pattern.compile(regex, flags));
+  }
+
+  /**
+   * Whether pattern can run over bytes: ASCII only, and without constructs which could match a non-ASCII character,
+   * as any character, a negated class, or escapes for code points, properties and negated classes.
+   */
+  private static boolean isBytePattern(final String regex, final boolean literal) {
+    if (!CharMatcher.ascii().matchesAllOf(regex)) {
+      return false;
+    }
+    if (literal) {
+      return true;
+    }
+    for (int i = 0; i < regex.length(); i++) {
+      char c = regex.charAt(i);
+      if (c == '\\' && i + 1 < regex.length()) {
+        if ("0xupPNWSDHVRX".indexOf(regex.charAt(++i)) >= 0) {
+          return false;
+        }
+      }
+      else if (c == '.' || (c == '[' && regex.startsWith("^", i + 1))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns index of first match in {@code [from, end)} or {@code -1}.
+   */
+  protected abstract int find(ByteBuffer buff, int from, int end);
+
+  /**
+   * Scan file for up to {@code limit} matching lines; binary files yield no matches unless {@code text} is set.
+   */
+  List<Match> scan(final Path file, final boolean text, final int limit) throws IOException {
+    checkNotNull(file);
+    List<Match> matches = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      long position = 0;
+      long line = 1;
+      while (position < size) {
+        int length = (int) Math.min(size - position, SEGMENT_SIZE);
+        MappedByteBuffer buff = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        if (position == 0 && !text && isBinary(buff, length)) {
+          return Collections.emptyList();
+        }
+
+        int end = length;
+        if (position + length < size) {
+          int cut = lastIndexOf(buff, end);
+          if (cut >= 0) {
+            end = cut + 1;
+          }
+        }
+
+        line = scan(buff, end, line, matches, limit);
+        if (matches.size() >= limit) {
+          break;
+        }
+        position += end;
+      }
+    }
+    return matches;
+  }
+
+  private long scan(final ByteBuffer buff, final int end, long line, final List<Match> matches, final int limit) {
+    int lineStart = 0;
+    int counted = 0;
+    int from = 0;
+    while (from < end) {
+      int hit = find(buff, from, end);
+      if (hit < 0) {
+        break;
+      }
+      for (int i = counted; i < hit; i++) {
+        if (buff.get(i) == '\n') {
+          line++;
+          lineStart = i + 1;
+        }
+      }
+      int lineEnd = indexOf(buff, hit, end);
+      if (lineEnd < 0) {
+        lineEnd = end;
+      }
+
+      matches.add(new Match(line, decode(buff, lineStart, lineEnd)));
+      if (matches.size() >= limit) {
+        return line;
+      }
+      counted = lineEnd;
+      from = lineEnd + 1;
+    }
+
+    for (int i = counted; i < end; i++) {
+      if (buff.get(i) == '\n') {
+        line++;
+      }
+    }
+    return line;
+  }
+
+  private static boolean isBinary(final ByteBuffer buff, final int length) {
+    int probe = Math.min(length, BINARY_PROBE);
+    for (int i = 0; i < probe; i++) {
+      if (buff.get(i) == 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int indexOf(final ByteBuffer buff, final int from, final int end) {
+    for (int i = from; i < end; i++) {
+      if (buff.get(i) == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int lastIndexOf(final ByteBuffer buff, final int end) {
+    for (int i = end - 1; i >= 0; i--) {
+      if (buff.get(i) == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static String decode(final ByteBuffer buff, final int start, int end) {
+    if (end > start && buff.get(end - 1) == '\r') {
+      end--;
+    }
+    byte[] bytes = new byte[end - start];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = buff.get(start + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  //
+  // Literal
+  //
+
+  /**
+   * Scans for the first byte of the needle and verifies the remainder; a tight loop the JIT handles well.
+   */
+  private static class Literal
+      extends ContentScanner
+  {
+    private final byte[] needle;
+
+    Literal(final byte[] needle) {
+      this.needle = needle;
+    }
+
+    @Override
+    protected int find(final ByteBuffer buff, final int from, final int end) {
+      byte first = needle[0];
+      int last = end - needle.length;
+      for (int i = from; i <= last; i++) {
+        if (buff.get(i) != first) {
+          continue;
+        }
+        int j = 1;
+        while (j < needle.length && buff.get(i + j) == needle[j]) {
+          j++;
+        }
+        if (j == needle.length) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+
+  //
+  // Regex
+  //
+
+  private static class Regex
+      extends ContentScanner
+  {
+    private final Pattern pattern;
+
+    Regex(final Pattern pattern) {
+      this.pattern = pattern;
+    }
+
+    @Override
+    protected int find(final ByteBuffer buff, final int from, final int end) {
+      Matcher matcher = pattern.matcher(new ByteSequence(buff, 0, end));
+      return matcher.find(from) ? matcher.start() : -1;
+    }
+  }
+
+  /**
+   * Matches each decoded line; for patterns which must see characters rather than bytes.
+   */
+  private static class LineRegex
+      extends ContentScanner
+  {
+    private final Pattern pattern;
+
+    LineRegex(final Pattern pattern) {
+      this.pattern = pattern;
+    }
+
+    @Override
+    protected int find(final ByteBuffer buff, final int from, final int end) {
+      Matcher matcher = pattern.matcher("");
+      int start = from;
+      while (start < end) {
+        int lineEnd = indexOf(buff, start, end);
+        if (lineEnd < 0) {
+          lineEnd = end;
+        }
+        if (matcher.reset(decode(buff, start, lineEnd)).find()) {
+          return start;
+        }
+        start = lineEnd + 1;
+      }
+      return -1;
+    }
+  }
+
+  /**
+   * {@link CharSequence} view of bytes as ISO-8859-1.
+   */
+  private static class ByteSequence
+      implements CharSequence
+  {
+    private final ByteBuffer buff;
+
+    private final int offset;
+
+    private final int length;
+
+    ByteSequence(final ByteBuffer buff, final int offset, final int length) {
+      this.buff = buff;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(final int index) {
+      return (char) (buff.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+      return new ByteSequence(buff, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder buff = new StringBuilder(length);
+      for (int i = 0; i < length; i++) {
+        buff.append(charAt(i));
+      }
+      return buff.toString();
+    }
+  }
+}
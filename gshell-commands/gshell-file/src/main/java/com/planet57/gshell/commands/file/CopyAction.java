@@ -16,6 +16,8 @@
 package com.planet57.gshell.commands.file;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nonnull;
 
@@ -23,8 +25,14 @@ import com.planet57.gshell.command.Command;
 import com.planet57.gshell.command.CommandContext;
 import com.planet57.gshell.util.cli2.Argument;
 import com.planet57.gshell.util.cli2.Option;
+import com.planet57.gshell.util.io.CopyOptions;
 import com.planet57.gshell.util.io.FileSystemAccess;
+import com.planet57.gshell.util.io.IO;
 import com.planet57.gshell.util.jline.Complete;
+import org.jline.terminal.Terminal;
+import org.jline.utils.AttributedString;
+import org.jline.utils.Display;
+import org.sonatype.goodies.common.ByteSize;
 
 /**
  * Copy file or directory.
@@ -46,6 +54,12 @@ public class CopyAction
   @Option(name = "r", longName = "recursive")
   private boolean recursive;
 
+  @Option(name = "j", longName = "jobs", description = "Number of files to copy concurrently", token = "COUNT")
+  private int jobs;
+
+  @Option(longName = "resume", description = "Skip files already copied by an interrupted copy")
+  private boolean resume;
+
   @Override
   public Object execute(@Nonnull final CommandContext context) throws Exception {
     FileSystemAccess fs = getFileSystem();
@@ -59,7 +73,17 @@ public class CopyAction
         fs.mkdir(targetFile);
       }
       if (recursive) {
-        fs.copyDirectory(sourceFile, targetFile);
+        IO io = context.getIo();
+        ProgressLine progress = new ProgressLine(io.terminal);
+        try {
+          fs.copyDirectory(sourceFile, targetFile, new CopyOptions()
+              .jobs(jobs)
+              .resume(resume)
+              .monitor(progress));
+        }
+        finally {
+          progress.clear();
+        }
       }
       else {
         throw new RuntimeException("--recursive not specified; omitting directory: " + sourceFile);
@@ -76,4 +100,42 @@ public class CopyAction
 
     return null;
   }
+
+  /**
+   * Renders copy progress on a status line; updates are throttled since workers report every file.
+   */
+  private static class ProgressLine
+      implements CopyOptions.Monitor
+  {
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Display display;
+
+    private final boolean enabled;
+
+    private long last;
+
+    ProgressLine(final Terminal terminal) {
+      this.enabled = !terminal.getType().startsWith("dumb");
+      this.display = new Display(terminal, false);
+      display.resize(terminal.getHeight(), terminal.getWidth());
+    }
+
+    @Override
+    public synchronized void progress(final long files, final long bytes) {
+      long now = System.nanoTime();
+      if (!enabled || now - last < INTERVAL) {
+        return;
+      }
+      last = now;
+      String message = String.format("Copied %d files; %s", files, ByteSize.bytes(bytes));
+      display.update(Collections.singletonList(new AttributedString(message)), -1, true);
+    }
+
+    synchronized void clear() {
+      if (enabled && last != 0) {
+        display.update(Collections.emptyList(), -1, true);
+      }
+    }
+  }
 }
@@ -23,6 +23,7 @@ import com.planet57.gshell.command.Command;
 import com.planet57.gshell.command.CommandContext;
 import com.planet57.gshell.util.io.FileAssert;
 import com.planet57.gshell.util.cli2.Argument;
+import com.planet57.gshell.util.cli2.Option;
 import com.planet57.gshell.util.io.FileSystemAccess;
 import com.planet57.gshell.util.jline.Complete;
 
@@ -39,12 +40,23 @@ public class DeleteDirectoryAction
   @Complete("directory-name")
   private String path;
 
+  /**
+   * @since 3.0
+   */
+  @Option(name = "b", longName = "background", description = "Move directory aside and remove it in the background")
+  private boolean background;
+
   @Override
   public Object execute(@Nonnull final CommandContext context) throws Exception {
     FileSystemAccess fs = getFileSystem();
     File file = fs.resolveFile(path);
     new FileAssert(file).exists().isDirectory();
-    fs.deleteDirectory(file);
+    if (background) {
+      deleteDirectoryLater(context, file);
+    }
+    else {
+      fs.deleteDirectory(file);
+    }
     return null;
   }
 }
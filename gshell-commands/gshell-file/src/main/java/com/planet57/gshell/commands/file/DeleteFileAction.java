@@ -27,6 +27,8 @@ import com.planet57.gshell.util.cli2.Argument;
 import com.planet57.gshell.util.io.FileSystemAccess;
 import com.planet57.gshell.util.jline.Complete;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * Remove a file.
  *
@@ -46,8 +48,16 @@ public class DeleteFileAction
   @Option(name = "r", longName = "recursive", description = "Remove directories and their contents recursively")
   private boolean recursive;
 
+  /**
+   * @since 3.0
+   */
+  @Option(name = "b", longName = "background", description = "Move directory aside and remove it in the background; requires -r")
+  private boolean background;
+
   @Override
   public Object execute(@Nonnull final CommandContext context) throws Exception {
+    checkArgument(recursive || !background, "Option --background requires --recursive");
+
     FileSystemAccess fs = getFileSystem();
     File file = fs.resolveFile(path);
 
@@ -56,7 +66,12 @@ public class DeleteFileAction
     if (recursive) {
       log.debug("Deleting directory: {}", file);
       new FileAssert((file)).isDirectory();
-      fs.deleteDirectory(file);
+      if (background) {
+        deleteDirectoryLater(context, file);
+      }
+      else {
+        fs.deleteDirectory(file);
+      }
     }
     else {
       log.debug("Deleting file: {}", file);
@@ -17,9 +17,23 @@ package com.planet57.gshell.commands.file;
 
 import static com.google.common.base.Preconditions.checkState;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+
 import javax.inject.Inject;
 
 import com.planet57.gshell.command.CommandActionSupport;
+import com.planet57.gshell.command.CommandContext;
 import com.planet57.gshell.util.io.FileSystemAccess;
 
 /**
@@ -30,6 +44,17 @@ import com.planet57.gshell.util.io.FileSystemAccess;
 public abstract class FileCommandActionSupport
     extends CommandActionSupport
 {
+  /**
+   * Permission bits in Unix mode order; from owner-read to others-execute.
+   *
+   * @since 3.0
+   */
+  protected static final PosixFilePermission[] PERMISSIONS = {
+      PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE,
+      PosixFilePermission.GROUP_READ, PosixFilePermission.GROUP_WRITE, PosixFilePermission.GROUP_EXECUTE,
+      PosixFilePermission.OTHERS_READ, PosixFilePermission.OTHERS_WRITE, PosixFilePermission.OTHERS_EXECUTE
+  };
+
   private FileSystemAccess fileSystem;
 
   @Inject
@@ -41,4 +66,72 @@ public abstract class FileCommandActionSupport
     checkState(fileSystem != null);
     return fileSystem;
   }
+
+  /**
+   * Resolve archive entry name within directory; rejecting names which would escape it.
+   *
+   * @since 3.0
+   */
+  protected static Path resolveEntry(final Path dir, final String name) throws IOException {
+    Path path = dir.resolve(name).normalize();
+    if (!path.startsWith(dir)) {
+      throw new IOException("Invalid entry name: " + name);
+    }
+    return path;
+  }
+
+  /**
+   * Unix permission bits of file; or given default when the file-system does not have them.
+   *
+   * @since 3.0
+   */
+  protected static int mode(final BasicFileAttributes attrs, final int defaultMode) {
+    if (!(attrs instanceof PosixFileAttributes)) {
+      return defaultMode;
+    }
+    Set<PosixFilePermission> permissions = ((PosixFileAttributes) attrs).permissions();
+    int mode = 0;
+    for (int i = 0; i < PERMISSIONS.length; i++) {
+      if (permissions.contains(PERMISSIONS[i])) {
+        mode |= 1 << (PERMISSIONS.length - 1 - i);
+      }
+    }
+    return mode;
+  }
+
+  /**
+   * Apply Unix permission bits to file; ignored when the file-system does not have them.
+   *
+   * @since 3.0
+   */
+  protected static void applyMode(final Path file, final int mode) throws IOException {
+    PosixFileAttributeView view = Files.getFileAttributeView(file, PosixFileAttributeView.class);
+    if (view == null) {
+      return;
+    }
+    Set<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+    for (int i = 0; i < PERMISSIONS.length; i++) {
+      if ((mode & (1 << (PERMISSIONS.length - 1 - i))) != 0) {
+        permissions.add(PERMISSIONS[i]);
+      }
+    }
+    view.setPermissions(permissions);
+  }
+
+  /**
+   * Delete directory in the background; failures are reported to the session console as the command has returned.
+   *
+   * @since 3.0
+   */
+  protected void deleteDirectoryLater(final CommandContext context, final File dir) throws IOException {
+    PrintStream console = context.getSession().getConsole();
+    getFileSystem().deleteDirectoryLater(dir).whenComplete((result, failure) -> {
+      if (failure != null) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        log.debug("Background delete failed: {}", dir, cause);
+        console.format("%s: %s: %s%n", getSimpleName(), dir, cause);
+        console.flush();
+      }
+    });
+  }
 }
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import com.planet57.gossip.Log;
+import org.slf4j.Logger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Watches a file, or a directory tree, and collects changes into batches.
+ *
+ * Blocks in {@link WatchService#take()} while idle.  Once a change arrives, further changes are collected until none
+ * arrive for the debounce period, bounded to ten periods so continuous changes still produce batches.  Directories
+ * created within a watched tree are registered as they appear.
+ *
+ * @since 3.0
+ */
+class FileWatcher
+    implements Closeable
+{
+  private static final Logger log = Log.getLogger(FileWatcher.class);
+
+  private final Path root;
+
+  /**
+   * When watching a single file; its parent directory is watched and other changes ignored.
+   */
+  @Nullable
+  private final Path file;
+
+  private final WatchService service;
+
+  private final Map<WatchKey, Path> keys = new HashMap<>();
+
+  FileWatcher(final Path path) throws IOException {
+    checkNotNull(path);
+    this.service = FileSystems.getDefault().newWatchService();
+    try {
+      if (Files.isDirectory(path)) {
+        this.root = path;
+        this.file = null;
+        registerTree(path, null);
+      }
+      else {
+        this.root = path.getParent();
+        this.file = path;
+        register(root);
+      }
+    }
+    catch (IOException e) {
+      service.close();
+      throw e;
+    }
+  }
+
+  private void register(final Path dir) throws IOException {
+    WatchKey key = dir.register(service,
+        StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY,
+        StandardWatchEventKinds.ENTRY_DELETE);
+    keys.put(key, dir);
+    log.trace("Watching: {}", dir);
+  }
+
+  /**
+   * Register directory tree; optionally collecting files already present, which may have been created before the
+   * directory was registered.
+   */
+  private void registerTree(final Path dir, @Nullable final Set<Path> existing) throws IOException {
+    Files.walkFileTree(dir, new SimpleFileVisitor<Path>()
+    {
+      @Override
+      public FileVisitResult preVisitDirectory(final Path path, final BasicFileAttributes attrs) throws IOException {
+        register(path);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(final Path path, final BasicFileAttributes attrs) {
+        if (existing != null) {
+          existing.add(path);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(final Path path, final IOException e) {
+        log.debug("Unable to watch: {}", path, e);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Wait for the next batch of changed paths.
+   */
+  Set<Path> await(final long debounce, final TimeUnit unit) throws InterruptedException, IOException {
+    Set<Path> changes = new LinkedHashSet<>();
+    long max = unit.toNanos(debounce) * 10;
+    while (changes.isEmpty()) {
+      WatchKey key = service.take();
+      long start = System.nanoTime();
+      while (key != null) {
+        collect(key, changes);
+        if (System.nanoTime() - start > max) {
+          break;
+        }
+        key = service.poll(debounce, unit);
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * Discard pending changes.
+   */
+  void discard() {
+    WatchKey key;
+    while ((key = service.poll()) != null) {
+      key.pollEvents();
+      reset(key);
+    }
+  }
+
+  private void collect(final WatchKey key, final Set<Path> changes) throws IOException {
+    Path dir = keys.get(key);
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        log.debug("Events lost: {}", root);
+        changes.add(file != null ? file : root);
+        continue;
+      }
+      if (dir == null) {
+        continue;
+      }
+      Path child = dir.resolve((Path) event.context());
+      if (file != null) {
+        if (child.equals(file)) {
+          changes.add(child);
+        }
+        continue;
+      }
+      changes.add(child);
+      if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+        registerTree(child, changes);
+      }
+    }
+    reset(key);
+  }
+
+  private void reset(final WatchKey key) {
+    if (!key.reset()) {
+      keys.remove(key);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    service.close();
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.planet57.gshell.command.Command;
+import com.planet57.gshell.command.CommandContext;
+import com.planet57.gshell.util.cli2.Argument;
+import com.planet57.gshell.util.cli2.Option;
+import com.planet57.gshell.util.io.FileAssert;
+import com.planet57.gshell.util.io.IO;
+import com.planet57.gshell.util.jline.Complete;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Output data appended to a file as it is written.
+ *
+ * @since 3.0
+ */
+@Command(name = "watch/follow", description = "Output data appended to a file as it is written")
+public class FollowAction
+    extends FileCommandActionSupport
+{
+  private static final int BUFFER_SIZE = 8192;
+
+  @Argument(required = true, description = "The file to follow", token = "FILE")
+  @Complete("file-name")
+  private String path;
+
+  @Option(name = "n", longName = "lines", description = "Number of trailing lines to output first", token = "COUNT")
+  private int lines = 10;
+
+  @Override
+  public Object execute(@Nonnull final CommandContext context) throws Exception {
+    checkArgument(lines >= 0, "Invalid lines: %s", lines);
+    IO io = context.getIo();
+
+    File file = getFileSystem().resolveFile(path);
+    new FileAssert(file).exists().isFile();
+    Path target = file.toPath();
+
+    PrintStream out = io.streams.out;
+    WritableByteChannel sink = Channels.newChannel(out);
+
+    try (FileWatcher watcher = new FileWatcher(target)) {
+      FileChannel channel = FileChannel.open(target, StandardOpenOption.READ);
+      try {
+        Object key = fileKey(target);
+        long size = channel.size();
+        long position = transfer(channel, tail(channel, size, lines), size, sink);
+        out.flush();
+
+        while (true) {
+          // blocks until the file changes; no polling while idle
+          watcher.await(0, TimeUnit.MILLISECONDS);
+
+          Object current = fileKey(target);
+          if (current == null) {
+            // removed; keep waiting for it to come back
+            continue;
+          }
+          if (!Objects.equals(key, current)) {
+            log.debug("Replaced: {}", target);
+            io.err.println(path + ": file replaced; following new file");
+            io.err.flush();
+            channel.close();
+            channel = FileChannel.open(target, StandardOpenOption.READ);
+            key = current;
+            position = 0;
+          }
+
+          size = channel.size();
+          if (size < position) {
+            log.debug("Truncated: {}", target);
+            io.err.println(path + ": file truncated");
+            io.err.flush();
+            position = 0;
+          }
+          position = transfer(channel, position, size, sink);
+          out.flush();
+        }
+      }
+      finally {
+        channel.close();
+      }
+    }
+    catch (InterruptedException e) {
+      log.debug("Interrupted");
+    }
+    return null;
+  }
+
+  /**
+   * Identity of the file, to detect rotation; {@code null} if the file does not exist.
+   */
+  @Nullable
+  private static Object fileKey(final Path path) throws IOException {
+    try {
+      Object key = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+      // platforms without file keys do not detect rotation
+      return key != null ? key : path;
+    }
+    catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  private static long transfer(final FileChannel channel, long position, final long size,
+                               final WritableByteChannel sink)
+      throws IOException
+  {
+    while (position < size) {
+      long count = channel.transferTo(position, size - position, sink);
+      if (count <= 0) {
+        break;
+      }
+      position += count;
+    }
+    return position;
+  }
+
+  /**
+   * Find the offset of the last {@code count} lines, reading backwards from the end.
+   */
+  private static long tail(final FileChannel channel, final long size, final int count) throws IOException {
+    if (count == 0 || size == 0) {
+      return size;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    long end = size;
+    int found = 0;
+    while (end > 0) {
+      long start = Math.max(0, end - BUFFER_SIZE);
+      buffer.clear().limit((int) (end - start));
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, start + buffer.position()) < 0) {
+          break;
+        }
+      }
+      for (int i = buffer.position() - 1; i >= 0; i--) {
+        if (buffer.get(i) == '\n') {
+          // newline ending the last line does not start a line
+          if (start + i == size - 1) {
+            continue;
+          }
+          if (++found == count) {
+            return start + i + 1;
+          }
+        }
+      }
+      end = start;
+    }
+    return 0;
+  }
+}
@@ -16,15 +16,31 @@
 package com.planet57.gshell.commands.file;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.DosFileAttributes;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import com.planet57.gshell.command.Command;
 import com.planet57.gshell.command.CommandContext;
+import com.planet57.gshell.util.concurrent.Workers;
 import com.planet57.gshell.util.io.IO;
 import com.planet57.gshell.util.io.FileAssert;
 import com.planet57.gshell.util.cli2.Argument;
@@ -37,12 +53,31 @@ import com.planet57.gshell.util.jline.TerminalHelper;
 /**
  * List the contents of a file or directory.
  *
+ * Entries are read with a single bulk attribute read each and listed by name.  Recursive listings read directories
+ * in parallel on a fork/join pool while output is printed in order as each directory completes.
+ *
  * @since 2.0
  */
 @Command(name = "ls", description = "List the contents of a file or directory")
 public class ListDirectoryAction
   extends FileCommandActionSupport
 {
+  /**
+   * Most specific attributes supported by the default file-system; includes permissions or hidden flag.
+   */
+  private static final Class<? extends BasicFileAttributes> ATTRIBUTES_TYPE = attributesType();
+
+  private static Class<? extends BasicFileAttributes> attributesType() {
+    Set<String> views = FileSystems.getDefault().supportedFileAttributeViews();
+    if (views.contains("posix")) {
+      return PosixFileAttributes.class;
+    }
+    else if (views.contains("dos")) {
+      return DosFileAttributes.class;
+    }
+    return BasicFileAttributes.class;
+  }
+
   @Nullable
   @Argument(description = "The file or directory path to list.", token = "PATH")
   @Complete("file-name")
@@ -67,7 +102,15 @@ public class ListDirectoryAction
     new FileAssert(file).exists();
 
     if (file.isDirectory()) {
-      listChildren(fs, io, file);
+      ForkJoinPool pool = recursive ? new ForkJoinPool(Workers.defaultParallelism()) : null;
+      try {
+        print(io, pool, list(file.toPath()));
+      }
+      finally {
+        if (pool != null) {
+          pool.shutdownNow();
+        }
+      }
     }
     else {
       io.println(file.getPath());
@@ -76,61 +119,158 @@ public class ListDirectoryAction
     return null;
   }
 
-  private void listChildren(final FileSystemAccess fs, final IO io, final File dir) throws Exception {
-    File[] files;
+  /**
+   * Directory entry with attributes from a single read.
+   */
+  private static class Entry
+  {
+    final Path path;
 
-    if (includeHidden) {
-      files = dir.listFiles();
-    }
-    else {
-      files = dir.listFiles(file -> {
-        assert file != null;
-        return !file.isHidden();
-      });
+    final String name;
+
+    final boolean directory;
+
+    final boolean executable;
+
+    final boolean hidden;
+
+    /**
+     * Directory which is not a symbolic link; links are not followed when recursing.
+     */
+    final boolean traversable;
+
+    Entry(final Path path) throws IOException {
+      this.path = path;
+      this.name = String.valueOf(path.getFileName());
+
+      BasicFileAttributes attributes = Files.readAttributes(path, ATTRIBUTES_TYPE, LinkOption.NOFOLLOW_LINKS);
+      this.traversable = attributes.isDirectory();
+      if (attributes.isSymbolicLink()) {
+        try {
+          attributes = Files.readAttributes(path, ATTRIBUTES_TYPE);
+        }
+        catch (IOException e) {
+          // broken link; render as the link itself
+        }
+      }
+
+      this.directory = attributes.isDirectory();
+      if (attributes instanceof PosixFileAttributes) {
+        Set<PosixFilePermission> permissions = ((PosixFileAttributes) attributes).permissions();
+        // which bit applies depends on the current user; only check access when any is set
+        this.executable = !directory && (permissions.contains(PosixFilePermission.OWNER_EXECUTE) ||
+            permissions.contains(PosixFilePermission.GROUP_EXECUTE) ||
+            permissions.contains(PosixFilePermission.OTHERS_EXECUTE)) && Files.isExecutable(path);
+        this.hidden = name.startsWith(".");
+      }
+      else if (attributes instanceof DosFileAttributes) {
+        this.executable = !directory && Files.isExecutable(path);
+        this.hidden = ((DosFileAttributes) attributes).isHidden();
+      }
+      else {
+        this.executable = !directory && Files.isExecutable(path);
+        this.hidden = Files.isHidden(path);
+      }
     }
-    assert files != null;
+  }
+
+  /**
+   * Entries of a directory; or the failure reading them.
+   */
+  private static class Listing
+  {
+    final Path dir;
 
-    List<String> names = new ArrayList<>(files.length);
-    List<File> dirs = new LinkedList<>();
+    final List<Entry> entries;
 
-    for (File file : files) {
-      if (fs.hasChildren(file)) {
-        if (recursive) {
-          dirs.add(file);
+    @Nullable
+    final IOException failure;
+
+    Listing(final Path dir, final List<Entry> entries, @Nullable final IOException failure) {
+      this.dir = dir;
+      this.entries = entries;
+      this.failure = failure;
+    }
+  }
+
+  private Listing list(final Path dir) {
+    List<Entry> entries = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+      for (Path child : stream) {
+        Entry entry;
+        try {
+          entry = new Entry(child);
+        }
+        catch (IOException e) {
+          // removed since listed
+          log.trace("Skipping: {}", child, e);
+          continue;
+        }
+        if (includeHidden || !entry.hidden) {
+          entries.add(entry);
         }
       }
+    }
+    catch (DirectoryIteratorException e) {
+      log.debug("Failed to list: {}", dir, e);
+      return new Listing(dir, Collections.emptyList(), e.getCause());
+    }
+    catch (IOException e) {
+      log.debug("Failed to list: {}", dir, e);
+      return new Listing(dir, Collections.emptyList(), e);
+    }
+    entries.sort(Comparator.comparing(entry -> entry.name));
+    return new Listing(dir, entries, null);
+  }
 
-      names.add(render(file));
+  private void print(final IO io, @Nullable final ForkJoinPool pool, final Listing listing) throws Exception {
+    if (listing.failure != null) {
+      io.err.format("Unable to list: %s (%s)%n", listing.dir, listing.failure);
+      return;
     }
 
     if (longList) {
-      for (CharSequence name : names) {
-        io.println(name);
+      for (Entry entry : listing.entries) {
+        io.println(render(entry));
       }
     }
     else {
-      TerminalHelper.printColumns(io.terminal, io.out, names.stream(), true);
+      TerminalHelper.printColumns(io.terminal, io.out, listing.entries.stream().map(ListDirectoryAction::render), true);
     }
+    io.out.flush();
 
-    if (!dirs.isEmpty()) {
-      for (File subDir : dirs) {
-        io.format("%n%s:", subDir.getName());
-        listChildren(fs, io, subDir);
+    if (pool == null) {
+      return;
+    }
+
+    // read sub-directories concurrently; print in order
+    List<ForkJoinTask<Listing>> children = new ArrayList<>();
+    for (Entry entry : listing.entries) {
+      if (entry.traversable) {
+        children.add(pool.submit(() -> list(entry.path)));
       }
     }
+    for (ForkJoinTask<Listing> task : children) {
+      Listing child = task.get();
+      if (child.entries.isEmpty() && child.failure == null) {
+        continue;
+      }
+      io.format("%n%s:%n", child.dir.getFileName());
+      print(io, pool, child);
+    }
   }
 
-  private static String render(final File file) {
-    String name = file.getName();
+  private static String render(final Entry entry) {
+    String name = entry.name;
 
     PrintBuffer buff = new PrintBuffer();
-    if (file.isDirectory()) {
+    if (entry.directory) {
       buff.format("@{fg:blue %s%s}", name, File.separator);
     }
-    else if (file.canExecute()) {
+    else if (entry.executable) {
       buff.format("@{fg:green %s}", name);
     }
-    else if (file.isHidden()) {
+    else if (entry.hidden) {
       buff.format("@{faint %s}", name);
     }
     else {
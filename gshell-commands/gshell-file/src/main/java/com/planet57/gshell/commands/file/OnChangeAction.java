@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.planet57.gshell.command.Command;
+import com.planet57.gshell.command.CommandContext;
+import com.planet57.gshell.functions.FunctionFork;
+import com.planet57.gshell.util.cli2.Argument;
+import com.planet57.gshell.util.cli2.Option;
+import com.planet57.gshell.util.concurrent.Workers;
+import com.planet57.gshell.util.io.FileAssert;
+import com.planet57.gshell.util.io.FileSystemAccess;
+import com.planet57.gshell.util.io.IO;
+import com.planet57.gshell.util.jline.Complete;
+import org.apache.felix.service.command.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Run a closure when files change.
+ *
+ * @since 3.0
+ */
+@Command(name = "watch/on-change", description = "Run a closure when files change")
+public class OnChangeAction
+    extends FileCommandActionSupport
+{
+  enum Policy
+  {
+    /**
+     * Run batches one after another; changes during a run form the next batch.
+     */
+    QUEUE,
+
+    /**
+     * Run batches one after another; changes during a run are ignored.
+     */
+    SKIP,
+
+    /**
+     * Interrupt the running batch when the next one arrives.
+     */
+    RESTART,
+
+    /**
+     * Run batches concurrently, up to the number of jobs.
+     */
+    PARALLEL
+  }
+
+  @Argument(required = true, index = 0, description = "The file or directory tree to watch", token = "PATH")
+  @Complete("file-name")
+  private String path;
+
+  @Argument(required = true, index = 1, description = "Closure to run with the changed paths as arguments",
+      token = "CLOSURE")
+  private String closure;
+
+  @Option(name = "d", longName = "debounce", description = "Milliseconds without changes before running",
+      token = "MILLIS")
+  private long debounce = 200;
+
+  @Option(name = "p", longName = "policy", description = "When changes arrive while running: queue, skip, restart or parallel",
+      token = "POLICY")
+  private String policy = "queue";
+
+  @Option(name = "j", longName = "jobs", description = "Number of concurrent runs for the parallel policy",
+      token = "COUNT")
+  private int jobs;
+
+  @Option(name = "c", longName = "count", description = "Stop after running this many batches", token = "COUNT")
+  private int count;
+
+  @Override
+  public Object execute(@Nonnull final CommandContext context) throws Exception {
+    checkArgument(debounce >= 0, "Invalid debounce: %s", debounce);
+    Policy mode = Policy.valueOf(policy.toUpperCase(Locale.ENGLISH));
+    // each run gets its own scope; concurrent runs must not share closure arguments
+    FunctionFork function = FunctionFork.of(context.getSession(), function(context.getArguments()));
+    IO io = context.getIo();
+
+    FileSystemAccess fs = getFileSystem();
+    File file = fs.resolveFile(path);
+    new FileAssert(file).exists();
+
+    ExecutorService executor = null;
+    if (mode == Policy.RESTART || mode == Policy.PARALLEL) {
+      executor = Workers.newExecutor("on-change", mode == Policy.RESTART ? 1 : Workers.parallelism(jobs));
+    }
+
+    try (FileWatcher watcher = new FileWatcher(file.toPath())) {
+      Future<?> running = null;
+      for (int batch = 0; count <= 0 || batch < count; batch++) {
+        List<Object> changes = paths(watcher.await(debounce, TimeUnit.MILLISECONDS));
+        log.debug("Changes: {}", changes);
+
+        switch (mode) {
+          case QUEUE:
+            run(io, function, changes);
+            break;
+
+          case SKIP:
+            run(io, function, changes);
+            watcher.discard();
+            break;
+
+          case RESTART:
+            if (running != null) {
+              running.cancel(true);
+            }
+            running = executor.submit(() -> run(io, function, changes));
+            break;
+
+          case PARALLEL:
+            executor.submit(() -> run(io, function, changes));
+            break;
+        }
+      }
+      log.debug("Completed {} batches", count);
+    }
+    catch (InterruptedException e) {
+      log.debug("Interrupted");
+      Thread.currentThread().interrupt();
+    }
+    finally {
+      if (executor != null) {
+        stop(executor);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Let runs complete when stopping after count; interrupt them when interrupted.
+   */
+  private static void stop(final ExecutorService executor) {
+    if (Thread.currentThread().isInterrupted()) {
+      Workers.shutdownNow(executor);
+      return;
+    }
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+        Workers.shutdownNow(executor);
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      Workers.shutdownNow(executor);
+    }
+  }
+
+  /**
+   * The closure itself is only available from the raw arguments; cli2 sees its string rendering.
+   */
+  private static Function function(final List<?> arguments) {
+    for (int i = arguments.size() - 1; i >= 0; i--) {
+      if (arguments.get(i) instanceof Function) {
+        return (Function) arguments.get(i);
+      }
+    }
+    throw new IllegalArgumentException("Expected closure");
+  }
+
+  private static List<Object> paths(final Set<Path> changes) {
+    List<Object> result = new ArrayList<>(changes.size());
+    for (Path change : changes) {
+      result.add(change.toString());
+    }
+    return result;
+  }
+
+  /**
+   * Failures are reported and watching continues.
+   */
+  @Nullable
+  private Object run(final IO io, final FunctionFork function, final List<Object> changes) {
+    try {
+      return function.execute(changes);
+    }
+    catch (Exception e) {
+      if (Thread.currentThread().isInterrupted()) {
+        log.debug("Run interrupted", e);
+      }
+      else {
+        log.debug("Run failed", e);
+        io.err.println(e.toString());
+        io.err.flush();
+      }
+      return null;
+    }
+  }
+}
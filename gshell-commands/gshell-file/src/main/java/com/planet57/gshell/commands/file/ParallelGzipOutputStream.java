@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Gzip output compressing blocks concurrently.
+ *
+ * Each block becomes a complete gzip member; concatenated members form a valid gzip stream which
+ * {@link java.util.zip.GZIPInputStream} and gzip tools read as one.  At most {@code window} blocks are in flight.
+ *
+ * @since 3.0
+ */
+class ParallelGzipOutputStream
+    extends FilterOutputStream
+{
+  private static final int BLOCK_SIZE = 1024 * 1024;
+
+  private final ExecutorService executor;
+
+  private final int window;
+
+  private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+
+  private byte[] block = new byte[BLOCK_SIZE];
+
+  private int count;
+
+  private boolean written;
+
+  private boolean closed;
+
+  ParallelGzipOutputStream(final OutputStream out, final ExecutorService executor, final int window) {
+    super(checkNotNull(out));
+    this.executor = checkNotNull(executor);
+    checkArgument(window > 0);
+    this.window = window;
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    block[count++] = (byte) b;
+    if (count == block.length) {
+      submit();
+    }
+  }
+
+  @Override
+  public void write(final byte[] b, int off, int len) throws IOException {
+    while (len > 0) {
+      int n = Math.min(len, block.length - count);
+      System.arraycopy(b, off, block, count, n);
+      count += n;
+      off += n;
+      len -= n;
+      if (count == block.length) {
+        submit();
+      }
+    }
+  }
+
+  private void submit() throws IOException {
+    byte[] data = block;
+    int length = count;
+    pending.add(executor.submit(() -> compress(data, length)));
+    block = new byte[BLOCK_SIZE];
+    count = 0;
+    written = true;
+
+    while (pending.size() >= window) {
+      drain();
+    }
+  }
+
+  private static byte[] compress(final byte[] data, final int length) throws IOException {
+    ByteArrayOutputStream buff = new ByteArrayOutputStream(length / 2);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(buff, 64 * 1024)) {
+      gzip.write(data, 0, length);
+    }
+    return buff.toByteArray();
+  }
+
+  private void drain() throws IOException {
+    try {
+      out.write(pending.poll().get());
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+    catch (ExecutionException e) {
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Only flushes completed blocks; flushing partial blocks would degrade compression.
+   */
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      // an empty stream still needs one member
+      if (count > 0 || !written) {
+        submit();
+      }
+      while (!pending.isEmpty()) {
+        drain();
+      }
+      block = null;
+    }
+    finally {
+      out.close();
+    }
+  }
+}
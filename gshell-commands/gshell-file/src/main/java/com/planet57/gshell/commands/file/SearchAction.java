@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.planet57.gshell.command.Command;
+import com.planet57.gshell.command.CommandContext;
+import com.planet57.gshell.commands.file.ContentScanner.Match;
+import com.planet57.gshell.util.cli2.Argument;
+import com.planet57.gshell.util.cli2.Option;
+import com.planet57.gshell.util.concurrent.Workers;
+import com.planet57.gshell.util.io.FileAssert;
+import com.planet57.gshell.util.io.FileSystemAccess;
+import com.planet57.gshell.util.io.IO;
+import com.planet57.gshell.util.jline.Complete;
+
+/**
+ * Search file contents.
+ *
+ * @since 3.0
+ */
+@Command(name = "search", description = "Search file contents")
+public class SearchAction
+    extends FileCommandActionSupport
+{
+  @Argument(required = true, index = 0, description = "The pattern to search for", token = "PATTERN")
+  private String pattern;
+
+  @Argument(index = 1, description = "The file or directory to search; defaults to the current directory", token = "PATH")
+  @Complete("file-name")
+  private String path;
+
+  @Option(name = "F", longName = "fixed-strings", description = "Treat PATTERN as a literal string")
+  private boolean literal;
+
+  @Option(name = "i", longName = "ignore-case", description = "Ignore case distinctions")
+  private boolean ignoreCase;
+
+  @Option(name = "l", longName = "files-with-matches", description = "Only print names of files with matches")
+  private boolean filesOnly;
+
+  @Option(name = "a", longName = "text", description = "Search binary files as text")
+  private boolean text;
+
+  @Option(longName = "include", description = "Only search files matching glob", token = "GLOB")
+  private List<String> includes;
+
+  @Option(longName = "exclude", description = "Skip files and directories matching glob", token = "GLOB")
+  private List<String> excludes;
+
+  @Option(name = "j", longName = "jobs", description = "Number of files to search concurrently", token = "COUNT")
+  private int jobs;
+
+  /**
+   * Returns {@code null} when anything matched; else {@code 1}.
+   */
+  @Override
+  public Object execute(@Nonnull final CommandContext context) throws Exception {
+    IO io = context.getIo();
+    FileSystemAccess fs = getFileSystem();
+    File root = fs.resolveFile(path);
+    new FileAssert(root).exists();
+
+    ContentScanner scanner = literal && !ignoreCase
+        ? ContentScanner.literal(pattern)
+        : ContentScanner.regex(pattern, ignoreCase, literal);
+    int limit = filesOnly ? 1 : Integer.MAX_VALUE;
+
+    FileSystem fileSystem = FileSystems.getDefault();
+    List<PathMatcher> include = matchers(fileSystem, includes);
+    List<PathMatcher> exclude = matchers(fileSystem, excludes);
+
+    Path rootPath = root.toPath();
+    Path userDir = fs.getUserDir().toPath();
+
+    // files are scanned concurrently, but results are printed in walk order as soon as they are available
+    int parallelism = Workers.parallelism(jobs);
+    int window = parallelism * 4;
+    Deque<Future<Result>> pending = new ArrayDeque<>(window);
+    Printer printer = new Printer(io, userDir);
+
+    ExecutorService executor = Workers.newExecutor("search", parallelism);
+    try {
+      Files.walkFileTree(rootPath, new SimpleFileVisitor<Path>()
+      {
+        @Override
+        public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+          if (!dir.equals(rootPath) && matches(exclude, rootPath, dir)) {
+            return FileVisitResult.SKIP_SUBTREE;
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+          if (!attrs.isRegularFile() || attrs.size() == 0) {
+            return FileVisitResult.CONTINUE;
+          }
+          if (!include.isEmpty() && !matches(include, rootPath, file)) {
+            return FileVisitResult.CONTINUE;
+          }
+          if (matches(exclude, rootPath, file)) {
+            return FileVisitResult.CONTINUE;
+          }
+
+          pending.add(executor.submit(() -> new Result(file, scanner.scan(file, text, limit))));
+          while (pending.size() >= window) {
+            printer.print(pending.poll());
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(final Path file, final IOException e) {
+          log.debug("Unable to visit: {}", file, e);
+          return FileVisitResult.CONTINUE;
+        }
+      });
+
+      while (!pending.isEmpty()) {
+        printer.print(pending.poll());
+      }
+    }
+    finally {
+      Workers.shutdownNow(executor);
+    }
+
+    return printer.matched ? null : 1;
+  }
+
+  private static List<PathMatcher> matchers(final FileSystem fileSystem, @Nullable final List<String> globs) {
+    if (globs == null || globs.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<PathMatcher> result = new ArrayList<>(globs.size());
+    for (String glob : globs) {
+      result.add(fileSystem.getPathMatcher("glob:" + glob));
+    }
+    return result;
+  }
+
+  /**
+   * Globs match the file name; or the path relative to the search root when they contain a separator.
+   */
+  private static boolean matches(final List<PathMatcher> matchers, final Path root, final Path file) {
+    if (matchers.isEmpty()) {
+      return false;
+    }
+    Path name = file.getFileName();
+    Path relative = root.relativize(file);
+    for (PathMatcher matcher : matchers) {
+      if ((name != null && matcher.matches(name)) || matcher.matches(relative)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static class Result
+  {
+    private final Path file;
+
+    private final List<Match> matches;
+
+    Result(final Path file, final List<Match> matches) {
+      this.file = file;
+      this.matches = matches;
+    }
+  }
+
+  private class Printer
+  {
+    private final IO io;
+
+    private final Path userDir;
+
+    private boolean matched;
+
+    Printer(final IO io, final Path userDir) {
+      this.io = io;
+      this.userDir = userDir;
+    }
+
+    void print(final Future<Result> future) throws IOException {
+      Result result;
+      try {
+        result = future.get();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+      catch (ExecutionException e) {
+        // unreadable files are skipped, as with failures to visit
+        log.debug("Unable to search", e.getCause());
+        return;
+      }
+
+      if (result.matches.isEmpty()) {
+        return;
+      }
+      matched = true;
+
+      // paths under the current directory are shown relative to it
+      Path file = result.file.startsWith(userDir) ? userDir.relativize(result.file) : result.file;
+      if (filesOnly) {
+        io.println(file);
+        return;
+      }
+      for (Match match : result.matches) {
+        io.format("%s:%d:%s%n", file, match.line, match.text);
+      }
+    }
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.google.common.hash.Hashing;
+import com.planet57.gshell.command.Command;
+import com.planet57.gshell.command.CommandContext;
+import com.planet57.gshell.commands.file.SyncIndex.Entry;
+import com.planet57.gshell.util.cli2.Argument;
+import com.planet57.gshell.util.cli2.Option;
+import com.planet57.gshell.util.concurrent.Workers;
+import com.planet57.gshell.util.io.FileAssert;
+import com.planet57.gshell.util.io.FileSystemAccess;
+import com.planet57.gshell.util.jline.Complete;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Synchronize a directory into another.
+ *
+ * @since 3.0
+ */
+@Command(name = "sync", description = "Synchronize directories")
+public class SyncAction
+    extends FileCommandActionSupport
+{
+  @Argument(required = true, index = 0, description = "The directory to synchronize from", token = "SOURCE")
+  @Complete("directory-name")
+  private String source;
+
+  @Argument(required = true, index = 1, description = "The directory to synchronize into", token = "TARGET")
+  @Complete("directory-name")
+  private String target;
+
+  @Option(name = "d", longName = "delete", description = "Delete previously synchronized files removed from source")
+  private boolean delete;
+
+  @Option(name = "c", longName = "checksum", description = "Compare content hashes of files with changed times")
+  private boolean checksum;
+
+  @Option(name = "j", longName = "jobs", description = "Number of files to copy concurrently", token = "COUNT")
+  private int jobs;
+
+  private final AtomicInteger copied = new AtomicInteger();
+
+  private final AtomicInteger unchanged = new AtomicInteger();
+
+  private final AtomicReference<IOException> failure = new AtomicReference<>();
+
+  @Override
+  public Object execute(@Nonnull final CommandContext context) throws Exception {
+    FileSystemAccess fs = getFileSystem();
+    File sourceDir = fs.resolveFile(source);
+    File targetDir = fs.resolveFile(target);
+
+    new FileAssert(sourceDir).exists().isDirectory();
+    if (!targetDir.exists()) {
+      fs.mkdir(targetDir);
+    }
+    Path sourcePath = sourceDir.toPath().toRealPath();
+    Path targetPath = targetDir.toPath().toRealPath();
+    checkArgument(!sourcePath.equals(targetPath), "Source and target are the same directory: %s", sourceDir);
+
+    SyncIndex index = new SyncIndex(targetDir.toPath());
+    index.load();
+    Map<String, Entry> previous = new HashMap<>(index.entries());
+    Set<String> seen = ConcurrentHashMap.newKeySet();
+
+    int parallelism = Workers.parallelism(jobs);
+    ExecutorService executor = Workers.newExecutor("sync", parallelism);
+    Semaphore queued = new Semaphore(parallelism * 4);
+    try {
+      Files.walkFileTree(sourcePath, new SimpleFileVisitor<Path>()
+      {
+        @Override
+        public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+          if (dir.startsWith(targetPath)) {
+            // target nested in source; never synchronize into itself
+            log.debug("Skipping target: {}", dir);
+            return FileVisitResult.SKIP_SUBTREE;
+          }
+          Files.createDirectories(targetPath.resolve(sourcePath.relativize(dir).toString()));
+          return proceed();
+        }
+
+        @Override
+        public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+          String path = relativePath(sourcePath, file);
+          if (!attrs.isRegularFile() || SyncIndex.isIndexFile(file)) {
+            log.debug("Skipping: {}", file);
+            return proceed();
+          }
+          seen.add(path);
+
+          acquire(queued);
+          executor.execute(() -> {
+            try {
+              if (failure.get() == null) {
+                sync(fs, file, new File(targetDir, path), attrs, previous.get(path), index, path);
+              }
+            }
+            catch (IOException e) {
+              failure.compareAndSet(null, e);
+            }
+            finally {
+              queued.release();
+            }
+          });
+          return proceed();
+        }
+      });
+
+      acquire(queued, parallelism * 4);
+    }
+    finally {
+      Workers.shutdownNow(executor);
+      // record progress even when failed; completed copies need not be repeated
+      index.save();
+    }
+
+    IOException cause = failure.get();
+    if (cause != null) {
+      throw cause;
+    }
+
+    int deleted = 0;
+    if (delete) {
+      for (String path : previous.keySet()) {
+        if (!seen.contains(path)) {
+          deleteFile(fs, sourceDir, targetDir, path);
+          index.entries().remove(path);
+          deleted++;
+        }
+      }
+      index.save();
+    }
+
+    context.getIo().format("Copied %d, unchanged %d, deleted %d%n", copied.get(), unchanged.get(), deleted);
+    return null;
+  }
+
+  private FileVisitResult proceed() {
+    return failure.get() == null ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+  }
+
+  private static String relativePath(final Path base, final Path file) {
+    return base.relativize(file).toString().replace(File.separatorChar, '/');
+  }
+
+  private static void acquire(final Semaphore semaphore) throws IOException {
+    acquire(semaphore, 1);
+  }
+
+  private static void acquire(final Semaphore semaphore, final int permits) throws IOException {
+    try {
+      semaphore.acquire(permits);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+  }
+
+  /**
+   * Copy file unless the index, or on first sync the target itself, shows it unchanged.
+   */
+  private void sync(final FileSystemAccess fs,
+                    final Path file,
+                    final File dest,
+                    final BasicFileAttributes attrs,
+                    @Nullable final Entry prior,
+                    final SyncIndex index,
+                    final String path) throws IOException
+  {
+    long size = attrs.size();
+    long modified = attrs.lastModifiedTime().toMillis();
+    boolean present = dest.isFile();
+
+    if (present) {
+      if (prior != null && prior.sameAttributes(size, modified)) {
+        index.entries().put(path, prior);
+        unchanged.incrementAndGet();
+        return;
+      }
+      if (prior == null && dest.length() == size && dest.lastModified() == modified) {
+        index.entries().put(path, new Entry(size, modified, checksum ? hash(file) : null));
+        unchanged.incrementAndGet();
+        return;
+      }
+    }
+
+    byte[] hash = checksum ? hash(file) : null;
+    if (present && prior != null && prior.sameHash(hash) && dest.length() == size) {
+      // only times changed; align target so plain attribute checks match next time
+      Files.setLastModifiedTime(dest.toPath(), FileTime.fromMillis(modified));
+      index.entries().put(path, new Entry(size, modified, hash));
+      unchanged.incrementAndGet();
+      return;
+    }
+
+    log.debug("Copying: {}", path);
+    fs.copyFile(file.toFile(), dest);
+    index.entries().put(path, new Entry(size, modified, hash));
+    copied.incrementAndGet();
+  }
+
+  private static byte[] hash(final Path file) throws IOException {
+    return com.google.common.io.Files.asByteSource(file.toFile()).hash(Hashing.murmur3_128()).asBytes();
+  }
+
+  /**
+   * Delete target file, and any parent directories left empty which no longer exist in source.
+   */
+  private void deleteFile(final FileSystemAccess fs, final File sourceDir, final File targetDir, final String path)
+      throws IOException
+  {
+    File file = new File(targetDir, path);
+    if (file.isFile()) {
+      log.debug("Deleting: {}", path);
+      fs.deleteFile(file);
+    }
+
+    File parent = file.getParentFile();
+    String parentPath = path.lastIndexOf('/') > 0 ? path.substring(0, path.lastIndexOf('/')) : null;
+    while (parentPath != null && parent.isDirectory() && !new File(sourceDir, parentPath).exists()
+        && !fs.hasChildren(parent))
+    {
+      fs.deleteFile(parent);
+      parent = parent.getParentFile();
+      int i = parentPath.lastIndexOf('/');
+      parentPath = i > 0 ? parentPath.substring(0, i) : null;
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
+
+import com.planet57.gossip.Log;
+import org.slf4j.Logger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Persistent state of files synchronized into a target directory.
+ *
+ * Stored as a compact binary file in the target directory; records relative path, size, modification time and
+ * optionally a content hash of each source file as of the last sync.  Writes go to a temporary file which replaces the
+ * index atomically, so an interrupted sync leaves the previous index intact.
+ *
+ * @since 3.0
+ */
+class SyncIndex
+{
+  private static final Logger log = Log.getLogger(SyncIndex.class);
+
+  /**
+   * Name of the index file within the target directory.
+   */
+  static final String FILE_NAME = ".gshell-sync";
+
+  private static final String TEMP_FILE_NAME = FILE_NAME + ".tmp";
+
+  private static final int MAGIC = 0x47535931; // GSY1
+
+  static class Entry
+  {
+    final long size;
+
+    final long modified;
+
+    @Nullable
+    final byte[] hash;
+
+    Entry(final long size, final long modified, @Nullable final byte[] hash) {
+      this.size = size;
+      this.modified = modified;
+      this.hash = hash;
+    }
+
+    boolean sameAttributes(final long size, final long modified) {
+      return this.size == size && this.modified == modified;
+    }
+
+    boolean sameHash(@Nullable final byte[] hash) {
+      return this.hash != null && Arrays.equals(this.hash, hash);
+    }
+  }
+
+  /**
+   * Check if file is an index, or an index being saved, of any directory.
+   */
+  static boolean isIndexFile(final Path file) {
+    String name = String.valueOf(file.getFileName());
+    return name.equals(FILE_NAME) || name.equals(TEMP_FILE_NAME);
+  }
+
+  private final Path file;
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  SyncIndex(final Path dir) {
+    this.file = checkNotNull(dir).resolve(FILE_NAME);
+  }
+
+  Map<String, Entry> entries() {
+    return entries;
+  }
+
+  /**
+   * Load index; missing or unreadable index files leave the index empty so the next sync rebuilds it.
+   */
+  void load() throws IOException {
+    entries.clear();
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+      if (in.readInt() != MAGIC) {
+        log.warn("Ignoring invalid index: {}", file);
+        return;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        String path = in.readUTF();
+        long size = in.readLong();
+        long modified = in.readLong();
+        byte[] hash = null;
+        int length = in.readUnsignedByte();
+        if (length > 0) {
+          hash = new byte[length];
+          in.readFully(hash);
+        }
+        entries.put(path, new Entry(size, modified, hash));
+      }
+      log.debug("Loaded {} entries: {}", count, file);
+    }
+    catch (NoSuchFileException e) {
+      log.debug("No index: {}", file);
+    }
+    catch (IOException e) {
+      log.warn("Ignoring unreadable index: {}", file, e);
+      entries.clear();
+    }
+  }
+
+  void save() throws IOException {
+    Path temp = file.resolveSibling(TEMP_FILE_NAME);
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024))) {
+      out.writeInt(MAGIC);
+      out.writeInt(entries.size());
+      for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+        Entry value = entry.getValue();
+        out.writeUTF(entry.getKey());
+        out.writeLong(value.size);
+        out.writeLong(value.modified);
+        if (value.hash == null) {
+          out.writeByte(0);
+        }
+        else {
+          out.writeByte(value.hash.length);
+          out.write(value.hash);
+        }
+      }
+    }
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    log.debug("Saved {} entries: {}", entries.size(), file);
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.GZIPInputStream;
+
+import javax.annotation.Nonnull;
+
+import com.planet57.gshell.command.Command;
+import com.planet57.gshell.command.CommandContext;
+import com.planet57.gshell.commands.file.TarArchiveReader.Entry;
+import com.planet57.gshell.util.cli2.Argument;
+import com.planet57.gshell.util.cli2.Option;
+import com.planet57.gshell.util.concurrent.Workers;
+import com.planet57.gshell.util.io.FileAssert;
+import com.planet57.gshell.util.io.FileSystemAccess;
+import com.planet57.gshell.util.io.IO;
+import com.planet57.gshell.util.jline.Complete;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Create, extract or list tar archives.
+ *
+ * @since 3.0
+ */
+@Command(name = "tar", description = "Create, extract or list tar archives")
+public class TarAction
+    extends FileCommandActionSupport
+{
+  @Option(name = "c", longName = "create", description = "Create archive")
+  private boolean create;
+
+  @Option(name = "x", longName = "extract", description = "Extract archive")
+  private boolean extract;
+
+  @Option(name = "t", longName = "list", description = "List archive entries")
+  private boolean list;
+
+  @Option(name = "z", longName = "gzip", description = "Compress created archive with gzip")
+  private boolean gzip;
+
+  @Option(name = "f", longName = "file", required = true, description = "The archive file", token = "ARCHIVE")
+  @Complete("file-name")
+  private String file;
+
+  @Option(name = "C", longName = "directory", description = "Change to directory first", token = "DIR")
+  @Complete("directory-name")
+  private String directory;
+
+  @Option(name = "j", longName = "jobs", description = "Number of blocks to compress concurrently", token = "COUNT")
+  private int jobs;
+
+  @Argument(description = "Files or directories to add", token = "PATH")
+  @Complete("file-name")
+  private List<String> paths;
+
+  @Override
+  public Object execute(@Nonnull final CommandContext context) throws Exception {
+    int modes = (create ? 1 : 0) + (extract ? 1 : 0) + (list ? 1 : 0);
+    checkArgument(modes == 1, "Specify one of --create, --extract or --list");
+
+    FileSystemAccess fs = getFileSystem();
+    Path archive = fs.resolvePath(file);
+    File dir = fs.resolveFile(directory);
+
+    if (create) {
+      checkArgument(paths != null && !paths.isEmpty(), "Missing files to add");
+      create(fs, archive, dir);
+    }
+    else {
+      new FileAssert(archive.toFile()).exists().isFile();
+      read(context.getIo(), archive, dir.toPath());
+    }
+    return null;
+  }
+
+  //
+  // Create
+  //
+
+  private void create(final FileSystemAccess fs, final Path archive, final File dir) throws IOException {
+    ExecutorService executor = null;
+    boolean complete = false;
+    try (FileChannel channel = FileChannel.open(archive,
+        StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))
+    {
+      OutputStream output;
+      TarArchiveWriter writer;
+      if (gzip) {
+        int parallelism = Workers.parallelism(jobs);
+        executor = Workers.newExecutor("tar", parallelism);
+        output = new BufferedOutputStream(
+            new ParallelGzipOutputStream(Channels.newOutputStream(channel), executor, parallelism * 2), 64 * 1024);
+        writer = new TarArchiveWriter(output, null);
+      }
+      else {
+        output = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+        writer = new TarArchiveWriter(output, channel);
+      }
+
+      for (String path : paths) {
+        File source = fs.resolveFile(dir, path);
+        new FileAssert(source).exists();
+        add(writer, archive, source.toPath());
+      }
+      writer.close();
+      output.close();
+      complete = true;
+    }
+    finally {
+      if (executor != null) {
+        Workers.shutdownNow(executor);
+      }
+      if (!complete) {
+        try {
+          Files.deleteIfExists(archive);
+        }
+        catch (IOException e) {
+          log.debug("Unable to delete incomplete archive: {}", archive, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Add file or directory tree; entries are named relative to the parent of the given path.
+   */
+  private void add(final TarArchiveWriter writer, final Path archive, final Path root) throws IOException {
+    Path base = root.getParent() != null ? root.getParent() : root;
+    Files.walkFileTree(root, new SimpleFileVisitor<Path>()
+    {
+      @Override
+      public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+        if (!dir.equals(base)) {
+          writer.putDirectory(entryName(base, dir), attrs.lastModifiedTime().toMillis(), mode(attrs, 0755));
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+        if (!attrs.isRegularFile() || file.equals(archive)) {
+          log.debug("Skipping: {}", file);
+          return FileVisitResult.CONTINUE;
+        }
+        writer.putFile(entryName(base, file), attrs.lastModifiedTime().toMillis(), mode(attrs, 0644), attrs.size(),
+            file);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private static String entryName(final Path base, final Path file) {
+    return base.relativize(file).toString().replace(File.separatorChar, '/');
+  }
+
+  //
+  // Extract and list
+  //
+
+  private void read(final IO io, final Path archive, final Path dir) throws IOException {
+    try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+      // compression is detected from content; gzip magic is 1f 8b
+      ByteBuffer magic = ByteBuffer.allocate(2);
+      channel.read(magic, 0);
+      boolean compressed = magic.get(0) == (byte) 0x1f && magic.get(1) == (byte) 0x8b;
+
+      TarArchiveReader reader;
+      if (compressed) {
+        InputStream input = new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024);
+        reader = new TarArchiveReader(new GZIPInputStream(input, 64 * 1024));
+      }
+      else {
+        reader = new TarArchiveReader(channel);
+      }
+
+      Entry entry;
+      while ((entry = reader.next()) != null) {
+        if (list) {
+          io.format("%12d  %s%n", entry.size, entry.name);
+          continue;
+        }
+
+        Path target = resolveEntry(dir, entry.name);
+        if (entry.isDirectory()) {
+          Files.createDirectories(target);
+        }
+        else if (entry.isFile()) {
+          Files.createDirectories(target.getParent());
+          reader.extract(target);
+          Files.setLastModifiedTime(target, FileTime.fromMillis(entry.modified));
+          applyMode(target, entry.mode);
+        }
+        else {
+          log.debug("Skipping unsupported entry: {}; type: {}", entry.name, (char) entry.type);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.planet57.gshell.commands.file.TarArchiveWriter.BLOCK_SIZE;
+
+/**
+ * Reads ustar, GNU and PAX tar archives.
+ *
+ * When reading an uncompressed archive file, content is transferred to extracted files with
+ * {@link FileChannel#transferTo}.
+ *
+ * @since 3.0
+ */
+class TarArchiveReader
+{
+  static class Entry
+  {
+    final String name;
+
+    final byte type;
+
+    final long size;
+
+    final long modified;
+
+    final int mode;
+
+    Entry(final String name, final byte type, final long size, final long modified, final int mode) {
+      this.name = name;
+      this.type = type;
+      this.size = size;
+      this.modified = modified;
+      this.mode = mode;
+    }
+
+    boolean isDirectory() {
+      return type == TarArchiveWriter.TYPE_DIRECTORY || name.endsWith("/");
+    }
+
+    boolean isFile() {
+      return (type == TarArchiveWriter.TYPE_FILE || type == 0 || type == '7') && !name.endsWith("/");
+    }
+  }
+
+  @Nullable
+  private final InputStream input;
+
+  @Nullable
+  private final FileChannel channel;
+
+  private long position;
+
+  private long remaining;
+
+  private long padding;
+
+  TarArchiveReader(final InputStream input) {
+    this.input = checkNotNull(input);
+    this.channel = null;
+  }
+
+  TarArchiveReader(final FileChannel channel) {
+    this.input = null;
+    this.channel = checkNotNull(channel);
+  }
+
+  /**
+   * Returns the next entry; or {@code null} at end of archive.
+   */
+  @Nullable
+  Entry next() throws IOException {
+    String override = null;
+    byte[] header = new byte[BLOCK_SIZE];
+    while (true) {
+      skip(remaining + padding);
+      remaining = 0;
+      padding = 0;
+
+      if (!read(header, true) || isZero(header)) {
+        return null;
+      }
+      verify(header);
+
+      byte type = header[156];
+      long size = number(header, 124, 12);
+      remaining = size;
+      padding = (BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE;
+
+      switch (type) {
+        case TarArchiveWriter.TYPE_LONG_NAME:
+          override = trim(new String(content(), StandardCharsets.UTF_8));
+          continue;
+
+        case 'x': {
+          String path = paxPath(content());
+          if (path != null) {
+            override = path;
+          }
+          continue;
+        }
+
+        case 'g':
+          continue;
+
+        default:
+          String name = override != null ? override : name(header);
+          return new Entry(name, type, size, number(header, 136, 12) * 1000, (int) number(header, 100, 8));
+      }
+    }
+  }
+
+  /**
+   * Write content of the current entry to file.
+   */
+  void extract(final Path target) throws IOException {
+    if (channel != null) {
+      try (FileChannel out = FileChannel.open(target,
+          StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))
+      {
+        while (remaining > 0) {
+          long count = channel.transferTo(position, remaining, out);
+          if (count <= 0) {
+            throw new EOFException("Truncated archive");
+          }
+          position += count;
+          remaining -= count;
+        }
+      }
+      return;
+    }
+
+    checkState(input != null);
+    try (OutputStream out = Files.newOutputStream(target)) {
+      byte[] buff = new byte[64 * 1024];
+      while (remaining > 0) {
+        int n = input.read(buff, 0, (int) Math.min(buff.length, remaining));
+        if (n < 0) {
+          throw new EOFException("Truncated archive");
+        }
+        out.write(buff, 0, n);
+        remaining -= n;
+      }
+    }
+  }
+
+  private byte[] content() throws IOException {
+    if (remaining > Integer.MAX_VALUE) {
+      throw new IOException("Invalid extended header");
+    }
+    byte[] data = new byte[(int) remaining];
+    read(data, false);
+    remaining = 0;
+    return data;
+  }
+
+  /**
+   * Read fully; returns {@code false} at end of stream if allowed.
+   */
+  private boolean read(final byte[] buff, final boolean eofAllowed) throws IOException {
+    int offset = 0;
+    while (offset < buff.length) {
+      int n;
+      if (channel != null) {
+        n = channel.read(ByteBuffer.wrap(buff, offset, buff.length - offset), position);
+        if (n > 0) {
+          position += n;
+        }
+      }
+      else {
+        n = input.read(buff, offset, buff.length - offset);
+      }
+      if (n < 0) {
+        if (eofAllowed && offset == 0) {
+          return false;
+        }
+        throw new EOFException("Truncated archive");
+      }
+      offset += n;
+    }
+    return true;
+  }
+
+  private void skip(long count) throws IOException {
+    if (channel != null) {
+      position += count;
+      return;
+    }
+    while (count > 0) {
+      long n = input.skip(count);
+      if (n <= 0) {
+        if (input.read() < 0) {
+          throw new EOFException("Truncated archive");
+        }
+        n = 1;
+      }
+      count -= n;
+    }
+  }
+
+  private static boolean isZero(final byte[] header) {
+    for (byte b : header) {
+      if (b != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void verify(final byte[] header) throws IOException {
+    long expected = number(header, 148, 8);
+    byte[] copy = header.clone();
+    for (int i = 148; i < 156; i++) {
+      copy[i] = ' ';
+    }
+    if (TarArchiveWriter.checksum(copy) != expected) {
+      throw new IOException("Invalid tar header");
+    }
+  }
+
+  private static String name(final byte[] header) {
+    String name = string(header, 0, 100);
+    boolean ustar = header[257] == 'u' && header[258] == 's' && header[259] == 't' && header[260] == 'a'
+        && header[261] == 'r';
+    if (ustar) {
+      String prefix = string(header, 345, 155);
+      if (!prefix.isEmpty()) {
+        return prefix + "/" + name;
+      }
+    }
+    return name;
+  }
+
+  private static String string(final byte[] header, final int offset, final int length) {
+    int end = offset;
+    while (end < offset + length && header[end] != 0) {
+      end++;
+    }
+    return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+  }
+
+  private static String trim(final String value) {
+    int end = value.indexOf('\0');
+    return end < 0 ? value : value.substring(0, end);
+  }
+
+  /**
+   * Parse octal, or GNU base-256, number.
+   */
+  static long number(final byte[] header, final int offset, final int length) {
+    if ((header[offset] & 0x80) != 0) {
+      long value = header[offset] & 0x7F;
+      for (int i = offset + 1; i < offset + length; i++) {
+        value = (value << 8) | (header[i] & 0xFF);
+      }
+      return value;
+    }
+    long value = 0;
+    for (int i = offset; i < offset + length; i++) {
+      byte b = header[i];
+      if (b >= '0' && b <= '7') {
+        value = (value << 3) + (b - '0');
+      }
+      else if (b == 0 || (b == ' ' && value > 0)) {
+        break;
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Find {@code path} in PAX extended header records of form {@code "<length> <key>=<value>\n"}.
+   */
+  @Nullable
+  private static String paxPath(final byte[] data) {
+    int offset = 0;
+    while (offset < data.length) {
+      int space = offset;
+      while (space < data.length && data[space] != ' ') {
+        space++;
+      }
+      int length;
+      try {
+        length = Integer.parseInt(new String(data, offset, space - offset, StandardCharsets.US_ASCII));
+      }
+      catch (NumberFormatException e) {
+        return null;
+      }
+      if (length <= 0 || offset + length > data.length) {
+        return null;
+      }
+      String record = new String(data, space + 1, offset + length - space - 2, StandardCharsets.UTF_8);
+      if (record.startsWith("path=")) {
+        return record.substring(5);
+      }
+      offset += length;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Writes POSIX (ustar) tar archives.
+ *
+ * Names which do not fit ustar fields use GNU long-name entries; sizes which do not fit octal fields use the GNU
+ * base-256 encoding.  When writing an uncompressed archive straight to a file, content is transferred from each file
+ * to the archive with {@link FileChannel#transferTo}.
+ *
+ * @since 3.0
+ */
+class TarArchiveWriter
+    implements Closeable
+{
+  static final int BLOCK_SIZE = 512;
+
+  static final byte TYPE_FILE = '0';
+
+  static final byte TYPE_DIRECTORY = '5';
+
+  static final byte TYPE_LONG_NAME = 'L';
+
+  private static final String LONG_NAME = "././@LongLink";
+
+  private final OutputStream output;
+
+  @Nullable
+  private final FileChannel channel;
+
+  /**
+   * @param output   Stream to write archive to.
+   * @param channel  Channel underlying {@code output} when it is an uncompressed file; {@code null} otherwise.
+   */
+  TarArchiveWriter(final OutputStream output, @Nullable final FileChannel channel) {
+    this.output = checkNotNull(output);
+    this.channel = channel;
+  }
+
+  void putDirectory(final String name, final long modified, final int mode) throws IOException {
+    header(name.endsWith("/") ? name : name + "/", TYPE_DIRECTORY, 0, modified, mode);
+  }
+
+  void putFile(final String name, final long modified, final int mode, final long size, final Path file)
+      throws IOException
+  {
+    header(name, TYPE_FILE, size, modified, mode);
+
+    long copied;
+    if (channel != null) {
+      output.flush();
+      copied = 0;
+      try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+        while (copied < size) {
+          long count = in.transferTo(copied, size - copied, channel);
+          if (count <= 0) {
+            break;
+          }
+          copied += count;
+        }
+      }
+    }
+    else {
+      copied = Files.copy(file, output);
+    }
+    if (copied != size) {
+      throw new IOException("File changed while archiving: " + file);
+    }
+    pad(size);
+  }
+
+  private void header(final String name, final byte type, final long size, final long modified, final int mode)
+      throws IOException
+  {
+    byte[] path = name.getBytes(StandardCharsets.UTF_8);
+    byte[] header = new byte[BLOCK_SIZE];
+
+    if (path.length <= 100) {
+      System.arraycopy(path, 0, header, 0, path.length);
+    }
+    else {
+      int split = split(path);
+      if (split > 0) {
+        System.arraycopy(path, 0, header, 345, split);
+        System.arraycopy(path, split + 1, header, 0, path.length - split - 1);
+      }
+      else {
+        byte[] data = Arrays.copyOf(path, path.length + 1);
+        header(LONG_NAME, TYPE_LONG_NAME, data.length, 0, 0644);
+        output.write(data);
+        pad(data.length);
+        System.arraycopy(path, 0, header, 0, 100);
+      }
+    }
+
+    octal(header, 100, 8, mode);
+    octal(header, 108, 8, 0);
+    octal(header, 116, 8, 0);
+    number(header, 124, 12, size);
+    number(header, 136, 12, modified / 1000);
+    header[156] = type;
+    System.arraycopy("ustar\0".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 6);
+    header[263] = '0';
+    header[264] = '0';
+
+    Arrays.fill(header, 148, 156, (byte) ' ');
+    octal(header, 148, 7, checksum(header));
+    header[155] = ' ';
+
+    output.write(header);
+  }
+
+  /**
+   * Index of a separator splitting path into ustar prefix and name; or {@code -1}.
+   */
+  private static int split(final byte[] path) {
+    for (int i = Math.min(155, path.length - 1); i > 0; i--) {
+      if (path[i] == '/' && path.length - i - 1 <= 100 && path.length - i - 1 > 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  static long checksum(final byte[] header) {
+    long sum = 0;
+    for (byte b : header) {
+      sum += b & 0xFF;
+    }
+    return sum;
+  }
+
+  /**
+   * Write zero-padded octal followed by {@code NUL}.
+   */
+  private static void octal(final byte[] header, final int offset, final int length, final long value) {
+    String digits = Long.toOctalString(value);
+    int width = length - 1;
+    for (int i = 0; i < width; i++) {
+      int j = i - (width - digits.length());
+      header[offset + i] = (byte) (j < 0 ? '0' : digits.charAt(j));
+    }
+    header[offset + width] = 0;
+  }
+
+  /**
+   * Write octal; or base-256 when the value does not fit.
+   */
+  private static void number(final byte[] header, final int offset, final int length, final long value) {
+    if (value < 1L << (3 * (length - 1))) {
+      octal(header, offset, length, value);
+      return;
+    }
+    long remaining = value;
+    for (int i = offset + length - 1; i > offset; i--) {
+      header[i] = (byte) remaining;
+      remaining >>>= 8;
+    }
+    header[offset] = (byte) 0x80;
+  }
+
+  private void pad(final long size) throws IOException {
+    int padding = (int) ((BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE);
+    if (padding > 0) {
+      output.write(new byte[padding]);
+    }
+  }
+
+  /**
+   * Write end of archive; does not close the underlying stream.
+   */
+  @Override
+  public void close() throws IOException {
+    output.write(new byte[BLOCK_SIZE * 2]);
+    output.flush();
+  }
+}
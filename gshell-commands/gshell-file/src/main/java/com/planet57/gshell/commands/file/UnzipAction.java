@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import javax.annotation.Nonnull;
+
+import com.planet57.gshell.command.Command;
+import com.planet57.gshell.command.CommandContext;
+import com.planet57.gshell.commands.file.ZipArchiveReader.Entry;
+import com.planet57.gshell.util.cli2.Argument;
+import com.planet57.gshell.util.cli2.Option;
+import com.planet57.gshell.util.concurrent.Workers;
+import com.planet57.gshell.util.io.FileAssert;
+import com.planet57.gshell.util.io.FileSystemAccess;
+import com.planet57.gshell.util.io.IO;
+import com.planet57.gshell.util.jline.Complete;
+
+/**
+ * Extract a zip archive.
+ *
+ * @since 3.0
+ */
+@Command(name = "unzip", description = "Extract a zip archive")
+public class UnzipAction
+    extends FileCommandActionSupport
+{
+  @Argument(required = true, index = 0, description = "The archive to extract", token = "ARCHIVE")
+  @Complete("file-name")
+  private String archive;
+
+  @Argument(index = 1, description = "The directory to extract into; defaults to the current directory", token = "DIR")
+  @Complete("directory-name")
+  private String directory;
+
+  @Option(name = "l", longName = "list", description = "List entries instead of extracting")
+  private boolean list;
+
+  @Option(name = "j", longName = "jobs", description = "Number of entries to extract concurrently", token = "COUNT")
+  private int jobs;
+
+  @Override
+  public Object execute(@Nonnull final CommandContext context) throws Exception {
+    IO io = context.getIo();
+    FileSystemAccess fs = getFileSystem();
+    File file = fs.resolveFile(archive);
+    new FileAssert(file).exists().isFile();
+    Path dir = fs.resolvePath(directory);
+
+    try (ZipArchiveReader reader = new ZipArchiveReader(file.toPath())) {
+      List<Entry> entries;
+      try {
+        entries = reader.entries();
+      }
+      catch (ZipException e) {
+        log.debug("Falling back to sequential extraction: {}", e.toString());
+        extractSequentially(io, reader, file, dir);
+        return null;
+      }
+
+      if (list) {
+        for (Entry entry : entries) {
+          io.format("%12d  %s%n", entry.size, entry.name);
+        }
+        return null;
+      }
+
+      extract(reader, entries, dir);
+    }
+    return null;
+  }
+
+  /**
+   * Create directories up front, then extract files concurrently.
+   */
+  private void extract(final ZipArchiveReader reader, final List<Entry> entries, final Path dir) throws Exception {
+    List<Future<?>> futures = new ArrayList<>(entries.size());
+    ExecutorService executor = Workers.newExecutor("unzip", Workers.parallelism(jobs));
+    try {
+      for (Entry entry : entries) {
+        Path target = resolveEntry(dir, entry.name);
+        if (entry.isDirectory()) {
+          Files.createDirectories(target);
+          continue;
+        }
+        Files.createDirectories(target.getParent());
+        futures.add(executor.submit(() -> {
+          reader.extract(entry, target);
+          Files.setLastModifiedTime(target, FileTime.fromMillis(entry.modified));
+          if (entry.mode != -1) {
+            applyMode(target, entry.mode);
+          }
+          return null;
+        }));
+      }
+
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        }
+        catch (ExecutionException e) {
+          if (e.getCause() instanceof IOException) {
+            throw (IOException) e.getCause();
+          }
+          throw e;
+        }
+      }
+    }
+    finally {
+      Workers.shutdownNow(executor);
+    }
+  }
+
+  /**
+   * For archives the concurrent reader does not support, such as zip64.
+   */
+  private void extractSequentially(final IO io, final ZipArchiveReader reader, final File file, final Path dir)
+      throws IOException
+  {
+    Map<String, Integer> modes = list ? Collections.emptyMap() : modes(reader);
+    try (ZipFile zip = new ZipFile(file)) {
+      Enumeration<? extends ZipEntry> entries = zip.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        if (list) {
+          io.format("%12d  %s%n", entry.getSize(), entry.getName());
+          continue;
+        }
+
+        Path target = resolveEntry(dir, entry.getName());
+        if (entry.isDirectory()) {
+          Files.createDirectories(target);
+          continue;
+        }
+        Files.createDirectories(target.getParent());
+        try (InputStream input = zip.getInputStream(entry)) {
+          Files.copy(input, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.setLastModifiedTime(target, FileTime.fromMillis(entry.getTime()));
+        Integer mode = modes.get(entry.getName());
+        if (mode != null) {
+          applyMode(target, mode);
+        }
+      }
+    }
+  }
+
+  /**
+   * Unix modes of entries; or none if they can not be read.
+   */
+  private Map<String, Integer> modes(final ZipArchiveReader reader) {
+    try {
+      return reader.modes();
+    }
+    catch (IOException e) {
+      log.debug("Unable to read modes: {}", e.toString());
+      return Collections.emptyMap();
+    }
+  }
+}
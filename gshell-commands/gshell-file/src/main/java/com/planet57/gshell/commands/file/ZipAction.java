@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.planet57.gshell.command.Command;
+import com.planet57.gshell.command.CommandContext;
+import com.planet57.gshell.util.cli2.Argument;
+import com.planet57.gshell.util.cli2.Option;
+import com.planet57.gshell.util.concurrent.Workers;
+import com.planet57.gshell.util.io.CaptureBuffer;
+import com.planet57.gshell.util.io.FileAssert;
+import com.planet57.gshell.util.io.FileSystemAccess;
+import com.planet57.gshell.util.jline.Complete;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Create a zip archive.
+ *
+ * @since 3.0
+ */
+@Command(name = "zip", description = "Create a zip archive")
+public class ZipAction
+    extends FileCommandActionSupport
+{
+  /**
+   * Compressed entries up to this size are held on heap; larger entries spill off-heap and then to disk.
+   */
+  private static final int HEAP_THRESHOLD = 256 * 1024;
+
+  private static final int OFF_HEAP_THRESHOLD = 4 * 1024 * 1024;
+
+  @Argument(required = true, index = 0, description = "The archive to create", token = "ARCHIVE")
+  @Complete("file-name")
+  private String archive;
+
+  @Argument(required = true, index = 1, description = "Files or directories to add", token = "PATH")
+  @Complete("file-name")
+  private List<String> paths;
+
+  @Option(name = "l", longName = "level", description = "Compression level; 0 (store) to 9 (best)", token = "LEVEL")
+  private int level = Deflater.DEFAULT_COMPRESSION;
+
+  @Option(name = "j", longName = "jobs", description = "Number of entries to compress concurrently", token = "COUNT")
+  private int jobs;
+
+  @Override
+  public Object execute(@Nonnull final CommandContext context) throws Exception {
+    checkArgument(level >= Deflater.DEFAULT_COMPRESSION && level <= Deflater.BEST_COMPRESSION,
+        "Invalid level: %s", level);
+
+    FileSystemAccess fs = getFileSystem();
+    Path archivePath = fs.resolvePath(archive);
+
+    // entries are compressed concurrently, and written in order by this thread as soon as they are available
+    int parallelism = Workers.parallelism(jobs);
+    int window = parallelism * 4;
+    Deque<Future<Compressed>> pending = new ArrayDeque<>(window);
+
+    ExecutorService executor = Workers.newExecutor("zip", parallelism);
+    boolean complete = false;
+    try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(archivePath), 64 * 1024)) {
+      ZipArchiveWriter writer = new ZipArchiveWriter(output);
+      for (String path : paths) {
+        File source = fs.resolveFile(path);
+        new FileAssert(source).exists();
+
+        // entries are named relative to the parent of each given path
+        Path root = source.toPath();
+        Path base = root.getParent() != null ? root.getParent() : root;
+
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>()
+        {
+          @Override
+          public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+            if (!dir.equals(base)) {
+              Compressed entry = new Compressed(dir, entryName(base, dir), attrs.lastModifiedTime().toMillis(),
+                  mode(attrs, 0755));
+              enqueue(CompletableFuture.completedFuture(entry));
+            }
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+            if (!attrs.isRegularFile() || file.equals(archivePath)) {
+              return FileVisitResult.CONTINUE;
+            }
+            String name = entryName(base, file);
+            long modified = attrs.lastModifiedTime().toMillis();
+            int mode = mode(attrs, 0644);
+            enqueue(executor.submit(() -> compress(file, name, modified, mode)));
+            return FileVisitResult.CONTINUE;
+          }
+
+          private void enqueue(final Future<Compressed> future) throws IOException {
+            pending.add(future);
+            while (pending.size() >= window) {
+              write(writer, pending.poll());
+            }
+          }
+        });
+      }
+
+      while (!pending.isEmpty()) {
+        write(writer, pending.poll());
+      }
+      writer.finish();
+      complete = true;
+    }
+    finally {
+      Workers.shutdownNow(executor);
+      if (!complete) {
+        discard(pending);
+        try {
+          Files.deleteIfExists(archivePath);
+        }
+        catch (IOException e) {
+          log.debug("Unable to delete incomplete archive: {}", archivePath, e);
+        }
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Release content of entries compressed but not written; workers have been interrupted, so those still running
+   * release their own.
+   */
+  private void discard(final Deque<Future<Compressed>> pending) {
+    for (Future<Compressed> future : pending) {
+      if (!future.isDone() || future.isCancelled()) {
+        continue;
+      }
+      try {
+        Compressed entry = future.get();
+        if (entry.content != null) {
+          entry.content.close();
+        }
+      }
+      catch (Exception e) {
+        log.trace("Discarding failed entry", e);
+      }
+    }
+    pending.clear();
+  }
+
+  private static String entryName(final Path base, final Path file) {
+    return base.relativize(file).toString().replace(File.separatorChar, '/');
+  }
+
+  private Compressed compress(final Path file, final String name, final long modified, final int mode)
+      throws IOException
+  {
+    CRC32 crc = new CRC32();
+    byte[] buff = new byte[64 * 1024];
+    long size = 0;
+
+    if (level == Deflater.NO_COMPRESSION) {
+      try (InputStream input = Files.newInputStream(file)) {
+        int n;
+        while ((n = input.read(buff)) != -1) {
+          crc.update(buff, 0, n);
+          size += n;
+        }
+      }
+      return new Compressed(file, name, modified, mode, crc.getValue(), size, null);
+    }
+
+    CaptureBuffer content = new CaptureBuffer(HEAP_THRESHOLD, OFF_HEAP_THRESHOLD, null);
+    Deflater deflater = new Deflater(level, true);
+    try (InputStream input = Files.newInputStream(file)) {
+      // not closed; that would close the buffer
+      DeflaterOutputStream output = new DeflaterOutputStream(content, deflater, buff.length);
+      int n;
+      while ((n = input.read(buff)) != -1) {
+        crc.update(buff, 0, n);
+        output.write(buff, 0, n);
+        size += n;
+      }
+      output.finish();
+    }
+    catch (IOException e) {
+      content.close();
+      throw e;
+    }
+    finally {
+      deflater.end();
+    }
+
+    // store content which does not compress
+    if (content.size() >= size) {
+      content.close();
+      return new Compressed(file, name, modified, mode, crc.getValue(), size, null);
+    }
+    return new Compressed(file, name, modified, mode, crc.getValue(), size, content);
+  }
+
+  private static void write(final ZipArchiveWriter writer, final Future<Compressed> future) throws IOException {
+    Compressed entry;
+    try {
+      entry = future.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+    catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+
+    if (entry.directory) {
+      writer.putDirectory(entry.name, entry.modified, entry.mode);
+    }
+    else if (entry.content == null) {
+      writer.putStored(entry.name, entry.modified, entry.mode, entry.crc, entry.size, entry.file);
+    }
+    else {
+      try {
+        writer.putDeflated(entry.name, entry.modified, entry.mode, entry.crc, entry.size, entry.content);
+      }
+      finally {
+        entry.content.close();
+      }
+    }
+  }
+
+  private static class Compressed
+  {
+    private final Path file;
+
+    private final String name;
+
+    private final long modified;
+
+    private final int mode;
+
+    private final boolean directory;
+
+    private final long crc;
+
+    private final long size;
+
+    @Nullable
+    private final CaptureBuffer content;
+
+    /**
+     * Directory entry.
+     */
+    Compressed(final Path file, final String name, final long modified, final int mode) {
+      this.file = file;
+      this.name = name;
+      this.modified = modified;
+      this.mode = mode;
+      this.directory = true;
+      this.crc = 0;
+      this.size = 0;
+      this.content = null;
+    }
+
+    /**
+     * File entry; stored as-is if content is {@code null}.
+     */
+    Compressed(final Path file,
+               final String name,
+               final long modified,
+               final int mode,
+               final long crc,
+               final long size,
+               @Nullable final CaptureBuffer content)
+    {
+      this.file = file;
+      this.name = name;
+      this.modified = modified;
+      this.mode = mode;
+      this.directory = false;
+      this.crc = crc;
+      this.size = size;
+      this.content = content;
+    }
+  }
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads zip archives through their central directory with positional reads, so entries may be extracted concurrently.
+ *
+ * Stored entries are transferred straight from the archive with {@link FileChannel#transferTo}.  Zip64 archives are
+ * rejected with {@link ZipException}; callers may fall back to {@link java.util.zip.ZipFile}, which does not expose
+ * Unix modes, and take them from {@link #modes()}.
+ *
+ * @since 3.0
+ */
+class ZipArchiveReader
+    implements Closeable
+{
+  private static final int LOCAL_HEADER = 0x04034b50;
+
+  private static final int CENTRAL_HEADER = 0x02014b50;
+
+  private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+
+  private static final int END_SIZE = 22;
+
+  private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+
+  private static final int ZIP64_END_LOCATOR = 0x07064b50;
+
+  private static final int ZIP64_END_SIZE = 56;
+
+  private static final int ZIP64_LOCATOR_SIZE = 20;
+
+  /**
+   * Marks values which are held in zip64 extra fields.
+   */
+  private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+  /**
+   * Host system of version made by, for which external attributes hold the Unix mode in the upper 16 bits.
+   */
+  private static final int UNIX = 3;
+
+  static class Entry
+  {
+    final String name;
+
+    final int method;
+
+    final long crc;
+
+    final long compressedSize;
+
+    final long size;
+
+    final long modified;
+
+    /**
+     * Unix permission bits; or {@code -1} if not recorded.
+     */
+    final int mode;
+
+    private final long localOffset;
+
+    Entry(final String name,
+          final int method,
+          final long crc,
+          final long compressedSize,
+          final long size,
+          final long modified,
+          final int mode,
+          final long localOffset)
+    {
+      this.name = name;
+      this.method = method;
+      this.crc = crc;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.modified = modified;
+      this.mode = mode;
+      this.localOffset = localOffset;
+    }
+
+    boolean isDirectory() {
+      return name.endsWith("/");
+    }
+  }
+
+  private final FileChannel channel;
+
+  ZipArchiveReader(final Path file) throws IOException {
+    this.channel = FileChannel.open(checkNotNull(file), StandardOpenOption.READ);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  List<Entry> entries() throws IOException {
+    ByteBuffer buff = centralDirectory(false);
+    List<Entry> entries = new ArrayList<>();
+    while (buff.hasRemaining()) {
+      Entry entry = entry(buff);
+      if (entry.compressedSize == ZIP64_MAGIC || entry.size == ZIP64_MAGIC || entry.localOffset == ZIP64_MAGIC) {
+        throw new ZipException("Zip64 is not supported");
+      }
+      entries.add(entry);
+    }
+    return entries;
+  }
+
+  /**
+   * Unix permission bits of entries which record them, by name; zip64 archives are supported.
+   */
+  Map<String, Integer> modes() throws IOException {
+    ByteBuffer buff = centralDirectory(true);
+    Map<String, Integer> modes = new HashMap<>();
+    while (buff.hasRemaining()) {
+      Entry entry = entry(buff);
+      if (entry.mode != -1) {
+        modes.put(entry.name, entry.mode);
+      }
+    }
+    return modes;
+  }
+
+  /**
+   * Read central directory; located through the zip64 end record if the archive has one and {@code zip64} is set.
+   */
+  private ByteBuffer centralDirectory(final boolean zip64) throws IOException {
+    long end = findEnd();
+    ByteBuffer record = read(end, END_SIZE);
+    int count = record.getShort(10) & 0xFFFF;
+    long size = record.getInt(12) & 0xFFFFFFFFL;
+    long offset = record.getInt(16) & 0xFFFFFFFFL;
+    if (count == 0xFFFF || size == ZIP64_MAGIC || offset == ZIP64_MAGIC) {
+      if (!zip64) {
+        throw new ZipException("Zip64 is not supported");
+      }
+      if (end < ZIP64_LOCATOR_SIZE || read(end - ZIP64_LOCATOR_SIZE, 4).getInt(0) != ZIP64_END_LOCATOR) {
+        throw new ZipException("Missing zip64 end locator");
+      }
+      ByteBuffer zip64Record = read(read(end - ZIP64_LOCATOR_SIZE + 8, 8).getLong(0), ZIP64_END_SIZE);
+      if (zip64Record.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY) {
+        throw new ZipException("Invalid zip64 end record");
+      }
+      size = zip64Record.getLong(40);
+      offset = zip64Record.getLong(48);
+    }
+    if (size > Integer.MAX_VALUE) {
+      throw new ZipException("Central directory too large");
+    }
+    return read(offset, (int) size);
+  }
+
+  /**
+   * Read central directory header; sizes and offset may be zip64 markers.
+   */
+  private static Entry entry(final ByteBuffer buff) throws ZipException {
+    if (buff.remaining() < 46 || buff.getInt() != CENTRAL_HEADER) {
+      throw new ZipException("Invalid central directory");
+    }
+    int versionMadeBy = buff.getShort() & 0xFFFF;
+    buff.position(buff.position() + 2); // version needed
+    int flags = buff.getShort() & 0xFFFF;
+    int method = buff.getShort() & 0xFFFF;
+    int time = buff.getInt();
+    long crc = buff.getInt() & 0xFFFFFFFFL;
+    long compressedSize = buff.getInt() & 0xFFFFFFFFL;
+    long uncompressedSize = buff.getInt() & 0xFFFFFFFFL;
+    int nameLength = buff.getShort() & 0xFFFF;
+    int extraLength = buff.getShort() & 0xFFFF;
+    int commentLength = buff.getShort() & 0xFFFF;
+    buff.position(buff.position() + 4); // disk, internal attributes
+    int externalAttributes = buff.getInt();
+    long localOffset = buff.getInt() & 0xFFFFFFFFL;
+    if (buff.remaining() < nameLength + extraLength + commentLength) {
+      throw new ZipException("Invalid central directory");
+    }
+    byte[] name = new byte[nameLength];
+    buff.get(name);
+    buff.position(buff.position() + extraLength + commentLength);
+
+    // without the UTF-8 flag names are nominally CP437; UTF-8 is the common practice
+    String path = new String(name, (flags & 0x0800) != 0 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+    // other hosts, and some Unix tools, leave the mode unset
+    int mode = versionMadeBy >> 8 == UNIX ? externalAttributes >>> 16 & 0777 : 0;
+    return new Entry(path, method, crc, compressedSize, uncompressedSize, javaTime(time), mode == 0 ? -1 : mode,
+        localOffset);
+  }
+
+  /**
+   * Locate end of central directory record; which may be followed by a comment of up to 64K.
+   */
+  private long findEnd() throws IOException {
+    long size = channel.size();
+    int length = (int) Math.min(size, END_SIZE + 0xFFFF);
+    ByteBuffer buff = read(size - length, length);
+    for (int i = length - END_SIZE; i >= 0; i--) {
+      if (buff.getInt(i) == END_OF_CENTRAL_DIRECTORY) {
+        return size - length + i;
+      }
+    }
+    throw new ZipException("Not a zip archive");
+  }
+
+  private ByteBuffer read(final long position, final int length) throws IOException {
+    ByteBuffer buff = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    while (buff.hasRemaining()) {
+      if (channel.read(buff, position + buff.position()) < 0) {
+        throw new ZipException("Truncated archive");
+      }
+    }
+    buff.flip();
+    return buff;
+  }
+
+  private long dataOffset(final Entry entry) throws IOException {
+    ByteBuffer header = read(entry.localOffset, 30);
+    if (header.getInt(0) != LOCAL_HEADER) {
+      throw new ZipException("Invalid local header: " + entry.name);
+    }
+    return entry.localOffset + 30 + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+  }
+
+  /**
+   * Extract entry content to file; safe to call concurrently.
+   */
+  void extract(final Entry entry, final Path target) throws IOException {
+    long offset = dataOffset(entry);
+    switch (entry.method) {
+      case ZipArchiveWriter.STORED:
+        try (FileChannel out = FileChannel.open(target,
+            StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+          long copied = 0;
+          while (copied < entry.size) {
+            long count = channel.transferTo(offset + copied, entry.size - copied, out);
+            if (count <= 0) {
+              throw new ZipException("Truncated entry: " + entry.name);
+            }
+            copied += count;
+          }
+        }
+        break;
+
+      case ZipArchiveWriter.DEFLATED: {
+        Inflater inflater = new Inflater(true);
+        CRC32 crc = new CRC32();
+        InputStream region = new RegionInputStream(offset, entry.compressedSize);
+        try (InputStream in = new InflaterInputStream(region, inflater, 64 * 1024);
+             OutputStream out = Files.newOutputStream(target))
+        {
+          byte[] buff = new byte[64 * 1024];
+          int n;
+          while ((n = in.read(buff)) != -1) {
+            crc.update(buff, 0, n);
+            out.write(buff, 0, n);
+          }
+        }
+        finally {
+          inflater.end();
+        }
+        if (crc.getValue() != entry.crc) {
+          throw new ZipException("CRC mismatch: " + entry.name);
+        }
+        break;
+      }
+
+      default:
+        throw new ZipException("Unsupported compression method " + entry.method + ": " + entry.name);
+    }
+  }
+
+  static long javaTime(final int dosTime) {
+    LocalDateTime time = LocalDateTime.of(
+        ((dosTime >> 25) & 0x7F) + 1980,
+        Math.max(1, (dosTime >> 21) & 0x0F),
+        Math.max(1, (dosTime >> 16) & 0x1F),
+        (dosTime >> 11) & 0x1F,
+        (dosTime >> 5) & 0x3F,
+        Math.min(59, (dosTime << 1) & 0x3E));
+    return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+
+  /**
+   * Positional reads of a region of the archive; followed by one extra zero byte which raw inflation may require.
+   */
+  private class RegionInputStream
+      extends InputStream
+  {
+    private long position;
+
+    private long remaining;
+
+    private boolean padded;
+
+    RegionInputStream(final long position, final long length) {
+      this.position = position;
+      this.remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (remaining == 0) {
+        if (padded) {
+          return -1;
+        }
+        padded = true;
+        b[off] = 0;
+        return 1;
+      }
+      ByteBuffer buff = ByteBuffer.wrap(b, off, (int) Math.min(len, remaining));
+      int n = channel.read(buff, position);
+      if (n < 0) {
+        throw new ZipException("Truncated archive");
+      }
+      position += n;
+      remaining -= n;
+      return n;
+    }
+  }
+}
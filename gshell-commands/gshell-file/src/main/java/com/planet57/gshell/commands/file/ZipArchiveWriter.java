@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import com.planet57.gshell.util.io.CaptureBuffer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Writes zip archives from entries compressed elsewhere.
+ *
+ * {@link java.util.zip.ZipOutputStream} compresses as it writes, which serializes compression; this writer accepts
+ * entries already deflated (by workers) along with their sizes and CRC, so headers can be written up front.  Zip64 is
+ * not supported; archives are limited to 65535 entries and 4GB.  Entries carry Unix modes, as Info-ZIP records them.
+ *
+ * @since 3.0
+ */
+class ZipArchiveWriter
+{
+  private static final int LOCAL_HEADER = 0x04034b50;
+
+  private static final int CENTRAL_HEADER = 0x02014b50;
+
+  private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+
+  private static final int VERSION = 20;
+
+  /**
+   * Version made by; host system Unix, so external attributes hold the mode in the upper 16 bits.
+   */
+  private static final int VERSION_MADE_BY = 3 << 8 | VERSION;
+
+  private static final int TYPE_DIRECTORY = 0040000;
+
+  private static final int TYPE_FILE = 0100000;
+
+  /**
+   * MS-DOS directory attribute.
+   */
+  private static final int DOS_DIRECTORY = 0x10;
+
+  /**
+   * General purpose flag; names are UTF-8.
+   */
+  private static final int FLAG_UTF8 = 0x0800;
+
+  static final int STORED = 0;
+
+  static final int DEFLATED = 8;
+
+  private static final long LIMIT = 0xFFFFFFFFL;
+
+  private final OutputStream output;
+
+  private final ByteArrayOutputStream central = new ByteArrayOutputStream();
+
+  private long offset;
+
+  private int count;
+
+  ZipArchiveWriter(final OutputStream output) {
+    this.output = checkNotNull(output);
+  }
+
+  void putDirectory(final String name, final long modified, final int mode) throws IOException {
+    String path = name.endsWith("/") ? name : name + "/";
+    putEntry(path, modified, mode, STORED, 0, 0, 0);
+  }
+
+  /**
+   * Put entry with content already deflated (raw; without zlib wrapper).
+   */
+  void putDeflated(final String name,
+                   final long modified,
+                   final int mode,
+                   final long crc,
+                   final long size,
+                   final CaptureBuffer content) throws IOException
+  {
+    putEntry(name, modified, mode, DEFLATED, crc, content.size(), size);
+    content.writeTo(output);
+    offset += content.size();
+  }
+
+  /**
+   * Put entry with content copied from file as is; for content which does not compress.
+   */
+  void putStored(final String name, final long modified, final int mode, final long crc, final long size, final Path file)
+      throws IOException
+  {
+    putEntry(name, modified, mode, STORED, crc, size, size);
+    long copied = Files.copy(file, output);
+    if (copied != size) {
+      throw new IOException("File changed while archiving: " + file);
+    }
+    offset += size;
+  }
+
+  private void putEntry(final String name,
+                        final long modified,
+                        final int mode,
+                        final int method,
+                        final long crc,
+                        final long compressedSize,
+                        final long size) throws IOException
+  {
+    if (count == 0xFFFF || offset >= LIMIT || size >= LIMIT || compressedSize >= LIMIT) {
+      throw new IOException("Archive too large; zip64 is not supported");
+    }
+
+    byte[] path = name.getBytes(StandardCharsets.UTF_8);
+    int time = dosTime(modified);
+    boolean directory = name.endsWith("/");
+
+    ByteBuffer local = buffer(30 + path.length);
+    local.putInt(LOCAL_HEADER);
+    local.putShort((short) VERSION);
+    local.putShort((short) FLAG_UTF8);
+    local.putShort((short) method);
+    local.putInt(time);
+    local.putInt((int) crc);
+    local.putInt((int) compressedSize);
+    local.putInt((int) size);
+    local.putShort((short) path.length);
+    local.putShort((short) 0);
+    local.put(path);
+    output.write(local.array());
+
+    ByteBuffer entry = buffer(46 + path.length);
+    entry.putInt(CENTRAL_HEADER);
+    entry.putShort((short) VERSION_MADE_BY);
+    entry.putShort((short) VERSION);
+    entry.putShort((short) FLAG_UTF8);
+    entry.putShort((short) method);
+    entry.putInt(time);
+    entry.putInt((int) crc);
+    entry.putInt((int) compressedSize);
+    entry.putInt((int) size);
+    entry.putShort((short) path.length);
+    entry.putShort((short) 0); // extra
+    entry.putShort((short) 0); // comment
+    entry.putShort((short) 0); // disk
+    entry.putShort((short) 0); // internal attributes
+    int type = directory ? TYPE_DIRECTORY : TYPE_FILE;
+    entry.putInt((type | mode) << 16 | (directory ? DOS_DIRECTORY : 0)); // external attributes
+    entry.putInt((int) offset);
+    entry.put(path);
+    central.write(entry.array());
+
+    offset += local.capacity();
+    count++;
+  }
+
+  /**
+   * Write central directory; does not close the underlying stream.  Not called when archiving fails, as the archive
+   * is then discarded.
+   */
+  void finish() throws IOException {
+    if (offset >= LIMIT) {
+      throw new IOException("Archive too large; zip64 is not supported");
+    }
+    central.writeTo(output);
+
+    ByteBuffer end = buffer(22);
+    end.putInt(END_OF_CENTRAL_DIRECTORY);
+    end.putShort((short) 0); // disk
+    end.putShort((short) 0); // disk with central directory
+    end.putShort((short) count);
+    end.putShort((short) count);
+    end.putInt(central.size());
+    end.putInt((int) offset);
+    end.putShort((short) 0); // comment
+    output.write(end.array());
+    output.flush();
+  }
+
+  private static ByteBuffer buffer(final int size) {
+    return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Convert to MS-DOS date and time in the local time-zone; as other zip tools do.
+   */
+  static int dosTime(final long millis) {
+    LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    if (time.getYear() < 1980) {
+      time = LocalDateTime.of(1980, 1, 1, 0, 0);
+    }
+    return (time.getYear() - 1980) << 25
+        | time.getMonthValue() << 21
+        | time.getDayOfMonth() << 16
+        | time.getHour() << 11
+        | time.getMinute() << 5
+        | time.getSecond() >> 1;
+  }
+}
@@ -15,8 +15,20 @@
  */
 package com.planet57.gshell.commands.file
 
+import java.util.concurrent.Callable
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+
+import com.planet57.gshell.shell.Shell
+import com.planet57.gshell.shell.ShellBuilder
+import com.planet57.gshell.testharness.BufferIO
 import com.planet57.gshell.testharness.CommandTestSupport
 import com.planet57.gshell.variables.VariableNames
+import com.planet57.gshell.variables.VariablesSupport
+import org.jline.terminal.Terminal
+import org.jline.terminal.TerminalBuilder
 import org.junit.Test
 
 /**
@@ -35,4 +47,49 @@ class ChangeDirectoryActionTest
     assert executeCommand(path) == null
     assert shell.variables.get(VariableNames.SHELL_USER_DIR, String.class) == path
   }
+
+  @Test(timeout = 60000L)
+  void 'concurrent sessions keep their own directory'() {
+    String userDir = System.getProperty('user.dir')
+
+    Terminal terminal = TerminalBuilder.builder().dumb(true).build()
+    Shell other = lookup(ShellBuilder.class)
+        .branding(shell.branding)
+        .io(new BufferIO(terminal))
+        .variables(new VariablesSupport())
+        .build()
+    other.start()
+
+    ExecutorService executor = Executors.newFixedThreadPool(2)
+    try {
+      CyclicBarrier barrier = new CyclicBarrier(2)
+      def changeDirectory = { Shell target, String path ->
+        return {
+          barrier.await()
+          for (int i = 0; i < 50; i++) {
+            target.execute("cd $path")
+            assert target.variables.get(VariableNames.SHELL_USER_DIR, String.class) == path
+          }
+          return null
+        } as Callable<Void>
+      }
+
+      String first = util.resolvePath('src/test')
+      String second = util.resolvePath('src/main')
+      List<Future<Void>> futures = [
+          executor.submit(changeDirectory(shell, first)),
+          executor.submit(changeDirectory(other, second))
+      ]
+      futures*.get()
+
+      assert shell.variables.get(VariableNames.SHELL_USER_DIR, String.class) == first
+      assert other.variables.get(VariableNames.SHELL_USER_DIR, String.class) == second
+      assert System.getProperty('user.dir') == userDir
+    }
+    finally {
+      executor.shutdownNow()
+      other.stop()
+      terminal.close()
+    }
+  }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file
+
+import com.planet57.gshell.testharness.CommandTestSupport
+import org.junit.Test
+
+/**
+ * Tests for {@link ChecksumAction}.
+ */
+class ChecksumActionTest
+    extends CommandTestSupport
+{
+  ChecksumActionTest() {
+    super(ChecksumAction.class)
+  }
+
+  @Test
+  void 'checksum file'() {
+    File file = util.createTempFile('checksum')
+    file.text = '123456789'
+
+    assert executeCommand(file.path) == null
+    assert executeCommand('-a', 'crc32c', file.path) == null
+  }
+
+  @Test
+  void 'verify sidecar'() {
+    File dir = util.createTempDir('checksum')
+    File file = new File(dir, 'data.txt')
+    file.text = '123456789'
+    File sidecar = new File(dir, 'data.txt.sha1')
+
+    assert executeCommand('-a', 'sha1', '-c', dir.path) == 1
+
+    sidecar.text = 'f7c3bc1d808e04732adf679965ccc34ca7ae3441  data.txt\n'
+    assert executeCommand('-a', 'sha1', '-c', dir.path) == null
+
+    sidecar.text = '0000000000000000000000000000000000000000\n'
+    assert executeCommand('-a', 'sha1', '-c', dir.path) == 1
+  }
+
+  @Test
+  void 'checksum sidecar named explicitly'() {
+    File dir = util.createTempDir('checksum')
+    File sidecar = new File(dir, 'data.txt.sha1')
+    sidecar.text = '123456789'
+
+    // skipped when walking the directory
+    assert executeCommand('-a', 'sha1', dir.path) == null
+    assert io.outputString.isEmpty()
+
+    assert executeCommand('-a', 'sha1', sidecar.path) == null
+    assert io.outputString.startsWith('f7c3bc1d808e04732adf679965ccc34ca7ae3441  ')
+  }
+}
@@ -54,4 +54,25 @@ class DeleteFileActionTest
     assert dir.exists()
     executeCommand(dir.path)
   }
+
+  @Test(timeout = 10000L)
+  void 'delete directory in background'() {
+    File dir = util.createTempDir('delete-file')
+    new File(dir, 'nested').mkdirs()
+    new File(dir, 'nested/child.txt').text = 'child'
+    assert executeCommand('-r', '-b', dir.path) == null
+    assert !dir.exists()
+
+    // trash is a hidden sibling until the background delete completes
+    def trash = { dir.parentFile.listFiles().findAll { it.name.startsWith(".${dir.name}.deleting-") } }
+    while (!trash().isEmpty()) {
+      Thread.sleep(10)
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  void 'background requires recursive'() {
+    File dir = util.createTempDir('delete-file')
+    executeCommand('-b', dir.path)
+  }
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file
+
+import com.planet57.gshell.testharness.CommandTestSupport
+import org.junit.Test
+
+/**
+ * Tests for {@link FollowAction}.
+ */
+class FollowActionTest
+    extends CommandTestSupport
+{
+  FollowActionTest() {
+    super(FollowAction.class)
+  }
+
+  private static void waitFor(final Closure<Boolean> condition) {
+    while (!condition.call()) {
+      Thread.sleep(10)
+    }
+  }
+
+  @Test(timeout = 30000L)
+  void 'follow outputs tail then appended lines'() {
+    File file = util.createTempFile('follow')
+    file.text = (1..20).collect { "line${it}\n" }.join()
+
+    Thread follower = Thread.start {
+      executeCommand('-n', '2', file.path)
+    }
+    try {
+      waitFor { io.outputString == 'line19\nline20\n' }
+
+      file.append('line21\n')
+      waitFor { io.outputString == 'line19\nline20\nline21\n' }
+    }
+    finally {
+      follower.interrupt()
+      follower.join(10000L)
+    }
+  }
+}
@@ -1,21 +1,8 @@
-/*
- * Copyright (c) 2009-present the original author or authors.
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- * http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
 package com.planet57.gshell.commands.file
 
 import com.planet57.gshell.testharness.CommandTestSupport
+import org.junit.Assume
+import org.junit.Test
 
 /**
  * Tests for {@link ListDirectoryAction}.
@@ -23,9 +10,69 @@ import com.planet57.gshell.testharness.CommandTestSupport
 class ListDirectoryActionTest
     extends CommandTestSupport
 {
+  private static final String NEWLINE = System.getProperty('line.separator')
+
   ListDirectoryActionTest() {
     super(ListDirectoryAction.class)
   }
 
-  // FIXME: add tests
+  /**
+   * Output without styling.
+   */
+  private String getOutput() {
+    return io.outputString.replaceAll(/\u001B\[[\d;]*m/, '')
+  }
+
+  private static String dir(final String name) {
+    return name + File.separator
+  }
+
+  @Test
+  void 'list sorted by name'() {
+    File dir = util.createTempDir('ls')
+    new File(dir, 'b.txt').text = 'b'
+    new File(dir, 'a.txt').text = 'a'
+    new File(dir, 'c').mkdirs()
+
+    assert executeCommand('-l', dir.path) == null
+    assert output == ['a.txt', 'b.txt', dir('c'), ''].join(NEWLINE)
+  }
+
+  @Test
+  void 'hidden files only listed with all'() {
+    File dir = util.createTempDir('ls')
+    new File(dir, 'shown.txt').text = 'shown'
+    File hidden = new File(dir, '.hidden')
+    hidden.text = 'hidden'
+    // only hidden by name on some platforms
+    Assume.assumeTrue(hidden.isHidden())
+
+    assert executeCommand('-l', dir.path) == null
+    assert output == 'shown.txt' + NEWLINE
+
+    io.output.reset()
+    assert executeCommand('-l', '-a', dir.path) == null
+    assert output == ['.hidden', 'shown.txt', ''].join(NEWLINE)
+  }
+
+  @Test
+  void 'recursive listing in order with headers'() {
+    File dir = util.createTempDir('ls')
+    new File(dir, 'b').mkdirs()
+    new File(dir, 'b/fb.txt').text = 'b'
+    new File(dir, 'a/x').mkdirs()
+    new File(dir, 'a/fa.txt').text = 'a'
+    new File(dir, 'a/x/fx.txt').text = 'x'
+    new File(dir, 'empty').mkdirs()
+    new File(dir, 'f.txt').text = 'f'
+
+    assert executeCommand('-l', '-r', dir.path) == null
+    assert output == [
+        dir('a'), dir('b'), dir('empty'), 'f.txt',
+        '', 'a:', 'fa.txt', dir('x'),
+        '', 'x:', 'fx.txt',
+        '', 'b:', 'fb.txt',
+        ''
+    ].join(NEWLINE)
+  }
 }
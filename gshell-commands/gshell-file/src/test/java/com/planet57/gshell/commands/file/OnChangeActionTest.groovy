@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+import com.planet57.gshell.testharness.CommandTestSupport
+import org.apache.felix.service.command.Function
+import org.junit.Test
+
+/**
+ * Tests for {@link OnChangeAction}.
+ */
+class OnChangeActionTest
+    extends CommandTestSupport
+{
+  OnChangeActionTest() {
+    super(OnChangeAction.class)
+  }
+
+  @Test(timeout = 30000L)
+  void 'run closure on change'() {
+    File dir = util.createTempDir('watch')
+    List<Object> changes = new CopyOnWriteArrayList<>()
+    shell.variables.set('record', { session, args -> changes.addAll(args); null } as Function)
+    Thread.start {
+      sleep(500)
+      new File(dir, 'a.txt').text = 'alpha'
+    }
+
+    assert executeCommand('-c', '1', dir.path, '$record') == null
+    assert changes == [new File(dir.canonicalFile, 'a.txt').path]
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  void 'invalid policy'() {
+    File dir = util.createTempDir('watch')
+    executeCommand('-p', 'never', dir.path, '{ $args }')
+  }
+}
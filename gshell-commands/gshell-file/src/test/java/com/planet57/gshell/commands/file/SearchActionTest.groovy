@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Path
+
+import com.planet57.gshell.testharness.CommandTestSupport
+import com.planet57.gshell.util.io.FileSystemAccess
+import org.junit.Test
+
+/**
+ * Tests for {@link SearchAction}.
+ */
+class SearchActionTest
+    extends CommandTestSupport
+{
+  private static final String NEWLINE = System.getProperty('line.separator')
+
+  SearchActionTest() {
+    super(SearchAction.class)
+  }
+
+  /**
+   * Expected output line; paths under the current directory are shown relative to it.
+   */
+  private String line(final File file, final int line, final String text) {
+    Path userDir = lookup(FileSystemAccess.class).userDir.toPath()
+    Path path = file.canonicalFile.toPath()
+    return "${path.startsWith(userDir) ? userDir.relativize(path) : path}:${line}:${text}${NEWLINE}"
+  }
+
+  @Test
+  void 'search matches'() {
+    File dir = util.createTempDir('search')
+    new File(dir, 'a.txt').text = 'alpha\nbeta\n'
+    new File(dir, 'sub').mkdirs()
+    new File(dir, 'sub/b.txt').text = 'gamma\n'
+
+    assert executeCommand('b.ta', dir.path) == null
+    assert io.outputString == line(new File(dir, 'a.txt'), 2, 'beta')
+
+    io.output.reset()
+    assert executeCommand('-F', 'gamma', dir.path) == null
+    assert io.outputString == line(new File(dir, 'sub/b.txt'), 1, 'gamma')
+  }
+
+  @Test
+  void 'search matches non-ascii'() {
+    File dir = util.createTempDir('search')
+    File file = new File(dir, 'a.txt')
+    file.setText('\u00c9cole\nb\u00e9ta\n\u00e9cole\n', StandardCharsets.UTF_8.name())
+
+    assert executeCommand('b.ta', dir.path) == null
+    assert io.outputString == line(file, 2, 'b\u00e9ta')
+
+    io.output.reset()
+    assert executeCommand('-i', '\u00e9cole', dir.path) == null
+    assert io.outputString == line(file, 1, '\u00c9cole') + line(file, 3, '\u00e9cole')
+  }
+
+  @Test
+  void 'search without matches'() {
+    File dir = util.createTempDir('search')
+    new File(dir, 'a.txt').text = 'alpha\n'
+    new File(dir, 'b.bin').bytes = [98, 101, 116, 97, 0] as byte[]
+
+    assert executeCommand('beta', dir.path) == 1
+    assert executeCommand('--exclude', '*.txt', 'alpha', dir.path) == 1
+  }
+}
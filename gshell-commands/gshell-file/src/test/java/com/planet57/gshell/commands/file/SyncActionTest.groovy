@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file
+
+import com.planet57.gshell.testharness.CommandTestSupport
+import org.junit.Test
+
+/**
+ * Tests for {@link SyncAction}.
+ */
+class SyncActionTest
+    extends CommandTestSupport
+{
+  private static final String NEWLINE = System.getProperty('line.separator')
+
+  SyncActionTest() {
+    super(SyncAction.class)
+  }
+
+  @Test
+  void 'sync directory'() {
+    File source = util.createTempDir('source')
+    new File(source, 'a.txt').text = 'a'
+    new File(source, 'sub').mkdirs()
+    new File(source, 'sub/b.txt').text = 'b'
+
+    File target = util.createTempDir('target')
+
+    assert executeCommand(source.path, target.path) == null
+    assert new File(target, 'a.txt').text == 'a'
+    assert new File(target, 'sub/b.txt').text == 'b'
+    assert new File(target, SyncIndex.FILE_NAME).exists()
+  }
+
+  @Test
+  void 'sync copies only changed files'() {
+    File source = util.createTempDir('source')
+    new File(source, 'a.txt').text = 'a'
+    new File(source, 'sub').mkdirs()
+    new File(source, 'sub/b.txt').text = 'b'
+
+    File target = util.createTempDir('target')
+
+    assert executeCommand(source.path, target.path) == null
+    assert io.outputString == 'Copied 2, unchanged 0, deleted 0' + NEWLINE
+
+    io.output.reset()
+    assert executeCommand(source.path, target.path) == null
+    assert io.outputString == 'Copied 0, unchanged 2, deleted 0' + NEWLINE
+
+    File changed = new File(source, 'sub/b.txt')
+    changed.text = 'changed'
+    changed.lastModified = changed.lastModified() + 2000
+
+    io.output.reset()
+    assert executeCommand(source.path, target.path) == null
+    assert io.outputString == 'Copied 1, unchanged 1, deleted 0' + NEWLINE
+    assert new File(target, 'sub/b.txt').text == 'changed'
+  }
+
+  @Test
+  void 'sync deletes removed files'() {
+    File source = util.createTempDir('source')
+    new File(source, 'a.txt').text = 'a'
+    new File(source, 'sub').mkdirs()
+    new File(source, 'sub/b.txt').text = 'b'
+
+    File target = util.createTempDir('target')
+    File unrelated = new File(target, 'unrelated.txt')
+    unrelated.text = 'x'
+
+    assert executeCommand(source.path, target.path) == null
+
+    assert new File(source, 'sub/b.txt').delete()
+    assert new File(source, 'sub').delete()
+
+    assert executeCommand('--delete', source.path, target.path) == null
+    assert new File(target, 'a.txt').exists()
+    assert !new File(target, 'sub').exists()
+    assert unrelated.exists()
+  }
+
+  @Test
+  void 'sync into target nested in source'() {
+    File source = util.createTempDir('source')
+    new File(source, 'a.txt').text = 'a'
+    File target = new File(source, 'sub/target')
+
+    assert executeCommand(source.path, target.path) == null
+    assert io.outputString == 'Copied 1, unchanged 0, deleted 0' + NEWLINE
+    assert new File(target, 'a.txt').text == 'a'
+    assert !new File(target, 'sub/target').exists()
+
+    // target and its index are not synchronized into itself on later runs
+    io.output.reset()
+    assert executeCommand(source.path, target.path) == null
+    assert io.outputString == 'Copied 0, unchanged 1, deleted 0' + NEWLINE
+    assert !new File(target, 'sub/target').exists()
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  void 'sync into source rejected'() {
+    File source = util.createTempDir('source')
+    executeCommand(source.path, source.path)
+  }
+
+  @Test
+  void 'sync skips nested index files'() {
+    File source = util.createTempDir('source')
+    new File(source, 'sub').mkdirs()
+    new File(source, 'sub/b.txt').text = 'b'
+    new File(source, "sub/${SyncIndex.FILE_NAME}").text = 'index'
+
+    File target = util.createTempDir('target')
+
+    assert executeCommand(source.path, target.path) == null
+    assert new File(target, 'sub/b.txt').text == 'b'
+    assert !new File(target, "sub/${SyncIndex.FILE_NAME}").exists()
+  }
+}
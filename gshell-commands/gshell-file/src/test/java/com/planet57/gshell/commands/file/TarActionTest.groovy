@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file
+
+import com.planet57.gshell.testharness.CommandTestSupport
+import com.planet57.gshell.util.io.FileAssert
+import org.junit.Test
+
+/**
+ * Tests for {@link TarAction}.
+ */
+class TarActionTest
+    extends CommandTestSupport
+{
+  TarActionTest() {
+    super(TarAction.class)
+  }
+
+  private void roundTrip(final String... options) {
+    File dir = util.createTempDir('tar')
+    File source = new File(dir, 'source')
+    new File(source, 'sub').mkdirs()
+    new File(source, 'a.txt').text = 'a' * 1000
+    new File(source, 'sub/b.txt').text = 'b'
+
+    File archive = new File(dir, 'out.tar')
+    assert executeCommand(*options, '-f', archive.path, source.path) == null
+
+    File target = new File(dir, 'out')
+    target.mkdirs()
+    assert executeCommand('-x', '-f', archive.path, '-C', target.path) == null
+    assert new File(target, 'source/a.txt').text == 'a' * 1000
+    assert new File(target, 'source/sub/b.txt').text == 'b'
+  }
+
+  @Test
+  void 'create and extract'() {
+    roundTrip('-c')
+  }
+
+  @Test
+  void 'create and extract compressed'() {
+    roundTrip('-c', '-z')
+  }
+
+  @Test
+  void 'failed create removes archive'() {
+    File dir = util.createTempDir('tar')
+    File source = new File(dir, 'source')
+    source.mkdirs()
+    new File(source, 'a.txt').text = 'a' * 1000
+
+    File archive = new File(dir, 'out.tar')
+    try {
+      executeCommand('-c', '-f', archive.path, source.path, new File(dir, 'missing').path)
+      assert false
+    }
+    catch (FileAssert.AssertionException e) {
+      // expected
+    }
+    assert !archive.exists()
+  }
+}
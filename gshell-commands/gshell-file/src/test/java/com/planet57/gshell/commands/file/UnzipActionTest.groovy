@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file
+
+import java.nio.file.Files
+import java.nio.file.attribute.PosixFilePermissions
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+import com.planet57.gshell.testharness.CommandTestSupport
+import org.junit.Assume
+import org.junit.Test
+
+/**
+ * Tests for {@link UnzipAction}.
+ */
+class UnzipActionTest
+    extends CommandTestSupport
+{
+  UnzipActionTest() {
+    super(UnzipAction.class)
+  }
+
+  @Override
+  void setUp() {
+    requiredCommands.put('zip', ZipAction.class)
+    super.setUp()
+  }
+
+  @Test
+  void 'unzip archive'() {
+    File dir = util.createTempDir('unzip')
+    File archive = new File(dir, 'in.zip')
+    new ZipOutputStream(new FileOutputStream(archive)).withCloseable { zip ->
+      zip.putNextEntry(new ZipEntry('sub/'))
+      zip.putNextEntry(new ZipEntry('sub/a.txt'))
+      zip.write(('a' * 1000).bytes)
+      ZipEntry stored = new ZipEntry('b.txt')
+      stored.method = ZipEntry.STORED
+      stored.size = 1
+      stored.crc = 0x71beeff9L // crc32 of 'b'
+      zip.putNextEntry(stored)
+      zip.write('b'.bytes)
+    }
+
+    File target = new File(dir, 'out')
+    assert executeCommand(archive.path, target.path) == null
+    assert new File(target, 'sub/a.txt').text == 'a' * 1000
+    assert new File(target, 'b.txt').text == 'b'
+  }
+
+  @Test(expected = IOException.class)
+  void 'reject entries outside of directory'() {
+    File dir = util.createTempDir('unzip')
+    File archive = new File(dir, 'evil.zip')
+    new ZipOutputStream(new FileOutputStream(archive)).withCloseable { zip ->
+      zip.putNextEntry(new ZipEntry('../evil.txt'))
+      zip.write('x'.bytes)
+    }
+
+    executeCommand(archive.path, new File(dir, 'out').path)
+  }
+
+  @Test
+  void 'unzip restores unix modes'() {
+    File dir = util.createTempDir('unzip')
+    File source = new File(dir, 'source')
+    source.mkdirs()
+    File script = new File(source, 'run.sh')
+    script.text = 'exit 0'
+    File data = new File(source, 'data.txt')
+    data.text = 'data'
+    try {
+      Files.setPosixFilePermissions(script.toPath(), PosixFilePermissions.fromString('rwxr-x---'))
+      Files.setPosixFilePermissions(data.toPath(), PosixFilePermissions.fromString('rw-r-----'))
+    }
+    catch (UnsupportedOperationException e) {
+      Assume.assumeNoException(e)
+    }
+
+    File archive = new File(dir, 'out.zip')
+    assert executeLine("zip ${archive.path} ${source.path}") == null
+
+    File target = new File(dir, 'out')
+    assert executeCommand(archive.path, target.path) == null
+    assert new File(target, 'source/run.sh').text == 'exit 0'
+    assert PosixFilePermissions.toString(Files.getPosixFilePermissions(new File(target, 'source/run.sh').toPath())) == 'rwxr-x---'
+    assert PosixFilePermissions.toString(Files.getPosixFilePermissions(new File(target, 'source/data.txt').toPath())) == 'rw-r-----'
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.file
+
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.attribute.PosixFilePermissions
+import java.util.zip.ZipFile
+
+import com.planet57.gshell.testharness.CommandTestSupport
+import com.planet57.gshell.util.io.FileAssert
+import org.junit.Assume
+import org.junit.Test
+
+/**
+ * Tests for {@link ZipAction}.
+ */
+class ZipActionTest
+    extends CommandTestSupport
+{
+  ZipActionTest() {
+    super(ZipAction.class)
+  }
+
+  @Test
+  void 'zip directory'() {
+    File dir = util.createTempDir('zip')
+    File source = new File(dir, 'source')
+    new File(source, 'sub').mkdirs()
+    new File(source, 'a.txt').text = 'a' * 1000
+    new File(source, 'sub/b.txt').text = 'b'
+
+    File archive = new File(dir, 'out.zip')
+    assert executeCommand(archive.path, source.path) == null
+
+    new ZipFile(archive).withCloseable { zip ->
+      assert zip.getEntry('source/') != null
+      assert zip.getInputStream(zip.getEntry('source/a.txt')).text == 'a' * 1000
+      assert zip.getInputStream(zip.getEntry('source/sub/b.txt')).text == 'b'
+    }
+  }
+
+  /**
+   * External attributes of entries by name; read from the central directory.
+   */
+  private static Map<String, Integer> externalAttributes(final File archive) {
+    ByteBuffer buff = ByteBuffer.wrap(archive.bytes).order(ByteOrder.LITTLE_ENDIAN)
+    int end = buff.limit() - 22
+    assert buff.getInt(end) == 0x06054b50
+    int count = buff.getShort(end + 10) & 0xFFFF
+    int position = buff.getInt(end + 16)
+
+    Map<String, Integer> result = [:]
+    count.times {
+      assert buff.getInt(position) == 0x02014b50
+      // made by unix
+      assert (buff.getShort(position + 4) & 0xFFFF) >> 8 == 3
+      int nameLength = buff.getShort(position + 28) & 0xFFFF
+      int extraLength = buff.getShort(position + 30) & 0xFFFF
+      int commentLength = buff.getShort(position + 32) & 0xFFFF
+      String name = new String(archive.bytes, position + 46, nameLength, StandardCharsets.UTF_8)
+      result[name] = buff.getInt(position + 38)
+      position += 46 + nameLength + extraLength + commentLength
+    }
+    return result
+  }
+
+  @Test
+  void 'zip records unix modes'() {
+    File dir = util.createTempDir('zip')
+    File source = new File(dir, 'source')
+    source.mkdirs()
+    File script = new File(source, 'run.sh')
+    script.text = 'exit 0'
+    try {
+      Files.setPosixFilePermissions(script.toPath(), PosixFilePermissions.fromString('rwxr-x---'))
+    }
+    catch (UnsupportedOperationException e) {
+      Assume.assumeNoException(e)
+    }
+
+    File archive = new File(dir, 'out.zip')
+    assert executeCommand(archive.path, source.path) == null
+
+    Map<String, Integer> attributes = externalAttributes(archive)
+    assert attributes['source/run.sh'] >>> 16 == 0100750
+    assert (attributes['source/'] >>> 16 & 0170000) == 040000
+    assert (attributes['source/'] & 0x10) != 0
+  }
+
+  @Test
+  void 'failed zip removes archive'() {
+    File dir = util.createTempDir('zip')
+    File source = new File(dir, 'source')
+    source.mkdirs()
+    new File(source, 'a.txt').text = 'a' * 1000
+
+    File archive = new File(dir, 'out.zip')
+    try {
+      executeCommand(archive.path, source.path, new File(dir, 'missing').path)
+      assert false
+    }
+    catch (FileAssert.AssertionException e) {
+      // expected
+    }
+    assert !archive.exists()
+  }
+}
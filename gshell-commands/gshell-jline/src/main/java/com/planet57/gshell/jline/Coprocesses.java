@@ -0,0 +1,400 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.jline;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import com.planet57.gshell.variables.VariableNames;
+import org.apache.felix.service.command.CommandSession;
+import org.jline.builtins.Options;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent coprocesses; avoids spawning a process for each call of a frequently used tool.
+ *
+ * Each named coprocess is a pool of long-lived processes which answer requests written to their input, one line per
+ * request, with a reply of one line or of lines ended by a terminator line.  Requests borrow a process from the pool,
+ * so up to the pool size may proceed concurrently; as from {@code parallel}.  Processes which fail are replaced.
+ *
+ * Pools belong to the session which started them, and are destroyed when its shell stops; see
+ * {@link VariableNames#SHELL_RESOURCES}.
+ *
+ * @since 3.0
+ */
+public class Coprocesses
+{
+  private static final Logger log = LoggerFactory.getLogger(Coprocesses.class);
+
+  public Object coproc(final CommandSession session, final Object[] argv) throws Exception {
+    String[] usage = {
+        "coproc -  manage persistent coprocesses",
+        "Usage: coproc [OPTIONS] start NAME COMMAND [ARGS...]",
+        "       coproc send NAME REQUEST",
+        "       coproc stop NAME",
+        "       coproc list",
+        "  -? --help                    Show help",
+        "  -n --size=NUM                Number of processes in the pool (default: 1)",
+        "  -t --terminator=LINE         Line which ends each reply; by default replies are one line",
+    };
+    Options opt = Options.compile(usage).setOptionsFirst(true).parse(argv);
+    if (opt.isSet("help") || opt.args().isEmpty()) {
+      opt.usage(System.err);
+      return null;
+    }
+
+    Map<String, Pool> pools = registry(session).pools;
+    List<String> args = opt.args();
+    String action = args.get(0);
+    switch (action) {
+      case "start": {
+        if (args.size() < 3) {
+          throw new IllegalArgumentException("usage: coproc [OPTIONS] start NAME COMMAND [ARGS...]");
+        }
+        String name = args.get(1);
+        int size = opt.isSet("size") ? opt.getNumber("size") : 1;
+        if (size < 1) {
+          throw new IllegalArgumentException("Invalid size: " + size);
+        }
+        Pool pool = new Pool(name, args.subList(2, args.size()), directory(session), environment(session), size,
+            opt.isSet("terminator") ? opt.get("terminator") : null);
+        if (pools.putIfAbsent(name, pool) != null) {
+          throw new IllegalStateException("Coprocess already started: " + name);
+        }
+        // start one eagerly to report failures here rather than on first request
+        try {
+          pool.release(pool.create());
+        }
+        catch (IOException e) {
+          pools.remove(name);
+          throw e;
+        }
+        return null;
+      }
+
+      case "send": {
+        if (args.size() != 3) {
+          throw new IllegalArgumentException("usage: coproc send NAME REQUEST");
+        }
+        Pool pool = pools.get(args.get(1));
+        if (pool == null) {
+          throw new IllegalArgumentException("No such coprocess: " + args.get(1));
+        }
+        return pool.send(args.get(2));
+      }
+
+      case "stop": {
+        if (args.size() != 2) {
+          throw new IllegalArgumentException("usage: coproc stop NAME");
+        }
+        Pool pool = pools.remove(args.get(1));
+        if (pool == null) {
+          throw new IllegalArgumentException("No such coprocess: " + args.get(1));
+        }
+        pool.close();
+        return null;
+      }
+
+      case "list": {
+        List<String> result = new ArrayList<>();
+        pools.values().forEach(pool -> result.add(pool.toString()));
+        return result;
+      }
+
+      default:
+        throw new IllegalArgumentException("Unknown action: " + action);
+    }
+  }
+
+  /**
+   * Pools of the session.
+   */
+  private static Registry registry(final CommandSession session) {
+    return (Registry) resources(session).computeIfAbsent(Registry.class.getName(), key -> new Registry());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, AutoCloseable> resources(final CommandSession session) {
+    synchronized (session) {
+      Object resources = session.get(VariableNames.SHELL_RESOURCES);
+      if (resources instanceof Map) {
+        return (Map<String, AutoCloseable>) resources;
+      }
+      // session not created by a shell; nothing will close its resources
+      Map<String, AutoCloseable> result = new ConcurrentHashMap<>();
+      session.put(VariableNames.SHELL_RESOURCES, result);
+      return result;
+    }
+  }
+
+  @Nullable
+  private static File directory(final CommandSession session) {
+    Object dir = session.get(VariableNames.SHELL_USER_DIR);
+    if (dir instanceof File) {
+      return (File) dir;
+    }
+    return dir != null ? new File(dir.toString()) : null;
+  }
+
+  /**
+   * Environment of the invoking client when the shell is served by a daemon; else {@code null} to inherit.
+   */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  private static Map<String, String> environment(final CommandSession session) {
+    Object env = session.get(VariableNames.SHELL_ENV);
+    if (env instanceof Map) {
+      return (Map<String, String>) env;
+    }
+    return null;
+  }
+
+  /**
+   * Pools of a session.
+   */
+  private static class Registry
+    implements AutoCloseable
+  {
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+    @Override
+    public void close() {
+      pools.values().forEach(Pool::close);
+      pools.clear();
+    }
+  }
+
+  //
+  // Pool
+  //
+
+  private static class Pool
+  {
+    /**
+     * Interval at which waiting requests re-check for free permits and a closed pool.
+     */
+    private static final long WAIT_MILLIS = 100;
+
+    private final String name;
+
+    private final List<String> command;
+
+    @Nullable
+    private final File directory;
+
+    @Nullable
+    private final Map<String, String> environment;
+
+    @Nullable
+    private final String terminator;
+
+    private final int size;
+
+    private final BlockingQueue<Coprocess> idle = new LinkedBlockingQueue<>();
+
+    /**
+     * Permits to create processes; bounds the pool size.
+     */
+    private final Semaphore permits;
+
+    private volatile boolean closed;
+
+    Pool(final String name,
+         final List<String> command,
+         @Nullable final File directory,
+         @Nullable final Map<String, String> environment,
+         final int size,
+         @Nullable final String terminator)
+    {
+      this.name = name;
+      this.command = new ArrayList<>(command);
+      this.directory = directory;
+      this.environment = environment;
+      this.size = size;
+      this.terminator = terminator;
+      this.permits = new Semaphore(size);
+    }
+
+    Coprocess create() throws IOException {
+      if (!permits.tryAcquire()) {
+        throw new IllegalStateException("Pool exhausted: " + name);
+      }
+      return spawn();
+    }
+
+    /**
+     * Start a process; caller must hold a permit, which is released on failure.
+     */
+    private Coprocess spawn() throws IOException {
+      try {
+        return new Coprocess(command, directory, environment);
+      }
+      catch (IOException e) {
+        permits.release();
+        throw e;
+      }
+    }
+
+    /**
+     * Borrow idle process; create when under size; else wait for one to be released or discarded.
+     */
+    Coprocess acquire() throws Exception {
+      while (true) {
+        if (closed) {
+          throw new IllegalStateException("Coprocess stopped: " + name);
+        }
+        Coprocess process = idle.poll();
+        if (process == null && permits.tryAcquire()) {
+          return spawn();
+        }
+        if (process == null) {
+          process = idle.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        if (process != null) {
+          return process;
+        }
+      }
+    }
+
+    synchronized void release(final Coprocess process) {
+      if (closed) {
+        process.destroy();
+      }
+      else {
+        idle.add(process);
+      }
+    }
+
+    void discard(final Coprocess process) {
+      process.destroy();
+      permits.release();
+    }
+
+    String send(final String request) throws Exception {
+      Coprocess process = acquire();
+      String reply;
+      try {
+        reply = process.send(request, terminator);
+      }
+      catch (IOException e) {
+        log.debug("Discarding failed coprocess: {}", name, e);
+        discard(process);
+        throw e;
+      }
+      release(process);
+      return reply;
+    }
+
+    /**
+     * Destroy idle processes; busy processes are destroyed when released, and waiting requests fail.
+     */
+    synchronized void close() {
+      closed = true;
+      Coprocess process;
+      while ((process = idle.poll()) != null) {
+        process.destroy();
+      }
+    }
+
+    @Override
+    public String toString() {
+      return name + " [" + (size - permits.availablePermits()) + "/" + size + " processes]: " + String.join(" ", command);
+    }
+  }
+
+  private static class Coprocess
+  {
+    private static final File NULL_FILE = new File(
+        System.getProperty("os.name", "").startsWith("Windows") ? "NUL" : "/dev/null");
+
+    private final Process process;
+
+    private final BufferedWriter input;
+
+    private final BufferedReader output;
+
+    Coprocess(final List<String> command,
+              @Nullable final File directory,
+              @Nullable final Map<String, String> environment)
+        throws IOException
+    {
+      log.debug("Starting coprocess: {}", command);
+      // error is discarded; a full error pipe would otherwise stall the process
+      ProcessBuilder builder = new ProcessBuilder(command)
+          .directory(directory)
+          .redirectError(ProcessBuilder.Redirect.appendTo(NULL_FILE));
+      if (environment != null) {
+        builder.environment().putAll(environment);
+      }
+      process = builder.start();
+      input = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+      output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    String send(final String request, @Nullable final String terminator) throws IOException {
+      input.write(request);
+      input.newLine();
+      input.flush();
+
+      if (terminator == null) {
+        return readLine();
+      }
+
+      StringBuilder reply = new StringBuilder();
+      String line;
+      while (!terminator.equals(line = readLine())) {
+        if (reply.length() != 0) {
+          reply.append('\n');
+        }
+        reply.append(line);
+      }
+      return reply.toString();
+    }
+
+    private String readLine() throws IOException {
+      String line = output.readLine();
+      if (line == null) {
+        throw new IOException("Coprocess exited: " + exitCode());
+      }
+      return line;
+    }
+
+    @Nullable
+    private Integer exitCode() {
+      return process.isAlive() ? null : process.exitValue();
+    }
+
+    void destroy() {
+      process.destroy();
+    }
+  }
+}
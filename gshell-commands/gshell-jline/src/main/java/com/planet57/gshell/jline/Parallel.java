@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.jline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nullable;
+
+import com.planet57.gshell.functions.FunctionFork;
+import com.planet57.gshell.util.concurrent.Workers;
+import org.apache.felix.service.command.CommandSession;
+import org.apache.felix.service.command.Function;
+import org.jline.builtins.Options;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parallel counterparts of GOGO procedural functions.
+ *
+ * Tasks execute on a bounded pool created for each invocation; interrupting the invoking thread (ie. CTRL-C on
+ * the foreground job) cancels all outstanding tasks.
+ *
+ * @since 3.0
+ */
+public class Parallel
+{
+  private static final Logger log = LoggerFactory.getLogger(Parallel.class);
+
+  public List<Object> peach(final CommandSession session, final Object[] argv) throws Exception {
+    String[] usage = {
+        "peach -  loop over the elements in parallel",
+        "Usage: peach [OPTIONS] elements [do] { closure }",
+        "         elements              an array to iterate on",
+        "         closure               a closure to call",
+        "  -? --help                    Show help",
+        "  -j --jobs=NUM                Maximum number of concurrent tasks",
+        "  -r --result                  Return a list containing each iteration result",
+        "  -u --unordered               Collect results in completion order",
+    };
+    Options opt = Options.compile(usage).parse(argv);
+    if (opt.isSet("help")) {
+      opt.usage(System.err);
+      return null;
+    }
+
+    List<Object> args = opt.argObjects();
+    if (args.size() >= 2 && "do".equals(args.get(1))) {
+      args.remove(1);
+    }
+    if (args.size() != 2) {
+      throw new IllegalArgumentException("usage: peach [OPTIONS] elements [do] { closure }");
+    }
+
+    List<Object> results = map(session, "peach", jobs(opt), opt.isSet("unordered"), args.get(0), function(args.get(1)));
+    return opt.isSet("result") ? results : null;
+  }
+
+  public List<Object> pmap(final CommandSession session, final Object[] argv) throws Exception {
+    String[] usage = {
+        "pmap -  apply a closure to the elements in parallel",
+        "Usage: pmap [OPTIONS] elements { closure }",
+        "         elements              an array to iterate on",
+        "         closure               a closure to call",
+        "  -? --help                    Show help",
+        "  -j --jobs=NUM                Maximum number of concurrent tasks",
+        "  -u --unordered               Collect results in completion order",
+    };
+    Options opt = Options.compile(usage).parse(argv);
+    if (opt.isSet("help")) {
+      opt.usage(System.err);
+      return null;
+    }
+
+    List<Object> args = opt.argObjects();
+    if (args.size() != 2) {
+      throw new IllegalArgumentException("usage: pmap [OPTIONS] elements { closure }");
+    }
+
+    return map(session, "pmap", jobs(opt), opt.isSet("unordered"), args.get(0), function(args.get(1)));
+  }
+
+  public List<Object> parallel(final CommandSession session, final Object[] argv) throws Exception {
+    String[] usage = {
+        "parallel -  execute closures in parallel",
+        "Usage: parallel [OPTIONS] { closure } [{ closure } ...]",
+        "  -? --help                    Show help",
+        "  -j --jobs=NUM                Maximum number of concurrent tasks",
+        "  -u --unordered               Collect results in completion order",
+    };
+    Options opt = Options.compile(usage).parse(argv);
+    if (opt.isSet("help")) {
+      opt.usage(System.err);
+      return null;
+    }
+
+    List<Object> args = opt.argObjects();
+    if (args.isEmpty()) {
+      throw new IllegalArgumentException("usage: parallel [OPTIONS] { closure } [{ closure } ...]");
+    }
+
+    List<Callable<Object>> tasks = new ArrayList<>(args.size());
+    for (Object arg : args) {
+      FunctionFork fork = FunctionFork.of(session, function(arg));
+      // closures inherit the arguments of the enclosing closure
+      tasks.add(() -> fork.execute(null));
+    }
+    return invoke("parallel", jobs(opt), opt.isSet("unordered"), tasks);
+  }
+
+  //
+  // Helpers
+  //
+
+  private static int jobs(final Options opt) {
+    return Workers.parallelism(opt.isSet("jobs") ? opt.getNumber("jobs") : 0);
+  }
+
+  private static Function function(final Object value) {
+    if (!(value instanceof Function)) {
+      throw new IllegalArgumentException("Expected closure or function; found: " + value);
+    }
+    return (Function) value;
+  }
+
+  private static List<Object> map(final CommandSession session,
+                                  final String name,
+                                  final int jobs,
+                                  final boolean unordered,
+                                  final Object elements,
+                                  final Function function)
+      throws Exception
+  {
+    FunctionFork fork = FunctionFork.of(session, function);
+    List<Callable<Object>> tasks = new ArrayList<>();
+    for (Object element : elements(elements)) {
+      tasks.add(() -> fork.execute(Collections.singletonList(element)));
+    }
+    return invoke(name, jobs, unordered, tasks);
+  }
+
+  private static Iterable<?> elements(@Nullable final Object value) {
+    if (value == null) {
+      return Collections.emptyList();
+    }
+    else if (value instanceof Iterable) {
+      return (Iterable<?>) value;
+    }
+    else if (value instanceof Map) {
+      return ((Map<?, ?>) value).entrySet();
+    }
+    else if (value instanceof Object[]) {
+      return Arrays.asList((Object[]) value);
+    }
+    else if (value instanceof Iterator) {
+      List<Object> result = new ArrayList<>();
+      ((Iterator<?>) value).forEachRemaining(result::add);
+      return result;
+    }
+    return Collections.singletonList(value);
+  }
+
+  /**
+   * Execute tasks with at most {@code jobs} running concurrently.
+   *
+   * The first failure cancels all remaining tasks and is rethrown.
+   */
+  private static List<Object> invoke(final String name,
+                                     final int jobs,
+                                     final boolean unordered,
+                                     final List<Callable<Object>> tasks)
+      throws Exception
+  {
+    if (tasks.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    int size = tasks.size();
+    log.debug("Executing {} tasks; jobs: {}, unordered: {}", size, jobs, unordered);
+
+    ExecutorService executor = Workers.newExecutor(name, Math.min(jobs, size));
+    try {
+      CompletionService<Object> completion = new ExecutorCompletionService<>(executor);
+      Map<Future<Object>, Integer> index = new IdentityHashMap<>(size);
+      for (Callable<Object> task : tasks) {
+        index.put(completion.submit(task), index.size());
+      }
+
+      List<Object> results = new ArrayList<>(size);
+      Object[] ordered = new Object[size];
+      for (int i = 0; i < size; i++) {
+        Future<Object> future = completion.take();
+        Object result;
+        try {
+          result = future.get();
+        }
+        catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof Exception) {
+            throw (Exception) cause;
+          }
+          throw e;
+        }
+
+        if (unordered) {
+          results.add(result);
+        }
+        else {
+          ordered[index.get(future)] = result;
+        }
+      }
+
+      if (!unordered) {
+        results.addAll(Arrays.asList(ordered));
+      }
+      return results;
+    }
+    catch (InterruptedException e) {
+      log.debug("Interrupted; cancelling tasks");
+      throw e;
+    }
+    finally {
+      Workers.shutdownNow(executor);
+    }
+  }
+}
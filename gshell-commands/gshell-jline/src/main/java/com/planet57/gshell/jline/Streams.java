@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.jline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import com.planet57.gshell.command.ResultStream;
+import org.apache.felix.service.command.CommandSession;
+import org.apache.felix.service.command.Function;
+import org.jline.builtins.Options;
+import org.jline.utils.AttributedString;
+
+/**
+ * Functions operating on {@link ResultStream} records.
+ *
+ * Unlike the text-based {@code grep}, {@code head} and {@code sort} these operate on typed records and, except for
+ * {@code order}, pull records lazily from their source.
+ *
+ * @since 3.0
+ */
+public class Streams
+{
+  public ResultStream<Object> filter(final CommandSession session, final Object[] argv) throws Exception {
+    String[] usage = {
+        "filter -  select records of a stream",
+        "Usage: filter [OPTIONS] records (PATTERN | { closure })",
+        "         records               a stream or array to filter",
+        "         PATTERN               regular expression matched against rendered records",
+        "         closure               a closure returning true for selected records",
+        "  -? --help                    Show help",
+        "  -v --invert-match            Select non-matching records",
+    };
+    Options opt = Options.compile(usage).parse(argv);
+    if (opt.isSet("help")) {
+      opt.usage(System.err);
+      return null;
+    }
+
+    List<Object> args = opt.argObjects();
+    if (args.size() != 2) {
+      throw new IllegalArgumentException("usage: filter [OPTIONS] records (PATTERN | { closure })");
+    }
+
+    ResultStream<Object> source = stream(args.get(0));
+    Object selector = args.get(1);
+
+    Predicate<Object> predicate;
+    if (selector instanceof Function) {
+      Function function = (Function) selector;
+      predicate = record -> {
+        try {
+          return truthy(function.execute(session, Collections.singletonList(record)));
+        }
+        catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      };
+    }
+    else {
+      Pattern pattern = Pattern.compile(String.valueOf(selector));
+      predicate = record -> pattern.matcher(plain(source, record)).find();
+    }
+
+    return source.filter(opt.isSet("invert-match") ? predicate.negate() : predicate);
+  }
+
+  public ResultStream<Object> take(final CommandSession session, final Object[] argv) throws Exception {
+    String[] usage = {
+        "take -  select the first records of a stream",
+        "Usage: take [OPTIONS] records",
+        "  -? --help                    Show help",
+        "  -n --count=NUM               Number of records (default 10)",
+    };
+    Options opt = Options.compile(usage).parse(argv);
+    if (opt.isSet("help")) {
+      opt.usage(System.err);
+      return null;
+    }
+
+    List<Object> args = opt.argObjects();
+    if (args.size() != 1) {
+      throw new IllegalArgumentException("usage: take [OPTIONS] records");
+    }
+
+    return stream(args.get(0)).limit(opt.isSet("count") ? opt.getNumber("count") : 10);
+  }
+
+  public ResultStream<Object> order(final CommandSession session, final Object[] argv) throws Exception {
+    String[] usage = {
+        "order -  sort records of a stream",
+        "Usage: order [OPTIONS] records [{ closure }]",
+        "         closure               a closure returning the sort key of a record",
+        "  -? --help                    Show help",
+        "  -r --reverse                 Reverse the result of comparisons",
+    };
+    Options opt = Options.compile(usage).parse(argv);
+    if (opt.isSet("help")) {
+      opt.usage(System.err);
+      return null;
+    }
+
+    List<Object> args = opt.argObjects();
+    if (args.isEmpty() || args.size() > 2) {
+      throw new IllegalArgumentException("usage: order [OPTIONS] records [{ closure }]");
+    }
+
+    ResultStream<Object> source = stream(args.get(0));
+    Function key = args.size() == 2 ? (Function) args.get(1) : null;
+
+    // sorting requires all records
+    List<Object[]> keyed = new ArrayList<>();
+    try (ResultStream<Object> records = source) {
+      while (records.hasNext()) {
+        Object record = records.next();
+        Object value = key != null ? key.execute(session, Collections.singletonList(record)) : plain(source, record);
+        keyed.add(new Object[]{value, record});
+      }
+    }
+
+    Comparator<Object[]> comparator = (a, b) -> compare(a[0], b[0]);
+    keyed.sort(opt.isSet("reverse") ? comparator.reversed() : comparator);
+
+    Iterator<Object[]> iter = keyed.iterator();
+    return ResultStream.of(new Iterator<Object>()
+    {
+      @Override
+      public boolean hasNext() {
+        return iter.hasNext();
+      }
+
+      @Override
+      public Object next() {
+        return iter.next()[1];
+      }
+    }, source::render);
+  }
+
+  //
+  // Helpers
+  //
+
+  @SuppressWarnings("unchecked")
+  private static ResultStream<Object> stream(final Object value) {
+    if (value instanceof ResultStream) {
+      return (ResultStream<Object>) value;
+    }
+
+    Iterator<Object> iter;
+    if (value instanceof Iterable) {
+      iter = ((Iterable<Object>) value).iterator();
+    }
+    else if (value instanceof Map) {
+      iter = new ArrayList<Object>(((Map<?, ?>) value).entrySet()).iterator();
+    }
+    else if (value instanceof Object[]) {
+      iter = Arrays.asList((Object[]) value).iterator();
+    }
+    else if (value instanceof Iterator) {
+      iter = (Iterator<Object>) value;
+    }
+    else {
+      iter = Collections.singletonList(value).iterator();
+    }
+    return ResultStream.of(iter, String::valueOf);
+  }
+
+  private static String plain(final ResultStream<Object> stream, final Object record) {
+    return AttributedString.stripAnsi(stream.render(record).toString());
+  }
+
+  private static boolean truthy(final Object value) {
+    return value != null && !Boolean.FALSE.equals(value);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compare(final Object a, final Object b) {
+    if (a == null || b == null) {
+      return a == null ? (b == null ? 0 : -1) : 1;
+    }
+    if (a instanceof Comparable && a.getClass().isInstance(b)) {
+      return ((Comparable<Object>) a).compareTo(b);
+    }
+    return String.valueOf(a).compareTo(String.valueOf(b));
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.jline
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import com.planet57.gshell.variables.VariableNames
+import org.apache.felix.gogo.runtime.CommandProcessorImpl
+import org.apache.felix.gogo.runtime.threadio.ThreadIOImpl
+import org.apache.felix.service.command.CommandSession
+import org.sonatype.goodies.testsupport.TestSupport
+
+import org.junit.After
+import org.junit.Assume
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Tests for {@link Coprocesses}.
+ */
+class CoprocessesTest
+  extends TestSupport
+{
+  private static final String ECHO = 'while read l; do echo "$PREFIX$l"; done'
+
+  private ThreadIOImpl threadIO
+
+  private CommandProcessorImpl processor
+
+  private CommandSession session
+
+  private Coprocesses underTest
+
+  @Before
+  void setUp() {
+    Assume.assumeTrue(new File('/bin/sh').canExecute())
+
+    threadIO = new ThreadIOImpl()
+    threadIO.start()
+
+    underTest = new Coprocesses()
+    processor = new CommandProcessorImpl(threadIO)
+    session = processor.createSession(System.in, System.out, System.err)
+  }
+
+  @After
+  void tearDown() {
+    if (session != null) {
+      closeResources(session)
+      session.close()
+    }
+    threadIO?.stop()
+  }
+
+  private Object coproc(final Object... args) {
+    return underTest.coproc(session, args)
+  }
+
+  private Object coprocIn(final CommandSession session, final Object... args) {
+    return underTest.coproc(session, args)
+  }
+
+  /**
+   * As done by the shell when it stops.
+   */
+  private static void closeResources(final CommandSession session) {
+    Map<String, AutoCloseable> resources = session.get(VariableNames.SHELL_RESOURCES) as Map
+    resources?.values()?.each { it.close() }
+  }
+
+  @Test(timeout = 30000L)
+  void 'send and stop'() {
+    assert coproc('start', 'echo', '/bin/sh', '-c', ECHO) == null
+    assert coproc('send', 'echo', 'hello') == 'hello'
+    assert coproc('send', 'echo', 'world') == 'world'
+    assert coproc('list') == ['echo [1/1 processes]: /bin/sh -c ' + ECHO]
+
+    assert coproc('stop', 'echo') == null
+    assert coproc('list') == []
+  }
+
+  @Test(timeout = 30000L)
+  void 'reply ends at terminator'() {
+    coproc('-t', 'END', 'start', 'multi', '/bin/sh', '-c', 'while read l; do echo "$l"; echo "$l"; echo END; done')
+    assert coproc('send', 'multi', 'x') == 'x\nx'
+  }
+
+  @Test(timeout = 30000L)
+  void 'client environment applied'() {
+    session.put(VariableNames.SHELL_ENV, [PREFIX: 'client:'])
+    coproc('start', 'echo', '/bin/sh', '-c', ECHO)
+    assert coproc('send', 'echo', 'hello') == 'client:hello'
+  }
+
+  @Test(timeout = 30000L)
+  void 'pools belong to their session'() {
+    CommandSession other = processor.createSession(System.in, System.out, System.err)
+    try {
+      coproc('start', 'echo', '/bin/sh', '-c', ECHO)
+      assert coprocIn(other, 'list') == []
+
+      // same name may be used by another session
+      coprocIn(other, 'start', 'echo', '/bin/sh', '-c', ECHO)
+      assert coprocIn(other, 'send', 'echo', 'other') == 'other'
+    }
+    finally {
+      closeResources(other)
+      other.close()
+    }
+  }
+
+  @Test(timeout = 30000L)
+  void 'closing session resources destroys pools'() {
+    coproc('start', 'echo', '/bin/sh', '-c', ECHO)
+    closeResources(session)
+    assert coproc('list') == []
+  }
+
+  @Test(timeout = 30000L)
+  void 'stop fails waiting requests'() {
+    coproc('start', 'slow', '/bin/sh', '-c', 'while read l; do sleep 2; echo "$l"; done')
+
+    // first request holds the only process
+    Thread busy = Thread.start {
+      coproc('send', 'slow', 'first')
+    }
+    Thread.sleep(200)
+
+    CountDownLatch failed = new CountDownLatch(1)
+    Throwable failure = null
+    Thread waiting = Thread.start {
+      try {
+        coproc('send', 'slow', 'second')
+      }
+      catch (Throwable e) {
+        failure = e
+      }
+      finally {
+        failed.countDown()
+      }
+    }
+    Thread.sleep(200)
+
+    coproc('stop', 'slow')
+    assert failed.await(1, TimeUnit.SECONDS)
+    assert failure instanceof IllegalStateException
+
+    busy.join()
+  }
+}
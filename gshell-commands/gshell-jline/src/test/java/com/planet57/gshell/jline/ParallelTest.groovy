@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.jline
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import org.apache.felix.gogo.runtime.CommandProcessorImpl
+import org.apache.felix.gogo.runtime.threadio.ThreadIOImpl
+import org.apache.felix.service.command.CommandSession
+import org.apache.felix.service.command.Function
+import org.sonatype.goodies.testsupport.TestSupport
+
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Tests for {@link Parallel}.
+ */
+class ParallelTest
+  extends TestSupport
+{
+  private ThreadIOImpl threadIO
+
+  private CommandSession session
+
+  private Parallel underTest
+
+  @Before
+  void setUp() {
+    threadIO = new ThreadIOImpl()
+    threadIO.start()
+
+    underTest = new Parallel()
+    CommandProcessorImpl processor = new CommandProcessorImpl(threadIO)
+    processor.addCommand('gogo', underTest, 'peach', 'pmap', 'parallel')
+    session = processor.createSession(System.in, System.out, System.err)
+  }
+
+  @After
+  void tearDown() {
+    session?.close()
+    threadIO?.stop()
+  }
+
+  @Test(timeout = 30000L)
+  void 'pmap results in element order'() {
+    Function function = { s, args -> Thread.sleep(10 * (4 - (args[0] as int))); args[0] } as Function
+    def result = underTest.pmap(session, ['-j', '4', [0, 1, 2, 3], function] as Object[])
+    assert result == [0, 1, 2, 3]
+  }
+
+  @Test(timeout = 30000L)
+  void 'pmap unordered results in completion order'() {
+    CountDownLatch first = new CountDownLatch(1)
+    Function function = { s, args ->
+      if (args[0] == 'slow') {
+        first.await(10, TimeUnit.SECONDS)
+      }
+      else {
+        first.countDown()
+      }
+      args[0]
+    } as Function
+    def result = underTest.pmap(session, ['-u', '-j', '2', ['slow', 'fast'], function] as Object[])
+    assert result == ['fast', 'slow']
+  }
+
+  @Test(timeout = 30000L)
+  void 'first failure is rethrown'() {
+    Function function = { s, args ->
+      if (args[0] == 2) {
+        throw new IllegalStateException('boom')
+      }
+      args[0]
+    } as Function
+    try {
+      underTest.pmap(session, [[1, 2, 3], function] as Object[])
+      assert false
+    }
+    catch (IllegalStateException e) {
+      assert e.message == 'boom'
+    }
+  }
+
+  @Test(timeout = 30000L)
+  void 'parallel runs each closure'() {
+    session.put('a', 'A')
+    session.put('b', 'B')
+    def result = session.execute('parallel { $a } { $b } { $a }')
+    assert result == ['A', 'B', 'A']
+  }
+
+  @Test(timeout = 30000L)
+  void 'closure arguments are not shared between tasks'() {
+    def elements = (0..<64).collect { "e$it" as String }
+    session.put('elements', elements)
+    def result = session.execute('pmap -j 8 $elements { x = $it; $x }')
+    assert result == elements
+
+    // task variables stay local to the task
+    assert session.get('x') == null
+  }
+
+  @Test(timeout = 30000L)
+  void 'parallel closures see arguments of enclosing closure'() {
+    def result = session.execute('pmap [a b] { parallel { $it } { $args } }')
+    assert result == [['a', ['a']], ['b', ['b']]]
+  }
+
+  @Test(timeout = 30000L)
+  void 'closures see variables of enclosing closure'() {
+    def result = session.execute('pmap [a b] { y = $it; pmap [1 2] { $y } }')
+    assert result == [['a', 'a'], ['b', 'b']]
+  }
+}
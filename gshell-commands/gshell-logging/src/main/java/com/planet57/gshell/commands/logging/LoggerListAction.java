@@ -24,8 +24,7 @@ import javax.annotation.Nullable;
 
 import com.planet57.gshell.command.Command;
 import com.planet57.gshell.command.CommandContext;
-import com.planet57.gshell.util.io.IO;
-import com.planet57.gshell.logging.LoggerComponent;
+import com.planet57.gshell.command.ResultStream;
 import com.planet57.gshell.util.cli2.Option;
 
 /**
@@ -50,22 +49,20 @@ public class LoggerListAction
 
   @Override
   public Object execute(@Nonnull final CommandContext context) throws Exception {
-    IO io = context.getIo();
-
     List<String> names = new ArrayList<>();
     names.addAll(getLogging().getLoggerNames());
     Collections.sort(names);
 
-    for (String name : names) {
-      if (nameQuery == null || name.contains(nameQuery)) {
-        LoggerComponent logger = getLogging().getLogger(name);
-        if (all || logger.getLevel() != null &&
-            (levelQuery == null || logger.getLevel().toString().contains(levelQuery.toUpperCase()))) {
-          io.format("%s: %s%n", logger.getName(), logger.getLevel());
-        }
-      }
-    }
+    // capture options; loggers are resolved lazily as records are pulled
+    String nameQuery = this.nameQuery;
+    String levelQuery = this.levelQuery != null ? this.levelQuery.toUpperCase() : null;
+    boolean all = this.all;
 
-    return null;
+    return ResultStream.of(names.stream()
+        .filter(name -> nameQuery == null || name.contains(nameQuery))
+        .map(name -> getLogging().getLogger(name))
+        .filter(logger -> all || logger.getLevel() != null &&
+            (levelQuery == null || logger.getLevel().toString().contains(levelQuery))),
+        logger -> String.format("%s: %s", logger.getName(), logger.getLevel()));
   }
 }
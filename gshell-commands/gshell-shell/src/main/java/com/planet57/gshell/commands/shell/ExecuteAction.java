@@ -23,13 +23,15 @@ import com.planet57.gshell.command.CommandContext;
 import com.planet57.gshell.util.io.IO;
 import com.planet57.gshell.command.CommandActionSupport;
 import com.planet57.gshell.util.cli2.Argument;
+import com.planet57.gshell.commands.shell.internal.ManagedProcess;
+import com.planet57.gshell.commands.shell.internal.ProcessManager;
 import com.planet57.gshell.util.cli2.Option;
-import com.planet57.gshell.variables.VariableNames;
+import com.planet57.gshell.util.io.ProcessStreams;
 import com.planet57.gshell.variables.Variables;
-import org.apache.tools.ant.taskdefs.PumpStreamHandler;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.inject.Inject;
 
 /**
  * Execute system processes.
@@ -47,9 +49,15 @@ public class ExecuteAction
   @Option(longName = "newenvironment", description = "Do not propagate environment variables")
   private boolean newenvironment = false;
 
+  @Option(name = "b", longName = "background", description = "Execute in the background; see proc/list")
+  private boolean background = false;
+
   @Argument(required = true, description = "Process arguments", token = "ARGUMENTS")
   private List<String> args;
 
+  @Inject
+  private ProcessManager processManager;
+
   // TODO: Consider adapting more of ant exec to support more features?
 
   @Override
@@ -61,38 +69,41 @@ public class ExecuteAction
 
     log.debug("Executing: {}", args);
 
-    ProcessBuilder builder = new ProcessBuilder()
-      .command(args)
-      .inheritIO();
+    ProcessBuilder builder = new ProcessBuilder().command(args);
+    ProcessHelper.configure(builder, variables, directory, newenvironment);
+    log.debug("Directory: {}", builder.directory());
 
-    File dir = directory;
-    if (dir == null) {
-      dir = variables.require(VariableNames.SHELL_USER_DIR, File.class);
+    if (background) {
+      ManagedProcess process = processManager.start(builder, context.getSession());
+      io.format("[%d] %s%n", process.getId(), String.join(" ", args));
+      return null;
     }
-    log.debug("Directory: {}", dir);
-    builder.directory(dir);
 
-    if (!newenvironment) {
-      log.debug("Propagating environment variables");
-      builder.environment().putAll(System.getenv());
-    }
+    ProcessHelper.Streams streams = new ProcessHelper.Streams(io);
+    log.debug("Streams: {}", streams);
+    streams.input(builder);
+    streams.output(builder);
+    streams.error(builder);
 
-    Process p = builder.start();
+    // inherited output must follow anything already written
+    io.streams.flush();
 
-    PumpStreamHandler handler = new PumpStreamHandler(io.streams.out, io.streams.err);
-    handler.setProcessInputStream(p.getOutputStream());
-    handler.setProcessOutputStream(p.getInputStream());
-    handler.setProcessErrorStream(p.getErrorStream());
+    Process p = builder.start();
+    ProcessStreams.Pumps input = streams.started(p);
 
-    handler.start();
+    ProcessStreams.Pumps output = streams.pumpOutput(p);
+    ProcessStreams.Pumps error = streams.pumpError(p);
 
     log.debug("Waiting for process to exit...");
 
     int exitCode = p.waitFor();
 
     log.debug("Process exited w/code: {}", exitCode);
+    input.stop();
 
-    handler.stop();
+    // drain remaining output
+    output.await();
+    error.await();
 
     return exitCode;
   }
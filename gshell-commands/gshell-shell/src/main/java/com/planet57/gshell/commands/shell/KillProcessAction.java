@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.shell;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+
+import com.planet57.gshell.command.Command;
+import com.planet57.gshell.command.CommandActionSupport;
+import com.planet57.gshell.command.CommandContext;
+import com.planet57.gshell.commands.shell.internal.ManagedProcess;
+import com.planet57.gshell.commands.shell.internal.ProcessManager;
+import com.planet57.gshell.util.cli2.Argument;
+import com.planet57.gshell.util.cli2.Option;
+
+/**
+ * Terminate a background process.
+ *
+ * @since 3.0
+ */
+@Command(name = "proc/kill", description = "Terminate a background process")
+public class KillProcessAction
+    extends CommandActionSupport
+{
+  @Inject
+  private ProcessManager processManager;
+
+  @Option(name = "f", longName = "force", description = "Terminate forcibly")
+  private boolean force;
+
+  @Argument(required = true, description = "Process identifier", token = "ID")
+  private int id;
+
+  @Override
+  public Object execute(@Nonnull final CommandContext context) throws Exception {
+    ManagedProcess process = processManager.require(id);
+    log.debug("Terminating: {}; force: {}", process, force);
+    process.destroy(force);
+    return null;
+  }
+}
@@ -15,7 +15,12 @@
  */
 package com.planet57.gshell.commands.shell;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -23,8 +28,10 @@ import javax.annotation.Nullable;
 import com.planet57.gshell.util.io.IO;
 import com.planet57.gshell.util.cli2.Option;
 import com.planet57.gshell.util.jline.Complete;
+import com.planet57.gshell.util.jline.MappedFileSource;
 import org.jline.builtins.Less;
 import org.jline.builtins.Source;
+import org.jline.terminal.Terminal;
 
 import com.planet57.gshell.command.Command;
 import com.planet57.gshell.command.CommandActionSupport;
@@ -46,6 +53,14 @@ public class LessAction
   @Option(name = "n", longName = "line-numbers", description = "Display line numbers for each line")
   private Boolean lineNumbers;
 
+  @Nullable
+  @Option(name = "l", longName = "line", description = "Start at given line of FILE", token = "LINE")
+  private Long line;
+
+  @Nullable
+  @Option(name = "e", longName = "end", description = "Start at the end of FILE")
+  private Boolean end;
+
   // TODO: consider exposing a file/url source adapter and converter
 
   @Nullable
@@ -56,21 +71,89 @@ public class LessAction
   @Override
   public Object execute(@Nonnull final CommandContext context) throws Exception {
     IO io = context.getIo();
-    Less less = new Less(io.terminal);
+    PositionedLess less = new PositionedLess(io.terminal);
 
     if (lineNumbers != null) {
       less.printLineNumbers = lineNumbers;
     }
 
-    Source input;
     if (file == null) {
-      input = new Source.InputStreamSource(io.streams.in, false, null);
+      less.run(new Source.InputStreamSource(io.streams.in, false, null));
+      return null;
+    }
+
+    Path path = file.toPath();
+    int height = Math.max(1, io.terminal.getHeight() - 1);
+
+    // pseudo-files report no size and special files can not be mapped; read those as plain streams
+    if (!Files.isRegularFile(path) || Files.size(path) == 0) {
+      Source source = new Source.PathSource(path, file.getName());
+      if (Boolean.TRUE.equals(end)) {
+        if (Files.isRegularFile(path)) {
+          less.startAt(countLines(source) - height);
+        }
+        else {
+          log.debug("Unable to start at end of: {}", file);
+        }
+      }
+      else if (line != null) {
+        less.startAt(line - 1);
+      }
+      less.run(source);
+      return null;
     }
-    else {
-      input = new Source.PathSource(file.toPath(), file.getName());
+
+    // mapped source opens large files instantly and counts lines without decoding them
+    try (MappedFileSource source = new MappedFileSource(path, file.getName())) {
+      if (Boolean.TRUE.equals(end)) {
+        // resolving beyond the last line waits for the line count
+        source.offsetOfLine(Long.MAX_VALUE);
+        less.startAt(source.getLineCount() - height);
+      }
+      else if (line != null) {
+        less.startAt(line - 1);
+      }
+      less.run(source);
     }
-    less.run(input);
 
     return null;
   }
+
+  private static long countLines(final Source source) throws IOException {
+    long count = 0;
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(source.read()))) {
+      while (reader.readLine() != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Displays the first source from a given line; preceding content remains available to scroll back to.
+   */
+  private static class PositionedLess
+    extends Less
+  {
+    private int startLine;
+
+    PositionedLess(final Terminal terminal) {
+      super(terminal);
+    }
+
+    /**
+     * Zero-based line to display first; clamped to the available range.
+     */
+    void startAt(final long line) {
+      startLine = (int) Math.max(0, Math.min(Integer.MAX_VALUE, line));
+    }
+
+    @Override
+    protected void openSource() throws IOException {
+      super.openSource();
+      // only applies to the initial source
+      firstLineToDisplay = startLine;
+      startLine = 0;
+    }
+  }
 }
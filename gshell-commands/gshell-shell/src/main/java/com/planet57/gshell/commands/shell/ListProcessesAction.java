@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.shell;
+
+import java.util.Collection;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+
+import com.planet57.gshell.command.Command;
+import com.planet57.gshell.command.CommandActionSupport;
+import com.planet57.gshell.command.CommandContext;
+import com.planet57.gshell.commands.shell.internal.ManagedProcess;
+import com.planet57.gshell.commands.shell.internal.ProcessManager;
+import com.planet57.gshell.util.io.IO;
+
+/**
+ * List background processes.
+ *
+ * @since 3.0
+ */
+@Command(name = "proc/list", description = "List background processes")
+public class ListProcessesAction
+    extends CommandActionSupport
+{
+  @Inject
+  private ProcessManager processManager;
+
+  @Override
+  public Object execute(@Nonnull final CommandContext context) throws Exception {
+    IO io = context.getIo();
+
+    Collection<ManagedProcess> processes = processManager.list();
+    if (processes.isEmpty()) {
+      io.println("No processes");
+    }
+    else {
+      processes.forEach(process -> {
+        Integer exitCode = process.getExitCode();
+        io.format("[%d] %-10s %s%n",
+            process.getId(),
+            exitCode == null ? "running" : "exit " + exitCode,
+            String.join(" ", process.getCommand()));
+      });
+    }
+
+    return null;
+  }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.shell;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.planet57.gshell.command.Command;
+import com.planet57.gshell.command.CommandActionSupport;
+import com.planet57.gshell.command.CommandContext;
+import com.planet57.gshell.util.cli2.Argument;
+import com.planet57.gshell.util.cli2.Option;
+import com.planet57.gshell.util.io.IO;
+import com.planet57.gshell.util.io.ProcessStreams;
+import com.planet57.gshell.variables.Variables;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Execute system processes connected by operating system pipes.
+ *
+ * Data between processes never passes through the JVM; processes are spawned with {@code ProcessBuilder.startPipeline}
+ * when available, else through {@code /bin/sh}.
+ *
+ * @since 3.0
+ */
+@Command(name = "pipeline", description = "Execute system processes connected by pipes")
+public class PipelineAction
+    extends CommandActionSupport
+{
+  /**
+   * Separates commands; must be quoted as gogo treats a bare {@code |} as its own pipe.
+   */
+  private static final String SEPARATOR = "|";
+
+  @Nullable
+  private static final Method START_PIPELINE = startPipelineMethod();
+
+  /**
+   * How processes are spawned.
+   */
+  @VisibleForTesting
+  enum Spawn
+  {
+    /**
+     * {@code ProcessBuilder.startPipeline}; Java 9 and later.
+     */
+    PIPELINE,
+
+    /**
+     * Single {@code /bin/sh} process; only reports the status of the last command.
+     */
+    SHELL,
+
+    /**
+     * Processes connected by pumps in the JVM.
+     */
+    CONNECTED
+  }
+
+  /**
+   * Spawn processes as given instead of the best available way.
+   */
+  @VisibleForTesting
+  @Nullable
+  static Spawn spawnOverride;
+
+  @Nullable
+  private static Method startPipelineMethod() {
+    try {
+      return ProcessBuilder.class.getMethod("startPipeline", List.class);
+    }
+    catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  @Nullable
+  @Option(name = "d", longName = "directory", description = "Directory to execute commands", token = "DIR")
+  private File directory;
+
+  @Option(longName = "newenvironment", description = "Do not propagate environment variables")
+  private boolean newenvironment = false;
+
+  @Option(longName = "pipefail", description = "Exit with the last non-zero status of any command")
+  private boolean pipefail = false;
+
+  @Argument(required = true, description = "Commands and arguments separated by '|'", token = "COMMANDS")
+  private List<String> args;
+
+  @Override
+  public Object execute(@Nonnull final CommandContext context) throws Exception {
+    IO io = context.getIo();
+    Variables variables = context.getVariables();
+
+    List<List<String>> commands = split(args);
+    log.debug("Executing: {}", commands);
+
+    ProcessHelper.Streams streams = new ProcessHelper.Streams(io);
+    log.debug("Streams: {}", streams);
+
+    // inherited output must follow anything already written
+    io.streams.flush();
+
+    Spawn spawn = spawnOverride != null ? spawnOverride : spawn();
+    log.debug("Spawn: {}", spawn);
+
+    List<Process> processes;
+    List<ProcessStreams.Pumps> pumps = new ArrayList<>();
+    switch (spawn) {
+      case PIPELINE:
+        processes = startPipeline(commands, variables, streams);
+        break;
+      case SHELL:
+        processes = Collections.singletonList(startShell(commands, variables, streams));
+        break;
+      default:
+        // only path where data between processes is copied by the JVM
+        processes = startConnected(commands, variables, streams, pumps);
+    }
+
+    Process first = processes.get(0);
+    Process last = processes.get(processes.size() - 1);
+    ProcessStreams.Pumps input = streams.started(first);
+    pumps.add(streams.pumpOutput(last));
+    pumps.add(streams.pumpError(last));
+    for (Process process : processes.subList(0, processes.size() - 1)) {
+      pumps.add(streams.pumpIntermediateError(process));
+    }
+
+    log.debug("Waiting for processes to exit...");
+
+    int exitCode = 0;
+    for (Process process : processes) {
+      int code = process.waitFor();
+      if (code != 0) {
+        exitCode = code;
+      }
+    }
+    if (!pipefail) {
+      exitCode = last.exitValue();
+    }
+
+    log.debug("Processes exited w/code: {}", exitCode);
+    input.stop();
+
+    for (ProcessStreams.Pumps pump : pumps) {
+      pump.await();
+    }
+
+    return exitCode;
+  }
+
+  private static List<List<String>> split(final List<String> args) {
+    List<List<String>> commands = new ArrayList<>();
+    List<String> current = new ArrayList<>();
+    for (String arg : args) {
+      if (SEPARATOR.equals(arg)) {
+        checkArgument(!current.isEmpty(), "Missing command before '%s'", SEPARATOR);
+        commands.add(current);
+        current = new ArrayList<>();
+      }
+      else {
+        current.add(arg);
+      }
+    }
+    checkArgument(!current.isEmpty(), "Missing command after '%s'", SEPARATOR);
+    commands.add(current);
+    return commands;
+  }
+
+  /**
+   * Create builders with stream configuration for their position in the pipeline; intermediate streams are pipes.
+   */
+  private List<ProcessBuilder> builders(final List<List<String>> commands,
+                                        final Variables variables,
+                                        final ProcessHelper.Streams streams)
+  {
+    List<ProcessBuilder> builders = new ArrayList<>(commands.size());
+    for (int i = 0; i < commands.size(); i++) {
+      ProcessBuilder builder = new ProcessBuilder(commands.get(i));
+      ProcessHelper.configure(builder, variables, directory, newenvironment);
+      if (i == 0) {
+        streams.input(builder);
+      }
+      if (i == commands.size() - 1) {
+        streams.output(builder);
+        streams.error(builder);
+      }
+      else if (streams.inheritError) {
+        // merging would send errors down the pipe
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+      }
+      builders.add(builder);
+    }
+    return builders;
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Process> startPipeline(final List<List<String>> commands,
+                                      final Variables variables,
+                                      final ProcessHelper.Streams streams)
+      throws Exception
+  {
+    try {
+      return (List<Process>) START_PIPELINE.invoke(null, builders(commands, variables, streams));
+    }
+    catch (InvocationTargetException e) {
+      if (e.getCause() instanceof Exception) {
+        throw (Exception) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private Spawn spawn() {
+    if (START_PIPELINE != null) {
+      return Spawn.PIPELINE;
+    }
+    if (!pipefail && isPosix()) {
+      return Spawn.SHELL;
+    }
+    log.debug("Native pipelines unavailable; connecting processes");
+    return Spawn.CONNECTED;
+  }
+
+  /**
+   * Check if processes can be spawned with {@code ProcessBuilder.startPipeline}.
+   */
+  @VisibleForTesting
+  static boolean isPipelineSupported() {
+    return START_PIPELINE != null;
+  }
+
+  private static boolean isPosix() {
+    return !System.getProperty("os.name", "").startsWith("Windows") && new File("/bin/sh").canExecute();
+  }
+
+  /**
+   * Spawn pipeline through {@code /bin/sh}; arguments are quoted so the shell performs no expansion.
+   */
+  private Process startShell(final List<List<String>> commands,
+                             final Variables variables,
+                             final ProcessHelper.Streams streams)
+      throws IOException
+  {
+    StringBuilder script = new StringBuilder();
+    for (List<String> command : commands) {
+      if (script.length() != 0) {
+        script.append(" | ");
+      }
+      for (int i = 0; i < command.size(); i++) {
+        if (i != 0) {
+          script.append(' ');
+        }
+        script.append('\'').append(command.get(i).replace("'", "'\\''")).append('\'');
+      }
+    }
+    log.debug("Script: {}", script);
+
+    ProcessBuilder builder = new ProcessBuilder("/bin/sh", "-c", script.toString());
+    ProcessHelper.configure(builder, variables, directory, newenvironment);
+    streams.input(builder);
+    streams.output(builder);
+    streams.error(builder);
+    return builder.start();
+  }
+
+  private List<Process> startConnected(final List<List<String>> commands,
+                                       final Variables variables,
+                                       final ProcessHelper.Streams streams,
+                                       final List<ProcessStreams.Pumps> pumps)
+      throws IOException
+  {
+    List<Process> processes = new ArrayList<>();
+    for (ProcessBuilder builder : builders(commands, variables, streams)) {
+      Process process = builder.start();
+      if (!processes.isEmpty()) {
+        Process previous = processes.get(processes.size() - 1);
+        pumps.add(ProcessStreams.connect(previous.getInputStream(), process.getOutputStream()));
+      }
+      processes.add(process);
+    }
+    return processes;
+  }
+}
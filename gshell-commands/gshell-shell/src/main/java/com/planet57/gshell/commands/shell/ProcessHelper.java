@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.shell;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.planet57.gshell.util.io.IO;
+import com.planet57.gshell.util.io.ProcessStreams;
+import com.planet57.gshell.variables.VariableNames;
+import com.planet57.gshell.variables.Variables;
+import org.apache.felix.gogo.runtime.threadio.ThreadInputStream;
+import org.apache.felix.gogo.runtime.threadio.ThreadPrintStream;
+
+/**
+ * Shared configuration of system processes for {@link ExecuteAction} and {@link PipelineAction}.
+ *
+ * @since 3.0
+ */
+final class ProcessHelper
+{
+  private ProcessHelper() {
+    // empty
+  }
+
+  /**
+   * Apply directory and environment.
+   */
+  static void configure(final ProcessBuilder builder,
+                        final Variables variables,
+                        @Nullable final File directory,
+                        final boolean newenvironment)
+  {
+    File dir = directory;
+    if (dir == null) {
+      dir = variables.require(VariableNames.SHELL_USER_DIR, File.class);
+    }
+    builder.directory(dir);
+
+    if (!newenvironment) {
+      builder.environment().putAll(environment(variables));
+    }
+  }
+
+  /**
+   * Environment of the invoking client when the shell is served by a daemon; else the process environment.
+   */
+  @SuppressWarnings("unchecked")
+  private static Map<String, String> environment(final Variables variables) {
+    Object env = variables.get(VariableNames.SHELL_ENV);
+    if (env instanceof Map) {
+      return (Map<String, String>) env;
+    }
+    return System.getenv();
+  }
+
+  /**
+   * Resolve the stream of the current thread; System streams dispatch per-thread when managed by gogo {@code ThreadIO}.
+   */
+  static InputStream current(final InputStream stream) {
+    InputStream target = stream;
+    while (target instanceof ThreadInputStream) {
+      InputStream current = ((ThreadInputStream) target).getCurrent();
+      if (current == target) {
+        break;
+      }
+      target = current;
+    }
+    return target;
+  }
+
+  /**
+   * @see #current(InputStream)
+   */
+  static OutputStream current(final OutputStream stream) {
+    OutputStream target = stream;
+    while (target instanceof ThreadPrintStream) {
+      OutputStream current = ((ThreadPrintStream) target).getCurrent();
+      if (current == target) {
+        break;
+      }
+      target = current;
+    }
+    return target;
+  }
+
+  /**
+   * How process streams connect to shell I/O.
+   *
+   * Streams reaching the system terminal are inherited; anything else is pumped.  Streams are resolved when created,
+   * on the thread of the command.
+   */
+  static class Streams
+  {
+    private final InputStream in;
+
+    private final OutputStream out;
+
+    private final OutputStream err;
+
+    final boolean inheritInput;
+
+    final boolean inheritOutput;
+
+    final boolean inheritError;
+
+    final boolean mergeError;
+
+    Streams(final IO io) {
+      in = current(io.streams.in);
+      out = current(io.streams.out);
+      err = current(io.streams.err);
+      inheritInput = ProcessStreams.isInheritable(in);
+      inheritOutput = ProcessStreams.isInheritable(out);
+      if (io.streams.isOutputCombined()) {
+        inheritError = inheritOutput;
+        mergeError = !inheritOutput;
+      }
+      else {
+        inheritError = ProcessStreams.isInheritable(err);
+        mergeError = false;
+      }
+    }
+
+    void input(final ProcessBuilder builder) {
+      if (inheritInput) {
+        builder.redirectInput(ProcessBuilder.Redirect.INHERIT);
+      }
+    }
+
+    void output(final ProcessBuilder builder) {
+      if (inheritOutput) {
+        builder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+      }
+    }
+
+    void error(final ProcessBuilder builder) {
+      if (mergeError) {
+        builder.redirectErrorStream(true);
+      }
+      else if (inheritError) {
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+      }
+    }
+
+    /**
+     * Pump input to processes which do not inherit it; stop the returned pumps once the process has exited.
+     */
+    ProcessStreams.Pumps started(final Process process) {
+      if (inheritInput) {
+        return new ProcessStreams.Pumps();
+      }
+      return ProcessStreams.input(in, process);
+    }
+
+    ProcessStreams.Pumps pumpOutput(final Process process) {
+      return ProcessStreams.start(process, inheritOutput ? null : out, null);
+    }
+
+    ProcessStreams.Pumps pumpError(final Process process) {
+      return ProcessStreams.start(process, null, inheritError || mergeError ? null : err);
+    }
+
+    /**
+     * Pump errors of intermediate pipeline processes.
+     */
+    ProcessStreams.Pumps pumpIntermediateError(final Process process) {
+      return ProcessStreams.start(process, null, inheritError ? null : err);
+    }
+
+    @Override
+    public String toString() {
+      return "{input=" + (inheritInput ? "inherit" : "pump") +
+          ", output=" + (inheritOutput ? "inherit" : "pump") +
+          ", error=" + (mergeError ? "merge" : inheritError ? "inherit" : "pump") +
+          '}';
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.shell;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+
+import com.planet57.gshell.command.Command;
+import com.planet57.gshell.command.CommandActionSupport;
+import com.planet57.gshell.command.CommandContext;
+import com.planet57.gshell.commands.shell.internal.ManagedProcess;
+import com.planet57.gshell.commands.shell.internal.ProcessManager;
+import com.planet57.gshell.util.cli2.Argument;
+import com.planet57.gshell.util.cli2.Option;
+import com.planet57.gshell.util.io.IO;
+import com.planet57.gshell.util.io.RingBuffer;
+
+/**
+ * Display output of a background process.
+ *
+ * @since 3.0
+ */
+@Command(name = "proc/logs", description = "Display output of a background process")
+public class ProcessLogsAction
+    extends CommandActionSupport
+{
+  @Inject
+  private ProcessManager processManager;
+
+  @Option(name = "e", longName = "error", description = "Display error instead of output")
+  private boolean error;
+
+  @Option(name = "f", longName = "follow", description = "Display new content until the process exits")
+  private boolean follow;
+
+  @Argument(required = true, description = "Process identifier", token = "ID")
+  private int id;
+
+  @Override
+  public Object execute(@Nonnull final CommandContext context) throws Exception {
+    IO io = context.getIo();
+    ManagedProcess process = processManager.require(id);
+    RingBuffer buffer = error ? process.getError() : process.getOutput();
+
+    if (buffer.start() > 0) {
+      io.err.format("(%d bytes discarded)%n", buffer.start());
+      io.err.flush();
+    }
+
+    long position = buffer.read(0, io.streams.out);
+    io.streams.out.flush();
+
+    // the buffer is closed once all output has been read, so nothing written before exit is missed
+    while (follow) {
+      try {
+        if (!buffer.await(position)) {
+          break;
+        }
+      }
+      catch (InterruptedException e) {
+        log.debug("Interrupted");
+        break;
+      }
+      position = buffer.read(position, io.streams.out);
+      io.streams.out.flush();
+    }
+
+    return null;
+  }
+}
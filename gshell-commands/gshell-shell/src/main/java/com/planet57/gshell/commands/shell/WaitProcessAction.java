@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.shell;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+import com.planet57.gshell.command.Command;
+import com.planet57.gshell.command.CommandActionSupport;
+import com.planet57.gshell.command.CommandContext;
+import com.planet57.gshell.commands.shell.internal.ManagedProcess;
+import com.planet57.gshell.commands.shell.internal.ProcessManager;
+import com.planet57.gshell.util.cli2.Argument;
+import com.planet57.gshell.util.cli2.Option;
+import org.sonatype.goodies.common.Time;
+
+/**
+ * Wait for a background process to exit.
+ *
+ * @since 3.0
+ */
+@Command(name = "proc/wait", description = "Wait for a background process to exit")
+public class WaitProcessAction
+    extends CommandActionSupport
+{
+  @Inject
+  private ProcessManager processManager;
+
+  @Nullable
+  @Option(name = "t", longName = "timeout", description = "Maximum time to wait", token = "TIME")
+  private Time timeout;
+
+  @Argument(required = true, description = "Process identifier", token = "ID")
+  private int id;
+
+  @Override
+  public Object execute(@Nonnull final CommandContext context) throws Exception {
+    ManagedProcess process = processManager.require(id);
+
+    if (timeout == null) {
+      return process.waitFor();
+    }
+    if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+      context.getIo().err.println("Timed out waiting for process: " + id);
+      return 1;
+    }
+    return process.getExitCode();
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.shell.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.planet57.gossip.Log;
+import com.planet57.gshell.util.concurrent.Workers;
+import com.planet57.gshell.util.io.RingBuffer;
+import org.slf4j.Logger;
+
+/**
+ * Process started by {@link ProcessManager}; output and error are retained in bounded {@link RingBuffer}s.
+ *
+ * Each stream is read by its own thread, which blocks on read and closes its buffer at end of stream.  Pipes held open
+ * by descendants of the process keep their buffers open until the descendants exit.
+ *
+ * Process pipes are not selectable channels, so a shared drainer could only poll them; which adds latency for every
+ * process and keeps a thread busy while any process is idle.  Reader threads come from
+ * {@link Workers#threadFactory}, so they are virtual threads on runtimes which provide them; otherwise they are
+ * platform threads, bounded by {@link ProcessManager#MAX_RUNNING_PROPERTY}.
+ *
+ * @since 3.0
+ */
+public class ManagedProcess
+{
+  private static final Logger log = Log.getLogger(ManagedProcess.class);
+
+  private final int id;
+
+  private final List<String> command;
+
+  private final Process process;
+
+  private final RingBuffer output;
+
+  private final RingBuffer error;
+
+  private final long started = System.currentTimeMillis();
+
+  ManagedProcess(final int id, final List<String> command, final Process process, final int bufferSize) {
+    this.id = id;
+    this.command = ImmutableList.copyOf(command);
+    this.process = process;
+    this.output = new RingBuffer(bufferSize);
+    this.error = new RingBuffer(bufferSize);
+  }
+
+  /**
+   * Start reading output and error into buffers; {@code done} is run as each reader finishes.
+   */
+  void startReaders(final ThreadFactory threadFactory, final Runnable done) {
+    threadFactory.newThread(() -> read(process.getInputStream(), output, done)).start();
+    threadFactory.newThread(() -> read(process.getErrorStream(), error, done)).start();
+  }
+
+  private void read(final InputStream stream, final RingBuffer buffer, final Runnable done) {
+    byte[] buff = new byte[8192];
+    try (InputStream input = stream) {
+      int n;
+      while ((n = input.read(buff)) != -1) {
+        buffer.write(buff, 0, n);
+      }
+    }
+    catch (IOException e) {
+      log.debug("Failed to read: {}", this, e);
+    }
+    finally {
+      buffer.close();
+      done.run();
+    }
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public List<String> getCommand() {
+    return command;
+  }
+
+  public long getStarted() {
+    return started;
+  }
+
+  public RingBuffer getOutput() {
+    return output;
+  }
+
+  public RingBuffer getError() {
+    return error;
+  }
+
+  public boolean isAlive() {
+    return process.isAlive();
+  }
+
+  /**
+   * Exit code; {@code null} while running.
+   */
+  @Nullable
+  public Integer getExitCode() {
+    return process.isAlive() ? null : process.exitValue();
+  }
+
+  public int waitFor() throws InterruptedException {
+    return process.waitFor();
+  }
+
+  public boolean waitFor(final long timeout, final TimeUnit unit) throws InterruptedException {
+    return process.waitFor(timeout, unit);
+  }
+
+  public void destroy(final boolean force) {
+    if (force) {
+      process.destroyForcibly();
+    }
+    else {
+      process.destroy();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "{" +
+        "id=" + id +
+        ", command=" + Joiner.on(' ').join(command) +
+        ", exitCode=" + getExitCode() +
+        '}';
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.shell.internal;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nullable;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import com.google.common.collect.ImmutableList;
+import com.planet57.gshell.util.concurrent.Workers;
+import com.planet57.gshell.variables.VariableNames;
+import org.apache.felix.service.command.CommandSession;
+import org.sonatype.goodies.common.ComponentSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Manages background system processes.
+ *
+ * Output and error of each process are read by blocking reader threads into per-process {@link ManagedProcess} ring
+ * buffers; see {@link ManagedProcess} for why.  At most {@link #MAX_RUNNING_PROPERTY} processes may be read at once,
+ * which bounds the number of reader threads.  Up to {@link #RETAINED_PROPERTY} finished processes are retained for
+ * inspection.
+ *
+ * Process ids are shared by all sessions of the container.  Processes started for a session are destroyed when its
+ * shell stops; see {@link VariableNames#SHELL_RESOURCES}.
+ *
+ * @since 3.0
+ */
+@Named
+@Singleton
+public class ProcessManager
+  extends ComponentSupport
+{
+  /**
+   * System property to configure the size in bytes of output and error buffers per process.
+   */
+  public static final String BUFFER_SIZE_PROPERTY = "shell.proc.buffer-size";
+
+  /**
+   * System property to configure the number of finished processes retained.
+   */
+  public static final String RETAINED_PROPERTY = "shell.proc.retained";
+
+  /**
+   * System property to configure the number of processes whose output may be read at once.
+   */
+  public static final String MAX_RUNNING_PROPERTY = "shell.proc.max-running";
+
+  /**
+   * Time to wait for processes to exit when their session stops before destroying them forcibly.
+   */
+  private static final long DESTROY_TIMEOUT_MILLIS = 1000;
+
+  private final Map<Integer, ManagedProcess> processes = new ConcurrentSkipListMap<>();
+
+  private final AtomicInteger counter = new AtomicInteger(0);
+
+  private final int bufferSize = Integer.getInteger(BUFFER_SIZE_PROPERTY, 256 * 1024);
+
+  private final int retained = Integer.getInteger(RETAINED_PROPERTY, 32);
+
+  private final int maxRunning = Integer.getInteger(MAX_RUNNING_PROPERTY, 64);
+
+  /**
+   * Permits for reader threads; two per process.
+   */
+  private final Semaphore readers = new Semaphore(maxRunning * 2);
+
+  private final ThreadFactory threadFactory = Workers.threadFactory("process-reader");
+
+  /**
+   * Start process in the background; input is closed and output and error are buffered.
+   */
+  public ManagedProcess start(final ProcessBuilder builder) throws IOException {
+    checkNotNull(builder);
+    builder.redirectInput(ProcessBuilder.Redirect.PIPE)
+        .redirectOutput(ProcessBuilder.Redirect.PIPE)
+        .redirectError(ProcessBuilder.Redirect.PIPE);
+
+    checkState(readers.tryAcquire(2), "Too many background processes; limit: %s", maxRunning);
+    Process process;
+    try {
+      process = builder.start();
+    }
+    catch (IOException | RuntimeException e) {
+      readers.release(2);
+      throw e;
+    }
+
+    ManagedProcess managed = new ManagedProcess(counter.incrementAndGet(), builder.command(), process, bufferSize);
+    managed.startReaders(threadFactory, readers::release);
+    process.getOutputStream().close();
+    processes.put(managed.getId(), managed);
+    log.debug("Started: {}", managed);
+
+    prune();
+    return managed;
+  }
+
+  /**
+   * Start process in the background for given session; the process is destroyed when the shell of the session stops.
+   */
+  public ManagedProcess start(final ProcessBuilder builder, final CommandSession session) throws IOException {
+    checkNotNull(session);
+    ManagedProcess process = start(builder);
+    owned(session).processes.add(process);
+    return process;
+  }
+
+  @Nullable
+  public ManagedProcess get(final int id) {
+    return processes.get(id);
+  }
+
+  public ManagedProcess require(final int id) {
+    ManagedProcess process = processes.get(id);
+    checkArgument(process != null, "No such process: %s", id);
+    return process;
+  }
+
+  public Collection<ManagedProcess> list() {
+    return ImmutableList.copyOf(processes.values());
+  }
+
+  @Nullable
+  public ManagedProcess remove(final int id) {
+    return processes.remove(id);
+  }
+
+  /**
+   * Processes started for the session.
+   */
+  private Owned owned(final CommandSession session) {
+    return (Owned) resources(session).computeIfAbsent(Owned.class.getName(), key -> new Owned());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, AutoCloseable> resources(final CommandSession session) {
+    synchronized (session) {
+      Object resources = session.get(VariableNames.SHELL_RESOURCES);
+      if (resources instanceof Map) {
+        return (Map<String, AutoCloseable>) resources;
+      }
+      // session not created by a shell; nothing will close its resources
+      Map<String, AutoCloseable> result = new ConcurrentHashMap<>();
+      session.put(VariableNames.SHELL_RESOURCES, result);
+      return result;
+    }
+  }
+
+  /**
+   * Processes of a session; destroyed and removed when closed.
+   */
+  private class Owned
+    implements AutoCloseable
+  {
+    private final Set<ManagedProcess> processes = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void close() throws InterruptedException {
+      for (ManagedProcess process : processes) {
+        process.destroy(false);
+      }
+      long deadline = System.currentTimeMillis() + DESTROY_TIMEOUT_MILLIS;
+      for (ManagedProcess process : processes) {
+        long remaining = deadline - System.currentTimeMillis();
+        if (!process.waitFor(Math.max(0, remaining), TimeUnit.MILLISECONDS)) {
+          log.debug("Destroying forcibly: {}", process);
+          process.destroy(true);
+        }
+        ProcessManager.this.processes.remove(process.getId());
+      }
+      processes.clear();
+    }
+  }
+
+  /**
+   * Evict oldest finished processes beyond the retained limit.
+   */
+  private void prune() {
+    List<ManagedProcess> finished = list().stream()
+        .filter(process -> !process.isAlive())
+        .collect(Collectors.toList());
+    for (int i = 0; i < finished.size() - retained; i++) {
+      log.debug("Evicting: {}", finished.get(i));
+      processes.remove(finished.get(i).getId());
+    }
+  }
+}
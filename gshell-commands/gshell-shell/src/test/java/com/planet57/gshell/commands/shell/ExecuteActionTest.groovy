@@ -15,7 +15,14 @@
  */
 package com.planet57.gshell.commands.shell
 
+import java.util.concurrent.TimeUnit
+
+import com.planet57.gshell.commands.shell.internal.ManagedProcess
+import com.planet57.gshell.commands.shell.internal.ProcessManager
 import com.planet57.gshell.testharness.CommandTestSupport
+import org.junit.Assume
+import org.junit.Before
+import org.junit.Test
 
 /**
  * Tests for {@link ExecuteAction}.
@@ -27,5 +34,34 @@ class ExecuteActionTest
     super(ExecuteAction.class)
   }
 
-  // FIXME: add tests
+  @Before
+  void requireShell() {
+    Assume.assumeTrue(new File('/bin/sh').canExecute())
+  }
+
+  @Test
+  void 'exit code of process'() {
+    assert executeCommand('/bin/sh', '-c', "'exit 3'") == 3
+  }
+
+  @Test(timeout = 10000L)
+  void 'background process destroyed when shell stops'() {
+    assert executeCommand('--background', '/bin/sh', '-c', "'exec sleep 30'") == null
+    def matcher = io.outputString =~ /\[(\d+)\]/
+    assert matcher.find()
+
+    ProcessManager processManager = lookup(ProcessManager.class)
+    ManagedProcess process = processManager.require(matcher.group(1) as int)
+    assert process.alive
+
+    shell.stop()
+    try {
+      assert process.waitFor(5, TimeUnit.SECONDS)
+      assert processManager.get(process.id) == null
+    }
+    finally {
+      // restart for tear-down
+      shell.start()
+    }
+  }
 }
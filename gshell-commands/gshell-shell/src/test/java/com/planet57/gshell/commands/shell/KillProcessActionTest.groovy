@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.shell
+
+import java.util.concurrent.TimeUnit
+
+import com.planet57.gshell.commands.shell.internal.ManagedProcess
+import com.planet57.gshell.commands.shell.internal.ProcessManager
+import com.planet57.gshell.testharness.CommandTestSupport
+import org.junit.Assume
+import org.junit.Test
+
+/**
+ * Tests for {@link KillProcessAction}.
+ */
+class KillProcessActionTest
+    extends CommandTestSupport
+{
+  KillProcessActionTest() {
+    super(KillProcessAction.class)
+  }
+
+  private ManagedProcess start(final String script) {
+    Assume.assumeTrue(new File('/bin/sh').canExecute())
+    return lookup(ProcessManager.class).start(new ProcessBuilder('/bin/sh', '-c', script))
+  }
+
+  @Test(timeout = 10000L)
+  void 'terminate process'() {
+    ManagedProcess process = start('exec sleep 30')
+    assert process.alive
+
+    assert executeCommand("${process.id}") == null
+    assert process.waitFor(5, TimeUnit.SECONDS)
+    assert process.exitCode != 0
+  }
+
+  @Test(timeout = 10000L)
+  void 'terminate process forcibly'() {
+    ManagedProcess process = start('trap "" TERM; exec sleep 30')
+
+    assert executeCommand('--force', "${process.id}") == null
+    assert process.waitFor(5, TimeUnit.SECONDS)
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  void 'unknown process'() {
+    executeCommand('57')
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.shell
+
+import com.planet57.gshell.commands.shell.internal.ManagedProcess
+import com.planet57.gshell.commands.shell.internal.ProcessManager
+import com.planet57.gshell.testharness.CommandTestSupport
+import org.junit.Assume
+import org.junit.Test
+
+/**
+ * Tests for {@link ListProcessesAction}.
+ */
+class ListProcessesActionTest
+    extends CommandTestSupport
+{
+  ListProcessesActionTest() {
+    super(ListProcessesAction.class)
+  }
+
+  private ManagedProcess start(final String script) {
+    Assume.assumeTrue(new File('/bin/sh').canExecute())
+    return lookup(ProcessManager.class).start(new ProcessBuilder('/bin/sh', '-c', script))
+  }
+
+  @Test
+  void testDefault() {
+    assert executeCommand() == null
+    assert io.outputString.contains('No processes')
+  }
+
+  @Test(timeout = 10000L)
+  void 'list finished and running processes'() {
+    ManagedProcess finished = start('exit 3')
+    finished.waitFor()
+    ManagedProcess running = start('exec sleep 30')
+    try {
+      assert executeCommand() == null
+      def output = io.outputString
+      assert output.contains("[${finished.id}] exit 3")
+      assert output.contains("[${running.id}] running")
+      assert output.contains('/bin/sh -c exec sleep 30')
+    }
+    finally {
+      running.destroy(true)
+    }
+  }
+}
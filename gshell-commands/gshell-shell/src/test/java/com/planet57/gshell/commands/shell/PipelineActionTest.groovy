@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.shell
+
+import com.planet57.gshell.commands.shell.PipelineAction.Spawn
+import com.planet57.gshell.testharness.CommandTestSupport
+import org.junit.After
+import org.junit.Assume
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Tests for {@link PipelineAction}.
+ */
+class PipelineActionTest
+    extends CommandTestSupport
+{
+  PipelineActionTest() {
+    super(PipelineAction.class)
+  }
+
+  @Before
+  void requirePosix() {
+    Assume.assumeTrue(new File('/bin/sh').canExecute())
+  }
+
+  @After
+  void resetSpawn() {
+    PipelineAction.spawnOverride = null
+  }
+
+  /**
+   * Spawn methods usable on this JVM.
+   */
+  private static List<Spawn> available() {
+    List<Spawn> result = [Spawn.SHELL, Spawn.CONNECTED]
+    if (PipelineAction.isPipelineSupported()) {
+      result << Spawn.PIPELINE
+    }
+    return result
+  }
+
+  private Object run(final Spawn spawn, final String... args) {
+    PipelineAction.spawnOverride = spawn
+    io.output.reset()
+    return executeCommand(args)
+  }
+
+  @Test(timeout = 30000L)
+  void 'multi-stage pipeline output'() {
+    available().each { spawn ->
+      assert run(spawn, "printf 'c\\nb\\na\\n'", "'|'", 'sort', "'|'", 'head', '-n', '2') == 0
+      assert io.outputString == 'a\nb\n' : "spawn: $spawn"
+    }
+  }
+
+  @Test(timeout = 30000L)
+  void 'arguments are not expanded by the shell'() {
+    def result = run(Spawn.SHELL, "printf '%s\\n'", "'a  b'", '"it\'s"', "'\$HOME'", "'*'", "'|'", 'cat')
+    assert result == 0
+    assert io.outputString == 'a  b\nit\'s\n$HOME\n*\n'
+  }
+
+  @Test(timeout = 30000L)
+  void 'exit status of last command'() {
+    available().each { spawn ->
+      assert run(spawn, "printf 'x\\n'", "'|'", 'sh', '-c', "'cat; exit 3'", "'|'", 'cat') == 0 : "spawn: $spawn"
+    }
+  }
+
+  @Test(timeout = 30000L)
+  void 'pipefail returns status of failing middle command'() {
+    // shell spawn only reports the status of the last command; never chosen with --pipefail
+    available().findAll { it != Spawn.SHELL }.each { spawn ->
+      assert run(spawn, '--pipefail', "printf 'x\\n'", "'|'", 'sh', '-c', "'cat; exit 3'", "'|'", 'cat') == 3 :
+          "spawn: $spawn"
+      assert io.outputString == 'x\n'
+    }
+  }
+
+  @Test
+  void 'missing command rejected'() {
+    try {
+      executeCommand('ls', "'|'")
+      assert false
+    }
+    catch (IllegalArgumentException e) {
+      assert e.message == "Missing command after '|'"
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.shell
+
+import com.planet57.gshell.commands.shell.internal.ManagedProcess
+import com.planet57.gshell.commands.shell.internal.ProcessManager
+import com.planet57.gshell.testharness.CommandTestSupport
+import org.junit.Assume
+import org.junit.Test
+
+/**
+ * Tests for {@link ProcessLogsAction}.
+ */
+class ProcessLogsActionTest
+    extends CommandTestSupport
+{
+  ProcessLogsActionTest() {
+    super(ProcessLogsAction.class)
+  }
+
+  private ManagedProcess start(final String script) {
+    Assume.assumeTrue(new File('/bin/sh').canExecute())
+    return lookup(ProcessManager.class).start(new ProcessBuilder('/bin/sh', '-c', script))
+  }
+
+  @Test(timeout = 10000L)
+  void 'display output'() {
+    ManagedProcess process = start('echo hello; echo oops >&2')
+    process.waitFor()
+
+    // follow returns once all output has been read
+    assert executeCommand('--follow', "${process.id}") == null
+    assert io.outputString.readLines() == ['hello']
+  }
+
+  @Test(timeout = 10000L)
+  void 'display error'() {
+    ManagedProcess process = start('echo hello; echo oops >&2')
+
+    assert executeCommand('--error', '--follow', "${process.id}") == null
+    assert io.outputString.readLines() == ['oops']
+  }
+
+  @Test(timeout = 10000L)
+  void 'follow until exit'() {
+    ManagedProcess process = start('echo one; sleep 1; echo two')
+
+    assert executeCommand('--follow', "${process.id}") == null
+    assert !process.alive
+    assert io.outputString.readLines() == ['one', 'two']
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  void 'unknown process'() {
+    executeCommand('57')
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.shell
+
+import com.planet57.gshell.commands.shell.internal.ManagedProcess
+import com.planet57.gshell.commands.shell.internal.ProcessManager
+import com.planet57.gshell.testharness.CommandTestSupport
+import org.junit.Assume
+import org.junit.Test
+
+/**
+ * Tests for {@link WaitProcessAction}.
+ */
+class WaitProcessActionTest
+    extends CommandTestSupport
+{
+  WaitProcessActionTest() {
+    super(WaitProcessAction.class)
+  }
+
+  private ManagedProcess start(final String script) {
+    Assume.assumeTrue(new File('/bin/sh').canExecute())
+    return lookup(ProcessManager.class).start(new ProcessBuilder('/bin/sh', '-c', script))
+  }
+
+  @Test(timeout = 10000L)
+  void 'wait for exit code'() {
+    ManagedProcess process = start('sleep 0.2; exit 7')
+    assert executeCommand("${process.id}") == 7
+    assert !process.alive
+  }
+
+  @Test(timeout = 10000L)
+  void 'wait with timeout'() {
+    ManagedProcess process = start('exec sleep 30')
+    try {
+      assert executeCommand('--timeout', '100ms', "${process.id}") == 1
+      assert io.errorString.contains("Timed out waiting for process: ${process.id}")
+      assert process.alive
+    }
+    finally {
+      process.destroy(true)
+    }
+  }
+}
@@ -22,6 +22,7 @@ import java.time.temporal.ChronoUnit;
 
 import com.planet57.gshell.command.Command;
 import com.planet57.gshell.command.CommandContext;
+import com.planet57.gshell.command.ResultStream;
 import com.planet57.gshell.util.io.IO;
 import com.planet57.gshell.command.CommandActionSupport;
 import com.planet57.gshell.util.cli2.Option;
@@ -65,19 +66,16 @@ public class HistoryAction
       log.debug("History saved");
     }
     else {
-      displayEntries(context.getIo(), history);
+      log.debug("History size: {}", history.size());
+      IO io = context.getIo();
+      boolean timestamps = this.timestamps;
+      return ResultStream.of(history.iterator(), entry -> renderEntry(io, entry, timestamps));
     }
 
     return null;
   }
 
-  private void displayEntries(final IO io, final History history) {
-    log.debug("History size: {}", history.size());
-
-    history.forEach(entry -> renderEntry(io, entry));
-  }
-
-  private void renderEntry(final IO io, final History.Entry entry) {
+  private String renderEntry(final IO io, final History.Entry entry, final boolean timestamps) {
     AttributedStringBuilder buff = new AttributedStringBuilder();
 
     if (timestamps) {
@@ -90,6 +88,6 @@ public class HistoryAction
     buff.append(styles.style(".index:-bold", "%3d  ", index))
         .append(entry.line());
 
-    io.println(buff.toAnsi(io.terminal));
+    return buff.toAnsi(io.terminal);
   }
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.standard
+
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+
+import com.planet57.gshell.shell.ExecutionResult
+import com.planet57.gshell.shell.ShellExecutor
+import com.planet57.gshell.testharness.CommandTestSupport
+import com.planet57.gshell.util.io.CaptureBuffer
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Tests for pooled sessions of {@link ShellExecutor}.
+ */
+class ShellExecutorTest
+    extends CommandTestSupport
+{
+  private static final String NEWLINE = System.getProperty('line.separator')
+
+  private ShellExecutor executor
+
+  ShellExecutorTest() {
+    super(EchoAction.class)
+  }
+
+  @Before
+  void setUpExecutor() {
+    // sequential executions reuse the same idle session
+    executor = lookup(ShellExecutor.class)
+  }
+
+  @After
+  void tearDownExecutor() {
+    executor?.close()
+    System.clearProperty(CaptureBuffer.HEAP_THRESHOLD)
+    System.clearProperty(CaptureBuffer.OFF_HEAP_THRESHOLD)
+  }
+
+  private String output(final String line) {
+    ExecutionResult result = executor.execute(line)
+    try {
+      assert result.success
+      return result.getOutput(StandardCharsets.UTF_8)
+    }
+    finally {
+      result.close()
+    }
+  }
+
+  @Test
+  void 'captures output'() {
+    assert output('echo hello') == 'hello' + NEWLINE
+    assert output('echo again') == 'again' + NEWLINE
+  }
+
+  @Test
+  void 'session variables do not leak between executions'() {
+    ExecutionResult result = executor.execute('foo = bar; $foo')
+    try {
+      assert result.result == 'bar'
+    }
+    finally {
+      result.close()
+    }
+
+    result = executor.execute('$foo')
+    try {
+      assert result.success
+      assert result.result == null
+    }
+    finally {
+      result.close()
+    }
+  }
+
+  @Test
+  void 'failure is reported'() {
+    ExecutionResult result = executor.execute('no-such-command')
+    try {
+      assert !result.success
+      assert result.failure != null
+      assert result.exitCode != 0
+    }
+    finally {
+      result.close()
+    }
+
+    // session remains usable
+    assert output('echo ok') == 'ok' + NEWLINE
+  }
+
+  @Test(timeout = 60000L)
+  void 'concurrent executions capture separately'() {
+    // more threads than sessions; callers block until a session is idle
+    ExecutorService threads = Executors.newFixedThreadPool(8)
+    try {
+      List<Future<Void>> futures = (0..<8).collect { int n ->
+        threads.submit({
+          for (int i = 0; i < 10; i++) {
+            assert output("echo task-$n-$i") == "task-$n-$i" + NEWLINE
+          }
+          return null
+        } as Callable<Void>)
+      }
+      futures*.get()
+    }
+    finally {
+      threads.shutdownNow()
+    }
+  }
+
+  @Test
+  void 'large output is streamed from file'() {
+    System.setProperty(CaptureBuffer.HEAP_THRESHOLD, '16')
+    System.setProperty(CaptureBuffer.OFF_HEAP_THRESHOLD, '16')
+
+    String text = 'x' * 1000
+    ExecutionResult result = executor.execute("echo $text")
+    try {
+      assert result.outputSize == text.length() + NEWLINE.length()
+      assert result.openOutput().withStream { it.getText('UTF-8') } == text + NEWLINE
+    }
+    finally {
+      result.close()
+    }
+  }
+}
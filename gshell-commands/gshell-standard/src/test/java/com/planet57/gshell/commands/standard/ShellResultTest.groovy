@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.commands.standard
+
+import com.planet57.gshell.testharness.CommandTestSupport
+import com.planet57.gshell.variables.VariableNames
+import org.junit.Test
+
+/**
+ * Tests for retention of {@link VariableNames#LAST_RESULT}.
+ */
+class ShellResultTest
+    extends CommandTestSupport
+{
+  ShellResultTest() {
+    super(EchoAction.class)
+  }
+
+  @Test
+  void 'result retained by default'() {
+    def result = executeLine('[1 2 3]')
+    assert result == [1, 2, 3]
+    assert shell.variables.get(VariableNames.LAST_RESULT).is(result)
+  }
+
+  @Test
+  void 'result over limit described'() {
+    shell.variables.set(VariableNames.SHELL_RESULT_RETAIN, 2)
+
+    def result = executeLine('[1 2 3]')
+    assert result == [1, 2, 3]
+    def retained = shell.variables.get(VariableNames.LAST_RESULT)
+    assert retained instanceof String
+    assert retained.contains('3 elements')
+
+    executeLine('[1 2]')
+    assert shell.variables.get(VariableNames.LAST_RESULT) == [1, 2]
+  }
+}
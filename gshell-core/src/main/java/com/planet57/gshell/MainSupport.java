@@ -15,13 +15,13 @@
  */
 package com.planet57.gshell;
 
-import java.io.FilterInputStream;
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.File;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Guice;
@@ -33,16 +33,21 @@ import com.planet57.gshell.branding.Branding;
 import com.planet57.gshell.branding.BrandingSupport;
 import com.planet57.gshell.guice.BeanContainer;
 import com.planet57.gshell.internal.ShellBuilderImpl;
+import com.planet57.gshell.internal.ShellDaemon;
+import com.planet57.gshell.launcher.ShellProtocol;
 import com.planet57.gshell.shell.ShellBuilder;
 import com.planet57.gshell.util.io.IO;
 import com.planet57.gshell.internal.ExitCodeDecoder;
 import com.planet57.gshell.shell.Shell;
+import com.planet57.gshell.shell.ShellErrorHandler;
 import com.planet57.gshell.util.NameValue;
 import com.planet57.gshell.util.cli2.Argument;
 import com.planet57.gshell.util.cli2.CliProcessor;
 import com.planet57.gshell.util.cli2.HelpPrinter;
 import com.planet57.gshell.util.cli2.Option;
 import com.planet57.gshell.util.io.StreamSet;
+import com.planet57.gshell.util.io.TerminalInputStream;
+import com.planet57.gshell.util.io.TerminalPrintStream;
 import com.planet57.gshell.util.pref.Preference;
 import com.planet57.gshell.util.pref.PreferenceProcessor;
 import com.planet57.gshell.util.pref.Preferences;
@@ -141,6 +146,14 @@ public abstract class MainSupport
   @Nullable
   private List<String> appArgs;
 
+  /**
+   * Clients only forward when launched with {@code -Dshell.daemon.client=true}.
+   *
+   * @since 3.0
+   */
+  @Option(longName = "daemon", description = "Serve invocations from the launcher client")
+  private boolean daemon;
+
   //
   // Boot
   //
@@ -205,6 +218,20 @@ public abstract class MainSupport
     threadIO.start();
     threadIO.setStreams(io.streams.in, io.streams.out, io.streams.err);
 
+    if (daemon) {
+      try {
+        variables.set(VariableNames.SHELL_ERRORS, showErrorTraces);
+        runDaemon(io, branding);
+      }
+      finally {
+        io.flush();
+        threadIO.stop();
+        terminal.close();
+      }
+      exit(0);
+      return;
+    }
+
     Object result = null;
     try {
       variables.set(VariableNames.SHELL_ERRORS, showErrorTraces);
@@ -272,6 +299,19 @@ public abstract class MainSupport
   protected Shell createShell(final IO io, final Variables variables, final Branding branding) throws Exception {
     log.debug("Creating shell instance");
 
+    return createInjector(branding).getInstance(ShellBuilder.class)
+      .branding(branding)
+      .io(io)
+      .variables(variables)
+      .build();
+  }
+
+  /**
+   * Create the container.
+   *
+   * @since 3.0
+   */
+  protected Injector createInjector(final Branding branding) {
     List<Module> modules = new ArrayList<>();
 
     URLClassSpace space = new URLClassSpace(getClass().getClassLoader());
@@ -287,14 +327,149 @@ public abstract class MainSupport
 
     configure(modules);
 
-    Injector injector = Guice.createInjector(new WireModule(modules));
     // injector is automatically bound to BeanLocator by sisu
+    return Guice.createInjector(new WireModule(modules));
+  }
 
-    return injector.getInstance(ShellBuilder.class)
-      .branding(branding)
-      .io(io)
-      .variables(variables)
-      .build();
+  //
+  // Daemon
+  //
+
+  /**
+   * Options of an invocation forwarded to the daemon.
+   *
+   * Only options which apply to a single invocation are supported; see
+   * {@link com.planet57.gshell.launcher.DaemonClient#isForwardable(String[])}.
+   */
+  private static class DaemonInvocation
+  {
+    @Option(name = "h", longName = "help", override = true)
+    private boolean help;
+
+    @Option(name = "V", longName = "version", override = true)
+    private boolean version;
+
+    @Option(name = "e", longName = "errors")
+    private boolean showErrorTraces;
+
+    @Nullable
+    @Option(name = "c", longName = "command", token = "COMMAND")
+    private String command;
+
+    private final Map<String, String> variables = new LinkedHashMap<>();
+
+    @Option(name = "D", longName = "define", token = "NAME=VALUE")
+    private void setVariable(final String input) {
+      NameValue nv = NameValue.parse(input);
+      variables.put(nv.name, nv.value);
+    }
+
+    @Argument(token = "EXPR")
+    @Nullable
+    private List<String> appArgs;
+  }
+
+  /**
+   * Serve invocations forwarded by the launcher client until the process is terminated.
+   *
+   * The container is created once and each invocation builds a new shell on its own terminal.
+   */
+  private void runDaemon(final IO io, final Branding branding) throws Exception {
+    Injector injector = createInjector(branding);
+    File file = new File(branding.getUserContextDir(), ShellProtocol.DAEMON_FILE);
+
+    ShellDaemon daemon = new ShellDaemon(file, branding.getProgramName(), session -> {
+      // standard error is forwarded apart from terminal output so clients can redirect it
+      StreamSet terminalStreams = createStreamSet(session.terminal);
+      StreamSet sessionStreams = new StreamSet(terminalStreams.in, terminalStreams.out,
+          new PrintStream(session.error, true));
+      IO sessionIo = StyledIO.create("shell", sessionStreams, session.terminal);
+
+      DaemonInvocation invocation = new DaemonInvocation();
+      CliProcessor clp = new CliProcessor();
+      clp.addBean(invocation);
+      clp.setStopAtNonOption(true);
+      try {
+        clp.process(session.arguments.toArray(new String[session.arguments.size()]));
+      }
+      catch (ParseException e) {
+        sessionIo.err.println(e.getMessage());
+        sessionIo.flush();
+        return 2;
+      }
+
+      if (invocation.help) {
+        // usage describes the full option set of the launcher
+        CliProcessor usage = new CliProcessor();
+        usage.addBean(this);
+        new HelpPrinter(usage, session.terminal.getWidth()).printUsage(sessionIo.out, branding.getProgramName());
+        sessionIo.flush();
+        return 0;
+      }
+
+      if (invocation.version) {
+        sessionIo.format("%s %s%n", branding.getDisplayName(), branding.getVersion());
+        sessionIo.flush();
+        return 0;
+      }
+
+      threadIO.setStreams(sessionIo.streams.in, sessionIo.streams.out, sessionIo.streams.err);
+
+      Variables sessionVariables = new VariablesSupport();
+      sessionVariables.asMap().putAll(variables.asMap());
+      sessionVariables.asMap().putAll(invocation.variables);
+      if (invocation.showErrorTraces) {
+        sessionVariables.set(VariableNames.SHELL_ERRORS, true);
+      }
+      sessionVariables.set(VariableNames.SHELL_USER_DIR, session.directory);
+      sessionVariables.set(VariableNames.SHELL_ENV, session.environment);
+
+      Object result = null;
+      try {
+        Shell shell = injector.getInstance(ShellBuilder.class)
+          .branding(branding)
+          .io(sessionIo)
+          .variables(sessionVariables)
+          .build();
+
+        shell.start();
+        try {
+          if (invocation.command != null) {
+            result = shell.execute(invocation.command);
+          }
+          else if (invocation.appArgs != null) {
+            result = shell.execute(String.join(" ", invocation.appArgs));
+          }
+          else {
+            shell.run();
+          }
+        }
+        finally {
+          shell.stop();
+        }
+      }
+      catch (Exception e) {
+        boolean verbose = sessionVariables.require(VariableNames.SHELL_ERRORS, Boolean.class, false);
+        new ShellErrorHandler().handleError(sessionIo.err, e, verbose);
+        return 1;
+      }
+      finally {
+        sessionIo.flush();
+        threadIO.close();
+      }
+
+      if (result == null) {
+        result = sessionVariables.get(VariableNames.LAST_RESULT);
+      }
+      return ExitCodeDecoder.decode(result);
+    });
+
+    daemon.start();
+    Runtime.getRuntime().addShutdownHook(new Thread(daemon::close, "shell-daemon-shutdown"));
+
+    io.format("%s daemon listening on port: %d%n", branding.getDisplayName(), daemon.getPort());
+    io.flush();
+    daemon.await();
   }
 
   /**
@@ -326,21 +501,7 @@ public abstract class MainSupport
    */
   @VisibleForTesting
   protected StreamSet createStreamSet(final Terminal terminal) {
-    InputStream in = new FilterInputStream(terminal.input())
-    {
-      @Override
-      public void close() throws IOException {
-        // ignore
-      }
-    };
-    PrintStream out = new PrintStream(terminal.output(), true)
-    {
-      @Override
-      public void close() {
-        // ignore
-      }
-    };
-    return new StreamSet(in, out);
+    return new StreamSet(new TerminalInputStream(terminal), new TerminalPrintStream(terminal));
   }
 
   /**
@@ -42,7 +42,10 @@ public class AliasRegistryImpl
   extends ComponentSupport
   implements AliasRegistry
 {
-  private final Map<String, String> aliases = new LinkedHashMap<>();
+  /**
+   * Copy-on-write; aliases are resolved for every command executed by every shell.
+   */
+  private volatile Map<String, String> aliases = Collections.emptyMap();
 
   private final EventManager events;
 
@@ -52,7 +55,7 @@ public class AliasRegistryImpl
   }
 
   @Override
-  public void registerAlias(final String name, final String alias) {
+  public synchronized void registerAlias(final String name, final String alias) {
     checkNotNull(name);
     checkNotNull(alias);
 
@@ -64,13 +67,15 @@ public class AliasRegistryImpl
       }
     }
 
-    aliases.put(name, alias);
+    Map<String, String> updated = new LinkedHashMap<>(aliases);
+    updated.put(name, alias);
+    aliases = Collections.unmodifiableMap(updated);
 
     events.publish(new AliasRegisteredEvent(name, alias));
   }
 
   @Override
-  public void removeAlias(final String name) throws NoSuchAliasException {
+  public synchronized void removeAlias(final String name) throws NoSuchAliasException {
     checkNotNull(name);
 
     log.debug("Removing alias: {}", name);
@@ -79,7 +84,9 @@ public class AliasRegistryImpl
       throw new NoSuchAliasException(name);
     }
 
-    aliases.remove(name);
+    Map<String, String> updated = new LinkedHashMap<>(aliases);
+    updated.remove(name);
+    aliases = Collections.unmodifiableMap(updated);
 
     events.publish(new AliasRemovedEvent(name));
   }
@@ -88,11 +95,12 @@ public class AliasRegistryImpl
   public String getAlias(final String name) throws NoSuchAliasException {
     checkNotNull(name);
 
-    if (!containsAlias(name)) {
+    String alias = aliases.get(name);
+    if (alias == null) {
       throw new NoSuchAliasException(name);
     }
 
-    return aliases.get(name);
+    return alias;
   }
 
   @Override
@@ -104,6 +112,6 @@ public class AliasRegistryImpl
 
   @Override
   public Map<String, String> getAliases() {
-    return Collections.unmodifiableMap(aliases);
+    return aliases;
   }
 }
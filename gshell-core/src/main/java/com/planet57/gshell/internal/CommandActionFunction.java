@@ -57,6 +57,13 @@ public class CommandActionFunction
 
   public static final String TERMINAL_VAR = ".terminal";
 
+  /**
+   * When {@link Boolean#TRUE} command IO is not styled.
+   *
+   * @since 3.0
+   */
+  public static final String HEADLESS_VAR = ".headless";
+
   private final CommandAction action;
 
   public CommandActionFunction(final CommandAction action) {
@@ -101,9 +108,14 @@ public class CommandActionFunction
     final ClassLoader cl = Thread.currentThread().getContextClassLoader();
     Thread.currentThread().setContextClassLoader(action.getClass().getClassLoader());
 
-    // FIXME: Need to provide a means to create non-styled for testing?
     // re-create IO with current streams; which are adjusted by ThreadIO
-    final IO io = StyledIO.create("shell", StreamSet.system(), terminal);
+    final IO io = Boolean.TRUE.equals(session.get(HEADLESS_VAR))
+      ? new IO(StreamSet.system(), terminal)
+      : StyledIO.create("shell", StreamSet.system(), terminal);
+
+    // HACK: re-create variables with session as basis; bound for this thread only while the action executes
+    final Variables variables = new VariablesSupport(session.getVariables());
+    final Variables previous = VariablesProvider.set(variables);
 
     Object result = null;
     try {
@@ -133,10 +145,6 @@ public class CommandActionFunction
         }
       }
 
-      // HACK: re-create variables with session as basis
-      final Variables variables = new VariablesSupport(session.getVariables());
-      VariablesProvider.set(variables);
-
       if (execute) {
         result = action.execute(new CommandContext()
         {
@@ -174,6 +182,7 @@ public class CommandActionFunction
     }
     finally {
       Thread.currentThread().setContextClassLoader(cl);
+      VariablesProvider.set(previous);
       io.flush();
     }
 
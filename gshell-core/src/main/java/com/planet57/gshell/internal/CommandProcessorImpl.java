@@ -56,6 +56,8 @@ public class CommandProcessorImpl
 
     this.aliases = checkNotNull(aliases);
     this.resolver = checkNotNull(resolver);
+
+    addConverter(new ResultStreamConverter());
   }
 
   @Nullable
@@ -56,7 +56,10 @@ public class CommandRegistryImpl
 
   private final EventManager events;
 
-  private final Map<String, CommandAction> commands = new LinkedHashMap<>();
+  /**
+   * Copy-on-write; registration is rare while lookup happens for every command executed by every shell.
+   */
+  private volatile Map<String, CommandAction> commands = Collections.emptyMap();
 
   private boolean discoveryEnabled = true;
 
@@ -97,7 +100,7 @@ public class CommandRegistryImpl
   }
 
   @Override
-  public void registerCommand(final String name, final CommandAction command) throws DuplicateCommandException {
+  public synchronized void registerCommand(final String name, final CommandAction command) throws DuplicateCommandException {
     checkNotNull(name);
 
     // provide configured command name to action if requested
@@ -116,7 +119,9 @@ public class CommandRegistryImpl
       throw new DuplicateCommandException(name);
     }
 
-    commands.put(name, command);
+    Map<String, CommandAction> updated = new LinkedHashMap<>(commands);
+    updated.put(name, command);
+    commands = Collections.unmodifiableMap(updated);
     events.publish(new CommandRegisteredEvent(name, command));
   }
 
@@ -140,15 +145,17 @@ public class CommandRegistryImpl
   }
 
   @Override
-  public void removeCommand(final String name) throws NoSuchCommandException {
+  public synchronized void removeCommand(final String name) throws NoSuchCommandException {
     checkNotNull(name);
 
     log.trace("Removing command: {}", name);
 
-    CommandAction action = commands.remove(name);
+    Map<String, CommandAction> updated = new LinkedHashMap<>(commands);
+    CommandAction action = updated.remove(name);
     if (action == null) {
       throw new NoSuchCommandException(name);
     }
+    commands = Collections.unmodifiableMap(updated);
 
     events.publish(new CommandRemovedEvent(name));
   }
@@ -173,6 +180,6 @@ public class CommandRegistryImpl
 
   @Override
   public Collection<CommandAction> getCommands() {
-    return Collections.unmodifiableCollection(commands.values());
+    return commands.values();
   }
 }
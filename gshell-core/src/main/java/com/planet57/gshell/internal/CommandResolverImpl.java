@@ -61,12 +61,16 @@ public class CommandResolverImpl
 
   @Subscribe
   void on(final CommandRegisteredEvent event) {
-    root.add(event.getName(), event.getCommand());
+    synchronized (root) {
+      root.add(event.getName(), event.getCommand());
+    }
   }
 
   @Subscribe
   void on(final CommandRemovedEvent event) {
-    root.remove(event.getName());
+    synchronized (root) {
+      root.remove(event.getName());
+    }
   }
 
   @Override
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.internal;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nullable;
+
+import com.planet57.gossip.Log;
+import com.planet57.gshell.util.concurrent.Workers;
+import com.planet57.gshell.util.io.CopyOptions;
+import org.slf4j.Logger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Copies a directory tree with a bounded pool of workers.
+ *
+ * The tree is walked on the calling thread, which creates directories and hands files to workers; at most a few files
+ * per worker are queued so walking huge trees does not buffer the whole listing.  File content is moved with
+ * {@link FileChannel#transferTo} so the kernel can copy without passing through the heap.  Directory attributes are
+ * applied once all files are written, deepest first, since writing files changes directory modification times.
+ * When the target is inside the source, as for {@code cp -r foo foo}, the target subtree is not copied into itself.
+ *
+ * @since 3.0
+ */
+class DirectoryCopier
+{
+  private static final Logger log = Log.getLogger(DirectoryCopier.class);
+
+  /**
+   * Queued files per worker.
+   */
+  private static final int QUEUE_FACTOR = 4;
+
+  private final CopyOptions options;
+
+  private final AtomicLong files = new AtomicLong();
+
+  private final AtomicLong bytes = new AtomicLong();
+
+  private final AtomicReference<IOException> failure = new AtomicReference<>();
+
+  DirectoryCopier(final CopyOptions options) {
+    this.options = checkNotNull(options);
+  }
+
+  public void copy(final Path source, final Path target) throws IOException {
+    checkNotNull(source);
+    checkNotNull(target);
+
+    int jobs = Workers.parallelism(options.getJobs());
+    log.debug("Copying: {} -> {}; jobs: {}", source, target, jobs);
+
+    // relative path of the target when nested in the source; skipped so the copy does not recurse into itself
+    Path sourceDir = source.toFile().getCanonicalFile().toPath();
+    Path targetDir = target.toFile().getCanonicalFile().toPath();
+    Path nested = targetDir.startsWith(sourceDir) && !targetDir.equals(sourceDir) ? sourceDir.relativize(targetDir) : null;
+
+    ExecutorService executor = Workers.newExecutor("copy", jobs);
+    Semaphore queued = new Semaphore(jobs * QUEUE_FACTOR);
+    List<Path[]> directories = new ArrayList<>();
+    try {
+      Files.walkFileTree(source, new SimpleFileVisitor<Path>()
+      {
+        @Override
+        public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+          Path relative = source.relativize(dir);
+          if (relative.equals(nested)) {
+            log.debug("Skipping target nested in source: {}", dir);
+            return FileVisitResult.SKIP_SUBTREE;
+          }
+          Path dest = target.resolve(relative.toString());
+          Files.createDirectories(dest);
+          directories.add(new Path[]{dir, dest});
+          return proceed();
+        }
+
+        @Override
+        public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+          Path dest = target.resolve(source.relativize(file).toString());
+          if (attrs.isSymbolicLink()) {
+            Files.copy(file, dest, LinkOption.NOFOLLOW_LINKS, StandardCopyOption.REPLACE_EXISTING);
+            completed(0);
+            return proceed();
+          }
+
+          acquire(queued);
+          executor.execute(() -> {
+            try {
+              if (failure.get() == null) {
+                copyFile(file, dest, attrs);
+              }
+            }
+            catch (IOException e) {
+              failure.compareAndSet(null, e);
+            }
+            finally {
+              queued.release();
+            }
+          });
+          return proceed();
+        }
+      });
+
+      // wait for queued files
+      acquire(queued, jobs * QUEUE_FACTOR);
+    }
+    finally {
+      Workers.shutdownNow(executor);
+    }
+
+    IOException cause = failure.get();
+    if (cause != null) {
+      throw cause;
+    }
+
+    for (int i = directories.size() - 1; i >= 0; i--) {
+      Path[] pair = directories.get(i);
+      copyAttributes(pair[0], pair[1], Files.readAttributes(pair[0], BasicFileAttributes.class));
+    }
+
+    log.debug("Copied {} files; {} bytes", files.get(), bytes.get());
+  }
+
+  private FileVisitResult proceed() {
+    return failure.get() == null ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+  }
+
+  private static void acquire(final Semaphore semaphore) throws IOException {
+    acquire(semaphore, 1);
+  }
+
+  private static void acquire(final Semaphore semaphore, final int permits) throws IOException {
+    try {
+      semaphore.acquire(permits);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+  }
+
+  /**
+   * Copy a single file; skipping it when resuming and the target is already complete.
+   */
+  void copyFile(final Path source, final Path target, final BasicFileAttributes attrs) throws IOException {
+    if (options.isResume() && isComplete(target, attrs)) {
+      log.trace("Skipping: {}", target);
+      completed(0);
+      return;
+    }
+
+    long copied = 0;
+    try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+         FileChannel out = FileChannel.open(target,
+             StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))
+    {
+      long size = in.size();
+      while (copied < size) {
+        long count = in.transferTo(copied, size - copied, out);
+        if (count <= 0) {
+          // file was truncated while copying
+          break;
+        }
+        copied += count;
+      }
+    }
+
+    copyAttributes(source, target, attrs);
+    completed(copied);
+  }
+
+  private static boolean isComplete(final Path target, final BasicFileAttributes source) {
+    try {
+      BasicFileAttributes attrs = Files.readAttributes(target, BasicFileAttributes.class);
+      return attrs.isRegularFile() &&
+          attrs.size() == source.size() &&
+          attrs.lastModifiedTime().equals(source.lastModifiedTime());
+    }
+    catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Apply times and, where supported, permissions; failures are logged since not all file-systems support them.
+   */
+  private static void copyAttributes(final Path source, final Path target, final BasicFileAttributes attrs) {
+    try {
+      FileTime modified = attrs.lastModifiedTime();
+      PosixFileAttributeView view = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+      if (view != null) {
+        Set<PosixFilePermission> permissions = permissions(source, attrs);
+        if (permissions != null) {
+          view.setPermissions(permissions);
+        }
+        view.setTimes(modified, attrs.lastAccessTime(), null);
+      }
+      else {
+        Files.setLastModifiedTime(target, modified);
+      }
+    }
+    catch (IOException e) {
+      log.trace("Unable to copy attributes: {}", target, e);
+    }
+  }
+
+  @Nullable
+  private static Set<PosixFilePermission> permissions(final Path source, final BasicFileAttributes attrs)
+      throws IOException
+  {
+    if (attrs instanceof PosixFileAttributes) {
+      return ((PosixFileAttributes) attrs).permissions();
+    }
+    PosixFileAttributeView view = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+    return view != null ? view.readAttributes().permissions() : null;
+  }
+
+  private void completed(final long count) {
+    long total = bytes.addAndGet(count);
+    long done = files.incrementAndGet();
+    CopyOptions.Monitor monitor = options.getMonitor();
+    if (monitor != null) {
+      monitor.progress(done, total);
+    }
+  }
+}
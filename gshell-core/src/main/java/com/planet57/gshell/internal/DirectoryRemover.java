@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.internal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.planet57.gossip.Log;
+import org.slf4j.Logger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Deletes directory trees on a work-stealing pool.
+ *
+ * Each directory is a task which streams its entries, deleting files as they are seen and forking a task per
+ * sub-directory; the directory itself is removed once its sub-tasks complete.  Symbolic links are removed, never
+ * followed.
+ *
+ * @since 3.0
+ */
+class DirectoryRemover
+{
+  private static final Logger log = Log.getLogger(DirectoryRemover.class);
+
+  /**
+   * Infix of the hidden sibling a directory is renamed to by {@link #deleteLater}.
+   */
+  private static final String TRASH_INFIX = ".deleting-";
+
+  private final ForkJoinPool pool;
+
+  /**
+   * Trash directories being deleted by this process.
+   */
+  private final Set<Path> pending = ConcurrentHashMap.newKeySet();
+
+  DirectoryRemover(final ForkJoinPool pool) {
+    this.pool = checkNotNull(pool);
+  }
+
+  /**
+   * Delete directory and its contents; blocks until complete.
+   */
+  public void delete(final Path dir) throws IOException {
+    checkNotNull(dir);
+    try {
+      pool.invoke(new DeleteTask(dir));
+    }
+    catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Rename directory aside and delete it in the background.
+   *
+   * The rename is atomic within the parent directory, so the original path is free as soon as this method returns.
+   * Pool workers are daemon threads, so a process which exits first leaves the renamed directory behind; any such
+   * leftovers for the same name are swept along with this delete.
+   */
+  public CompletableFuture<Void> deleteLater(final Path dir) throws IOException {
+    checkNotNull(dir);
+    String prefix = "." + dir.getFileName() + TRASH_INFIX;
+    Path trash = dir.toAbsolutePath().resolveSibling(prefix + Long.toHexString(System.nanoTime()));
+    Files.move(dir, trash, StandardCopyOption.ATOMIC_MOVE);
+    log.debug("Moved to trash: {} -> {}", dir, trash);
+    pending.add(trash);
+
+    List<Path> stale = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(trash.getParent(),
+        entry -> entry.getFileName().toString().startsWith(prefix))) {
+      for (Path entry : stream) {
+        // skip trash being deleted by this process
+        if (pending.add(entry)) {
+          stale.add(entry);
+        }
+      }
+    }
+    catch (IOException | DirectoryIteratorException e) {
+      log.debug("Unable to sweep trash: {}", trash.getParent(), e);
+    }
+
+    return CompletableFuture.runAsync(() -> {
+      try {
+        pool.invoke(new DeleteTask(trash));
+        log.debug("Deleted: {}", trash);
+      }
+      catch (UncheckedIOException e) {
+        log.warn("Failed to delete: {}", trash, e.getCause());
+        throw e;
+      }
+      finally {
+        pending.remove(trash);
+        sweep(stale);
+      }
+    }, pool);
+  }
+
+  /**
+   * Delete trash left behind by an earlier process; failures are logged only.
+   */
+  private void sweep(final List<Path> stale) {
+    for (Path path : stale) {
+      try {
+        log.debug("Sweeping trash: {}", path);
+        pool.invoke(new DeleteTask(path));
+      }
+      catch (UncheckedIOException e) {
+        log.warn("Failed to delete: {}", path, e.getCause());
+      }
+      finally {
+        pending.remove(path);
+      }
+    }
+  }
+
+  private static class DeleteTask
+      extends RecursiveAction
+  {
+    private final Path dir;
+
+    DeleteTask(final Path dir) {
+      this.dir = dir;
+    }
+
+    @Override
+    protected void compute() {
+      try {
+        List<DeleteTask> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+          for (Path entry : stream) {
+            if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+              DeleteTask child = new DeleteTask(entry);
+              child.fork();
+              children.add(child);
+            }
+            else {
+              Files.deleteIfExists(entry);
+            }
+          }
+        }
+        catch (DirectoryIteratorException e) {
+          throw e.getCause();
+        }
+
+        for (DeleteTask child : children) {
+          child.join();
+        }
+        Files.deleteIfExists(dir);
+      }
+      catch (NoSuchFileException e) {
+        // removed concurrently
+      }
+      catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
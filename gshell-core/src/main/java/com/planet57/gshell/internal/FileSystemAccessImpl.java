@@ -17,6 +17,15 @@ package com.planet57.gshell.internal;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -24,7 +33,13 @@ import javax.inject.Named;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.planet57.gshell.util.OperatingSystem;
+import com.planet57.gshell.util.concurrent.Workers;
+import com.planet57.gshell.util.io.CopyOptions;
 import com.planet57.gshell.util.io.FileSystemAccess;
 import com.planet57.gshell.variables.Variables;
 import org.apache.commons.io.FileUtils;
@@ -38,6 +53,10 @@ import static com.planet57.gshell.variables.VariableNames.SHELL_USER_HOME;
 /**
  * Default {@link FileSystemAccess} component.
  *
+ * Resolved files are cached by current directory, home directory for {@code ~} paths and requested path, for up to
+ * {@link #CACHE_TTL_PROPERTY} milliseconds (default: 2000) so symbolic links changed behind the shell are noticed.
+ * Shells share the cache; changing directory does not invalidate entries of other shells.
+ *
  * @since 2.3
  */
 @Named
@@ -46,8 +65,32 @@ public class FileSystemAccessImpl
     extends ComponentSupport
     implements FileSystemAccess
 {
+  /**
+   * System property to configure the maximum number of cached resolved files.
+   *
+   * @since 3.0
+   */
+  public static final String CACHE_SIZE_PROPERTY = "shell.file.cache.size";
+
+  /**
+   * System property to configure milliseconds resolved files are cached; {@code 0} to disable caching.
+   *
+   * @since 3.0
+   */
+  public static final String CACHE_TTL_PROPERTY = "shell.file.cache.ttl";
+
   private final Provider<Variables> variables;
 
+  /**
+   * Work-stealing pool for deletes; threads are created on demand.
+   */
+  private final DirectoryRemover remover = new DirectoryRemover(new ForkJoinPool(Workers.defaultParallelism()));
+
+  private final Cache<ResolveKey, File> resolved = CacheBuilder.newBuilder()
+      .maximumSize(Integer.getInteger(CACHE_SIZE_PROPERTY, 1024))
+      .expireAfterWrite(Long.getLong(CACHE_TTL_PROPERTY, 2000), TimeUnit.MILLISECONDS)
+      .build();
+
   @Inject
   public FileSystemAccessImpl(final Provider<Variables> variables) {
     this.variables = checkNotNull(variables);
@@ -66,7 +109,7 @@ public class FileSystemAccessImpl
 
   @Override
   public File getUserDir() throws IOException {
-    return resolveDir(SHELL_USER_DIR);
+    return resolveFile(null, null);
   }
 
   @Override
@@ -75,9 +118,6 @@ public class FileSystemAccessImpl
 
     String path = dir.getPath();
     variables.get().set(SHELL_USER_DIR, path);
-
-    // HACK: adjust to user.dir; for better general compatibility may want to put on the shell.* versions of thsese?
-    System.setProperty("user.dir", path);
   }
 
   @Override
@@ -86,8 +126,22 @@ public class FileSystemAccessImpl
   }
 
   @Override
-  public File resolveFile(@Nullable File baseDir, @Nullable final String path) throws IOException {
-    File userDir = getUserDir();
+  public File resolveFile(@Nullable final File baseDir, @Nullable final String path) throws IOException {
+    // raw values identify directories without converting or canonicalizing them
+    Variables vars = variables.get();
+    Object userHome = path != null && path.startsWith("~") ? vars.get(SHELL_USER_HOME) : null;
+    ResolveKey key = new ResolveKey(vars.get(SHELL_USER_DIR), userHome, baseDir, path);
+    try {
+      return resolved.get(key, () -> canonicalize(baseDir, path));
+    }
+    catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), IOException.class);
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private File canonicalize(@Nullable File baseDir, @Nullable final String path) throws IOException {
+    File userDir = resolveDir(SHELL_USER_DIR);
 
     if (baseDir == null) {
       baseDir = userDir;
@@ -133,18 +187,77 @@ public class FileSystemAccessImpl
   }
 
   @Override
-  public boolean hasChildren(final File file) {
-    checkNotNull(file);
+  public Path resolvePath(@Nullable final Path baseDir, @Nullable final String path) throws IOException {
+    // File caches its Path; cached entries convert once
+    return resolveFile(baseDir != null ? baseDir.toFile() : null, path).toPath();
+  }
+
+  @Override
+  public Path resolvePath(final String path) throws IOException {
+    return resolvePath(null, path);
+  }
+
+  /**
+   * Cache key for resolved files.
+   */
+  private static class ResolveKey
+  {
+    @Nullable
+    private final Object userDir;
+
+    @Nullable
+    private final Object userHome;
+
+    @Nullable
+    private final File baseDir;
+
+    @Nullable
+    private final String path;
 
-    if (file.isDirectory()) {
-      File[] children = file.listFiles();
+    ResolveKey(@Nullable final Object userDir,
+               @Nullable final Object userHome,
+               @Nullable final File baseDir,
+               @Nullable final String path)
+    {
+      this.userDir = userDir != null ? userDir.toString() : null;
+      this.userHome = userHome != null ? userHome.toString() : null;
+      this.baseDir = baseDir;
+      this.path = path;
+    }
 
-      if (children != null && children.length != 0) {
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
         return true;
       }
+      if (!(o instanceof ResolveKey)) {
+        return false;
+      }
+      ResolveKey that = (ResolveKey) o;
+      return Objects.equals(userDir, that.userDir) &&
+          Objects.equals(userHome, that.userHome) &&
+          Objects.equals(baseDir, that.baseDir) &&
+          Objects.equals(path, that.path);
     }
 
-    return false;
+    @Override
+    public int hashCode() {
+      return Objects.hash(userDir, userHome, baseDir, path);
+    }
+  }
+
+  @Override
+  public boolean hasChildren(final File file) {
+    checkNotNull(file);
+
+    // stop at the first entry instead of listing the whole directory
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(file.toPath())) {
+      return stream.iterator().hasNext();
+    }
+    catch (IOException | DirectoryIteratorException e) {
+      // not a directory or not readable
+      return false;
+    }
   }
 
   @Override
@@ -158,7 +271,14 @@ public class FileSystemAccessImpl
   public void deleteDirectory(final File dir) throws IOException {
     checkNotNull(dir);
     log.debug("Delete directory: {}", dir);
-    FileUtils.deleteDirectory(dir);
+    remover.delete(dir.toPath());
+  }
+
+  @Override
+  public CompletableFuture<Void> deleteDirectoryLater(final File dir) throws IOException {
+    checkNotNull(dir);
+    log.debug("Delete directory in background: {}", dir);
+    return remover.deleteLater(dir.toPath());
   }
 
   @Override
@@ -180,8 +300,16 @@ public class FileSystemAccessImpl
   public void copyDirectory(final File source, final File target) throws IOException {
     checkNotNull(source);
     checkNotNull(target);
-    log.debug("Copy directory: {} -> {}", source, target);
-    FileUtils.copyDirectory(source, target);
+    copyDirectory(source, target, new CopyOptions());
+  }
+
+  @Override
+  public void copyDirectory(final File source, final File target, final CopyOptions options) throws IOException {
+    checkNotNull(source);
+    checkNotNull(target);
+    checkNotNull(options);
+    log.debug("Copy directory: {} -> {}; options: {}", source, target, options);
+    new DirectoryCopier(options).copy(source.toPath(), target.toPath());
   }
 
   @Override
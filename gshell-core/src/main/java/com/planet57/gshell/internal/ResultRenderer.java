@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.internal;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Iterators;
+import com.planet57.gshell.util.io.IO;
+import com.planet57.gshell.util.jline.TerminalHelper;
+import org.jline.terminal.Terminal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Renders {@link Collection} and {@link Map} results of interactive commands; results taller than the terminal are
+ * paged.
+ *
+ * Lines are formatted as they are pulled so large results are never materialized as a whole.
+ *
+ * @since 3.0
+ */
+class ResultRenderer
+{
+  private final IO io;
+
+  private final Function<Object, String> formatter;
+
+  ResultRenderer(final IO io, final Function<Object, String> formatter) {
+    this.io = checkNotNull(io);
+    this.formatter = checkNotNull(formatter);
+  }
+
+  /**
+   * Number of elements of collection or map results; otherwise {@code -1}.
+   */
+  static int sizeOf(@Nullable final Object result) {
+    if (result instanceof Collection) {
+      return ((Collection<?>) result).size();
+    }
+    else if (result instanceof Map) {
+      return ((Map<?, ?>) result).size();
+    }
+    return -1;
+  }
+
+  /**
+   * Returns {@code true} if the result was rendered.
+   */
+  boolean render(@Nullable final Object result) throws IOException, InterruptedException {
+    int size = sizeOf(result);
+    if (size <= 0) {
+      return false;
+    }
+
+    Iterator<?> elements = result instanceof Map ? ((Map<?, ?>) result).entrySet().iterator() : ((Collection<?>) result).iterator();
+    Iterator<String> lines = Iterators.transform(elements, element -> {
+      if (element instanceof Map.Entry) {
+        Map.Entry<?, ?> entry = (Map.Entry<?, ?>) element;
+        return formatter.apply(entry.getKey()) + "=" + formatter.apply(entry.getValue());
+      }
+      return formatter.apply(element);
+    });
+
+    Terminal terminal = io.terminal;
+    if (size < terminal.getHeight() - 1 || terminal.getType().startsWith("dumb")) {
+      while (lines.hasNext() && !Thread.currentThread().isInterrupted()) {
+        io.out.println(lines.next());
+      }
+      io.out.flush();
+    }
+    else {
+      TerminalHelper.pageOutput(terminal, null, lines);
+    }
+    return true;
+  }
+}
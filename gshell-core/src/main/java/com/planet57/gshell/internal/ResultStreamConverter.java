@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.internal;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.planet57.gshell.command.ResultStream;
+import org.apache.felix.service.command.Converter;
+import org.apache.felix.service.command.Process;
+
+/**
+ * GOGO {@link Converter} for {@link ResultStream}.
+ *
+ * Formats streams which reach a byte pipe as rendered lines, writing each record to the pipe as it is pulled, and
+ * drains streams for functions which expect a collection.
+ *
+ * @since 3.0
+ */
+public class ResultStreamConverter
+  implements Converter
+{
+  @Override
+  public Object convert(final Class<?> desiredType, final Object in) throws Exception {
+    if (in instanceof ResultStream && desiredType != Object.class && desiredType.isAssignableFrom(List.class)) {
+      List<Object> result = new ArrayList<>();
+      try (ResultStream<?> records = (ResultStream<?>) in) {
+        records.forEachRemaining(result::add);
+      }
+      return result;
+    }
+    return null;
+  }
+
+  @Override
+  public CharSequence format(final Object target, final int level, final Converter escape) throws Exception {
+    if (target instanceof ResultStream) {
+      Process process = Process.Utils.current();
+      if (level == Converter.INSPECT && process != null) {
+        return stream((ResultStream<?>) target, process.out());
+      }
+      return render((ResultStream<?>) target);
+    }
+    return null;
+  }
+
+  /**
+   * Write all but the last record directly to the pipe; the last is returned for gogo to terminate.
+   */
+  private static <T> CharSequence stream(final ResultStream<T> stream, final PrintStream out) {
+    CharSequence last = "";
+    boolean first = true;
+    try (ResultStream<T> records = stream) {
+      while (records.hasNext()) {
+        if (!first) {
+          out.append(last).append(System.lineSeparator());
+        }
+        last = records.render(records.next());
+        first = false;
+      }
+    }
+    return last;
+  }
+
+  /**
+   * Render nested values, which gogo needs as a single sequence.
+   */
+  private static <T> CharSequence render(final ResultStream<T> stream) {
+    StringBuilder buff = new StringBuilder();
+    try (ResultStream<T> records = stream) {
+      while (records.hasNext()) {
+        if (buff.length() != 0) {
+          buff.append(System.lineSeparator());
+        }
+        buff.append(records.render(records.next()));
+      }
+    }
+    return buff;
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.internal;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import com.planet57.gshell.command.CommandRegistry;
+import com.planet57.gshell.event.EventManager;
+import com.planet57.gshell.functions.FunctionRegistry;
+import com.planet57.gshell.help.HelpPageManager;
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.goodies.lifecycle.LifecycleManager;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Components shared by all {@link ShellImpl} instances of a container.
+ *
+ * Shared components are started when the first shell starts and stopped when the last shell stops; this allows
+ * a single container to serve many concurrent shell sessions.
+ *
+ * @since 3.0
+ */
+@Named
+@Singleton
+public class ShellComponents
+  extends ComponentSupport
+{
+  private final LifecycleManager lifecycles = new LifecycleManager();
+
+  private int active = 0;
+
+  @Inject
+  public ShellComponents(final EventManager events,
+                         final CommandRegistry commandRegistry,
+                         final FunctionRegistry functionRegistry,
+                         final HelpPageManager helpPageManager)
+  {
+    lifecycles.add(
+      checkNotNull(events),
+      checkNotNull(commandRegistry),
+      checkNotNull(functionRegistry),
+      checkNotNull(helpPageManager)
+    );
+  }
+
+  /**
+   * Acquire shared components; starting them if this is the first active shell.
+   */
+  public synchronized void acquire() throws Exception {
+    if (active == 0) {
+      log.debug("Starting shared components");
+      lifecycles.start();
+    }
+    active++;
+    log.trace("Active shells: {}", active);
+  }
+
+  /**
+   * Release shared components; stopping them if this was the last active shell.
+   */
+  public synchronized void release() throws Exception {
+    checkState(active > 0, "Not acquired");
+    active--;
+    log.trace("Active shells: {}", active);
+    if (active == 0) {
+      log.debug("Stopping shared components");
+      lifecycles.stop();
+    }
+  }
+}
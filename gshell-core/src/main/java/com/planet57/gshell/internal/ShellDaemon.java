@@ -0,0 +1,417 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.Nullable;
+
+import com.google.common.io.BaseEncoding;
+import com.planet57.gossip.Log;
+import com.planet57.gshell.launcher.ShellProtocol;
+import com.planet57.gshell.launcher.ShellProtocol.Frame;
+import com.planet57.gshell.util.concurrent.Workers;
+import org.jline.terminal.Attributes;
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.Terminal.Signal;
+import org.jline.terminal.TerminalBuilder;
+import org.slf4j.Logger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Serves shell invocations forwarded by {@link com.planet57.gshell.launcher.DaemonClient}.
+ *
+ * Listens on the loopback interface only; the port and a random token are recorded in a file readable only by the
+ * owner, and clients must present the token before anything else is processed.
+ *
+ * @since 3.0
+ */
+public class ShellDaemon
+  implements Closeable
+{
+  private static final Logger log = Log.getLogger(ShellDaemon.class);
+
+  /**
+   * A forwarded invocation.
+   */
+  public static class Session
+  {
+    public final List<String> arguments;
+
+    public final Map<String, String> environment;
+
+    public final File directory;
+
+    public final Terminal terminal;
+
+    /**
+     * Standard error of the client; kept apart from terminal output.
+     */
+    public final OutputStream error;
+
+    private Session(final List<String> arguments,
+                    final Map<String, String> environment,
+                    final File directory,
+                    final Terminal terminal,
+                    final OutputStream error)
+    {
+      this.arguments = Collections.unmodifiableList(arguments);
+      this.environment = Collections.unmodifiableMap(environment);
+      this.directory = directory;
+      this.terminal = terminal;
+      this.error = error;
+    }
+  }
+
+  /**
+   * Runs a forwarded invocation; returns the exit code.
+   */
+  public interface Handler
+  {
+    int handle(Session session) throws Exception;
+  }
+
+  private final File file;
+
+  private final String name;
+
+  private final Handler handler;
+
+  private final String token;
+
+  private final CountDownLatch closed = new CountDownLatch(1);
+
+  private ServerSocket server;
+
+  private ExecutorService executor;
+
+  public ShellDaemon(final File file, final String name, final Handler handler) {
+    this.file = checkNotNull(file);
+    this.name = checkNotNull(name);
+    this.handler = checkNotNull(handler);
+
+    byte[] bytes = new byte[32];
+    new SecureRandom().nextBytes(bytes);
+    this.token = BaseEncoding.base16().lowerCase().encode(bytes);
+  }
+
+  public synchronized void start() throws IOException {
+    checkState(server == null, "Already started");
+
+    server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    executor = Executors.newCachedThreadPool(Workers.threadFactory(name + "-daemon-session"));
+    writeDaemonFile(server.getLocalPort());
+
+    Thread acceptor = new Thread(this::accept, name + "-daemon");
+    acceptor.setDaemon(true);
+    acceptor.start();
+
+    log.debug("Listening on port: {}", server.getLocalPort());
+  }
+
+  public int getPort() {
+    checkState(server != null, "Not started");
+    return server.getLocalPort();
+  }
+
+  /**
+   * Wait until the daemon is closed.
+   */
+  public void await() throws InterruptedException {
+    closed.await();
+  }
+
+  @Override
+  public synchronized void close() {
+    if (server == null) {
+      return;
+    }
+
+    log.debug("Closing");
+    try {
+      Files.deleteIfExists(file.toPath());
+    }
+    catch (IOException e) {
+      log.warn("Failed to delete daemon file: {}", file, e);
+    }
+    try {
+      server.close();
+    }
+    catch (IOException e) {
+      log.trace("Failed to close server socket", e);
+    }
+    executor.shutdownNow();
+    server = null;
+    closed.countDown();
+  }
+
+  /**
+   * Record port and token; written to a temporary file first so clients never observe partial content.
+   */
+  private void writeDaemonFile(final int port) throws IOException {
+    Path target = file.toPath();
+    Files.createDirectories(target.getParent());
+
+    Path temp = Files.createTempFile(target.getParent(), ShellProtocol.DAEMON_FILE, ".tmp");
+    try {
+      Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+    }
+    catch (UnsupportedOperationException e) {
+      log.debug("Unable to restrict daemon file permissions", e);
+    }
+
+    String content = ShellProtocol.PORT + "=" + port + "\n" + ShellProtocol.TOKEN + "=" + token + "\n";
+    Files.write(temp, content.getBytes(StandardCharsets.ISO_8859_1));
+    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    file.deleteOnExit();
+  }
+
+  private void accept() {
+    ServerSocket server = this.server;
+    while (!server.isClosed()) {
+      try {
+        Socket socket = server.accept();
+        socket.setTcpNoDelay(true);
+        executor.execute(() -> serve(socket));
+      }
+      catch (SocketException e) {
+        log.trace("Server socket closed", e);
+      }
+      catch (Exception e) {
+        log.warn("Failed to accept connection", e);
+      }
+    }
+  }
+
+  private void serve(final Socket socket) {
+    try (Socket ignore = socket) {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+      Frame hello = ShellProtocol.read(in);
+      if (hello == null || hello.type != ShellProtocol.HELLO || !authorized(hello.properties().get(ShellProtocol.TOKEN))) {
+        log.warn("Rejected unauthorized connection: {}", socket.getRemoteSocketAddress());
+        return;
+      }
+
+      int exitCode;
+      try {
+        exitCode = serve(in, out);
+      }
+      catch (Exception e) {
+        log.debug("Session failed", e);
+        ShellProtocol.write(out, ShellProtocol.STDERR, e.toString() + System.lineSeparator());
+        exitCode = 1;
+      }
+
+      ShellProtocol.write(out, ShellProtocol.EXIT, exitCode);
+      out.flush();
+    }
+    catch (Exception e) {
+      log.debug("Connection failed", e);
+    }
+  }
+
+  private boolean authorized(@Nullable final String candidate) {
+    // constant-time comparison
+    return candidate != null && MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), candidate.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private int serve(final DataInputStream in, final DataOutputStream out) throws Exception {
+    List<String> arguments = new ArrayList<>();
+    Map<String, String> environment = new HashMap<>();
+    File directory = new File(".").getCanonicalFile();
+    Size size = new Size(80, 24);
+
+    // read invocation until started
+    Frame frame;
+    while ((frame = ShellProtocol.read(in)) != null && frame.type != ShellProtocol.START) {
+      switch (frame.type) {
+        case ShellProtocol.ARGUMENT:
+          arguments.add(frame.text());
+          break;
+        case ShellProtocol.ENVIRONMENT: {
+          String entry = frame.text();
+          int i = entry.indexOf('=');
+          if (i > 0) {
+            environment.put(entry.substring(0, i), entry.substring(i + 1));
+          }
+          break;
+        }
+        case ShellProtocol.DIRECTORY:
+          directory = new File(frame.text());
+          break;
+        case ShellProtocol.SIZE:
+          size = new Size(frame.intValue(0), frame.intValue(1));
+          break;
+        default:
+          log.debug("Ignoring frame: {}", frame);
+      }
+    }
+    if (frame == null) {
+      throw new IOException("Connection closed before start");
+    }
+
+    PipedInputStream input = new PipedInputStream(8192);
+    PipedOutputStream inputFeed = new PipedOutputStream(input);
+    OutputStream output = new BufferedOutputStream(new FrameOutputStream(out, ShellProtocol.STDOUT), 8192);
+    OutputStream error = new FrameOutputStream(out, ShellProtocol.STDERR);
+
+    String type = environment.getOrDefault("TERM", "ansi");
+    try (Terminal terminal = TerminalBuilder.builder()
+        .name(name)
+        .system(false)
+        .type(type)
+        .streams(input, output)
+        .build())
+    {
+      terminal.setSize(size);
+
+      // input is echoed by the client terminal, or rendered by the line-reader when interactive
+      Attributes attributes = terminal.getAttributes();
+      attributes.setLocalFlag(Attributes.LocalFlag.ECHO, false);
+      terminal.setAttributes(attributes);
+
+      Thread reader = new Thread(() -> pumpInput(in, inputFeed, terminal), Thread.currentThread().getName() + "-input");
+      reader.setDaemon(true);
+      reader.start();
+
+      try {
+        return handler.handle(new Session(arguments, environment, directory, terminal, error));
+      }
+      finally {
+        Writer writer = terminal.writer();
+        writer.flush();
+        terminal.flush();
+        output.flush();
+        error.flush();
+        reader.interrupt();
+      }
+    }
+  }
+
+  /**
+   * Feed client input to the terminal and apply signals and size changes.
+   */
+  private static void pumpInput(final DataInputStream in, final PipedOutputStream feed, final Terminal terminal) {
+    try {
+      Frame frame;
+      while ((frame = ShellProtocol.read(in)) != null) {
+        switch (frame.type) {
+          case ShellProtocol.STDIN:
+            if (frame.payload.length == 0) {
+              feed.close();
+            }
+            else {
+              feed.write(frame.payload);
+              feed.flush();
+            }
+            break;
+          case ShellProtocol.SIGNAL:
+            terminal.raise(Signal.valueOf(frame.text()));
+            break;
+          case ShellProtocol.SIZE:
+            terminal.setSize(new Size(frame.intValue(0), frame.intValue(1)));
+            terminal.raise(Signal.WINCH);
+            break;
+          default:
+            log.debug("Ignoring frame: {}", frame);
+        }
+      }
+    }
+    catch (Exception e) {
+      log.trace("Input closed", e);
+    }
+    finally {
+      try {
+        feed.close();
+      }
+      catch (IOException e) {
+        // ignore
+      }
+    }
+  }
+
+  /**
+   * Writes all bytes as frames of the given type.
+   */
+  private static class FrameOutputStream
+    extends OutputStream
+  {
+    private final DataOutputStream out;
+
+    private final byte type;
+
+    FrameOutputStream(final DataOutputStream out, final byte type) {
+      this.out = out;
+      this.type = type;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      int offset = off;
+      int remaining = len;
+      while (remaining > 0) {
+        int chunk = Math.min(remaining, ShellProtocol.MAX_PAYLOAD);
+        ShellProtocol.write(out, type, b, offset, chunk);
+        offset += chunk;
+        remaining -= chunk;
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      out.flush();
+    }
+  }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import com.planet57.gshell.branding.Branding;
+import com.planet57.gshell.shell.ExecutionResult;
+import com.planet57.gshell.shell.ShellExecutor;
+import com.planet57.gshell.util.concurrent.Workers;
+import com.planet57.gshell.util.io.CaptureBuffer;
+import com.planet57.gshell.util.io.IO;
+import com.planet57.gshell.util.io.StreamSet;
+import com.planet57.gshell.variables.Variables;
+import com.planet57.gshell.variables.VariablesSupport;
+import org.apache.felix.service.threadio.ThreadIO;
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.impl.DumbTerminal;
+import org.sonatype.goodies.common.ComponentSupport;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Default {@link ShellExecutor}.
+ *
+ * Sessions are created on demand, up to {@link #SESSIONS_PROPERTY} (default: number of processors), and reused.
+ *
+ * @since 3.0
+ */
+@Named
+@Singleton
+public class ShellExecutorImpl
+  extends ComponentSupport
+  implements ShellExecutor
+{
+  /**
+   * System property to configure the maximum number of pooled sessions.
+   */
+  public static final String SESSIONS_PROPERTY = "shell.executor.sessions";
+
+  private final Provider<ShellImpl> shellFactory;
+
+  private final Branding branding;
+
+  private final ThreadIO threadIO;
+
+  private final BlockingQueue<HeadlessSession> idle = new LinkedBlockingQueue<>();
+
+  private final Set<HeadlessSession> sessions = ConcurrentHashMap.newKeySet();
+
+  private final Semaphore permits;
+
+  private volatile boolean closed;
+
+  @Inject
+  public ShellExecutorImpl(final Provider<ShellImpl> shellFactory, final Branding branding, final ThreadIO threadIO) {
+    this.shellFactory = checkNotNull(shellFactory);
+    this.branding = checkNotNull(branding);
+    this.threadIO = checkNotNull(threadIO);
+
+    int max = Workers.parallelism(Integer.getInteger(SESSIONS_PROPERTY, 0));
+    log.debug("Max sessions: {}", max);
+    this.permits = new Semaphore(max, true);
+  }
+
+  @Override
+  public ExecutionResult execute(final CharSequence line) throws InterruptedException {
+    checkNotNull(line);
+    checkState(!closed, "Closed");
+
+    permits.acquire();
+    try {
+      HeadlessSession session = idle.poll();
+      if (session == null) {
+        session = createSession();
+      }
+
+      // large output spills to disk; buffers are owned by the result
+      CaptureBuffer out = new CaptureBuffer();
+      CaptureBuffer err = new CaptureBuffer();
+      Object result = null;
+      Throwable failure = null;
+
+      session.attach(out, err);
+      threadIO.setStreams(session.streams.in, session.streams.out, session.streams.err);
+      try {
+        result = session.shell.execute(line);
+      }
+      catch (Throwable e) {
+        log.trace("Execution failed", e);
+        failure = e;
+      }
+      finally {
+        session.detach();
+        threadIO.close();
+        recycle(session);
+      }
+
+      int exitCode = ExitCodeDecoder.decode(failure != null ? failure : result);
+      return new ExecutionResult(result, failure, exitCode, out, err);
+    }
+    finally {
+      permits.release();
+    }
+  }
+
+  private HeadlessSession createSession() {
+    log.debug("Creating session");
+    try {
+      HeadlessSession session = new HeadlessSession(shellFactory.get());
+      sessions.add(session);
+      return session;
+    }
+    catch (Exception e) {
+      throw new IllegalStateException("Failed to create session", e);
+    }
+  }
+
+  /**
+   * Reset session state and return to pool; discard session if it can not be reset.
+   */
+  private void recycle(final HeadlessSession session) {
+    try {
+      session.shell.restoreVariables(session.snapshot);
+      if (!closed) {
+        idle.add(session);
+        return;
+      }
+    }
+    catch (Exception e) {
+      log.warn("Discarding session", e);
+    }
+    sessions.remove(session);
+    session.stop();
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    HeadlessSession session;
+    while ((session = idle.poll()) != null) {
+      sessions.remove(session);
+      session.stop();
+    }
+    log.debug("Closed; busy sessions: {}", sessions.size());
+  }
+
+  //
+  // Session
+  //
+
+  /**
+   * Shell with swappable output targets and a placeholder terminal.
+   */
+  private class HeadlessSession
+  {
+    private final ShellImpl shell;
+
+    private final StreamSet streams;
+
+    private final SwitchableOutputStream out = new SwitchableOutputStream();
+
+    private final SwitchableOutputStream err = new SwitchableOutputStream();
+
+    private final Terminal terminal;
+
+    private final Map<String, Object> snapshot;
+
+    HeadlessSession(final ShellImpl shell) throws Exception {
+      this.shell = shell;
+
+      InputStream in = new ByteArrayInputStream(new byte[0]);
+      this.streams = new StreamSet(in, new PrintStream(out, false), new PrintStream(err, false));
+      this.terminal = new DumbTerminal(in, out);
+      terminal.setSize(new Size(80, 24));
+
+      Variables variables = new VariablesSupport();
+      variables.set(CommandActionFunction.HEADLESS_VAR, true);
+
+      shell.init(new IO(streams, terminal), variables, branding);
+      shell.start();
+      this.snapshot = shell.snapshotVariables();
+    }
+
+    void attach(final OutputStream out, final OutputStream err) {
+      this.out.target = out;
+      this.err.target = err;
+    }
+
+    void detach() {
+      streams.out.flush();
+      streams.err.flush();
+      terminal.flush();
+      out.target = null;
+      err.target = null;
+    }
+
+    void stop() {
+      try {
+        shell.stop();
+        terminal.close();
+      }
+      catch (Exception e) {
+        log.warn("Failed to stop session", e);
+      }
+    }
+  }
+
+  /**
+   * Output stream which writes to the current target; discards output when there is none.
+   */
+  private static class SwitchableOutputStream
+    extends OutputStream
+  {
+    private volatile OutputStream target;
+
+    @Override
+    public void write(final int b) throws IOException {
+      OutputStream current = target;
+      if (current != null) {
+        current.write(b);
+      }
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      OutputStream current = target;
+      if (current != null) {
+        current.write(b, off, len);
+      }
+    }
+  }
+}
@@ -17,6 +17,9 @@ package com.planet57.gshell.internal;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -29,14 +32,11 @@ import com.google.common.base.Throwables;
 import com.planet57.gshell.branding.Branding;
 import com.planet57.gshell.branding.BrandingSupport;
 import com.planet57.gshell.command.CommandAction.ExitNotification;
-import com.planet57.gshell.command.CommandRegistry;
-import com.planet57.gshell.functions.FunctionRegistry;
+import com.planet57.gshell.command.ResultStream;
 import com.planet57.gshell.shell.Shell;
 import com.planet57.gshell.shell.ShellErrorHandler;
 import com.planet57.gshell.shell.ShellScriptLoader;
 import com.planet57.gshell.util.io.IO;
-import com.planet57.gshell.event.EventManager;
-import com.planet57.gshell.help.HelpPageManager;
 import com.planet57.gshell.util.jline.LoggingCompleter;
 import com.planet57.gshell.variables.VariableNames;
 import com.planet57.gshell.variables.Variables;
@@ -47,6 +47,7 @@ import org.apache.felix.gogo.jline.Parser;
 import org.apache.felix.gogo.runtime.Closure;
 import org.apache.felix.gogo.runtime.CommandSessionImpl;
 import org.apache.felix.service.command.CommandSession;
+import org.apache.felix.service.command.Converter;
 import org.apache.felix.service.command.Job;
 import org.jline.reader.Completer;
 import org.jline.reader.EndOfFileException;
@@ -60,7 +61,6 @@ import org.jline.terminal.Terminal;
 import org.jline.terminal.Terminal.Signal;
 import org.jline.terminal.Terminal.SignalHandler;
 import org.sonatype.goodies.common.ComponentSupport;
-import org.sonatype.goodies.lifecycle.LifecycleManager;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -77,7 +77,17 @@ public class ShellImpl
   extends ComponentSupport
   implements Shell
 {
-  private final LifecycleManager lifecycles = new LifecycleManager();
+  /**
+   * Number of rendered records between flushes.
+   */
+  private static final int RENDER_FLUSH_INTERVAL = 256;
+
+  /**
+   * Default for {@link VariableNames#SHELL_RESULT_RETAIN}; results are retained as-is.
+   */
+  private static final int DEFAULT_RESULT_RETAIN = -1;
+
+  private final ShellComponents components;
 
   private final CommandProcessorImpl commandProcessor;
 
@@ -95,36 +105,22 @@ public class ShellImpl
 
   private Branding branding;
 
-  private CommandSessionImpl currentSession;
+  private volatile CommandSessionImpl currentSession;
 
-  private LineReader lineReader;
+  private volatile LineReader lineReader;
 
   @Inject
-  public ShellImpl(final EventManager events,
-                   final CommandRegistry commandRegistry,
-                   final FunctionRegistry functionRegistry,
-                   final HelpPageManager helpPageManager,
+  public ShellImpl(final ShellComponents components,
                    final CommandProcessorImpl commandProcessor,
                    @Named("shell") final Completer completer)
   {
-    checkNotNull(events);
-    checkNotNull(commandRegistry);
-    checkNotNull(functionRegistry);
-    checkNotNull(helpPageManager);
-
+    this.components = checkNotNull(components);
     this.commandProcessor = checkNotNull(commandProcessor);
     this.completer = checkNotNull(completer);
 
     this.errorHandler = new ShellErrorHandler();
     this.history = new DefaultHistory();
     this.scriptLoader = new ShellScriptLoader();
-
-    lifecycles.add(
-      events,
-      commandRegistry,
-      functionRegistry,
-      helpPageManager
-    );
   }
 
   /**
@@ -176,7 +172,7 @@ public class ShellImpl
     checkState(variables != null);
     checkState(branding != null);
 
-    lifecycles.start();
+    components.acquire();
 
     // apply any branding customization
     branding.customize(this);
@@ -186,6 +182,7 @@ public class ShellImpl
     CommandSessionImpl session = commandProcessor.createSession(io.streams.in, io.streams.out, io.streams.err);
     session.put(CommandActionFunction.SHELL_VAR, this);
     session.put(CommandActionFunction.TERMINAL_VAR, io.terminal);
+    session.put(VariableNames.SHELL_RESOURCES, new ConcurrentHashMap<String, AutoCloseable>());
 
     // FIXME: copy variables to session; can't presently provide the underlying map; this breaks dynamic variable setting
     session.getVariables().putAll(variables.asMap());
@@ -197,13 +194,34 @@ public class ShellImpl
 
   private void doStop() throws Exception {
     if (currentSession != null) {
+      closeResources(currentSession);
       currentSession.close();
       currentSession = null;
     }
 
     lineReader = null;
 
-    lifecycles.stop();
+    components.release();
+  }
+
+  /**
+   * Close {@link VariableNames#SHELL_RESOURCES} of the session.
+   */
+  @SuppressWarnings("unchecked")
+  private void closeResources(final CommandSession session) {
+    Object resources = session.get(VariableNames.SHELL_RESOURCES);
+    if (resources instanceof Map) {
+      for (Map.Entry<String, AutoCloseable> entry : ((Map<String, AutoCloseable>) resources).entrySet()) {
+        log.debug("Closing session resource: {}", entry.getKey());
+        try {
+          entry.getValue().close();
+        }
+        catch (Exception e) {
+          log.warn("Failed to close session resource: {}", entry.getKey(), e);
+        }
+      }
+      ((Map<?, ?>) resources).clear();
+    }
   }
 
   @Override
@@ -233,10 +251,19 @@ public class ShellImpl
 
     CommandSessionImpl session = currentSession;
 
+    // each shell may be driven from a different thread; ensure variables resolve to this shell
+    Variables previous = VariablesProvider.set(variables);
+
     Object result;
     try {
       result = session.execute(line);
-      setLastResult(session, result);
+
+      // streams are rendered once they reach the terminal; they are single-use so are not retained
+      if (result instanceof ResultStream) {
+        render((ResultStream<?>) result);
+        result = null;
+      }
+      setLastResult(session, retainable(result));
     }
     catch (Throwable failure) {
       Throwable cause = failure;
@@ -255,12 +282,55 @@ public class ShellImpl
       // HACK: copy session variables back to shell's variables
       variables.asMap().clear();
       variables.asMap().putAll(session.getVariables());
-      VariablesProvider.set(variables);
+      VariablesProvider.set(previous);
     }
 
     return result;
   }
 
+  /**
+   * Render stream records to shell output as they are pulled.
+   */
+  private <T> void render(final ResultStream<T> stream) {
+    String newline = System.lineSeparator();
+    int count = 0;
+    try (ResultStream<T> records = stream) {
+      while (records.hasNext() && !Thread.currentThread().isInterrupted()) {
+        io.out.append(records.render(records.next())).append(newline);
+        if (++count % RENDER_FLUSH_INTERVAL == 0) {
+          io.out.flush();
+        }
+      }
+    }
+    finally {
+      io.out.flush();
+    }
+  }
+
+  /**
+   * Snapshot of session variables; for shells which are reused.
+   *
+   * @since 3.0
+   */
+  Map<String, Object> snapshotVariables() {
+    ensureStarted();
+    return new HashMap<>(currentSession.getVariables());
+  }
+
+  /**
+   * Restore session variables from {@link #snapshotVariables()}.
+   *
+   * @since 3.0
+   */
+  void restoreVariables(final Map<String, Object> snapshot) {
+    ensureStarted();
+    Map<String, Object> sessionVariables = currentSession.getVariables();
+    sessionVariables.clear();
+    sessionVariables.putAll(snapshot);
+    variables.asMap().clear();
+    variables.asMap().putAll(snapshot);
+  }
+
   @Override
   public void run() throws Exception {
     ensureStarted();
@@ -269,6 +339,9 @@ public class ShellImpl
 
     final CommandSessionImpl session = currentSession;
 
+    // completers execute on this thread outside of any job
+    Variables previous = VariablesProvider.set(variables);
+
     scriptLoader.loadInteractiveScripts(this);
 
     final Terminal terminal = io.terminal;
@@ -325,7 +398,10 @@ public class ShellImpl
             throw new EndOfFileException();
           }
 
-          execute(parsedLine.program());
+          Object result = execute(parsedLine.program());
+          if (variables.get(VariableNames.SHELL_RESULT_RENDER, Boolean.class, false)) {
+            new ResultRenderer(io, value -> format(session, value)).render(result);
+          }
         }
         catch (UserInterruptException e) {
           log.trace("User interrupted", e);
@@ -354,6 +430,7 @@ public class ShellImpl
     finally {
       terminal.handle(Signal.INT, previousInterruptHandler);
       terminal.handle(Signal.TSTP, previousSuspendHandler);
+      VariablesProvider.set(previous);
     }
     log.trace("Stopped");
 
@@ -398,6 +475,30 @@ public class ShellImpl
     session.put(VariableNames.LAST_RESULT, result);
   }
 
+  /**
+   * Apply {@link VariableNames#SHELL_RESULT_RETAIN}; when set, larger results are described instead of being pinned
+   * until the next command.
+   */
+  @Nullable
+  private Object retainable(@Nullable final Object result) {
+    int limit = variables.get(VariableNames.SHELL_RESULT_RETAIN, Integer.class, DEFAULT_RESULT_RETAIN);
+    int size = ResultRenderer.sizeOf(result);
+    if (limit >= 0 && size > limit) {
+      log.debug("Not retaining result: {}; size: {}", result.getClass().getName(), size);
+      return String.format("%s[%d elements; not retained]", result.getClass().getSimpleName(), size);
+    }
+    return result;
+  }
+
+  private static String format(final CommandSessionImpl session, @Nullable final Object value) {
+    try {
+      return String.valueOf(session.format(value, Converter.LINE));
+    }
+    catch (Exception e) {
+      return String.valueOf(value);
+    }
+  }
+
   private static void renderMessage(final IO io, @Nullable String message) {
     if (message != null) {
       // HACK: branding does not have easy access to Terminal; so allow a line to be rendered via replacement token
@@ -16,13 +16,17 @@
 package com.planet57.gshell.internal;
 
 import com.planet57.gshell.variables.Variables;
+import com.planet57.gshell.variables.VariablesSupport;
+import org.apache.felix.gogo.runtime.CommandSessionImpl;
+import org.apache.felix.service.command.CommandSession;
+import org.apache.felix.service.command.Job;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.inject.Named;
 import javax.inject.Provider;
 
-import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
 // HACK: need to adjust how variables and session work;  resolver, file-system-access and completers all depend on Variables
@@ -33,7 +37,11 @@ import static com.google.common.base.Preconditions.checkState;
 // VariableNameCompleter
 
 /**
- * ???
+ * Provides {@link Variables} of the shell session the calling thread is working for.
+ *
+ * Variables of the session owning the current job are used when there is one; otherwise those explicitly bound to
+ * the thread, ie. the thread driving a shell while completing.  Bindings are not inherited by other threads, so
+ * pooled workers never resolve another session's variables.
  *
  * @since 3.0
  */
@@ -43,25 +51,38 @@ public class VariablesProvider
 {
   private static final Logger log = LoggerFactory.getLogger(VariablesProvider.class);
 
-  private static final ThreadLocal<Variables> holder = new InheritableThreadLocal<>();
+  private static final ThreadLocal<Variables> holder = new ThreadLocal<>();
 
-  public static void set(final Variables variables) {
-    checkNotNull(variables);
-    log.trace("Variables installed: {}", variables);
-    holder.set(variables);
+  /**
+   * Bind variables to the current thread; or unbind if {@code null}.
+   *
+   * @return previously bound variables; to be restored by the caller.
+   */
+  @Nullable
+  public static Variables set(@Nullable final Variables variables) {
+    Variables previous = holder.get();
+    if (variables == null) {
+      holder.remove();
+    }
+    else {
+      log.trace("Variables installed: {}", variables);
+      holder.set(variables);
+    }
+    return previous;
   }
 
   @Override
   public Variables get() {
-    // TODO: this doesn't work with completers, which do not yet have a current job
-//    Job job = Job.Utils.current();
-//    checkState(job != null);
-//
-//    CommandSessionImpl session = (CommandSessionImpl) job.session();
-//    return new VariablesSupport(session.getVariables());
+    Job job = Job.Utils.current();
+    if (job != null) {
+      CommandSession session = job.session();
+      if (session instanceof CommandSessionImpl) {
+        return new VariablesSupport(((CommandSessionImpl) session).getVariables());
+      }
+    }
 
     Variables variables = holder.get();
-    checkState(variables != null);
+    checkState(variables != null, "No shell session bound to thread: %s", Thread.currentThread().getName());
     return variables;
   }
 }
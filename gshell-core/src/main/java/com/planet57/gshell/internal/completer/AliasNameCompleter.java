@@ -24,13 +24,9 @@ import com.planet57.gshell.alias.AliasRegisteredEvent;
 import com.planet57.gshell.alias.AliasRegistry;
 import com.planet57.gshell.alias.AliasRemovedEvent;
 import com.planet57.gshell.event.EventAware;
-import com.planet57.gshell.util.jline.DynamicCompleter;
-import com.planet57.gshell.util.jline.StringsCompleter2;
-import org.jline.reader.Candidate;
+import com.planet57.gshell.util.jline.StringsDynamicCompleter;
 import org.jline.reader.Completer;
 
-import java.util.Collection;
-
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.planet57.gshell.util.jline.Candidates.candidate;
 
@@ -42,11 +38,9 @@ import static com.planet57.gshell.util.jline.Candidates.candidate;
 @Named("alias-name")
 @Singleton
 public class AliasNameCompleter
-  extends DynamicCompleter
+  extends StringsDynamicCompleter
   implements EventAware
 {
-  private final StringsCompleter2 delegate = new StringsCompleter2();
-
   private final AliasRegistry aliases;
 
   @Inject
@@ -57,23 +51,18 @@ public class AliasNameCompleter
   @Override
   protected void init() {
     aliases.getAliases().forEach((name, target) -> {
-      delegate.add(name, candidate(name, target));
+      getDelegate().add(name, candidate(name, target));
     });
   }
 
-  @Override
-  protected Collection<Candidate> getCandidates() {
-    return delegate.getCandidates();
-  }
-
   @Subscribe
   void on(final AliasRegisteredEvent event) {
     String name = event.getName();
-    delegate.add(name, candidate(name, event.getAlias()));
+    getDelegate().add(name, candidate(name, event.getAlias()));
   }
 
   @Subscribe
   void on(final AliasRemovedEvent event) {
-    delegate.remove(event.getName());
+    getDelegate().remove(event.getName());
   }
 }
@@ -24,13 +24,9 @@ import com.planet57.gshell.command.CommandRegisteredEvent;
 import com.planet57.gshell.command.CommandRegistry;
 import com.planet57.gshell.command.CommandRemovedEvent;
 import com.planet57.gshell.event.EventAware;
-import com.planet57.gshell.util.jline.DynamicCompleter;
-import com.planet57.gshell.util.jline.StringsCompleter2;
-import org.jline.reader.Candidate;
+import com.planet57.gshell.util.jline.StringsDynamicCompleter;
 import org.jline.reader.Completer;
 
-import java.util.Collection;
-
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.planet57.gshell.util.jline.Candidates.candidate;
 
@@ -43,11 +39,9 @@ import static com.planet57.gshell.util.jline.Candidates.candidate;
 @Named("command-name")
 @Singleton
 public class CommandNameCompleter
-  extends DynamicCompleter
+  extends StringsDynamicCompleter
   implements EventAware
 {
-  private final StringsCompleter2 delegate = new StringsCompleter2();
-
   private final CommandRegistry commands;
 
   @Inject
@@ -59,23 +53,18 @@ public class CommandNameCompleter
   protected void init() {
     commands.getCommands().forEach(action -> {
       String name = action.getName();
-      delegate.add(name, candidate(name, action.getDescription()));
+      getDelegate().add(name, candidate(name, action.getDescription()));
     });
   }
 
-  @Override
-  protected Collection<Candidate> getCandidates() {
-    return delegate.getCandidates();
-  }
-
   @Subscribe
   void on(final CommandRegisteredEvent event) {
     String name = event.getName();
-    delegate.add(name, candidate(name, event.getCommand().getDescription()));
+    getDelegate().add(name, candidate(name, event.getCommand().getDescription()));
   }
 
   @Subscribe
   void on(final CommandRemovedEvent event) {
-    delegate.remove(event.getName());
+    getDelegate().remove(event.getName());
   }
 }
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.internal.completer;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.planet57.gshell.util.concurrent.Workers;
+import org.sonatype.goodies.common.ComponentSupport;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Cache of directory listings for file-name completion.
+ *
+ * Directories are listed in the background, with attributes of each entry.  A listing is reused while the
+ * modification time of the directory is unchanged; directories modified within the last {@link #SETTLE_MILLIS} are
+ * listed again as file systems may not record changes made within the same time-stamp granularity.  Callers wait up to
+ * {@link #DEADLINE_PROPERTY} milliseconds (default: 200) and receive what has been listed so far, marked incomplete.
+ *
+ * @since 3.0
+ */
+@Named
+@Singleton
+public class DirectoryListingCache
+  extends ComponentSupport
+{
+  /**
+   * System property to configure milliseconds to wait for a listing before returning partial results.
+   */
+  public static final String DEADLINE_PROPERTY = "shell.completer.deadline";
+
+  private static final long SETTLE_MILLIS = 2000;
+
+  private final long deadline = Long.getLong(DEADLINE_PROPERTY, 200);
+
+  private final Cache<Path, Listing> listings = CacheBuilder.newBuilder()
+      .maximumSize(64)
+      .expireAfterAccess(5, TimeUnit.MINUTES)
+      .build();
+
+  private final ExecutorService executor = Executors.newCachedThreadPool(Workers.threadFactory("directory-listing"));
+
+  /**
+   * Directory entry with attributes captured when listed.
+   */
+  public static class Entry
+  {
+    private final Path path;
+
+    private final boolean directory;
+
+    private final boolean symbolicLink;
+
+    private Entry(final Path path, final boolean directory, final boolean symbolicLink) {
+      this.path = path;
+      this.directory = directory;
+      this.symbolicLink = symbolicLink;
+    }
+
+    public Path getPath() {
+      return path;
+    }
+
+    public String getName() {
+      return path.getFileName().toString();
+    }
+
+    /**
+     * True for directories, and symbolic links to directories.
+     */
+    public boolean isDirectory() {
+      return directory;
+    }
+
+    public boolean isSymbolicLink() {
+      return symbolicLink;
+    }
+
+    @Override
+    public String toString() {
+      return getName();
+    }
+  }
+
+  /**
+   * Entries of a directory as listed so far.
+   */
+  public static class Snapshot
+  {
+    private final List<Entry> entries;
+
+    private final boolean complete;
+
+    private Snapshot(final List<Entry> entries, final boolean complete) {
+      this.entries = entries;
+      this.complete = complete;
+    }
+
+    public List<Entry> getEntries() {
+      return entries;
+    }
+
+    /**
+     * False if listing did not complete within the deadline, or failed; other entries may exist.
+     */
+    public boolean isComplete() {
+      return complete;
+    }
+  }
+
+  /**
+   * Listing of a directory; complete once its future is done.
+   */
+  private static class Listing
+  {
+    private final long modified;
+
+    private final boolean settled;
+
+    private final List<Entry> entries = Collections.synchronizedList(new ArrayList<>());
+
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    private Listing(final long modified, final boolean settled) {
+      this.modified = modified;
+      this.settled = settled;
+    }
+
+    private Snapshot snapshot() {
+      // completion is checked first; entries are all added by then
+      boolean complete = done.isDone() && !done.isCompletedExceptionally();
+      synchronized (entries) {
+        return new Snapshot(new ArrayList<>(entries), complete);
+      }
+    }
+  }
+
+  /**
+   * Returns entries of given directory; partial if listing did not complete within the deadline.
+   */
+  public Snapshot list(final Path dir) {
+    checkNotNull(dir);
+
+    long modified;
+    try {
+      modified = Files.getLastModifiedTime(dir).toMillis();
+    }
+    catch (IOException e) {
+      log.trace("Unable to list: {}", dir, e);
+      listings.invalidate(dir);
+      return new Snapshot(Collections.emptyList(), false);
+    }
+
+    Listing listing = listings.getIfPresent(dir);
+    if (listing == null || listing.modified != modified || (listing.done.isDone() && !listing.settled)) {
+      listing = new Listing(modified, System.currentTimeMillis() - modified > SETTLE_MILLIS);
+      listings.put(dir, listing);
+      Listing target = listing;
+      executor.execute(() -> load(dir, target));
+    }
+
+    try {
+      listing.done.get(deadline, TimeUnit.MILLISECONDS);
+    }
+    catch (TimeoutException e) {
+      log.debug("Listing incomplete: {}; entries: {}", dir, listing.entries.size());
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    catch (ExecutionException e) {
+      // failure already logged; entries listed so far are still useful
+    }
+    return listing.snapshot();
+  }
+
+  private void load(final Path dir, final Listing listing) {
+    log.trace("Listing: {}", dir);
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+      for (Path path : stream) {
+        listing.entries.add(entry(path));
+      }
+      listing.done.complete(null);
+    }
+    catch (IOException | DirectoryIteratorException e) {
+      log.trace("Unable to list: {}", dir, e);
+      // do not reuse failed listing
+      listings.asMap().remove(dir, listing);
+      listing.done.completeExceptionally(e);
+    }
+  }
+
+  private static Entry entry(final Path path) {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+      if (attributes.isSymbolicLink()) {
+        return new Entry(path, Files.isDirectory(path), true);
+      }
+      return new Entry(path, attributes.isDirectory(), false);
+    }
+    catch (IOException e) {
+      // removed while listing, or not accessible; still a name to complete
+      return new Entry(path, false, false);
+    }
+  }
+}
@@ -15,7 +15,6 @@
  */
 package com.planet57.gshell.internal.completer;
 
-import java.nio.file.Path;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -26,6 +25,7 @@ import javax.inject.Singleton;
 import org.jline.reader.Candidate;
 import org.jline.reader.Completer;
 
+import com.planet57.gshell.internal.completer.DirectoryListingCache.Entry;
 import com.planet57.gshell.variables.Variables;
 import org.jline.reader.LineReader;
 import org.jline.reader.ParsedLine;
@@ -41,8 +41,8 @@ public class DirectoryNameCompleter
   extends FileNameCompleter
 {
   @Inject
-  public DirectoryNameCompleter(final Provider<Variables> variables) {
-    super(variables);
+  public DirectoryNameCompleter(final Provider<Variables> variables, final DirectoryListingCache listings) {
+    super(variables, listings);
   }
 
   @Override
@@ -55,7 +55,7 @@ public class DirectoryNameCompleter
   }
 
   @Override
-  protected boolean accept(final Path path) {
-    return path.toFile().isDirectory();
+  protected boolean accept(final Entry entry) {
+    return entry.isDirectory();
   }
 }
@@ -16,14 +16,23 @@
 package com.planet57.gshell.internal.completer;
 
 import java.nio.file.Path;
+import java.util.List;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import com.planet57.gshell.internal.completer.DirectoryListingCache.Entry;
+import com.planet57.gshell.internal.completer.DirectoryListingCache.Snapshot;
 import com.planet57.gshell.variables.Variables;
+import org.jline.reader.Candidate;
 import org.jline.reader.Completer;
+import org.jline.reader.LineReader;
+import org.jline.reader.ParsedLine;
+import org.jline.terminal.Terminal;
+import org.jline.utils.AttributedStringBuilder;
+import org.jline.utils.AttributedStyle;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.planet57.gshell.variables.VariableNames.SHELL_USER_DIR;
@@ -32,6 +41,9 @@ import static com.planet57.gshell.variables.VariableNames.SHELL_USER_HOME;
 /**
  * {@link Completer} for file names.
  *
+ * Directory contents come from {@link DirectoryListingCache}; completion of large or slow directories may be partial,
+ * in which case no candidate is marked complete, as a longer name may not have been listed yet.
+ *
  * @since 2.0
  */
 @Named("file-name")
@@ -41,9 +53,85 @@ public class FileNameCompleter
 {
   private final Provider<Variables> variables;
 
+  private final DirectoryListingCache listings;
+
   @Inject
-  public FileNameCompleter(final Provider<Variables> variables) {
+  public FileNameCompleter(final Provider<Variables> variables, final DirectoryListingCache listings) {
     this.variables = checkNotNull(variables);
+    this.listings = checkNotNull(listings);
+  }
+
+  @Override
+  public void complete(final LineReader reader, final ParsedLine commandLine, final List<Candidate> candidates) {
+    checkNotNull(commandLine);
+    checkNotNull(candidates);
+
+    String buffer = commandLine.word().substring(0, commandLine.wordCursor());
+
+    Path current;
+    String prefix;
+    String sep = getUserDir().getFileSystem().getSeparator();
+    int lastSep = buffer.lastIndexOf(sep);
+    if (lastSep >= 0) {
+      prefix = buffer.substring(0, lastSep + 1);
+      if (prefix.startsWith("~")) {
+        if (prefix.startsWith("~" + sep)) {
+          current = getUserHome().resolve(prefix.substring(2));
+        }
+        else {
+          current = getUserHome().getParent().resolve(prefix.substring(1));
+        }
+      }
+      else {
+        current = getUserDir().resolve(prefix);
+      }
+    }
+    else {
+      prefix = "";
+      current = getUserDir();
+    }
+
+    Snapshot listing = listings.list(current);
+    for (Entry entry : listing.getEntries()) {
+      if (!accept(entry)) {
+        continue;
+      }
+      String value = prefix + entry.getName();
+      if (entry.isDirectory()) {
+        candidates.add(new Candidate(
+            value + (reader.isSet(LineReader.Option.AUTO_PARAM_SLASH) ? sep : ""),
+            display(reader.getTerminal(), entry),
+            null, null,
+            reader.isSet(LineReader.Option.AUTO_REMOVE_SLASH) ? sep : null,
+            null,
+            false));
+      }
+      else {
+        candidates.add(new Candidate(value, display(reader.getTerminal(), entry), null, null, null, null,
+            listing.isComplete()));
+      }
+    }
+  }
+
+  /**
+   * Same as super display, using attributes captured when listed.
+   */
+  private static String display(final Terminal terminal, final Entry entry) {
+    String name = entry.getName();
+    if (entry.isDirectory() || entry.isSymbolicLink()) {
+      AttributedStringBuilder buff = new AttributedStringBuilder();
+      buff.styled(AttributedStyle.BOLD.foreground(AttributedStyle.RED), name);
+      buff.append(entry.isDirectory() ? "/" : "@");
+      name = buff.toAnsi(terminal);
+    }
+    return name;
+  }
+
+  /**
+   * @since 3.0
+   */
+  protected boolean accept(final Entry entry) {
+    return accept(entry.getPath());
   }
 
   @Override
@@ -15,8 +15,6 @@
  */
 package com.planet57.gshell.internal.completer;
 
-import java.util.Collection;
-
 import javax.inject.Named;
 import javax.inject.Singleton;
 
@@ -24,9 +22,7 @@ import com.google.common.eventbus.Subscribe;
 import com.planet57.gshell.event.EventAware;
 import com.planet57.gshell.functions.FunctionSetRegisteredEvent;
 import com.planet57.gshell.functions.FunctionSetRemovedEvent;
-import com.planet57.gshell.util.jline.DynamicCompleter;
-import com.planet57.gshell.util.jline.StringsCompleter2;
-import org.jline.reader.Candidate;
+import com.planet57.gshell.util.jline.StringsDynamicCompleter;
 import org.jline.reader.Completer;
 
 import static com.planet57.gshell.util.jline.Candidates.candidate;
@@ -39,27 +35,20 @@ import static com.planet57.gshell.util.jline.Candidates.candidate;
 @Named("function-name")
 @Singleton
 public class FunctionNameCompleter
-  extends DynamicCompleter
+  extends StringsDynamicCompleter
   implements EventAware
 {
-  private final StringsCompleter2 delegate = new StringsCompleter2();
-
-  @Override
-  protected Collection<Candidate> getCandidates() {
-    return delegate.getCandidates();
-  }
-
   @Subscribe
   void on(final FunctionSetRegisteredEvent event) {
     for (String name : event.getFunctions().names()) {
-      delegate.add(name, candidate(name));
+      getDelegate().add(name, candidate(name));
     }
   }
 
   @Subscribe
   void on(final FunctionSetRemovedEvent event) {
     for (String name : event.getFunctions().names()) {
-      delegate.remove(name);
+      getDelegate().remove(name);
     }
   }
 }
@@ -17,9 +17,7 @@ package com.planet57.gshell.internal.completer;
 
 import com.planet57.gshell.logging.LevelComponent;
 import com.planet57.gshell.logging.LoggingSystem;
-import com.planet57.gshell.util.jline.DynamicCompleter;
-import com.planet57.gshell.util.jline.StringsCompleter2;
-import org.jline.reader.Candidate;
+import com.planet57.gshell.util.jline.StringsDynamicCompleter;
 import org.jline.reader.Completer;
 
 import javax.annotation.Nullable;
@@ -27,8 +25,6 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
-import java.util.Collection;
-
 /**
  * {@link Completer} for {@link LevelComponent} names.
  *
@@ -37,10 +33,8 @@ import java.util.Collection;
 @Named("level-name")
 @Singleton
 public class LevelNameCompleter
-    extends DynamicCompleter
+    extends StringsDynamicCompleter
 {
-  private final StringsCompleter2 delegate = new StringsCompleter2();
-
   @Nullable
   private LoggingSystem logging;
 
@@ -52,12 +46,7 @@ public class LevelNameCompleter
   @Override
   protected void init() {
     if (logging != null) {
-      logging.getLevels().forEach(level -> delegate.add(level.getName()));
+      logging.getLevels().forEach(level -> getDelegate().add(level.getName()));
     }
   }
-
-  @Override
-  protected Collection<Candidate> getCandidates() {
-    return delegate.getCandidates();
-  }
 }
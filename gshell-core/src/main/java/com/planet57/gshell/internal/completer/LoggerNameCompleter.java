@@ -22,12 +22,10 @@ import javax.inject.Singleton;
 
 import com.planet57.gshell.logging.LoggerComponent;
 import com.planet57.gshell.logging.LoggingSystem;
-import com.planet57.gshell.util.jline.DynamicCompleter;
-import com.planet57.gshell.util.jline.StringsCompleter2;
-import org.jline.reader.Candidate;
+import com.planet57.gshell.util.jline.StringsDynamicCompleter;
 import org.jline.reader.Completer;
 
-import java.util.Collection;
+import java.util.concurrent.TimeUnit;
 
 /**
  * {@link Completer} for {@link LoggerComponent} names.
@@ -37,30 +35,42 @@ import java.util.Collection;
 @Named("logger-name")
 @Singleton
 public class LoggerNameCompleter
-    extends DynamicCompleter
+    extends StringsDynamicCompleter
 {
-  private final StringsCompleter2 delegate = new StringsCompleter2();
+  /**
+   * Loggers created on demand are not notified; refresh names when older than this.
+   */
+  private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(2);
 
   @Nullable
   private final LoggingSystem logging;
 
+  private boolean loaded;
+
+  private long modifications;
+
+  private long refreshed;
+
   @Inject
   public LoggerNameCompleter(@Nullable final LoggingSystem logging) {
     this.logging = logging;
   }
 
   /**
-   * Re-adjusted completions each attempt to complete; loggers could change dynamically.
+   * Re-adjust completions when logging was reconfigured, or names may be stale; loggers could change dynamically.
    */
   @Override
-  protected void prepare() {
-    if (logging != null) {
-      delegate.set(logging.getLoggerNames());
+  protected synchronized void prepare() {
+    if (logging == null) {
+      return;
+    }
+    long count = logging.getModificationCount();
+    long now = System.nanoTime();
+    if (!loaded || count != modifications || now - refreshed > REFRESH_NANOS) {
+      getDelegate().set(logging.getLoggerNames());
+      loaded = true;
+      modifications = count;
+      refreshed = now;
     }
-  }
-
-  @Override
-  protected Collection<Candidate> getCandidates() {
-    return delegate.getCandidates();
   }
 }
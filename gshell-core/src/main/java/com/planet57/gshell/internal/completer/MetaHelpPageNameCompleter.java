@@ -24,13 +24,9 @@ import com.planet57.gshell.event.EventAware;
 import com.planet57.gshell.help.HelpPage;
 import com.planet57.gshell.help.HelpPageManager;
 import com.planet57.gshell.help.MetaHelpPageAddedEvent;
-import com.planet57.gshell.util.jline.DynamicCompleter;
-import com.planet57.gshell.util.jline.StringsCompleter2;
-import org.jline.reader.Candidate;
+import com.planet57.gshell.util.jline.StringsDynamicCompleter;
 import org.jline.reader.Completer;
 
-import java.util.Collection;
-
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.planet57.gshell.util.jline.Candidates.candidate;
 
@@ -43,11 +39,9 @@ import static com.planet57.gshell.util.jline.Candidates.candidate;
 @Named("meta-help-page-name")
 @Singleton
 public class MetaHelpPageNameCompleter
-  extends DynamicCompleter
+  extends StringsDynamicCompleter
   implements EventAware
 {
-  private final StringsCompleter2 delegate = new StringsCompleter2();
-
   private final HelpPageManager helpPages;
 
   @Inject
@@ -60,11 +54,6 @@ public class MetaHelpPageNameCompleter
     helpPages.getMetaPages().forEach(this::add);
   }
 
-  @Override
-  protected Collection<Candidate> getCandidates() {
-    return delegate.getCandidates();
-  }
-
   @Subscribe
   void on(final MetaHelpPageAddedEvent event) {
     add(event.getPage());
@@ -72,6 +61,6 @@ public class MetaHelpPageNameCompleter
 
   private void add(final HelpPage page) {
     String name = page.getName();
-    delegate.add(name, candidate(name, page.getDescription()));
+    getDelegate().add(name, candidate(name, page.getDescription()));
   }
 }
@@ -17,17 +17,26 @@ package com.planet57.gshell.internal.completer;
 
 import org.sonatype.goodies.common.ComponentSupport;
 
+import com.google.common.eventbus.Subscribe;
+import com.planet57.gshell.command.CommandRegisteredEvent;
+import com.planet57.gshell.command.CommandRemovedEvent;
 import com.planet57.gshell.command.CommandResolver;
 import com.planet57.gshell.command.Node;
+import com.planet57.gshell.command.NodePath;
+import com.planet57.gshell.event.EventAware;
 import org.jline.reader.Candidate;
 import org.jline.reader.Completer;
 import org.jline.reader.LineReader;
 import org.jline.reader.ParsedLine;
 
-import java.util.Collection;
-import java.util.LinkedHashSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -38,54 +47,176 @@ import static com.planet57.gshell.util.jline.Candidates.candidate;
 /**
  * {@link Completer} for node path names.
  *
+ * Node paths are kept in a sorted index, maintained from command events, so completion only visits paths starting
+ * with the word being completed.  Leading {@code ./} and {@code ../} are resolved from the current group.
+ *
  * @since 2.5
  */
 @Named("node-path")
 @Singleton
 public class NodePathCompleter
   extends ComponentSupport
-  implements Completer
+  implements Completer, EventAware
 {
+  private static final String CURRENT_PREFIX = Node.CURRENT + Node.SEPARATOR;
+
+  private static final String PARENT_PREFIX = Node.PARENT + Node.SEPARATOR;
+
   private final CommandResolver resolver;
 
+  /**
+   * Paths relative to root; groups end with {@link Node#SEPARATOR}.  Candidates are those for the root group.
+   */
+  private final NavigableMap<String, IndexEntry> index = new ConcurrentSkipListMap<>();
+
+  private volatile boolean initialized = false;
+
+  private static class IndexEntry
+  {
+    @Nullable
+    private final String description;
+
+    private final Candidate candidate;
+
+    private IndexEntry(final String path, @Nullable final String description) {
+      this.description = description;
+      this.candidate = candidate(path, description);
+    }
+  }
+
   @Inject
   public NodePathCompleter(final CommandResolver resolver) {
     this.resolver = checkNotNull(resolver);
   }
 
+  //
+  // Index
+  //
+
+  /**
+   * Index nodes already registered; later changes are applied from events.
+   */
+  private synchronized void init() {
+    if (!initialized) {
+      index(resolver.root(), "");
+      initialized = true;
+      log.trace("Indexed {} paths", index.size());
+    }
+  }
+
+  private void index(final Node parent, final String prefix) {
+    parent.children().forEach(child -> {
+      if (child.isGroup()) {
+        String path = prefix + child.getName() + Node.SEPARATOR;
+        index.putIfAbsent(path, new IndexEntry(path, child.getDescription()));
+        index(child, path);
+      }
+      else {
+        String path = prefix + child.getName();
+        index.putIfAbsent(path, new IndexEntry(path, child.getDescription()));
+      }
+    });
+  }
+
+  @Subscribe
+  synchronized void on(final CommandRegisteredEvent event) {
+    String[] elements = elements(event.getName());
+    StringBuilder path = new StringBuilder();
+    for (int i = 0; i < elements.length - 1; i++) {
+      path.append(elements[i]).append(Node.SEPARATOR);
+      String group = path.toString();
+      index.putIfAbsent(group, new IndexEntry(group, null));
+    }
+    path.append(elements[elements.length - 1]);
+    index.put(path.toString(), new IndexEntry(path.toString(), event.getCommand().getDescription()));
+  }
+
+  @Subscribe
+  synchronized void on(final CommandRemovedEvent event) {
+    String path = String.join(Node.SEPARATOR, elements(event.getName()));
+    index.remove(path);
+
+    // removing a group removes its members; as with Node.remove()
+    String group = path + Node.SEPARATOR;
+    if (index.remove(group) != null) {
+      index.subMap(group, true, group + Character.MAX_VALUE, false).clear();
+    }
+  }
+
+  /**
+   * Path elements relative to root.
+   */
+  private static String[] elements(final String name) {
+    String[] elements = new NodePath(name).split();
+    if (elements.length > 1 && elements[0].equals(Node.ROOT)) {
+      String[] relative = new String[elements.length - 1];
+      System.arraycopy(elements, 1, relative, 0, relative.length);
+      return relative;
+    }
+    return elements;
+  }
+
+  //
+  // Completion
+  //
+
   @Override
   public void complete(final LineReader reader, final ParsedLine line, final List<Candidate> candidates) {
+    checkNotNull(line);
     checkNotNull(candidates);
+    init();
 
-    Collection<Node> matches = new LinkedHashSet<>();
-
-    // TODO: handle ./, ../ and / and general location information
-//    String word = line.word();
-//    log.trace("Completing; {}; word: {}, line: {}, words: {}", line, word, line.line(), line.words());
+    String word = line.word().substring(0, line.wordCursor());
+    log.trace("Completing: {}", word);
 
-    resolver.searchPath().forEach(parent -> matches.addAll(parent.children()));
+    if (word.startsWith(Node.ROOT)) {
+      append(candidates, new HashSet<>(), "", Node.ROOT, word.substring(1));
+      return;
+    }
 
-    if (log.isTraceEnabled()) {
-      log.trace("Matched:");
-      for (Node node : matches) {
-        log.trace("  {}", node);
+    // resolve leading ./ and ../ from the current group
+    Node group = resolver.group();
+    int start = 0;
+    while (group != null) {
+      if (word.startsWith(CURRENT_PREFIX, start)) {
+        start += CURRENT_PREFIX.length();
+      }
+      else if (word.startsWith(PARENT_PREFIX, start)) {
+        // as with Node.find(), the parent of root is root
+        group = group.isRoot() ? group : group.getParent();
+        start += PARENT_PREFIX.length();
+      }
+      else {
+        break;
       }
     }
+    String display = word.substring(0, start);
+    String rest = word.substring(start);
 
-    // append all matching nodes
-    matches.forEach(node -> {
-      if (node.isRoot()) {
-        appendChildren(candidates, node, "");
+    Set<String> values = new HashSet<>();
+    if (!rest.isEmpty()) {
+      for (String relative : new String[] { CURRENT_PREFIX, PARENT_PREFIX }) {
+        if (relative.startsWith(rest) && values.add(display + relative)) {
+          candidates.add(candidate(display + relative));
+        }
       }
-      else if (node.isGroup()) {
-        String name = node.getName() + Node.SEPARATOR;
-        candidates.add(candidate(name, node.getDescription()));
-        appendChildren(candidates, node, "");
+    }
+
+    if (start > 0) {
+      if (group != null) {
+        append(candidates, values, indexPath(group), display, rest);
       }
-      else {
-        candidates.add(candidate(node.getName(), node.getDescription()));
+    }
+    else {
+      Set<Node> visited = new HashSet<>();
+      for (Node base : resolver.searchPath()) {
+        // search-path elements may be invalid, or resolve to the same group
+        if (base == null || !visited.add(base)) {
+          continue;
+        }
+        append(candidates, values, indexPath(base), "", word);
       }
-    });
+    }
 
     if (log.isTraceEnabled()) {
       log.trace("Candidates:");
@@ -95,19 +226,34 @@ public class NodePathCompleter
     }
   }
 
-  private static void appendChildren(final Collection<Candidate> candidates, final Node parent, final String prefix) {
-    assert parent.isGroup();
-
-    String path = prefix + (parent.isRoot() ? "" : parent.getName()) + Node.SEPARATOR;
+  /**
+   * Indexed path of group; members of the group are indexed under it.
+   */
+  private static String indexPath(final Node group) {
+    return group.isRoot() ? "" : group.getPath().substring(1) + Node.SEPARATOR;
+  }
 
-    parent.children().forEach(child -> {
-      if (child.isGroup()) {
-        candidates.add(candidate(path + child.getName() + Node.SEPARATOR, child.getDescription()));
-        appendChildren(candidates, child, path);
-      }
-      else {
-        candidates.add(candidate(path + child.getName(), child.getDescription()));
+  /**
+   * Append candidates for indexed paths under {@code base} starting with {@code word}.
+   *
+   * @param base    indexed path of the group completing within
+   * @param display prefix of candidate values
+   */
+  private void append(final List<Candidate> candidates,
+                      final Set<String> values,
+                      final String base,
+                      final String display,
+                      final String word)
+  {
+    String from = base + word;
+    for (Map.Entry<String, IndexEntry> entry : index.subMap(from, true, from + Character.MAX_VALUE, false).entrySet()) {
+      String value = display + entry.getKey().substring(base.length());
+      // the group completing within is not a candidate of itself
+      if (value.isEmpty() || !values.add(value)) {
+        continue;
       }
-    });
+      IndexEntry indexed = entry.getValue();
+      candidates.add(base.isEmpty() && display.isEmpty() ? indexed.candidate : candidate(value, indexed.description));
+    }
   }
 }
@@ -18,7 +18,6 @@ package com.planet57.gshell.internal.completer;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -32,7 +31,6 @@ import org.jline.reader.impl.DefaultParser;
 import org.jline.reader.impl.completer.AggregateCompleter;
 import org.sonatype.goodies.common.ComponentSupport;
 
-import com.google.common.collect.Lists;
 import com.planet57.gshell.command.CommandAction;
 import com.planet57.gshell.command.CommandResolver;
 import com.planet57.gshell.command.Node;
@@ -118,16 +116,15 @@ public class ShellCompleter
    * This is everything past the first word.
    */
   private static ParsedLine extractCommandArguments(final ParsedLine line) {
-    // copy the list, so we can mutate and pop the first item off
-    LinkedList<String> words = Lists.newLinkedList(line.words());
-    String remove = words.pop();
+    List<String> words = line.words();
+    String remove = words.get(0);
     String rawLine = line.line();
 
-    // rebuild that list sans the first argument
+    // rebuild that list sans the first argument; a view, the parsed words are not modified
     if (remove.length() > rawLine.length()) {
       return new DefaultParser.ArgumentList(
         rawLine.substring(remove.length() + 1, rawLine.length()),
-        words,
+        words.subList(1, words.size()),
         line.wordIndex() - 1,
         line.wordCursor(),
         line.cursor() - remove.length() + 1
@@ -15,8 +15,6 @@
  */
 package com.planet57.gshell.internal.completer;
 
-import java.util.Collection;
-
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
@@ -24,12 +22,10 @@ import javax.inject.Singleton;
 
 import com.google.common.eventbus.Subscribe;
 import com.planet57.gshell.event.EventAware;
-import com.planet57.gshell.util.jline.DynamicCompleter;
-import com.planet57.gshell.util.jline.StringsCompleter2;
+import com.planet57.gshell.util.jline.StringsDynamicCompleter;
 import com.planet57.gshell.variables.VariableSetEvent;
 import com.planet57.gshell.variables.VariableUnsetEvent;
 import com.planet57.gshell.variables.Variables;
-import org.jline.reader.Candidate;
 import org.jline.reader.Completer;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -43,11 +39,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
 @Named("variable-name")
 @Singleton
 public class VariableNameCompleter
-  extends DynamicCompleter
+  extends StringsDynamicCompleter
   implements EventAware
 {
-  private final StringsCompleter2 delegate = new StringsCompleter2();
-
   private final Provider<Variables> variables;
 
   @Inject
@@ -57,21 +51,16 @@ public class VariableNameCompleter
 
   @Override
   protected void init() {
-    delegate.set(variables.get().names());
-  }
-
-  @Override
-  protected Collection<Candidate> getCandidates() {
-    return delegate.getCandidates();
+    getDelegate().set(variables.get().names());
   }
 
   @Subscribe
   void on(final VariableSetEvent event) {
-    delegate.add(event.getName());
+    getDelegate().add(event.getName());
   }
 
   @Subscribe
   void on(final VariableUnsetEvent event) {
-    delegate.remove(event.getName());
+    getDelegate().remove(event.getName());
   }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.internal;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.planet57.gshell.util.io.CopyOptions;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link DirectoryCopier}.
+ */
+public class DirectoryCopierTest
+  extends TestSupport
+{
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private Path source;
+
+  @Before
+  public void setUp() throws Exception {
+    source = folder.newFolder("foo").toPath();
+    write(source.resolve("a.txt"), "a");
+    Files.createDirectories(source.resolve("bar/baz"));
+    write(source.resolve("bar/b.txt"), "b");
+    write(source.resolve("bar/baz/c.txt"), "c");
+  }
+
+  private static void write(final Path file, final String content) throws Exception {
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String read(final Path file) throws Exception {
+    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+  }
+
+  private static void assertCopied(final Path target) throws Exception {
+    assertEquals("a", read(target.resolve("a.txt")));
+    assertEquals("b", read(target.resolve("bar/b.txt")));
+    assertEquals("c", read(target.resolve("bar/baz/c.txt")));
+  }
+
+  @Test
+  public void copyTree() throws Exception {
+    Path target = new File(folder.getRoot(), "copy").toPath();
+    new DirectoryCopier(new CopyOptions()).copy(source, target);
+    assertCopied(target);
+  }
+
+  @Test
+  public void copyIntoItself() throws Exception {
+    // as cp -r foo foo
+    Path target = source.resolve("foo");
+    new DirectoryCopier(new CopyOptions()).copy(source, target);
+    assertCopied(target);
+    assertFalse(Files.exists(target.resolve("foo")));
+  }
+
+  @Test
+  public void copyIntoNestedDirectory() throws Exception {
+    Path target = source.resolve("bar/copy");
+    new DirectoryCopier(new CopyOptions()).copy(source, target);
+    assertCopied(target);
+    assertFalse(Files.exists(target.resolve("bar/copy")));
+    assertTrue(Files.isDirectory(source.resolve("bar/baz")));
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.internal;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link DirectoryRemover}.
+ */
+public class DirectoryRemoverTest
+  extends TestSupport
+{
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private ForkJoinPool pool;
+
+  private DirectoryRemover underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    pool = new ForkJoinPool(2);
+    underTest = new DirectoryRemover(pool);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    pool.shutdownNow();
+  }
+
+  private Path createTree(final String name) throws Exception {
+    Path dir = folder.newFolder(name).toPath();
+    for (int i = 0; i < 3; i++) {
+      Path child = Files.createDirectories(dir.resolve("child" + i + "/nested"));
+      Files.write(child.resolve("file.txt"), "content".getBytes(StandardCharsets.UTF_8));
+    }
+    return dir;
+  }
+
+  private String[] list() {
+    String[] names = folder.getRoot().list();
+    Arrays.sort(names);
+    return names;
+  }
+
+  @Test
+  public void deleteTree() throws Exception {
+    Path dir = createTree("foo");
+    underTest.delete(dir);
+    assertFalse(Files.exists(dir));
+  }
+
+  @Test
+  public void deleteDoesNotFollowLinks() throws Exception {
+    Path outside = createTree("outside");
+    Path dir = createTree("foo");
+    try {
+      Files.createSymbolicLink(dir.resolve("link"), outside);
+    }
+    catch (UnsupportedOperationException e) {
+      Assume.assumeNoException(e);
+    }
+    underTest.delete(dir);
+    assertFalse(Files.exists(dir));
+    assertTrue(Files.exists(outside.resolve("child0/nested/file.txt")));
+  }
+
+  @Test
+  public void deleteLater() throws Exception {
+    Path dir = createTree("foo");
+    underTest.deleteLater(dir).get(10, TimeUnit.SECONDS);
+    assertFalse(Files.exists(dir));
+    assertEquals(0, list().length);
+  }
+
+  @Test
+  public void deleteLaterSweepsLeftoverTrash() throws Exception {
+    // as left behind by a process which exited before its background delete completed
+    Path leftover = createTree(".foo.deleting-1");
+    Path other = createTree(".bar.deleting-1");
+
+    Path dir = createTree("foo");
+    underTest.deleteLater(dir).get(10, TimeUnit.SECONDS);
+    assertFalse(Files.exists(leftover));
+    assertArrayEquals(new String[]{other.getFileName().toString()}, list());
+  }
+}
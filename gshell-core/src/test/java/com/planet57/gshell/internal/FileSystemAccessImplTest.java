@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.internal;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.planet57.gshell.variables.Variables;
+import com.planet57.gshell.variables.VariablesSupport;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import static com.planet57.gshell.variables.VariableNames.SHELL_USER_DIR;
+import static com.planet57.gshell.variables.VariableNames.SHELL_USER_HOME;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link FileSystemAccessImpl}.
+ */
+public class FileSystemAccessImplTest
+  extends TestSupport
+{
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Variables of the shell in use; shells share the component.
+   */
+  private Variables current;
+
+  private FileSystemAccessImpl underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    underTest = new FileSystemAccessImpl(() -> current);
+  }
+
+  private Variables shell(final File userDir, final File userHome) {
+    Variables variables = new VariablesSupport();
+    variables.set(SHELL_USER_DIR, userDir.getPath());
+    variables.set(SHELL_USER_HOME, userHome.getPath());
+    return variables;
+  }
+
+  @Test
+  public void homePathsResolvedPerUserHome() throws Exception {
+    File dir = folder.newFolder("dir");
+    File home1 = folder.newFolder("home1");
+    File home2 = folder.newFolder("home2");
+
+    current = shell(dir, home1);
+    assertEquals(new File(home1, "a").getCanonicalFile(), underTest.resolveFile("~/a"));
+
+    current = shell(dir, home2);
+    assertEquals(new File(home2, "a").getCanonicalFile(), underTest.resolveFile("~/a"));
+  }
+
+  @Test
+  public void changingDirectoryKeepsEntriesOfOtherShells() throws Exception {
+    File dir = folder.newFolder("dir");
+    File other = folder.newFolder("other");
+    File target1 = folder.newFolder("target1");
+    File target2 = folder.newFolder("target2");
+    Path link = new File(dir, "link").toPath();
+    try {
+      Files.createSymbolicLink(link, target1.toPath());
+    }
+    catch (UnsupportedOperationException e) {
+      Assume.assumeNoException(e);
+    }
+
+    Variables first = shell(dir, dir);
+    Variables second = shell(dir, dir);
+
+    current = second;
+    assertEquals(target1.getCanonicalFile(), underTest.resolveFile("link"));
+
+    Files.delete(link);
+    Files.createSymbolicLink(link, target2.toPath());
+
+    current = first;
+    underTest.setUserDir(other);
+
+    // still cached for the second shell
+    current = second;
+    assertEquals(target1.getCanonicalFile(), underTest.resolveFile("link"));
+  }
+}
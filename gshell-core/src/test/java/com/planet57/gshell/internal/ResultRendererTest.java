@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.planet57.gshell.util.io.IO;
+import com.planet57.gshell.util.io.StreamSet;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.impl.DumbTerminal;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ResultRenderer}.
+ */
+public class ResultRendererTest
+  extends TestSupport
+{
+  private ByteArrayOutputStream output;
+
+  private Terminal terminal;
+
+  private ResultRenderer underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    output = new ByteArrayOutputStream();
+    terminal = new DumbTerminal(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream());
+    IO io = new IO(new StreamSet(new ByteArrayInputStream(new byte[0]), new PrintStream(output, true)), terminal);
+    underTest = new ResultRenderer(io, value -> "<" + value + ">");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    terminal.close();
+  }
+
+  private String lines(final String... lines) {
+    StringBuilder buff = new StringBuilder();
+    for (String line : lines) {
+      buff.append(line).append(System.lineSeparator());
+    }
+    return buff.toString();
+  }
+
+  @Test
+  public void collectionRenderedPerElement() throws Exception {
+    assertTrue(underTest.render(Arrays.asList("a", "b")));
+    assertEquals(lines("<a>", "<b>"), output.toString());
+  }
+
+  @Test
+  public void mapRenderedAsEntries() throws Exception {
+    Map<String, Integer> map = new LinkedHashMap<>();
+    map.put("a", 1);
+    map.put("b", 2);
+    assertTrue(underTest.render(map));
+    assertEquals(lines("<a>=<1>", "<b>=<2>"), output.toString());
+  }
+
+  @Test
+  public void otherResultsIgnored() throws Exception {
+    assertFalse(underTest.render(null));
+    assertFalse(underTest.render("text"));
+    assertFalse(underTest.render(Collections.emptyList()));
+    assertEquals("", output.toString());
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.planet57.gshell.launcher.ShellProtocol;
+import com.planet57.gshell.launcher.ShellProtocol.Frame;
+import org.jline.terminal.Size;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for {@link ShellDaemon}.
+ */
+public class ShellDaemonTest
+  extends TestSupport
+{
+  private final AtomicReference<Size> size = new AtomicReference<>();
+
+  private File file;
+
+  private ShellDaemon underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    file = util.createTempFile("daemon");
+    underTest = new ShellDaemon(file, "test", session -> {
+      size.set(session.terminal.getSize());
+      session.terminal.writer().print("output");
+      session.error.write("error".getBytes(StandardCharsets.UTF_8));
+      return 3;
+    });
+    underTest.start();
+  }
+
+  @After
+  public void tearDown() {
+    if (underTest != null) {
+      underTest.close();
+      underTest = null;
+    }
+  }
+
+  private String token() throws Exception {
+    Properties props = new Properties();
+    try (InputStream input = new FileInputStream(file)) {
+      props.load(input);
+    }
+    return props.getProperty(ShellProtocol.TOKEN);
+  }
+
+  @Test(timeout = 30000L)
+  public void outputAndErrorAreSeparate() throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ByteArrayOutputStream error = new ByteArrayOutputStream();
+    int exitCode = -1;
+
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), underTest.getPort())) {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+      ShellProtocol.write(out, ShellProtocol.HELLO, Collections.singletonMap(ShellProtocol.TOKEN, token()));
+      ShellProtocol.write(out, ShellProtocol.SIZE, 100, 40);
+      ShellProtocol.write(out, ShellProtocol.START);
+      out.flush();
+
+      Frame frame;
+      while ((frame = ShellProtocol.read(in)) != null) {
+        if (frame.type == ShellProtocol.STDOUT) {
+          output.write(frame.payload);
+        }
+        else if (frame.type == ShellProtocol.STDERR) {
+          error.write(frame.payload);
+        }
+        else if (frame.type == ShellProtocol.EXIT) {
+          exitCode = frame.intValue(0);
+          break;
+        }
+      }
+    }
+
+    assertEquals(3, exitCode);
+    assertEquals("output", output.toString("UTF-8"));
+    assertEquals("error", error.toString("UTF-8"));
+    assertEquals(new Size(100, 40), size.get());
+  }
+
+  @Test(timeout = 30000L)
+  public void unauthorizedConnectionIsClosed() throws Exception {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), underTest.getPort())) {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+      ShellProtocol.write(out, ShellProtocol.HELLO, Collections.singletonMap(ShellProtocol.TOKEN, "invalid"));
+      out.flush();
+
+      assertNull(ShellProtocol.read(in));
+    }
+    assertNull(size.get());
+  }
+}
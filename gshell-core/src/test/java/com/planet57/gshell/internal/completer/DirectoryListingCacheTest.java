@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.internal.completer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.planet57.gshell.internal.completer.DirectoryListingCache.Entry;
+import com.planet57.gshell.internal.completer.DirectoryListingCache.Snapshot;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link DirectoryListingCache}.
+ */
+public class DirectoryListingCacheTest
+  extends TestSupport
+{
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private DirectoryListingCache underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    underTest = new DirectoryListingCache();
+  }
+
+  private static List<String> names(final Snapshot snapshot) {
+    List<String> names = new ArrayList<>();
+    for (Entry entry : snapshot.getEntries()) {
+      names.add(entry.getName() + (entry.isDirectory() ? "/" : ""));
+    }
+    Collections.sort(names);
+    return names;
+  }
+
+  @Test(timeout = 30000L)
+  public void listComplete() throws Exception {
+    folder.newFile("a.txt");
+    folder.newFolder("sub");
+
+    // wait out the deadline of a slow listing
+    Snapshot snapshot = underTest.list(folder.getRoot().toPath());
+    while (!snapshot.isComplete()) {
+      Thread.sleep(10);
+      snapshot = underTest.list(folder.getRoot().toPath());
+    }
+    assertEquals(Arrays.asList("a.txt", "sub/"), names(snapshot));
+  }
+
+  @Test
+  public void listMissingIsIncomplete() throws Exception {
+    Snapshot snapshot = underTest.list(new File(folder.getRoot(), "missing").toPath());
+    assertFalse(snapshot.isComplete());
+    assertTrue(snapshot.getEntries().isEmpty());
+  }
+}
@@ -15,11 +15,18 @@
  */
 package com.planet57.gshell.internal.completer;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Module;
 import com.google.inject.Stage;
+import com.planet57.gshell.command.CommandRegisteredEvent;
 import com.planet57.gshell.command.CommandRegistry;
+import com.planet57.gshell.command.CommandRemovedEvent;
 import com.planet57.gshell.command.CommandResolver;
 import com.planet57.gshell.command.Node;
 import com.planet57.gshell.event.EventManager;
@@ -29,11 +36,15 @@ import com.planet57.gshell.internal.EventManagerImpl;
 import com.planet57.gshell.variables.VariableNames;
 import com.planet57.gshell.variables.Variables;
 import com.planet57.gshell.variables.VariablesSupport;
+import org.jline.reader.Candidate;
+import org.jline.reader.impl.DefaultParser;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonatype.goodies.testsupport.TestSupport;
 
+import static org.junit.Assert.assertEquals;
+
 /**
  * Tests for {@link NodePathCompleter}.
  */
@@ -80,24 +91,13 @@ public class NodePathCompleterTest
     underTest = null;
   }
 
+  /**
+   * Candidates are all indexed paths starting with the input, including members of matching groups.
+   */
   protected void assertCompletes(final String input, final String... expected) {
-    // FIXME: Needs to be adjusted once NodePathCompleter has been re-implemented
-//    System.out.println(">");
-//    try {
-//      List<CharSequence> candidates = new ArrayList<CharSequence>();
-//      int result = underTest.complete(input, 0, candidates);
-//
-//      System.out.println("Result: " + result + ", Candidates: " + candidates);
-//
-//      assertEquals(expected.length, candidates.size());
-//      for (int i = 0; i < expected.length; i++) {
-//        assertEquals(expected[i], candidates.get(i));
-//      }
-//    }
-//    finally {
-//      System.out.println("<");
-//      System.out.flush();
-//    }
+    List<String> values = new ArrayList<>(Arrays.asList(expected));
+    Collections.sort(values);
+    assertEquals(values, complete(input));
   }
 
   @Test
@@ -107,17 +107,17 @@ public class NodePathCompleterTest
 
   @Test
   public void test1b() {
-    assertCompletes("bar", "bar ");
+    assertCompletes("bar", "bar");
   }
 
   @Test
   public void test1c() {
-    assertCompletes("../bar", "../bar ");
+    assertCompletes("../bar", "../bar");
   }
 
   @Test
   public void test2a() {
-    assertCompletes("f", "foo/");
+    assertCompletes("f", "foo/", "foo/a1", "foo/a2", "foo/b1");
   }
 
   @Test
@@ -127,27 +127,27 @@ public class NodePathCompleterTest
 
   @Test
   public void test2c() {
-    assertCompletes("foo", "foo/");
+    assertCompletes("foo", "foo/", "foo/a1", "foo/a2", "foo/b1");
   }
 
   @Test
   public void test2d() {
-    assertCompletes("foo/", "foo/a1", "foo/a2", "foo/b1");
+    assertCompletes("foo/", "foo/", "foo/a1", "foo/a2", "foo/b1");
   }
 
   @Test
   public void test3a() {
-    assertCompletes("", "foo/", "bar", "baz");
+    assertCompletes("", "foo/", "foo/a1", "foo/a2", "foo/b1", "bar", "baz");
   }
 
   @Test
   public void test3b() {
-    assertCompletes("/", "/foo/", "/bar", "/baz");
+    assertCompletes("/", "/foo/", "/foo/a1", "/foo/a2", "/foo/b1", "/bar", "/baz");
   }
 
   @Test
   public void test3c() {
-    assertCompletes("/foo/", "/foo/a1", "/foo/a2", "/foo/b1");
+    assertCompletes("/foo/", "/foo/", "/foo/a1", "/foo/a2", "/foo/b1");
   }
 
   @Test
@@ -157,7 +157,7 @@ public class NodePathCompleterTest
 
   @Test
   public void test3e() {
-    assertCompletes("./foo/", "./foo/a1", "./foo/a2", "./foo/b1");
+    assertCompletes("./foo/", "./foo/", "./foo/a1", "./foo/a2", "./foo/b1");
   }
 
   @Test
@@ -169,21 +169,21 @@ public class NodePathCompleterTest
   public void test4a() {
     variables.set(VariableNames.SHELL_GROUP, "/foo");
     variables.set(VariableNames.SHELL_GROUP_PATH, ".");
-    assertCompletes("a1", "a1 ");
+    assertCompletes("a1", "a1");
   }
 
   @Test
   public void test4b() {
     variables.set(VariableNames.SHELL_GROUP, "/foo");
     variables.set(VariableNames.SHELL_GROUP_PATH, ".");
-    assertCompletes("", "..", "a1", "a2", "b1");
+    assertCompletes("", "a1", "a2", "b1");
   }
 
   @Test
   public void test4c() {
     variables.set(VariableNames.SHELL_GROUP, "/foo");
     variables.set(VariableNames.SHELL_GROUP_PATH, ".:/");
-    assertCompletes("", "..", "a1", "a2", "b1", "foo/", "bar", "baz");
+    assertCompletes("", "a1", "a2", "b1", "foo/", "foo/a1", "foo/a2", "foo/b1", "bar", "baz");
   }
 
   @Test
@@ -216,4 +216,51 @@ public class NodePathCompleterTest
     variables.set(VariableNames.SHELL_GROUP_PATH, ".:/");
     assertCompletes(".", "./", "../");
   }
+
+  private List<String> complete(final String word) {
+    List<Candidate> candidates = new ArrayList<>();
+    underTest.complete(null, new DefaultParser.ArgumentList(word, Collections.singletonList(word), 0, word.length(),
+        word.length()), candidates);
+
+    List<String> values = new ArrayList<>();
+    candidates.forEach(candidate -> values.add(candidate.value()));
+    Collections.sort(values);
+    return values;
+  }
+
+  @Test
+  public void completesIndexedPrefix() {
+    assertEquals(Arrays.asList("foo/a1", "foo/a2"), complete("foo/a"));
+    assertEquals(Arrays.asList("bar", "baz"), complete("ba"));
+    assertEquals(Arrays.asList("/foo/", "/foo/a1", "/foo/a2", "/foo/b1"), complete("/f"));
+  }
+
+  @Test
+  public void completesRelativeToGroup() {
+    variables.set(VariableNames.SHELL_GROUP, "/foo");
+    variables.set(VariableNames.SHELL_GROUP_PATH, ".:/");
+    assertEquals(Arrays.asList("a1", "a2"), complete("a"));
+    assertEquals(Arrays.asList("b1", "bar", "baz"), complete("b"));
+  }
+
+  @Test
+  public void completesRelativeToCurrentGroup() {
+    variables.set(VariableNames.SHELL_GROUP, "/foo");
+    variables.set(VariableNames.SHELL_GROUP_PATH, ".");
+    assertEquals(Arrays.asList("./a1", "./a2"), complete("./a"));
+    assertEquals(Arrays.asList("../bar", "../baz"), complete("../b"));
+    assertEquals(Arrays.asList("../foo/b1"), complete("../foo/b"));
+    assertEquals(Arrays.asList("../../", ".././"), complete("../."));
+  }
+
+  @Test
+  public void indexFollowsEvents() {
+    complete("");
+
+    underTest.on(new CommandRegisteredEvent("qux/c1", new DummyAction()));
+    assertEquals(Arrays.asList("qux/", "qux/c1"), complete("q"));
+
+    underTest.on(new CommandRemovedEvent("qux"));
+    assertEquals(Collections.emptyList(), complete("q"));
+  }
 }
@@ -20,6 +20,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import javax.inject.Named;
@@ -28,6 +29,7 @@ import javax.inject.Singleton;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggerContextListener;
 import com.google.common.collect.ImmutableList;
 import com.planet57.gshell.logging.LevelComponent;
 import com.planet57.gshell.logging.LoggerComponent;
@@ -65,6 +67,8 @@ public class LogbackLoggingSystem
 
   private final Map<String, LevelComponentImpl> levels;
 
+  private final AtomicLong modifications = new AtomicLong(0);
+
   public LogbackLoggingSystem() {
     // Make sure Logback is actually configured, attach to the context
     Object tmp = LoggerFactory.getILoggerFactory();
@@ -73,6 +77,54 @@ public class LogbackLoggingSystem
 
     // generate logger level mapping
     this.levels = ALL_LEVELS.stream().collect(Collectors.toMap(level -> level.toString().toUpperCase(Locale.US), LevelComponentImpl::new));
+
+    loggerContext.addListener(new ModificationListener());
+  }
+
+  //
+  // ModificationListener
+  //
+
+  /**
+   * Counts context changes; logback does not notify when loggers are created.
+   */
+  private class ModificationListener
+      implements LoggerContextListener
+  {
+    @Override
+    public boolean isResetResistant() {
+      return true;
+    }
+
+    @Override
+    public void onStart(final LoggerContext context) {
+      modifications.incrementAndGet();
+    }
+
+    @Override
+    public void onReset(final LoggerContext context) {
+      modifications.incrementAndGet();
+    }
+
+    @Override
+    public void onStop(final LoggerContext context) {
+      modifications.incrementAndGet();
+    }
+
+    @Override
+    public void onLevelChange(final Logger logger, final Level level) {
+      modifications.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+      return getClass().getSimpleName();
+    }
+  }
+
+  @Override
+  public long getModificationCount() {
+    return modifications.get();
   }
 
   //
@@ -0,0 +1,475 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.remote;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+
+import com.planet57.gossip.Log;
+import com.planet57.gshell.launcher.ShellProtocol;
+import com.planet57.gshell.launcher.ShellProtocol.Frame;
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.Terminal.Signal;
+import org.jline.terminal.TerminalBuilder;
+import org.slf4j.Logger;
+
+/**
+ * Connection state of {@link RemoteShellServer}.
+ *
+ * Socket I/O happens only on the selector thread; the session thread exchanges data through bounded queues.  Output
+ * blocks the session thread once the configured limit of unsent bytes is reached, and reading from the socket is
+ * paused while the session has not consumed the configured limit of input.
+ *
+ * @since 3.0
+ */
+class RemoteConnection
+{
+  private static final Logger log = Log.getLogger(RemoteConnection.class);
+
+  private final RemoteShellServer server;
+
+  private final SocketChannel channel;
+
+  private final SelectionKey key;
+
+  private final SocketAddress remoteAddress;
+
+  private final ByteBuffer readBuffer = ByteBuffer.allocate(ShellProtocol.HEADER_SIZE + ShellProtocol.MAX_PAYLOAD);
+
+  private final Deque<ByteBuffer> outbound = new ArrayDeque<>();
+
+  private final int outputLimit;
+
+  private final InputQueue input;
+
+  private long pending;
+
+  private boolean closing;
+
+  private boolean closed;
+
+  // selector-thread only
+
+  private boolean greeted;
+
+  private String type = "ansi";
+
+  // shared with session thread
+
+  private volatile Size size = new Size(80, 24);
+
+  private volatile Terminal terminal;
+
+  RemoteConnection(final RemoteShellServer server,
+                   final SocketChannel channel,
+                   final SelectionKey key,
+                   final int inputLimit,
+                   final int outputLimit)
+  {
+    this.server = server;
+    this.channel = channel;
+    this.key = key;
+    this.remoteAddress = channel.socket().getRemoteSocketAddress();
+    this.outputLimit = outputLimit;
+    this.input = new InputQueue(inputLimit);
+  }
+
+  public SocketAddress getRemoteAddress() {
+    return remoteAddress;
+  }
+
+  //
+  // Selector thread
+  //
+
+  void onReadable() throws IOException {
+    int count = channel.read(readBuffer);
+    if (count == -1) {
+      log.debug("Connection closed by client: {}", remoteAddress);
+      input.close();
+      key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+      if (!greeted) {
+        close();
+      }
+      return;
+    }
+
+    readBuffer.flip();
+    try {
+      Frame frame;
+      while (!closed && (frame = ShellProtocol.decode(readBuffer)) != null) {
+        handle(frame);
+      }
+    }
+    finally {
+      readBuffer.compact();
+    }
+
+    if (input.isPaused()) {
+      log.trace("Pausing input: {}", remoteAddress);
+      key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+    }
+  }
+
+  private void handle(final Frame frame) throws IOException {
+    if (!greeted) {
+      if (frame.type != ShellProtocol.HELLO) {
+        throw new IOException("Expected hello; found: " + frame);
+      }
+      greeted = true;
+      hello(frame.properties());
+      return;
+    }
+
+    switch (frame.type) {
+      case ShellProtocol.STDIN:
+        if (frame.payload.length == 0) {
+          input.close();
+        }
+        else {
+          input.feed(frame.payload);
+        }
+        break;
+
+      case ShellProtocol.SIZE: {
+        size = new Size(frame.intValue(0), frame.intValue(1));
+        Terminal terminal = this.terminal;
+        if (terminal != null) {
+          terminal.setSize(size);
+          terminal.raise(Signal.WINCH);
+        }
+        break;
+      }
+
+      case ShellProtocol.SIGNAL: {
+        Terminal terminal = this.terminal;
+        if (terminal != null) {
+          try {
+            terminal.raise(Signal.valueOf(frame.text()));
+          }
+          catch (IllegalArgumentException e) {
+            log.debug("Ignoring unknown signal: {}", frame.text());
+          }
+        }
+        break;
+      }
+
+      default:
+        log.debug("Ignoring frame: {}", frame);
+    }
+  }
+
+  private void hello(final Map<String, String> properties) {
+    if (!server.authorize(properties.get(ShellProtocol.TOKEN))) {
+      log.warn("Rejected unauthorized connection: {}", remoteAddress);
+      reject("Not authorized");
+      return;
+    }
+    if (!server.acquireSession()) {
+      log.warn("Rejected connection; session limit reached: {}", remoteAddress);
+      reject("Session limit reached");
+      return;
+    }
+
+    String term = properties.get(ShellProtocol.TERM);
+    if (term != null && !term.isEmpty()) {
+      type = term;
+    }
+
+    log.debug("Starting session: {}; type: {}", remoteAddress, type);
+    server.startSession(this);
+  }
+
+  private void reject(final String message) {
+    synchronized (this) {
+      enqueue(ShellProtocol.encode(ShellProtocol.STDOUT, message + "\r\n"));
+      enqueue(ShellProtocol.encode(ShellProtocol.EXIT, 1));
+      closing = true;
+    }
+    key.interestOps(SelectionKey.OP_WRITE);
+  }
+
+  void onWritable() throws IOException {
+    boolean done;
+    synchronized (this) {
+      ByteBuffer buff;
+      while ((buff = outbound.peek()) != null) {
+        int count = channel.write(buff);
+        pending -= count;
+        if (buff.hasRemaining()) {
+          break;
+        }
+        outbound.poll();
+      }
+      notifyAll();
+      done = outbound.isEmpty();
+    }
+
+    if (done) {
+      if (closing) {
+        close();
+      }
+      else {
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+      }
+    }
+  }
+
+  void resumeReading() {
+    if (key.isValid() && !input.isClosed()) {
+      log.trace("Resuming input: {}", remoteAddress);
+      key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+    }
+  }
+
+  void requestWrite() {
+    if (key.isValid()) {
+      key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+    }
+  }
+
+  void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      outbound.clear();
+      pending = 0;
+      notifyAll();
+    }
+
+    log.debug("Closing connection: {}", remoteAddress);
+    input.close();
+    key.cancel();
+    try {
+      channel.close();
+    }
+    catch (IOException e) {
+      log.trace("Failed to close channel", e);
+    }
+    server.connectionClosed(this);
+  }
+
+  //
+  // Session thread
+  //
+
+  void runSession(final SessionHandler handler, final String name) {
+    int exitCode = 1;
+    OutputStream output = new BufferedOutputStream(new FrameOutputStream(), 8192);
+    try (Terminal terminal = TerminalBuilder.builder()
+        .name(name)
+        .system(false)
+        .type(type)
+        .streams(input, output)
+        .build())
+    {
+      terminal.setSize(size);
+      this.terminal = terminal;
+
+      exitCode = handler.run(terminal, remoteAddress);
+      terminal.flush();
+    }
+    catch (Throwable e) {
+      log.debug("Session failed: {}", remoteAddress, e);
+    }
+    finally {
+      terminal = null;
+      try {
+        output.flush();
+        send(ShellProtocol.encode(ShellProtocol.EXIT, exitCode));
+      }
+      catch (IOException e) {
+        log.trace("Unable to send exit code", e);
+      }
+      synchronized (this) {
+        closing = true;
+      }
+      server.execute(this::requestWrite);
+      server.sessionEnded(this);
+    }
+  }
+
+  /**
+   * Queue frame for sending; blocks while the output limit is exceeded.
+   */
+  private void send(final ByteBuffer frame) throws IOException {
+    boolean wasEmpty;
+    synchronized (this) {
+      try {
+        while (pending >= outputLimit && !closed) {
+          wait();
+        }
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+      if (closed) {
+        throw new IOException("Connection closed");
+      }
+      wasEmpty = outbound.isEmpty();
+      enqueue(frame);
+    }
+
+    // only need to wake the selector when the queue was drained
+    if (wasEmpty) {
+      server.execute(this::requestWrite);
+    }
+  }
+
+  private void enqueue(final ByteBuffer frame) {
+    outbound.add(frame);
+    pending += frame.remaining();
+  }
+
+  /**
+   * Writes terminal output as standard output frames.
+   */
+  private class FrameOutputStream
+    extends OutputStream
+  {
+    @Override
+    public void write(final int b) throws IOException {
+      write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      int offset = off;
+      int remaining = len;
+      while (remaining > 0) {
+        int chunk = Math.min(remaining, ShellProtocol.MAX_PAYLOAD);
+        send(ShellProtocol.encode(ShellProtocol.STDOUT, b, offset, chunk));
+        offset += chunk;
+        remaining -= chunk;
+      }
+    }
+  }
+
+  /**
+   * Terminal input fed by the selector thread.
+   */
+  private class InputQueue
+    extends InputStream
+  {
+    private final Deque<byte[]> chunks = new ArrayDeque<>();
+
+    private final int limit;
+
+    private int offset;
+
+    private int available;
+
+    private boolean paused;
+
+    private boolean eof;
+
+    InputQueue(final int limit) {
+      this.limit = limit;
+    }
+
+    synchronized void feed(final byte[] bytes) {
+      if (eof || bytes.length == 0) {
+        return;
+      }
+      chunks.add(bytes);
+      available += bytes.length;
+      if (available >= limit) {
+        paused = true;
+      }
+      notifyAll();
+    }
+
+    synchronized boolean isPaused() {
+      return paused;
+    }
+
+    synchronized boolean isClosed() {
+      return eof;
+    }
+
+    @Override
+    public synchronized void close() {
+      eof = true;
+      notifyAll();
+    }
+
+    @Override
+    public synchronized int available() {
+      return available;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      int n = read(b, 0, 1);
+      return n == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public synchronized int read(final byte[] b, final int off, final int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+
+      try {
+        while (chunks.isEmpty() && !eof) {
+          wait();
+        }
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+      if (chunks.isEmpty()) {
+        return -1;
+      }
+
+      int count = 0;
+      while (count < len && !chunks.isEmpty()) {
+        byte[] chunk = chunks.peek();
+        int n = Math.min(len - count, chunk.length - offset);
+        System.arraycopy(chunk, offset, b, off + count, n);
+        count += n;
+        offset += n;
+        if (offset == chunk.length) {
+          chunks.poll();
+          offset = 0;
+        }
+      }
+      available -= count;
+
+      if (paused && available < limit / 2) {
+        paused = false;
+        server.execute(RemoteConnection.this::resumeReading);
+      }
+      return count;
+    }
+  }
+}
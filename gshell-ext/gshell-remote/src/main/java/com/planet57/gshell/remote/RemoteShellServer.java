@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.remote;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import com.google.common.io.BaseEncoding;
+import com.planet57.gshell.launcher.ShellProtocol;
+import com.planet57.gshell.util.concurrent.Workers;
+import org.sonatype.goodies.lifecycle.LifecycleSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Serves interactive sessions over {@link ShellProtocol}.
+ *
+ * A single selector thread performs all socket I/O; each accepted session runs {@link SessionHandler} on its own
+ * thread with a terminal backed by the connection.  Binds to the loopback interface unless configured otherwise.
+ *
+ * Clients must present a token; one is generated when none is configured, unless the server is made insecure.
+ *
+ * @since 3.0
+ */
+public class RemoteShellServer
+  extends LifecycleSupport
+{
+  private final SessionHandler handler;
+
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+  private final Set<RemoteConnection> connections = ConcurrentHashMap.newKeySet();
+
+  private final AtomicInteger sessions = new AtomicInteger(0);
+
+  private String name = "gshell";
+
+  private InetAddress bindAddress = InetAddress.getLoopbackAddress();
+
+  private int port = 0;
+
+  private int maxSessions = 16;
+
+  private int inputLimit = 64 * 1024;
+
+  private int outputLimit = 1024 * 1024;
+
+  @Nullable
+  private String token;
+
+  private boolean insecure;
+
+  private Selector selector;
+
+  private ServerSocketChannel serverChannel;
+
+  private Thread selectorThread;
+
+  private ExecutorService executor;
+
+  private volatile boolean running;
+
+  public RemoteShellServer(final SessionHandler handler) {
+    this.handler = checkNotNull(handler);
+  }
+
+  //
+  // Configuration
+  //
+
+  /**
+   * Name used for terminals and threads.
+   */
+  public void setName(final String name) {
+    this.name = checkNotNull(name);
+  }
+
+  public void setBindAddress(final InetAddress bindAddress) {
+    this.bindAddress = checkNotNull(bindAddress);
+  }
+
+  /**
+   * Port to listen on; {@code 0} to choose a free port.
+   */
+  public void setPort(final int port) {
+    checkArgument(port >= 0, "Invalid port: %s", port);
+    this.port = port;
+  }
+
+  /**
+   * Maximum number of concurrent sessions; further connections are rejected.
+   */
+  public void setMaxSessions(final int maxSessions) {
+    checkArgument(maxSessions > 0, "Invalid max-sessions: %s", maxSessions);
+    this.maxSessions = maxSessions;
+  }
+
+  /**
+   * Bytes of unread input per session after which reading from the client is paused.
+   */
+  public void setInputLimit(final int inputLimit) {
+    checkArgument(inputLimit > 0, "Invalid input-limit: %s", inputLimit);
+    this.inputLimit = inputLimit;
+  }
+
+  /**
+   * Bytes of unsent output per session after which the session blocks.
+   */
+  public void setOutputLimit(final int outputLimit) {
+    checkArgument(outputLimit > 0, "Invalid output-limit: %s", outputLimit);
+    this.outputLimit = outputLimit;
+  }
+
+  /**
+   * Token clients must present; {@code null} to generate a random token when started.
+   */
+  public void setToken(@Nullable final String token) {
+    this.token = token;
+  }
+
+  /**
+   * Token clients must present; or {@code null} if the server is insecure and no token was configured.
+   */
+  @Nullable
+  public String getToken() {
+    return token;
+  }
+
+  /**
+   * Accept any client which can connect when no token is configured.
+   */
+  public void setInsecure(final boolean insecure) {
+    this.insecure = insecure;
+  }
+
+  //
+  // Lifecycle
+  //
+
+  @Override
+  protected void doStart() throws Exception {
+    if (token == null && !insecure) {
+      byte[] bytes = new byte[32];
+      new SecureRandom().nextBytes(bytes);
+      token = BaseEncoding.base16().lowerCase().encode(bytes);
+    }
+
+    selector = Selector.open();
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.bind(new InetSocketAddress(bindAddress, port));
+    serverChannel.configureBlocking(false);
+    serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+    executor = Executors.newCachedThreadPool(Workers.threadFactory(name + "-remote-session"));
+
+    running = true;
+    selectorThread = new Thread(this::select, name + "-remote-selector");
+    selectorThread.setDaemon(true);
+    selectorThread.start();
+
+    log.info("Listening on: {}", getLocalAddress());
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    running = false;
+    selector.wakeup();
+    selectorThread.join(1000);
+
+    for (RemoteConnection connection : connections) {
+      connection.close();
+    }
+    serverChannel.close();
+    selector.close();
+    Workers.shutdownNow(executor);
+
+    log.info("Stopped");
+  }
+
+  public InetSocketAddress getLocalAddress() {
+    checkState(serverChannel != null, "Not started");
+    try {
+      return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+    catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Number of active sessions.
+   */
+  public int getSessionCount() {
+    return sessions.get();
+  }
+
+  //
+  // Selector loop
+  //
+
+  private void select() {
+    log.debug("Selector running");
+    while (running) {
+      try {
+        selector.select();
+
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+          task.run();
+        }
+
+        Iterator<SelectionKey> iter = selector.selectedKeys().iterator();
+        while (iter.hasNext()) {
+          SelectionKey key = iter.next();
+          iter.remove();
+          if (!key.isValid()) {
+            continue;
+          }
+
+          if (key.isAcceptable()) {
+            accept();
+            continue;
+          }
+
+          RemoteConnection connection = (RemoteConnection) key.attachment();
+          try {
+            if (key.isReadable()) {
+              connection.onReadable();
+            }
+            if (key.isValid() && key.isWritable()) {
+              connection.onWritable();
+            }
+          }
+          catch (IOException e) {
+            log.debug("Connection failed: {}", connection.getRemoteAddress(), e);
+            connection.close();
+          }
+        }
+      }
+      catch (Exception e) {
+        if (running) {
+          log.warn("Selector failure", e);
+        }
+      }
+    }
+    log.debug("Selector stopped");
+  }
+
+  private void accept() throws IOException {
+    SocketChannel channel = serverChannel.accept();
+    if (channel == null) {
+      return;
+    }
+    channel.configureBlocking(false);
+    channel.socket().setTcpNoDelay(true);
+
+    SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+    RemoteConnection connection = new RemoteConnection(this, channel, key, inputLimit, outputLimit);
+    key.attach(connection);
+    connections.add(connection);
+    log.debug("Accepted connection: {}", connection.getRemoteAddress());
+  }
+
+  /**
+   * Run task on the selector thread.
+   */
+  void execute(final Runnable task) {
+    tasks.add(task);
+    selector.wakeup();
+  }
+
+  boolean authorize(@Nullable final String candidate) {
+    if (token == null) {
+      return insecure;
+    }
+    // constant-time comparison
+    return candidate != null &&
+        MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), candidate.getBytes(StandardCharsets.UTF_8));
+  }
+
+  boolean acquireSession() {
+    while (true) {
+      int current = sessions.get();
+      if (current >= maxSessions) {
+        return false;
+      }
+      if (sessions.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  void startSession(final RemoteConnection connection) {
+    executor.execute(() -> connection.runSession(handler, name));
+  }
+
+  void sessionEnded(final RemoteConnection connection) {
+    log.debug("Session ended: {}", connection.getRemoteAddress());
+    sessions.decrementAndGet();
+  }
+
+  void connectionClosed(final RemoteConnection connection) {
+    connections.remove(connection);
+  }
+}
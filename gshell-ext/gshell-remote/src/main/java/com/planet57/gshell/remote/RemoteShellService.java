@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.remote;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import com.planet57.gshell.branding.Branding;
+import com.planet57.gshell.launcher.ShellProtocol;
+import org.sonatype.goodies.common.ComponentSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Manages the {@link RemoteShellServer} of the container; started and stopped by the {@code remote/*} commands.
+ *
+ * When no token is given the server generates one, which is recorded with the port in {@link #TOKEN_FILE} of the
+ * user context directory, readable only by the owner.
+ *
+ * @since 3.0
+ */
+@Named
+@Singleton
+public class RemoteShellService
+  extends ComponentSupport
+{
+  public static final String TOKEN_FILE = "remote.properties";
+
+  private final ShellSessionHandler handler;
+
+  private final Branding branding;
+
+  @Nullable
+  private RemoteShellServer server;
+
+  @Nullable
+  private File tokenFile;
+
+  @Inject
+  public RemoteShellService(final ShellSessionHandler handler, final Branding branding) {
+    this.handler = checkNotNull(handler);
+    this.branding = checkNotNull(branding);
+  }
+
+  /**
+   * Start serving remote sessions.
+   *
+   * @param port     Port to listen on; {@code 0} to choose a free port.
+   * @param token    Token clients must present; {@code null} to generate one.
+   * @param insecure Accept any client which can connect when no token is given.
+   */
+  public synchronized RemoteShellServer start(final InetAddress bindAddress,
+                                              final int port,
+                                              @Nullable final String token,
+                                              final boolean insecure,
+                                              final int maxSessions)
+      throws Exception
+  {
+    checkState(server == null, "Remote shell server already running");
+    checkArgument(token != null || insecure || bindAddress.isLoopbackAddress(),
+        "Token required to listen on: %s", bindAddress);
+
+    RemoteShellServer server = new RemoteShellServer(handler);
+    server.setName(branding.getProgramName());
+    server.setBindAddress(bindAddress);
+    server.setPort(port);
+    server.setToken(token);
+    server.setInsecure(insecure);
+    server.setMaxSessions(maxSessions);
+    server.start();
+
+    if (token == null && server.getToken() != null) {
+      try {
+        tokenFile = writeTokenFile(server.getLocalAddress().getPort(), server.getToken());
+      }
+      catch (Exception e) {
+        server.stop();
+        throw e;
+      }
+    }
+
+    this.server = server;
+    return server;
+  }
+
+  /**
+   * Stop serving remote sessions; active sessions are closed.
+   */
+  public synchronized void stop() throws Exception {
+    checkState(server != null, "Remote shell server not running");
+    try {
+      server.stop();
+    }
+    finally {
+      server = null;
+      if (tokenFile != null) {
+        Files.deleteIfExists(tokenFile.toPath());
+        tokenFile = null;
+      }
+    }
+  }
+
+  @Nullable
+  public synchronized RemoteShellServer getServer() {
+    return server;
+  }
+
+  /**
+   * File recording the generated token; or {@code null} if the token was given or none is required.
+   */
+  @Nullable
+  public synchronized File getTokenFile() {
+    return tokenFile;
+  }
+
+  /**
+   * Record port and token; written to a temporary file first so clients never observe partial content.
+   */
+  private File writeTokenFile(final int port, final String token) throws IOException {
+    File file = new File(branding.getUserContextDir(), TOKEN_FILE);
+    Path target = file.toPath();
+    Files.createDirectories(target.getParent());
+
+    Path temp = Files.createTempFile(target.getParent(), TOKEN_FILE, ".tmp");
+    try {
+      Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+    }
+    catch (UnsupportedOperationException e) {
+      log.debug("Unable to restrict token file permissions", e);
+    }
+
+    String content = ShellProtocol.PORT + "=" + port + "\n" + ShellProtocol.TOKEN + "=" + token + "\n";
+    Files.write(temp, content.getBytes(StandardCharsets.ISO_8859_1));
+    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return file;
+  }
+}
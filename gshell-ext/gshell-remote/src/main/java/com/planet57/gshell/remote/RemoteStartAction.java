@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.remote;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+import com.planet57.gshell.command.Command;
+import com.planet57.gshell.command.CommandActionSupport;
+import com.planet57.gshell.command.CommandContext;
+import com.planet57.gshell.util.cli2.Option;
+
+/**
+ * Start serving remote shell sessions.
+ *
+ * @since 3.0
+ */
+@Command(name = "remote/start", description = "Start serving remote shell sessions")
+public class RemoteStartAction
+  extends CommandActionSupport
+{
+  @Inject
+  private RemoteShellService service;
+
+  @Nullable
+  @Option(name = "b", longName = "bind", description = "Address to listen on; defaults to loopback", token = "ADDRESS")
+  private String bind;
+
+  @Option(name = "p", longName = "port", description = "Port to listen on; defaults to a free port", token = "PORT")
+  private int port;
+
+  @Nullable
+  @Option(name = "t", longName = "token", description = "Token clients must present; defaults to a generated token",
+      token = "TOKEN")
+  private String token;
+
+  @Option(longName = "insecure", description = "Accept any client which can connect when no token is given")
+  private boolean insecure;
+
+  @Option(name = "m", longName = "max-sessions", description = "Maximum number of concurrent sessions",
+      token = "COUNT")
+  private int maxSessions = 16;
+
+  @Override
+  public Object execute(@Nonnull final CommandContext context) throws Exception {
+    InetAddress bindAddress = bind != null ? InetAddress.getByName(bind) : InetAddress.getLoopbackAddress();
+    if (token == null && insecure) {
+      log.warn("Serving remote sessions on {} without a token", bindAddress);
+    }
+
+    RemoteShellServer server = service.start(bindAddress, port, token, insecure, maxSessions);
+    InetSocketAddress address = server.getLocalAddress();
+    context.getIo().format("Listening on: %s:%d%n", address.getHostString(), address.getPort());
+
+    File tokenFile = service.getTokenFile();
+    if (tokenFile != null) {
+      context.getIo().format("Token written to: %s%n", tokenFile);
+    }
+    return null;
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.remote;
+
+import java.net.SocketAddress;
+
+import org.jline.terminal.Terminal;
+
+/**
+ * Runs a remote session.
+ *
+ * @since 3.0
+ */
+public interface SessionHandler
+{
+  /**
+   * Run session on given terminal until complete; called on a dedicated thread.
+   *
+   * @return The exit code reported to the client.
+   */
+  int run(Terminal terminal, SocketAddress remoteAddress) throws Exception;
+}
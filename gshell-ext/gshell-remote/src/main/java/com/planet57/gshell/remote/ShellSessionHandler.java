@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.remote;
+
+import java.io.PrintStream;
+import java.net.SocketAddress;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import com.planet57.gshell.branding.Branding;
+import com.planet57.gshell.shell.Shell;
+import com.planet57.gshell.shell.ShellBuilder;
+import com.planet57.gshell.util.io.IO;
+import com.planet57.gshell.util.io.StreamSet;
+import com.planet57.gshell.util.io.StyledIO;
+import com.planet57.gshell.variables.VariablesSupport;
+import org.apache.felix.service.threadio.ThreadIO;
+import org.jline.terminal.Terminal;
+import org.sonatype.goodies.common.ComponentSupport;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link SessionHandler} which runs an interactive shell built by {@link ShellBuilder}.
+ *
+ * @since 3.0
+ */
+@Named
+@Singleton
+public class ShellSessionHandler
+  extends ComponentSupport
+  implements SessionHandler
+{
+  private final Provider<ShellBuilder> shellBuilder;
+
+  private final Branding branding;
+
+  private final ThreadIO threadIO;
+
+  @Inject
+  public ShellSessionHandler(final Provider<ShellBuilder> shellBuilder, final Branding branding, final ThreadIO threadIO) {
+    this.shellBuilder = checkNotNull(shellBuilder);
+    this.branding = checkNotNull(branding);
+    this.threadIO = checkNotNull(threadIO);
+  }
+
+  @Override
+  public int run(final Terminal terminal, final SocketAddress remoteAddress) throws Exception {
+    log.debug("Running shell for: {}", remoteAddress);
+
+    StreamSet streams = new StreamSet(terminal.input(), new PrintStream(terminal.output(), true));
+    IO io = StyledIO.create("shell", streams, terminal);
+
+    threadIO.setStreams(streams.in, streams.out, streams.err);
+    try {
+      Shell shell = shellBuilder.get()
+        .branding(branding)
+        .io(io)
+        .variables(new VariablesSupport())
+        .build();
+
+      shell.start();
+      try {
+        shell.run();
+      }
+      finally {
+        shell.stop();
+      }
+    }
+    finally {
+      io.flush();
+      threadIO.close();
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.remote;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.planet57.gshell.launcher.ShellProtocol;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link RemoteShellServer} over loopback.
+ */
+public class RemoteShellServerTest
+  extends TestSupport
+{
+  private RemoteShellServer underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    // greets the client and exits with the code read from the first line of input
+    underTest = new RemoteShellServer((terminal, remoteAddress) -> {
+      terminal.writer().println("hello");
+      terminal.writer().flush();
+      String line = new BufferedReader(terminal.reader()).readLine();
+      return Integer.parseInt(line.trim());
+    });
+    underTest.setToken("secret");
+    underTest.setMaxSessions(1);
+    underTest.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (underTest != null) {
+      underTest.stop();
+      underTest = null;
+    }
+  }
+
+  private Socket connect(@Nullable final String token) throws IOException {
+    Socket socket = new Socket(underTest.getLocalAddress().getAddress(), underTest.getLocalAddress().getPort());
+    Map<String, String> hello = new LinkedHashMap<>();
+    hello.put(ShellProtocol.TERM, "dumb");
+    if (token != null) {
+      hello.put(ShellProtocol.TOKEN, token);
+    }
+    send(socket, ShellProtocol.encode(ShellProtocol.HELLO, hello));
+    send(socket, ShellProtocol.encode(ShellProtocol.SIZE, 120, 40));
+    return socket;
+  }
+
+  private static void send(final Socket socket, final ByteBuffer frame) throws IOException {
+    OutputStream out = socket.getOutputStream();
+    out.write(frame.array(), frame.position(), frame.remaining());
+    out.flush();
+  }
+
+  /**
+   * Read frames until exit; returns exit code and appends output to given buffer.
+   */
+  private static int awaitExit(final Socket socket, final StringBuilder output) throws IOException {
+    DataInputStream in = new DataInputStream(socket.getInputStream());
+    while (true) {
+      byte type = in.readByte();
+      byte[] payload = new byte[in.readInt()];
+      in.readFully(payload);
+      if (type == ShellProtocol.STDOUT) {
+        output.append(new String(payload, StandardCharsets.UTF_8));
+      }
+      else if (type == ShellProtocol.EXIT) {
+        return ByteBuffer.wrap(payload).getInt();
+      }
+    }
+  }
+
+  @Test
+  public void sessionExchangesTerminalData() throws Exception {
+    try (Socket socket = connect("secret")) {
+      send(socket, ShellProtocol.encode(ShellProtocol.STDIN, "7\n"));
+
+      StringBuilder output = new StringBuilder();
+      assertEquals(7, awaitExit(socket, output));
+      assertTrue(output.toString().contains("hello"));
+    }
+  }
+
+  @Test
+  public void invalidTokenRejected() throws Exception {
+    try (Socket socket = connect("wrong")) {
+      StringBuilder output = new StringBuilder();
+      assertEquals(1, awaitExit(socket, output));
+      assertTrue(output.toString().contains("Not authorized"));
+    }
+  }
+
+  @Test
+  public void missingTokenRejected() throws Exception {
+    try (Socket socket = connect(null)) {
+      StringBuilder output = new StringBuilder();
+      assertEquals(1, awaitExit(socket, output));
+      assertTrue(output.toString().contains("Not authorized"));
+    }
+  }
+
+  /**
+   * Restart server with given configuration and a handler which exits immediately.
+   */
+  private void restart(@Nullable final String token, final boolean insecure) throws Exception {
+    underTest.stop();
+    underTest = new RemoteShellServer((terminal, remoteAddress) -> 0);
+    underTest.setToken(token);
+    underTest.setInsecure(insecure);
+    underTest.start();
+  }
+
+  @Test
+  public void tokenGeneratedWhenNotConfigured() throws Exception {
+    restart(null, false);
+    assertNotNull(underTest.getToken());
+
+    try (Socket socket = connect(null)) {
+      StringBuilder output = new StringBuilder();
+      assertEquals(1, awaitExit(socket, output));
+      assertTrue(output.toString().contains("Not authorized"));
+    }
+    try (Socket socket = connect(underTest.getToken())) {
+      assertEquals(0, awaitExit(socket, new StringBuilder()));
+    }
+  }
+
+  @Test
+  public void insecureAcceptsClientsWithoutToken() throws Exception {
+    restart(null, true);
+    assertNull(underTest.getToken());
+
+    try (Socket socket = connect(null)) {
+      assertEquals(0, awaitExit(socket, new StringBuilder()));
+    }
+  }
+
+  @Test
+  public void sessionLimitEnforced() throws Exception {
+    try (Socket first = connect("secret")) {
+      // wait for first session to start
+      DataInputStream in = new DataInputStream(first.getInputStream());
+      assertEquals(ShellProtocol.STDOUT, in.readByte());
+
+      try (Socket second = connect("secret")) {
+        StringBuilder output = new StringBuilder();
+        assertEquals(1, awaitExit(second, output));
+        assertTrue(output.toString().contains("Session limit reached"));
+      }
+
+      in.readFully(new byte[in.readInt()]);
+      send(first, ShellProtocol.encode(ShellProtocol.STDIN, "0\n"));
+      assertEquals(0, awaitExit(first, new StringBuilder()));
+    }
+  }
+}
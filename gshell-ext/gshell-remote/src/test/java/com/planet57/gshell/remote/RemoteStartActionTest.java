@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.remote;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import com.planet57.gshell.launcher.ShellProtocol;
+import com.planet57.gshell.launcher.ShellProtocol.Frame;
+import com.planet57.gshell.testharness.CommandTestSupport;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link RemoteStartAction}, {@link RemoteStopAction} and {@link ShellSessionHandler}.
+ */
+public class RemoteStartActionTest
+  extends CommandTestSupport
+{
+  public RemoteStartActionTest() {
+    super(RemoteStartAction.class);
+    requiredCommands.put("remote/stop", RemoteStopAction.class);
+  }
+
+  @After
+  public void stopServer() throws Exception {
+    RemoteShellService service = lookup(RemoteShellService.class);
+    if (service.getServer() != null) {
+      service.stop();
+    }
+  }
+
+  @Test
+  public void startAndStop() throws Exception {
+    RemoteShellService service = lookup(RemoteShellService.class);
+
+    assertNull(executeCommand());
+    assertNotNull(service.getServer());
+    assertTrue(service.getServer().getLocalAddress().getAddress().isLoopbackAddress());
+
+    // generated token is recorded for the owner only
+    File tokenFile = service.getTokenFile();
+    assertNotNull(tokenFile);
+    Properties props = new Properties();
+    try (InputStream input = new FileInputStream(tokenFile)) {
+      props.load(input);
+    }
+    assertEquals(service.getServer().getToken(), props.getProperty(ShellProtocol.TOKEN));
+    assertEquals(String.valueOf(service.getServer().getLocalAddress().getPort()), props.getProperty(ShellProtocol.PORT));
+    assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(tokenFile.toPath()));
+
+    try {
+      executeCommand();
+      fail();
+    }
+    catch (IllegalStateException e) {
+      // expected
+    }
+
+    assertNull(executeLine("remote/stop"));
+    assertNull(service.getServer());
+    assertFalse(tokenFile.exists());
+  }
+
+  @Test
+  public void tokenRequiredForNonLoopbackBind() throws Exception {
+    try {
+      executeCommand("-b", "0.0.0.0");
+      fail();
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    assertNull(lookup(RemoteShellService.class).getServer());
+  }
+
+  @Test(timeout = 60000L)
+  public void servesShellSession() throws Exception {
+    executeCommand("-t", "secret");
+    InetSocketAddress address = lookup(RemoteShellService.class).getServer().getLocalAddress();
+
+    StringBuilder output = new StringBuilder();
+    int exitCode = -1;
+
+    try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+      Map<String, String> hello = new LinkedHashMap<>();
+      hello.put(ShellProtocol.TOKEN, "secret");
+      hello.put(ShellProtocol.TERM, "dumb");
+      ShellProtocol.write(out, ShellProtocol.HELLO, hello);
+      ShellProtocol.write(out, ShellProtocol.SIZE, 80, 24);
+
+      // end of input exits the interactive shell
+      ShellProtocol.write(out, ShellProtocol.STDIN);
+      out.flush();
+
+      Frame frame;
+      while ((frame = ShellProtocol.read(in)) != null) {
+        if (frame.type == ShellProtocol.STDOUT) {
+          output.append(frame.text());
+        }
+        else if (frame.type == ShellProtocol.EXIT) {
+          exitCode = frame.intValue(0);
+          break;
+        }
+      }
+    }
+
+    assertEquals(0, exitCode);
+    assertTrue(output.length() > 0);
+  }
+}
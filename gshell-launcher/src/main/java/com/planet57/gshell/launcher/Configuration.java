@@ -55,6 +55,13 @@ public class Configuration
 
   public static final String BOOTSTRAP_JAR = "bootstrap.jar";
 
+  /**
+   * Set to {@code true} to forward invocations to a running daemon; disabled by default.
+   *
+   * @since 3.0
+   */
+  public static final String SHELL_DAEMON_CLIENT = "shell.daemon.client";
+
   public static final int SUCCESS_EXIT_CODE = 0;
 
   public static final int FAILURE_EXIT_CODE = 100;
@@ -203,6 +210,23 @@ public class Configuration
     return classPath;
   }
 
+  /**
+   * File recording the port and token of a running daemon, in the user context directory.
+   *
+   * @since 3.0
+   */
+  public File getDaemonFile() {
+    File dir = new File(System.getProperty("user.home"), "." + requireProperty(SHELL_PROGRAM));
+    return new File(dir, ShellProtocol.DAEMON_FILE);
+  }
+
+  /**
+   * @since 3.0
+   */
+  public boolean isDaemonClientEnabled() {
+    return Boolean.parseBoolean(getProperty(SHELL_DAEMON_CLIENT));
+  }
+
   public String getMainClass() {
     return requireProperty(SHELL_MAIN);
   }
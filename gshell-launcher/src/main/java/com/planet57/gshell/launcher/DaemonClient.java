@@ -0,0 +1,381 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.launcher;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+
+import static com.planet57.gshell.launcher.ShellProtocol.Frame;
+
+/**
+ * Thin client which forwards an invocation to a running shell daemon.
+ *
+ * This avoids the cost of booting the container for each invocation; only the bootstrap jar is loaded.
+ *
+ * @since 3.0
+ */
+public class DaemonClient
+{
+  private static final int CONNECT_TIMEOUT = 1000;
+
+  private final int port;
+
+  private final String token;
+
+  public DaemonClient(final int port, final String token) {
+    this.port = port;
+    this.token = token;
+  }
+
+  /**
+   * Locate a running daemon from its recorded port and token; or {@code null} if no daemon has been recorded.
+   */
+  @Nullable
+  public static DaemonClient locate(final File file) {
+    if (!file.isFile()) {
+      return null;
+    }
+
+    Properties props = new Properties();
+    try (InputStream input = new FileInputStream(file)) {
+      props.load(input);
+      String port = props.getProperty(ShellProtocol.PORT);
+      String token = props.getProperty(ShellProtocol.TOKEN);
+      if (port == null || token == null) {
+        return null;
+      }
+      return new DaemonClient(Integer.parseInt(port), token);
+    }
+    catch (Exception e) {
+      Log.debug("Failed to read daemon file: ", file, "; ", e);
+      return null;
+    }
+  }
+
+  /**
+   * Check if the daemon supports all options of given arguments.
+   *
+   * The daemon honors {@code -c}, {@code -D}, {@code -e}, {@code -h} and {@code -V} per invocation; other options,
+   * such as {@code -P} or {@code -d} which change the whole process, require a normal launch.
+   */
+  public static boolean isForwardable(final String[] args) {
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      if (arg.equals("--") || !arg.startsWith("-") || arg.length() == 1) {
+        // options end at the first argument
+        return true;
+      }
+
+      if (arg.startsWith("--")) {
+        int e = arg.indexOf('=');
+        String name = e == -1 ? arg.substring(2) : arg.substring(2, e);
+        switch (name) {
+          case "command":
+          case "define":
+            if (e == -1) {
+              i++;
+            }
+            break;
+          case "errors":
+          case "help":
+          case "version":
+            if (e != -1) {
+              return false;
+            }
+            break;
+          default:
+            return false;
+        }
+      }
+      else {
+        switch (arg.charAt(1)) {
+          case 'c':
+          case 'D':
+            if (arg.length() == 2) {
+              i++;
+            }
+            break;
+          case 'e':
+          case 'h':
+          case 'V':
+            if (arg.length() != 2) {
+              return false;
+            }
+            break;
+          default:
+            return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Connect to the daemon; or {@code null} if it is not reachable.
+   */
+  @Nullable
+  private Socket connect() {
+    Socket socket = new Socket();
+    try {
+      socket.setTcpNoDelay(true);
+      socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT);
+      return socket;
+    }
+    catch (IOException e) {
+      Log.debug("Daemon not reachable on port: ", port, "; ", e);
+      try {
+        socket.close();
+      }
+      catch (IOException ignore) {
+        // ignore
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Run invocation on the daemon.
+   *
+   * @return The exit code; or {@code null} if the daemon could not be reached and the caller should launch normally.
+   */
+  @Nullable
+  public Integer run(final String[] args) throws Exception {
+    Socket socket = connect();
+    if (socket == null) {
+      return null;
+    }
+
+    try {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+      ShellProtocol.write(out, ShellProtocol.HELLO, Collections.singletonMap(ShellProtocol.TOKEN, token));
+      for (String arg : args) {
+        ShellProtocol.write(out, ShellProtocol.ARGUMENT, arg);
+      }
+      for (Map.Entry<String, String> entry : System.getenv().entrySet()) {
+        ShellProtocol.write(out, ShellProtocol.ENVIRONMENT, entry.getKey() + "=" + entry.getValue());
+      }
+      ShellProtocol.write(out, ShellProtocol.DIRECTORY, new File(".").getCanonicalPath());
+      ShellProtocol.write(out, ShellProtocol.SIZE, size());
+      ShellProtocol.write(out, ShellProtocol.START);
+      out.flush();
+
+      // interactive sessions are line-edited by the daemon; pass keys through unprocessed
+      String saved = args.length == 0 && System.console() != null ? stty("-g") : null;
+      if (saved != null) {
+        stty("raw", "-echo");
+      }
+      try {
+        handleSignal("INT", () -> {
+          ShellProtocol.write(out, ShellProtocol.SIGNAL, "INT");
+          out.flush();
+        });
+        handleSignal("WINCH", () -> {
+          ShellProtocol.write(out, ShellProtocol.SIZE, size());
+          out.flush();
+        });
+        startInputPump(System.in, out);
+
+        return pumpOutput(in);
+      }
+      finally {
+        if (saved != null) {
+          stty(saved);
+        }
+      }
+    }
+    finally {
+      socket.close();
+    }
+  }
+
+  /**
+   * Apply {@code stty} settings to the controlling terminal; returns the output or {@code null} on failure.
+   */
+  @Nullable
+  private static String stty(final String... settings) {
+    StringBuilder command = new StringBuilder("stty");
+    for (String setting : settings) {
+      command.append(' ').append(setting);
+    }
+    command.append(" < /dev/tty");
+
+    try {
+      Process process = new ProcessBuilder("sh", "-c", command.toString())
+          .redirectErrorStream(true)
+          .start();
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      try (InputStream input = process.getInputStream()) {
+        byte[] buff = new byte[256];
+        int n;
+        while ((n = input.read(buff)) != -1) {
+          output.write(buff, 0, n);
+        }
+      }
+      if (process.waitFor() != 0) {
+        Log.debug("stty failed: ", output);
+        return null;
+      }
+      return output.toString().trim();
+    }
+    catch (Exception e) {
+      Log.debug("stty failed: ", e);
+      return null;
+    }
+  }
+
+  /**
+   * Terminal size as columns and rows; from {@code stty size} when attached to a terminal, else from the
+   * {@code COLUMNS} and {@code LINES} environment variables.
+   */
+  private static int[] size() {
+    String size = stty("size");
+    if (size != null) {
+      String[] parts = size.split("\\s+");
+      if (parts.length == 2) {
+        try {
+          int rows = Integer.parseInt(parts[0]);
+          int columns = Integer.parseInt(parts[1]);
+          if (rows > 0 && columns > 0) {
+            return new int[]{columns, rows};
+          }
+        }
+        catch (NumberFormatException e) {
+          // ignore
+        }
+      }
+    }
+    return new int[]{dimension("COLUMNS", 80), dimension("LINES", 24)};
+  }
+
+  private static int dimension(final String name, final int defaultValue) {
+    String value = System.getenv(name);
+    if (value != null) {
+      try {
+        return Integer.parseInt(value.trim());
+      }
+      catch (NumberFormatException e) {
+        // ignore
+      }
+    }
+    return defaultValue;
+  }
+
+  /**
+   * Forward standard input; end of input is sent as an empty frame.
+   */
+  private static void startInputPump(final InputStream input, final DataOutputStream out) {
+    Thread thread = new Thread(() -> {
+      byte[] buff = new byte[8192];
+      try {
+        int n;
+        while ((n = input.read(buff)) != -1) {
+          ShellProtocol.write(out, ShellProtocol.STDIN, buff, 0, n);
+          out.flush();
+        }
+        ShellProtocol.write(out, ShellProtocol.STDIN);
+        out.flush();
+      }
+      catch (IOException e) {
+        Log.debug("Input pump stopped: ", e);
+      }
+    }, "daemon-client-input");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Write output frames until the daemon reports the exit code.
+   */
+  private static int pumpOutput(final DataInputStream in) throws IOException {
+    while (true) {
+      Frame frame = ShellProtocol.read(in);
+      if (frame == null) {
+        throw new IOException("Daemon closed connection without exit code");
+      }
+      switch (frame.type) {
+        case ShellProtocol.STDOUT:
+          write(System.out, frame.payload);
+          break;
+        case ShellProtocol.STDERR:
+          write(System.err, frame.payload);
+          break;
+        case ShellProtocol.EXIT:
+          System.out.flush();
+          System.err.flush();
+          return frame.intValue(0);
+        default:
+          Log.debug("Ignoring frame: ", frame);
+      }
+    }
+  }
+
+  private static void write(final OutputStream stream, final byte[] bytes) throws IOException {
+    stream.write(bytes);
+    stream.flush();
+  }
+
+  /**
+   * Action taken when a signal is received.
+   */
+  private interface SignalAction
+  {
+    void handle() throws IOException;
+  }
+
+  /**
+   * Handle signal by notifying the daemon; uses {@code sun.misc.Signal} reflectively as the bootstrap has no native
+   * support.
+   */
+  private static void handleSignal(final String name, final SignalAction action) {
+    try {
+      Class<?> signalType = Class.forName("sun.misc.Signal");
+      Class<?> handlerType = Class.forName("sun.misc.SignalHandler");
+      Object handler = Proxy.newProxyInstance(handlerType.getClassLoader(), new Class[]{handlerType}, (proxy, method, arguments) -> {
+        if (method.getDeclaringClass() == Object.class) {
+          if ("toString".equals(method.getName())) {
+            return "daemon-client-signal-handler";
+          }
+          return method.getName().equals("hashCode") ? System.identityHashCode(proxy) : proxy == arguments[0];
+        }
+        action.handle();
+        return null;
+      });
+      Object signal = signalType.getConstructor(String.class).newInstance(name);
+      signalType.getMethod("handle", signalType, handlerType).invoke(null, signal, handler);
+    }
+    catch (Exception e) {
+      Log.debug("Unable to forward signal: ", name, "; ", e);
+    }
+  }
+}
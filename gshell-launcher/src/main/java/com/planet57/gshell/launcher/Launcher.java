@@ -15,6 +15,7 @@
  */
 package com.planet57.gshell.launcher;
 
+import javax.annotation.Nullable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -42,6 +43,12 @@ public final class Launcher
     try {
       config.configure();
 
+      Integer code = forward(args);
+      if (code != null) {
+        Log.debug("Exiting: ", code);
+        System.exit(code);
+      }
+
       launch(args);
 
       Log.debug("Exiting");
@@ -56,6 +63,27 @@ public final class Launcher
     }
   }
 
+  /**
+   * Forward invocation to a running daemon if there is one.
+   *
+   * @return The exit code; or {@code null} if the invocation should be launched normally.
+   * @since 3.0
+   */
+  @Nullable
+  private Integer forward(final String[] args) throws Exception {
+    if (!config.isDaemonClientEnabled() || !DaemonClient.isForwardable(args)) {
+      return null;
+    }
+
+    DaemonClient client = DaemonClient.locate(config.getDaemonFile());
+    if (client == null) {
+      return null;
+    }
+
+    Log.debug("Forwarding to daemon");
+    return client.run(args);
+  }
+
   public void launch(final String[] args) throws Exception {
     assert args != null;
 
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.launcher;
+
+import javax.annotation.Nullable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Framed protocol spoken between shell clients and the shell daemon or remote shell server.
+ *
+ * Each frame is a single type byte, a 4-byte payload length and the payload.  A client opens with a {@link #HELLO}
+ * frame carrying {@code name=value} lines (ie. {@link #TOKEN} and {@link #TERM}).  Daemon clients then describe the
+ * invocation with argument, environment, directory and size frames followed by {@link #START}; remote clients start
+ * immediately.  Afterwards the client sends {@link #STDIN}, {@link #SIGNAL} and {@link #SIZE} frames while the server
+ * sends {@link #STDOUT} and {@link #STDERR} frames, terminated by a single {@link #EXIT}.
+ *
+ * Blocking streams are supported by {@link #write} and {@link #read}; buffers by {@link #encode} and {@link #decode}.
+ *
+ * @since 3.0
+ */
+public final class ShellProtocol
+{
+  /**
+   * Name of the file, in the user context directory, which records the port and token of a running daemon.
+   */
+  public static final String DAEMON_FILE = "daemon.properties";
+
+  public static final String PORT = "port";
+
+  public static final String TOKEN = "token";
+
+  public static final String TERM = "term";
+
+  public static final byte HELLO = 'H';
+
+  public static final byte ARGUMENT = 'A';
+
+  public static final byte ENVIRONMENT = 'E';
+
+  public static final byte DIRECTORY = 'D';
+
+  /**
+   * Terminal size; 4-byte columns followed by 4-byte rows.
+   */
+  public static final byte SIZE = 'Z';
+
+  public static final byte START = 'S';
+
+  /**
+   * Standard input; an empty payload signals end of input.
+   */
+  public static final byte STDIN = '0';
+
+  public static final byte STDOUT = '1';
+
+  public static final byte STDERR = '2';
+
+  /**
+   * Signal name; for example {@code INT} or {@code WINCH}.
+   */
+  public static final byte SIGNAL = 'G';
+
+  /**
+   * Exit code; 4-byte integer.
+   */
+  public static final byte EXIT = 'X';
+
+  public static final int HEADER_SIZE = 5;
+
+  /**
+   * Maximum payload accepted for a single frame.
+   */
+  public static final int MAX_PAYLOAD = 64 * 1024;
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private ShellProtocol() {
+    // empty
+  }
+
+  /**
+   * A decoded frame.
+   */
+  public static final class Frame
+  {
+    public final byte type;
+
+    public final byte[] payload;
+
+    public Frame(final byte type, final byte[] payload) {
+      this.type = type;
+      this.payload = payload;
+    }
+
+    public String text() {
+      return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    public int intValue(final int index) {
+      return ByteBuffer.wrap(payload).getInt(index * 4);
+    }
+
+    /**
+     * Decode {@code name=value} lines.
+     */
+    public Map<String, String> properties() {
+      Map<String, String> result = new LinkedHashMap<>();
+      for (String line : text().split("\n")) {
+        int i = line.indexOf('=');
+        if (i > 0) {
+          result.put(line.substring(0, i), line.substring(i + 1));
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return "Frame{type=" + (char) type + ", length=" + payload.length + '}';
+    }
+  }
+
+  //
+  // Streams
+  //
+
+  public static void write(final DataOutputStream out, final byte type, final byte[] payload, final int offset, final int length)
+      throws IOException
+  {
+    checkLength(length);
+    synchronized (out) {
+      out.writeByte(type);
+      out.writeInt(length);
+      out.write(payload, offset, length);
+    }
+  }
+
+  public static void write(final DataOutputStream out, final byte type, final byte[] payload) throws IOException {
+    write(out, type, payload, 0, payload.length);
+  }
+
+  public static void write(final DataOutputStream out, final byte type) throws IOException {
+    write(out, type, EMPTY);
+  }
+
+  public static void write(final DataOutputStream out, final byte type, final String text) throws IOException {
+    write(out, type, text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static void write(final DataOutputStream out, final byte type, final int... values) throws IOException {
+    write(out, type, ints(values));
+  }
+
+  public static void write(final DataOutputStream out, final byte type, final Map<String, String> properties)
+      throws IOException
+  {
+    write(out, type, properties(properties));
+  }
+
+  /**
+   * Read the next frame; returns {@code null} if the stream ended cleanly.
+   */
+  @Nullable
+  public static Frame read(final DataInputStream in) throws IOException {
+    int type = in.read();
+    if (type == -1) {
+      return null;
+    }
+
+    int length = in.readInt();
+    checkFrameLength(length);
+
+    byte[] payload = length == 0 ? EMPTY : new byte[length];
+    try {
+      in.readFully(payload);
+    }
+    catch (EOFException e) {
+      throw new IOException("Truncated frame", e);
+    }
+    return new Frame((byte) type, payload);
+  }
+
+  //
+  // Buffers
+  //
+
+  /**
+   * Encode a frame; returned buffer is ready for reading.
+   */
+  public static ByteBuffer encode(final byte type, final byte[] payload, final int offset, final int length) {
+    checkLength(length);
+    ByteBuffer buff = ByteBuffer.allocate(HEADER_SIZE + length);
+    buff.put(type).putInt(length).put(payload, offset, length);
+    buff.flip();
+    return buff;
+  }
+
+  public static ByteBuffer encode(final byte type, final String text) {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    return encode(type, bytes, 0, bytes.length);
+  }
+
+  public static ByteBuffer encode(final byte type, final int... values) {
+    byte[] bytes = ints(values);
+    return encode(type, bytes, 0, bytes.length);
+  }
+
+  public static ByteBuffer encode(final byte type, final Map<String, String> properties) {
+    return encode(type, properties(properties));
+  }
+
+  /**
+   * Decode the next complete frame from given buffer, which must be ready for reading.
+   *
+   * Returns {@code null}, leaving the buffer position unchanged, if the buffer does not yet contain a complete frame.
+   */
+  @Nullable
+  public static Frame decode(final ByteBuffer buff) throws IOException {
+    if (buff.remaining() < HEADER_SIZE) {
+      return null;
+    }
+
+    int start = buff.position();
+    byte type = buff.get(start);
+    int length = buff.getInt(start + 1);
+    checkFrameLength(length);
+    if (buff.remaining() < HEADER_SIZE + length) {
+      return null;
+    }
+
+    byte[] payload = length == 0 ? EMPTY : new byte[length];
+    buff.position(start + HEADER_SIZE);
+    buff.get(payload);
+    return new Frame(type, payload);
+  }
+
+  //
+  // Helpers
+  //
+
+  private static void checkLength(final int length) {
+    if (length > MAX_PAYLOAD) {
+      throw new IllegalArgumentException("Payload too large: " + length);
+    }
+  }
+
+  private static void checkFrameLength(final int length) throws IOException {
+    if (length < 0 || length > MAX_PAYLOAD) {
+      throw new IOException("Invalid frame length: " + length);
+    }
+  }
+
+  private static byte[] ints(final int... values) {
+    ByteBuffer buff = ByteBuffer.allocate(values.length * 4);
+    for (int value : values) {
+      buff.putInt(value);
+    }
+    return buff.array();
+  }
+
+  private static String properties(final Map<String, String> properties) {
+    StringBuilder buff = new StringBuilder();
+    for (Map.Entry<String, String> entry : properties.entrySet()) {
+      buff.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+    }
+    return buff.toString();
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.util.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import com.planet57.gossip.Log;
+import org.slf4j.Logger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Helpers to create bounded worker pools.
+ *
+ * Virtual threads are used when the runtime provides them; otherwise daemon platform threads.
+ *
+ * @since 3.0
+ */
+public class Workers
+{
+  private static final Logger log = Log.getLogger(Workers.class);
+
+  @Nullable
+  private static final Method VIRTUAL_FACTORY = detectVirtualFactory();
+
+  private Workers() {
+    // empty
+  }
+
+  /**
+   * Lookup {@code Thread.ofVirtual().factory()} reflectively; we still compile against 1.8.
+   */
+  @Nullable
+  private static Method detectVirtualFactory() {
+    try {
+      Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+      return builderType.getMethod("factory");
+    }
+    catch (Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * Default parallelism; the number of available processors.
+   */
+  public static int defaultParallelism() {
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Returns {@link #defaultParallelism()} if given value is not positive.
+   */
+  public static int parallelism(final int requested) {
+    return requested > 0 ? requested : defaultParallelism();
+  }
+
+  /**
+   * Create a thread-factory for workers named with given prefix.
+   */
+  public static ThreadFactory threadFactory(final String prefix) {
+    checkNotNull(prefix);
+
+    if (VIRTUAL_FACTORY != null) {
+      try {
+        Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+        ThreadFactory virtual = (ThreadFactory) VIRTUAL_FACTORY.invoke(builder);
+        return named(prefix, virtual);
+      }
+      catch (Exception e) {
+        log.trace("Virtual threads unavailable", e);
+      }
+    }
+
+    return named(prefix, runnable -> {
+      Thread thread = new Thread(runnable);
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  private static ThreadFactory named(final String prefix, final ThreadFactory delegate) {
+    AtomicInteger counter = new AtomicInteger(0);
+    return runnable -> {
+      Thread thread = delegate.newThread(runnable);
+      thread.setName(prefix + "-" + counter.incrementAndGet());
+      return thread;
+    };
+  }
+
+  /**
+   * Create a new executor which runs at most {@code parallelism} tasks concurrently.
+   */
+  public static ExecutorService newExecutor(final String prefix, final int parallelism) {
+    checkArgument(parallelism > 0, "Parallelism must be positive: %s", parallelism);
+    log.trace("Creating executor: {}; parallelism: {}", prefix, parallelism);
+    return Executors.newFixedThreadPool(parallelism, threadFactory(prefix));
+  }
+
+  /**
+   * Shutdown executor, interrupting any running tasks and waiting briefly for them to complete.
+   */
+  public static void shutdownNow(final ExecutorService executor) {
+    checkNotNull(executor);
+    executor.shutdownNow();
+    try {
+      if (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+        log.debug("Executor did not terminate: {}", executor);
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,439 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.util.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+import com.planet57.gossip.Log;
+import org.slf4j.Logger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Output capture buffer which spills from heap, to off-heap memory, to a memory-mapped temporary file as it grows.
+ *
+ * Small captures stay as cheap as a {@link java.io.ByteArrayOutputStream}; large captures are bounded only by disk.
+ * The temporary file is deleted when the buffer is closed.
+ *
+ * @since 3.0
+ */
+public class CaptureBuffer
+  extends OutputStream
+{
+  private static final Logger log = Log.getLogger(CaptureBuffer.class);
+
+  /**
+   * System property to configure the size in bytes above which captures move off-heap.
+   */
+  public static final String HEAP_THRESHOLD = "shell.capture.heap-threshold";
+
+  /**
+   * System property to configure the size in bytes above which captures move to a temporary file.
+   */
+  public static final String OFF_HEAP_THRESHOLD = "shell.capture.offheap-threshold";
+
+  private static final int DEFAULT_HEAP_THRESHOLD = 1024 * 1024;
+
+  private static final int DEFAULT_OFF_HEAP_THRESHOLD = 64 * 1024 * 1024;
+
+  /**
+   * Size of write-behind buffer for the file stage.
+   */
+  private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Maximum size of a single mapping when reading the file stage.
+   */
+  private static final int MAP_SEGMENT_SIZE = 256 * 1024 * 1024;
+
+  public enum Stage
+  {
+    HEAP,
+    OFF_HEAP,
+    FILE
+  }
+
+  private final int heapThreshold;
+
+  private final int offHeapThreshold;
+
+  @Nullable
+  private final Path directory;
+
+  private Stage stage = Stage.HEAP;
+
+  private byte[] heap = new byte[256];
+
+  private ByteBuffer direct;
+
+  private FileChannel file;
+
+  private ByteBuffer fileBuffer;
+
+  private long size;
+
+  private boolean closed;
+
+  /**
+   * @param heapThreshold     Size above which content moves off-heap.
+   * @param offHeapThreshold  Size above which content moves to a temporary file; if not greater than
+   *                          {@code heapThreshold} the off-heap stage is skipped.
+   * @param directory         Directory for the temporary file; {@code null} for the default temporary directory.
+   */
+  public CaptureBuffer(final int heapThreshold, final int offHeapThreshold, @Nullable final Path directory) {
+    checkArgument(heapThreshold >= 0, "Invalid heap-threshold: %s", heapThreshold);
+    checkArgument(offHeapThreshold >= 0, "Invalid off-heap-threshold: %s", offHeapThreshold);
+    this.heapThreshold = heapThreshold;
+    this.offHeapThreshold = offHeapThreshold;
+    this.directory = directory;
+  }
+
+  /**
+   * Buffer with thresholds from {@link #HEAP_THRESHOLD} and {@link #OFF_HEAP_THRESHOLD} system properties.
+   */
+  public CaptureBuffer() {
+    this(Integer.getInteger(HEAP_THRESHOLD, DEFAULT_HEAP_THRESHOLD),
+        Integer.getInteger(OFF_HEAP_THRESHOLD, DEFAULT_OFF_HEAP_THRESHOLD),
+        null);
+  }
+
+  public synchronized Stage getStage() {
+    return stage;
+  }
+
+  public synchronized long size() {
+    return size;
+  }
+
+  //
+  // Output
+  //
+
+  @Override
+  public void write(final int b) throws IOException {
+    write(new byte[]{(byte) b}, 0, 1);
+  }
+
+  @Override
+  public synchronized void write(final byte[] b, final int off, final int len) throws IOException {
+    checkState(!closed, "Closed");
+    if (len == 0) {
+      return;
+    }
+
+    switch (stage) {
+      case HEAP:
+        if (size + len <= heapThreshold) {
+          if (size + len > heap.length) {
+            heap = Arrays.copyOf(heap, (int) Math.min(Math.max(heap.length * 2L, size + len), heapThreshold));
+          }
+          System.arraycopy(b, off, heap, (int) size, len);
+          break;
+        }
+        if (offHeapThreshold > heapThreshold && size + len <= offHeapThreshold) {
+          spillOffHeap(len);
+          direct.put(b, off, len);
+        }
+        else {
+          spillFile();
+          writeFile(b, off, len);
+        }
+        break;
+
+      case OFF_HEAP:
+        if (size + len <= offHeapThreshold) {
+          ensureDirectCapacity(size + len);
+          direct.put(b, off, len);
+        }
+        else {
+          spillFile();
+          writeFile(b, off, len);
+        }
+        break;
+
+      case FILE:
+        writeFile(b, off, len);
+        break;
+    }
+
+    size += len;
+  }
+
+  private void spillOffHeap(final int len) {
+    log.trace("Spilling off-heap; size: {}", size);
+    direct = ByteBuffer.allocateDirect((int) Math.min(Math.max(heapThreshold * 2L, size + len), offHeapThreshold));
+    direct.put(heap, 0, (int) size);
+    heap = null;
+    stage = Stage.OFF_HEAP;
+  }
+
+  private void ensureDirectCapacity(final long required) {
+    if (required > direct.capacity()) {
+      ByteBuffer grown = ByteBuffer.allocateDirect((int) Math.min(Math.max(direct.capacity() * 2L, required), offHeapThreshold));
+      direct.flip();
+      grown.put(direct);
+      direct = grown;
+    }
+  }
+
+  private void spillFile() throws IOException {
+    Path path = directory != null
+        ? Files.createTempFile(directory, "gshell-capture", ".tmp")
+        : Files.createTempFile("gshell-capture", ".tmp");
+    log.debug("Spilling to file: {}; size: {}", path, size);
+
+    file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+        StandardOpenOption.DELETE_ON_CLOSE);
+    fileBuffer = ByteBuffer.allocateDirect(FILE_BUFFER_SIZE);
+
+    if (stage == Stage.HEAP) {
+      writeFully(ByteBuffer.wrap(heap, 0, (int) size));
+      heap = null;
+    }
+    else {
+      direct.flip();
+      writeFully(direct);
+      direct = null;
+    }
+    stage = Stage.FILE;
+  }
+
+  private void writeFile(final byte[] b, final int off, final int len) throws IOException {
+    if (len > fileBuffer.remaining()) {
+      flushFile();
+      if (len > fileBuffer.capacity()) {
+        writeFully(ByteBuffer.wrap(b, off, len));
+        return;
+      }
+    }
+    fileBuffer.put(b, off, len);
+  }
+
+  private void flushFile() throws IOException {
+    if (fileBuffer.position() != 0) {
+      fileBuffer.flip();
+      writeFully(fileBuffer);
+      fileBuffer.clear();
+    }
+  }
+
+  private void writeFully(final ByteBuffer buff) throws IOException {
+    while (buff.hasRemaining()) {
+      file.write(buff);
+    }
+  }
+
+  @Override
+  public synchronized void flush() throws IOException {
+    if (stage == Stage.FILE && !closed) {
+      flushFile();
+    }
+  }
+
+  //
+  // Input
+  //
+
+  /**
+   * Content as a read-only buffer; file content is memory-mapped.
+   *
+   * @throws IllegalStateException Content is too large for a single buffer.
+   */
+  public synchronized ByteBuffer toByteBuffer() throws IOException {
+    checkState(!closed, "Closed");
+    switch (stage) {
+      case HEAP:
+        return ByteBuffer.wrap(heap, 0, (int) size).asReadOnlyBuffer();
+
+      case OFF_HEAP: {
+        ByteBuffer buff = direct.duplicate();
+        buff.flip();
+        return buff.asReadOnlyBuffer();
+      }
+
+      default:
+        checkState(size <= Integer.MAX_VALUE, "Content too large for a single buffer: %s", size);
+        flushFile();
+        return file.map(MapMode.READ_ONLY, 0, size);
+    }
+  }
+
+  /**
+   * Open a stream over the content captured so far.
+   */
+  public synchronized InputStream openStream() throws IOException {
+    checkState(!closed, "Closed");
+    switch (stage) {
+      case HEAP:
+        return new ByteArrayInputStream(heap, 0, (int) size);
+
+      case OFF_HEAP:
+        return new BufferInputStream(toByteBuffer());
+
+      default:
+        flushFile();
+        return new MappedInputStream(file, size);
+    }
+  }
+
+  public void writeTo(final OutputStream output) throws IOException {
+    byte[] buff = new byte[8192];
+    try (InputStream input = openStream()) {
+      int n;
+      while ((n = input.read(buff)) != -1) {
+        output.write(buff, 0, n);
+      }
+    }
+  }
+
+  /**
+   * Decode content.
+   *
+   * @throws IllegalStateException Content is too large for a single string.
+   */
+  public String toString(final Charset charset) throws IOException {
+    return charset.decode(toByteBuffer()).toString();
+  }
+
+  /**
+   * Release memory and delete temporary file.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    heap = null;
+    direct = null;
+    fileBuffer = null;
+    if (file != null) {
+      file.close();
+      file = null;
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    return getClass().getSimpleName() + "{" +
+        "stage=" + stage +
+        ", size=" + size +
+        '}';
+  }
+
+  //
+  // Streams
+  //
+
+  private static class BufferInputStream
+    extends InputStream
+  {
+    private final ByteBuffer buff;
+
+    BufferInputStream(final ByteBuffer buff) {
+      this.buff = buff;
+    }
+
+    @Override
+    public int read() {
+      return buff.hasRemaining() ? buff.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buff.hasRemaining()) {
+        return -1;
+      }
+      int n = Math.min(len, buff.remaining());
+      buff.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return buff.remaining();
+    }
+  }
+
+  /**
+   * Reads file content through successive mappings.
+   */
+  private static class MappedInputStream
+    extends InputStream
+  {
+    private final FileChannel channel;
+
+    private final long limit;
+
+    private long position;
+
+    private MappedByteBuffer segment;
+
+    MappedInputStream(final FileChannel channel, final long limit) {
+      this.channel = channel;
+      this.limit = limit;
+    }
+
+    private boolean ensureSegment() throws IOException {
+      if (segment != null && segment.hasRemaining()) {
+        return true;
+      }
+      if (position >= limit) {
+        return false;
+      }
+      long length = Math.min(MAP_SEGMENT_SIZE, limit - position);
+      segment = channel.map(MapMode.READ_ONLY, position, length);
+      position += length;
+      return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return ensureSegment() ? segment.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (!ensureSegment()) {
+        return -1;
+      }
+      int n = Math.min(len, segment.remaining());
+      segment.get(b, off, n);
+      return n;
+    }
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.util.io;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Options for {@link FileSystemAccess#copyDirectory(java.io.File, java.io.File, CopyOptions)}.
+ *
+ * @since 3.0
+ */
+public class CopyOptions
+{
+  /**
+   * Receives progress of a copy; may be called concurrently from workers.
+   */
+  @FunctionalInterface
+  public interface Monitor
+  {
+    /**
+     * @param files  Number of files completed so far, including skipped files.
+     * @param bytes  Number of bytes copied so far.
+     */
+    void progress(long files, long bytes);
+  }
+
+  private int jobs;
+
+  private boolean resume;
+
+  @Nullable
+  private Monitor monitor;
+
+  /**
+   * Number of concurrent file copies; {@code 0} for default.
+   */
+  public int getJobs() {
+    return jobs;
+  }
+
+  public CopyOptions jobs(final int jobs) {
+    checkArgument(jobs >= 0, "Invalid jobs: %s", jobs);
+    this.jobs = jobs;
+    return this;
+  }
+
+  /**
+   * Skip files whose target already has the same size and modification time; as left by an interrupted copy.
+   */
+  public boolean isResume() {
+    return resume;
+  }
+
+  public CopyOptions resume(final boolean resume) {
+    this.resume = resume;
+    return this;
+  }
+
+  @Nullable
+  public Monitor getMonitor() {
+    return monitor;
+  }
+
+  public CopyOptions monitor(@Nullable final Monitor monitor) {
+    this.monitor = monitor;
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "{" +
+        "jobs=" + jobs +
+        ", resume=" + resume +
+        '}';
+  }
+}
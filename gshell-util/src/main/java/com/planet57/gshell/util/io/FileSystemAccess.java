@@ -17,6 +17,8 @@ package com.planet57.gshell.util.io;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Provides access to the file system.
@@ -42,6 +44,22 @@ public interface FileSystemAccess
 
   File resolveFile(final String path) throws IOException;
 
+  /**
+   * Resolve path as {@link #resolveFile(File, String)} does.
+   *
+   * @since 3.0
+   */
+  default Path resolvePath(Path baseDir, final String path) throws IOException {
+    return resolveFile(baseDir != null ? baseDir.toFile() : null, path).toPath();
+  }
+
+  /**
+   * @since 3.0
+   */
+  default Path resolvePath(final String path) throws IOException {
+    return resolveFile(path).toPath();
+  }
+
   boolean hasChildren(final File file);
 
   /**
@@ -54,6 +72,18 @@ public interface FileSystemAccess
    */
   void deleteDirectory(final File dir) throws IOException;
 
+  /**
+   * Move directory aside and delete it in the background; the original path is free once this method returns.
+   *
+   * By default the directory is deleted before returning.
+   *
+   * @since 3.0
+   */
+  default CompletableFuture<Void> deleteDirectoryLater(final File dir) throws IOException {
+    deleteDirectory(dir);
+    return CompletableFuture.completedFuture(null);
+  }
+
   /**
    * @since 3.0
    */
@@ -69,6 +99,15 @@ public interface FileSystemAccess
    */
   void copyDirectory(final File source, final File target) throws IOException;
 
+  /**
+   * By default options are ignored and the directory is copied as {@link #copyDirectory(File, File)} does.
+   *
+   * @since 3.0
+   */
+  default void copyDirectory(final File source, final File target, final CopyOptions options) throws IOException {
+    copyDirectory(source, target);
+  }
+
   /**
    * @since 3.0
    */
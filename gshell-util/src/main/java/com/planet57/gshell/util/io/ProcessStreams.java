@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.util.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+
+import javax.annotation.Nullable;
+
+import com.planet57.gossip.Log;
+import com.planet57.gshell.util.concurrent.Workers;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.impl.AbstractWindowsTerminal;
+import org.jline.terminal.impl.PosixSysTerminal;
+import org.slf4j.Logger;
+
+/**
+ * Connects system process streams.
+ *
+ * Output which reaches the system terminal is inherited by the process, so it is written at native speed without
+ * passing through the JVM.  Other streams are pumped with large pooled buffers; pumps block on read, instead of polling,
+ * and flush only when no further input is pending.
+ *
+ * Streams given here must already be resolved to their target, as streams which dispatch per-thread would resolve
+ * differently on pump threads.
+ *
+ * @since 3.0
+ */
+public final class ProcessStreams
+{
+  private static final Logger log = Log.getLogger(ProcessStreams.class);
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(8);
+
+  private static final ThreadFactory threadFactory = Workers.threadFactory("process-pump");
+
+  private ProcessStreams() {
+    // empty
+  }
+
+  //
+  // Inheritance
+  //
+
+  /**
+   * Check if the terminal is the terminal of this process.
+   */
+  public static boolean isSystemTerminal(final Terminal terminal) {
+    return terminal instanceof PosixSysTerminal || terminal instanceof AbstractWindowsTerminal;
+  }
+
+  /**
+   * Check if output to the given stream reaches the system terminal directly; in which case processes may inherit
+   * the descriptor.  Redirected and piped output is never inheritable.
+   */
+  public static boolean isInheritable(final OutputStream stream) {
+    return stream instanceof TerminalPrintStream && isSystemTerminal(((TerminalPrintStream) stream).getTerminal());
+  }
+
+  /**
+   * Check if input from the given stream comes from the system terminal directly; in which case processes may inherit
+   * the descriptor.  Redirected and piped input is never inheritable.
+   */
+  public static boolean isInheritable(final InputStream stream) {
+    return stream instanceof TerminalInputStream && isSystemTerminal(((TerminalInputStream) stream).getTerminal());
+  }
+
+  //
+  // Pumping
+  //
+
+  /**
+   * Handle to running pumps.
+   */
+  public static class Pumps
+  {
+    private final List<Thread> threads = new ArrayList<>(2);
+
+    /**
+     * Wait for all process output to be written; call after the process has exited.
+     */
+    public void await() throws InterruptedException {
+      for (Thread thread : threads) {
+        thread.join();
+      }
+    }
+
+    /**
+     * Interrupt pumps still waiting for input; call after the process has exited.
+     */
+    public void stop() {
+      for (Thread thread : threads) {
+        thread.interrupt();
+      }
+    }
+  }
+
+  /**
+   * Pump process output and error; {@code null} targets are ignored, as for inherited or merged streams.
+   */
+  public static Pumps start(final Process process, @Nullable final OutputStream out, @Nullable final OutputStream err) {
+    Pumps pumps = new Pumps();
+    if (out != null) {
+      pumps.threads.add(start(process.getInputStream(), out));
+    }
+    if (err != null) {
+      pumps.threads.add(start(process.getErrorStream(), err));
+    }
+    return pumps;
+  }
+
+  /**
+   * Pump input to output, closing output at end of input; as when connecting one process to another.
+   */
+  public static Pumps connect(final InputStream input, final OutputStream output) {
+    Pumps pumps = new Pumps();
+    pumps.threads.add(start(input, output, true));
+    return pumps;
+  }
+
+  /**
+   * Pump input to the process until end of input, which closes the input of the process.
+   *
+   * The pump blocks on read; {@link Pumps#stop} it once the process has exited so a read still waiting on terminal
+   * input is interrupted and keystrokes which follow are left for the shell.
+   */
+  public static Pumps input(final InputStream input, final Process process) {
+    Pumps pumps = new Pumps();
+    pumps.threads.add(start(input, process.getOutputStream(), true));
+    return pumps;
+  }
+
+  private static Thread start(final InputStream input, final OutputStream output) {
+    return start(input, output, false);
+  }
+
+  private static Thread start(final InputStream input, final OutputStream output, final boolean close) {
+    Thread thread = threadFactory.newThread(() -> {
+      try {
+        copy(input, output);
+      }
+      catch (InterruptedIOException e) {
+        log.trace("Pump stopped", e);
+      }
+      catch (IOException e) {
+        // expected when the reading process exits early
+        log.debug("Pump failed", e);
+      }
+      finally {
+        if (close) {
+          Closeables.close(output);
+        }
+      }
+    });
+    thread.start();
+    return thread;
+  }
+
+  /**
+   * Copy until end of input, or until the thread is interrupted; output is flushed whenever no further input is
+   * immediately available.
+   */
+  public static long copy(final InputStream input, final OutputStream output) throws IOException {
+    byte[] buff = buffers.poll();
+    if (buff == null) {
+      buff = new byte[BUFFER_SIZE];
+    }
+    long total = 0;
+    try {
+      int n;
+      while (!Thread.currentThread().isInterrupted() && (n = input.read(buff)) != -1) {
+        output.write(buff, 0, n);
+        total += n;
+        if (input.available() == 0) {
+          output.flush();
+        }
+      }
+      output.flush();
+    }
+    finally {
+      buffers.offer(buff);
+    }
+    return total;
+  }
+}
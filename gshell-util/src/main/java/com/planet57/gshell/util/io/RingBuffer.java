@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.util.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bounded off-heap byte buffer which keeps the most recent content; older content is overwritten.
+ *
+ * Content is addressed by absolute position, counting all bytes ever written, so readers can follow new content and
+ * detect what was overwritten.  Writers {@link #close()} the buffer at end of content; readers may {@link #await(long)}
+ * new content instead of polling.
+ *
+ * @since 3.0
+ */
+public class RingBuffer
+{
+  private final ByteBuffer buffer;
+
+  private final int capacity;
+
+  private long written;
+
+  private boolean closed;
+
+  public RingBuffer(final int capacity) {
+    checkArgument(capacity > 0, "Invalid capacity: %s", capacity);
+    this.capacity = capacity;
+    this.buffer = ByteBuffer.allocateDirect(capacity);
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * Total number of bytes written; the position after the most recent content.
+   */
+  public synchronized long written() {
+    return written;
+  }
+
+  /**
+   * Position of the oldest retained content.
+   */
+  public synchronized long start() {
+    return Math.max(0, written - capacity);
+  }
+
+  public synchronized void write(final byte[] bytes, final int offset, final int length) {
+    int off = offset;
+    int len = length;
+    // only the tail of oversized writes is retained
+    if (len > capacity) {
+      written += len - capacity;
+      off += len - capacity;
+      len = capacity;
+    }
+
+    int index = (int) (written % capacity);
+    int first = Math.min(len, capacity - index);
+    ByteBuffer target = buffer.duplicate();
+    target.position(index);
+    target.put(bytes, off, first);
+    if (first < len) {
+      target.position(0);
+      target.put(bytes, off + first, len - first);
+    }
+    written += len;
+    notifyAll();
+  }
+
+  /**
+   * Mark the end of content; wakes waiting readers.
+   */
+  public synchronized void close() {
+    closed = true;
+    notifyAll();
+  }
+
+  public synchronized boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Wait until content after the given position is written or the buffer is closed.
+   *
+   * @return {@code true} if content after the position is available; {@code false} once closed and fully read.
+   */
+  public synchronized boolean await(final long position) throws InterruptedException {
+    while (written <= position && !closed) {
+      wait();
+    }
+    return written > position;
+  }
+
+  /**
+   * Copy content from given position, or from {@link #start()} if it has been overwritten, to the given stream.
+   *
+   * @return Position after the copied content.
+   */
+  public long read(final long position, final OutputStream output) throws IOException {
+    byte[] chunk = new byte[8192];
+    long current = position;
+    while (true) {
+      int n;
+      synchronized (this) {
+        current = Math.max(current, start());
+        n = (int) Math.min(chunk.length, written - current);
+        if (n <= 0) {
+          return current;
+        }
+        int index = (int) (current % capacity);
+        int first = Math.min(n, capacity - index);
+        ByteBuffer source = buffer.duplicate();
+        source.position(index);
+        source.get(chunk, 0, first);
+        if (first < n) {
+          source.position(0);
+          source.get(chunk, first, n - first);
+        }
+      }
+      // write outside of lock; writers are not blocked by slow readers
+      output.write(chunk, 0, n);
+      current += n;
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.util.io;
+
+import java.io.PrintStream;
+
+import org.jline.terminal.Terminal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link PrintStream} writing to {@link Terminal#output()}; closing is ignored as the terminal owns the stream.
+ *
+ * Identifies output which reaches the terminal directly; see {@link ProcessStreams#isInheritable}.
+ *
+ * @since 3.0
+ */
+public class TerminalPrintStream
+  extends PrintStream
+{
+  private final Terminal terminal;
+
+  public TerminalPrintStream(final Terminal terminal) {
+    super(checkNotNull(terminal).output(), true);
+    this.terminal = terminal;
+  }
+
+  public Terminal getTerminal() {
+    return terminal;
+  }
+
+  @Override
+  public void close() {
+    // ignore
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.util.jline;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.jline.reader.Candidate;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Immutable index of {@link Candidate} instances sorted by value, for prefix lookup.
+ *
+ * Values are ordered ignoring case; lookups return candidates matching the prefix ignoring case, a superset of those
+ * the line-reader accepts regardless of its case-sensitivity configuration.
+ *
+ * @since 3.0
+ */
+public final class CandidateIndex
+{
+  private static final Comparator<Candidate> ORDER = (a, b) -> {
+    int result = String.CASE_INSENSITIVE_ORDER.compare(a.value(), b.value());
+    return result != 0 ? result : a.value().compareTo(b.value());
+  };
+
+  private final Candidate[] candidates;
+
+  private final List<Candidate> all;
+
+  private CandidateIndex(final Candidate[] candidates) {
+    this.candidates = candidates;
+    this.all = Collections.unmodifiableList(Arrays.asList(candidates));
+  }
+
+  public static CandidateIndex of(final Collection<Candidate> candidates) {
+    checkNotNull(candidates);
+    Candidate[] sorted = candidates.toArray(new Candidate[candidates.size()]);
+    Arrays.sort(sorted, ORDER);
+    return new CandidateIndex(sorted);
+  }
+
+  public int size() {
+    return candidates.length;
+  }
+
+  /**
+   * Returns all candidates in value order.
+   */
+  public List<Candidate> all() {
+    return all;
+  }
+
+  /**
+   * Returns candidates whose value starts with given prefix, ignoring case.
+   */
+  public List<Candidate> match(final String prefix) {
+    checkNotNull(prefix);
+    if (prefix.isEmpty()) {
+      return all;
+    }
+
+    // lower bound; first value not ordered before prefix
+    int low = 0;
+    int high = candidates.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (String.CASE_INSENSITIVE_ORDER.compare(candidates[mid].value(), prefix) < 0) {
+        low = mid + 1;
+      }
+      else {
+        high = mid;
+      }
+    }
+
+    int end = low;
+    while (end < candidates.length && candidates[end].value().regionMatches(true, 0, prefix, 0, prefix.length())) {
+      end++;
+    }
+    return all.subList(low, end);
+  }
+}
@@ -16,6 +16,7 @@
 package com.planet57.gshell.util.jline;
 
 import org.jline.reader.Candidate;
+import org.jline.reader.ParsedLine;
 import org.jline.utils.AttributedString;
 
 import javax.annotation.Nullable;
@@ -61,4 +62,14 @@ public class Candidates
     checkNotNull(name);
     return new CandidateImpl(AttributedString.stripAnsi(name), name, null, description, null, null, true);
   }
+
+  /**
+   * Returns the portion of the current word before the cursor.
+   */
+  public static String prefix(@Nullable final ParsedLine line) {
+    if (line == null || line.word() == null) {
+      return "";
+    }
+    return line.word().substring(0, line.wordCursor());
+  }
 }
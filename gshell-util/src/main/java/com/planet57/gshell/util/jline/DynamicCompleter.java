@@ -16,9 +16,11 @@
 package com.planet57.gshell.util.jline;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.planet57.gshell.util.jline.Candidates.prefix;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.jline.reader.Candidate;
 import org.jline.reader.Completer;
@@ -69,10 +71,24 @@ public abstract class DynamicCompleter
 
   protected abstract Collection<Candidate> getCandidates();
 
+  /**
+   * Returns candidates for the word being completed; those matching given prefix, ignoring case.
+   *
+   * When none match all candidates are returned, so the line-reader may still apply typo-tolerant matching.
+   * Filters {@link #getCandidates()}; override to look up candidates more efficiently.
+   */
+  protected Collection<Candidate> getCandidates(final String prefix) {
+    Collection<Candidate> all = getCandidates();
+    List<Candidate> matches = all.stream()
+        .filter(candidate -> candidate.value().regionMatches(true, 0, prefix, 0, prefix.length()))
+        .collect(Collectors.toList());
+    return matches.isEmpty() ? all : matches;
+  }
+
   @Override
   public void complete(final LineReader reader, final ParsedLine commandLine, final List<Candidate> candidates) {
     checkNotNull(candidates);
     setup();
-    candidates.addAll(getCandidates());
+    candidates.addAll(getCandidates(prefix(commandLine)));
   }
 }
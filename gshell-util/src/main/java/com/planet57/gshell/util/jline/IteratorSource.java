@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.util.jline;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+
+import javax.annotation.Nullable;
+
+import org.jline.builtins.Source;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link Source} which encodes lines as they are read; content is never materialized as a whole.
+ *
+ * Single-use, like {@link InputStreamSource}.
+ *
+ * @since 3.0
+ */
+public class IteratorSource
+  implements Source
+{
+  @Nullable
+  private final String name;
+
+  private final Iterator<? extends CharSequence> lines;
+
+  private final Charset charset;
+
+  public IteratorSource(final Iterator<? extends CharSequence> lines, @Nullable final String name, final Charset charset) {
+    this.lines = checkNotNull(lines);
+    this.name = name;
+    this.charset = checkNotNull(charset);
+  }
+
+  public IteratorSource(final Iterator<? extends CharSequence> lines, @Nullable final String name) {
+    this(lines, name, Charset.defaultCharset());
+  }
+
+  @Override
+  @Nullable
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public InputStream read() {
+    return new LinesInputStream();
+  }
+
+  private class LinesInputStream
+    extends InputStream
+  {
+    private byte[] line = new byte[0];
+
+    private int offset;
+
+    /**
+     * Encode next line when current is consumed; false when there are no more lines.
+     */
+    private boolean ensureLine() {
+      while (offset == line.length) {
+        if (!lines.hasNext()) {
+          return false;
+        }
+        line = (lines.next() + "\n").getBytes(charset);
+        offset = 0;
+      }
+      return true;
+    }
+
+    @Override
+    public int read() {
+      return ensureLine() ? line[offset++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!ensureLine()) {
+        return -1;
+      }
+      int n = Math.min(len, line.length - offset);
+      System.arraycopy(line, offset, b, off, n);
+      offset += n;
+      return n;
+    }
+  }
+}
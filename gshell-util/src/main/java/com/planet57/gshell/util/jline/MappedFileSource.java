@@ -0,0 +1,452 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.util.jline;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+import com.planet57.gossip.Log;
+import com.planet57.gshell.util.concurrent.Workers;
+import org.jline.builtins.Source;
+import org.slf4j.Logger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * {@link Source} backed by a memory-mapped file.
+ *
+ * Opening is constant time regardless of file size.  A sparse index of line offsets is built lazily in the
+ * background; {@link #atLine(long)} resolves through the index and scans at most {@link #INDEX_INTERVAL} lines.  A line
+ * beyond what has been indexed waits for the indexer to reach it, so the first jump into a fresh source is linear in
+ * its offset.  {@link #atTail(int)} scans backwards from the end of the file.
+ *
+ * Accessing mapped content removed by truncating the file faults, and the JVM may report the fault asynchronously.
+ * The file size is therefore re-read before each chunk of content is scanned or streamed; content beyond it is treated
+ * as absent.
+ *
+ * Closing unmaps the file; streams opened from this source must not be used afterwards.
+ *
+ * @since 3.0
+ */
+public class MappedFileSource
+  implements Source, Closeable
+{
+  private static final Logger log = Log.getLogger(MappedFileSource.class);
+
+  /**
+   * Number of lines between index entries.
+   */
+  public static final int INDEX_INTERVAL = 1024;
+
+  private static final int SEGMENT_SHIFT = 30;
+
+  private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+  /**
+   * Bytes scanned between checks for truncation.
+   */
+  private static final int CHECK_INTERVAL = 64 * 1024;
+
+  @Nullable
+  private final String name;
+
+  /**
+   * Mapped size; reduced if the file is found to be truncated.
+   */
+  private volatile long size;
+
+  private final FileChannel channel;
+
+  private final MappedByteBuffer[] segments;
+
+  private final Object indexLock = new Object();
+
+  /**
+   * Offset of every {@link #INDEX_INTERVAL}-th line; entry {@code 0} is line {@code 0}.
+   */
+  private long[] index = {0};
+
+  private int indexed = 1;
+
+  private boolean indexComplete;
+
+  private long lineCount = -1;
+
+  private Thread indexer;
+
+  private volatile boolean closed;
+
+  public MappedFileSource(final Path path, @Nullable final String name) throws IOException {
+    checkNotNull(path);
+    this.name = name;
+
+    // channel is kept open to detect truncation
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      this.size = channel.size();
+      int count = (int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+      this.segments = new MappedByteBuffer[count];
+      for (int i = 0; i < count; i++) {
+        long position = (long) i << SEGMENT_SHIFT;
+        segments[i] = channel.map(MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+      }
+    }
+    catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+    log.debug("Mapped: {}; size: {}", path, size);
+  }
+
+  @Override
+  @Nullable
+  public String getName() {
+    return name;
+  }
+
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Byte at given position; or {@code -1} beyond the end of the file.
+   */
+  private int get(final long position) {
+    if (position >= size) {
+      return -1;
+    }
+    return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & (SEGMENT_SIZE - 1))) & 0xFF;
+  }
+
+  /**
+   * Re-read the file size and shrink to it if the file was truncated.
+   */
+  private synchronized void checkTruncated() {
+    try {
+      long current = channel.size();
+      if (current < size) {
+        log.debug("Mapped file truncated; size: {}", current);
+        size = current;
+      }
+    }
+    catch (IOException e) {
+      log.trace("Unable to check size", e);
+    }
+  }
+
+  //
+  // Index
+  //
+
+  /**
+   * Start building the line index in the background; does nothing if already started.
+   */
+  public void startIndexing() {
+    synchronized (indexLock) {
+      if (indexer != null || indexComplete || closed) {
+        return;
+      }
+      indexer = Workers.threadFactory("line-index").newThread(this::buildIndex);
+      indexer.start();
+    }
+  }
+
+  private void buildIndex() {
+    long position;
+    synchronized (indexLock) {
+      position = index[indexed - 1];
+    }
+
+    long lines = 0;
+    while (position < size && !closed) {
+      if (position % CHECK_INTERVAL == 0) {
+        checkTruncated();
+      }
+      if (get(position++) == '\n') {
+        lines++;
+        if (lines % INDEX_INTERVAL == 0) {
+          addIndexEntry(position);
+        }
+      }
+    }
+
+    synchronized (indexLock) {
+      if (!closed) {
+        // trailing content without newline counts as a line
+        lineCount = (long) (indexed - 1) * INDEX_INTERVAL + lines % INDEX_INTERVAL +
+            (size > 0 && get(size - 1) != '\n' ? 1 : 0);
+        indexComplete = true;
+        log.debug("Indexed {} lines", lineCount);
+      }
+      indexLock.notifyAll();
+    }
+  }
+
+  private void addIndexEntry(final long offset) {
+    synchronized (indexLock) {
+      if (indexed == index.length) {
+        index = Arrays.copyOf(index, index.length * 2);
+      }
+      index[indexed++] = offset;
+      indexLock.notifyAll();
+    }
+  }
+
+  /**
+   * Number of lines; {@code -1} until indexing completes.
+   */
+  public long getLineCount() {
+    synchronized (indexLock) {
+      return lineCount;
+    }
+  }
+
+  /**
+   * Offset of given zero-based line; {@link #size()} if the file has fewer lines.
+   */
+  public long offsetOfLine(final long line) {
+    checkArgument(line >= 0, "Invalid line: %s", line);
+    checkState(!closed, "Closed");
+    startIndexing();
+
+    long entry = line / INDEX_INTERVAL;
+    long position;
+    long remaining;
+    synchronized (indexLock) {
+      // wait for the indexer to reach the line instead of scanning the same content alongside it
+      while (!indexComplete && !closed && indexed <= entry) {
+        try {
+          indexLock.wait();
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+      int nearest = (int) Math.min(entry, indexed - 1);
+      position = index[nearest];
+      remaining = line - (long) nearest * INDEX_INTERVAL;
+    }
+
+    // at most INDEX_INTERVAL lines unless interrupted while waiting for the index
+    checkTruncated();
+    while (remaining > 0 && position < size) {
+      if (get(position++) == '\n') {
+        remaining--;
+      }
+    }
+    return position;
+  }
+
+  /**
+   * Offset of the start of the given number of lines before the end of the file.
+   */
+  public long offsetOfTail(final int lines) {
+    checkArgument(lines >= 0, "Invalid lines: %s", lines);
+    checkState(!closed, "Closed");
+    checkTruncated();
+    long position = size;
+    // ignore trailing newline
+    if (position > 0 && get(position - 1) == '\n') {
+      position--;
+    }
+    int remaining = lines;
+    while (position > 0) {
+      if (get(position - 1) == '\n' && --remaining == 0) {
+        break;
+      }
+      position--;
+    }
+    return lines == 0 ? size : position;
+  }
+
+  //
+  // Content
+  //
+
+  @Override
+  public InputStream read() {
+    return read(0);
+  }
+
+  public InputStream read(final long offset) {
+    checkArgument(offset >= 0 && offset <= size, "Invalid offset: %s", offset);
+    checkState(!closed, "Closed");
+    return new MappedInputStream(offset);
+  }
+
+  /**
+   * View of this source starting at given zero-based line.
+   */
+  public Source atLine(final long line) {
+    return view(offsetOfLine(line));
+  }
+
+  /**
+   * View of this source with only the given number of trailing lines.
+   */
+  public Source atTail(final int lines) {
+    return view(offsetOfTail(lines));
+  }
+
+  private Source view(final long offset) {
+    return new Source()
+    {
+      @Override
+      @Nullable
+      public String getName() {
+        return name;
+      }
+
+      @Override
+      public InputStream read() {
+        return MappedFileSource.this.read(offset);
+      }
+    };
+  }
+
+  /**
+   * Stop background indexing, close the file and unmap it.
+   */
+  @Override
+  public void close() {
+    Thread thread;
+    synchronized (indexLock) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      indexLock.notifyAll();
+      thread = indexer;
+    }
+
+    try {
+      channel.close();
+    }
+    catch (IOException e) {
+      log.trace("Failed to close channel", e);
+    }
+
+    if (thread != null) {
+      try {
+        thread.join();
+      }
+      catch (InterruptedException e) {
+        // indexer may still be reading; leave mappings to be released by GC
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+
+    for (int i = 0; i < segments.length; i++) {
+      unmap(segments[i]);
+      segments[i] = null;
+    }
+  }
+
+  /**
+   * Release mapping eagerly; otherwise it is only released once the buffer is collected.
+   */
+  private static void unmap(final MappedByteBuffer buffer) {
+    try {
+      Class<?> unsafeType = Class.forName("sun.misc.Unsafe");
+      try {
+        // Java 9+
+        Method invokeCleaner = unsafeType.getMethod("invokeCleaner", ByteBuffer.class);
+        Field field = unsafeType.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        invokeCleaner.invoke(field.get(null), buffer);
+      }
+      catch (NoSuchMethodException e) {
+        // Java 8
+        Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        Object cleaner = cleanerMethod.invoke(buffer);
+        if (cleaner != null) {
+          cleaner.getClass().getMethod("clean").invoke(cleaner);
+        }
+      }
+    }
+    catch (Exception e) {
+      log.debug("Unable to unmap buffer; leaving to GC", e);
+    }
+  }
+
+  private class MappedInputStream
+    extends InputStream
+  {
+    private long position;
+
+    MappedInputStream(final long position) {
+      this.position = position;
+    }
+
+    @Override
+    public int read() {
+      if (position % CHECK_INTERVAL == 0) {
+        checkTruncated();
+      }
+      int b = get(position);
+      if (b != -1) {
+        position++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) {
+      if (len == 0) {
+        return 0;
+      }
+      checkTruncated();
+      if (position >= size) {
+        return -1;
+      }
+      ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)].duplicate();
+      segment.position((int) (position & (SEGMENT_SIZE - 1)));
+      int n = (int) Math.min(Math.min(Math.min(len, CHECK_INTERVAL), segment.remaining()), size - position);
+      segment.get(b, off, n);
+      position += n;
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.max(0, Math.min(Integer.MAX_VALUE, size - position));
+    }
+
+    @Override
+    public long skip(final long n) {
+      long skipped = Math.max(0, Math.min(n, size - position));
+      position += skipped;
+      return skipped;
+    }
+  }
+}
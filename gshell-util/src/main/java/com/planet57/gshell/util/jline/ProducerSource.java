@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.util.jline;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+
+import javax.annotation.Nullable;
+
+import com.planet57.gossip.Log;
+import com.planet57.gshell.util.concurrent.Workers;
+import org.jline.builtins.Source;
+import org.slf4j.Logger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link Source} fed by a producer writing on a background thread; paging starts before output is complete.
+ *
+ * The producer is bounded by a fixed size pipe, so output is never materialized as a whole.  Closing the stream stops
+ * the producer with an {@link IOException} on its next write.
+ *
+ * @since 3.0
+ */
+public class ProducerSource
+  implements Source, Closeable
+{
+  private static final Logger log = Log.getLogger(ProducerSource.class);
+
+  private static final int PIPE_SIZE = 64 * 1024;
+
+  /**
+   * Writes content; the stream is closed when this returns.
+   */
+  @FunctionalInterface
+  public interface Producer
+  {
+    void produce(OutputStream output) throws Exception;
+  }
+
+  @Nullable
+  private final String name;
+
+  private final Producer producer;
+
+  @Nullable
+  private volatile InputStream current;
+
+  public ProducerSource(final Producer producer, @Nullable final String name) {
+    this.producer = checkNotNull(producer);
+    this.name = name;
+  }
+
+  @Override
+  @Nullable
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public InputStream read() throws IOException {
+    PipedInputStream input = new PipedInputStream(PIPE_SIZE);
+    PipedOutputStream output = new PipedOutputStream(input);
+
+    Workers.threadFactory("pager-producer").newThread(() -> {
+      try (OutputStream stream = output) {
+        producer.produce(stream);
+      }
+      catch (Exception e) {
+        // reader closing the pipe is expected when paging is aborted
+        log.debug("Producer stopped: {}", e.toString());
+      }
+    }).start();
+
+    current = input;
+    return input;
+  }
+
+  /**
+   * Close the last stream returned by {@link #read()}; stops its producer.
+   */
+  @Override
+  public void close() throws IOException {
+    InputStream input = current;
+    if (input != null) {
+      input.close();
+    }
+  }
+}
@@ -23,15 +23,23 @@ import org.jline.reader.ParsedLine;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.planet57.gshell.util.jline.Candidates.candidate;
+import static com.planet57.gshell.util.jline.Candidates.prefix;
 
 /**
  * Customized strings completer which provides mutable candidates.
  *
+ * Candidates are indexed by value when first completed after a change; completion only offers those matching the
+ * word being completed.
+ *
  * @since 3.0
  */
 public class StringsCompleter2
@@ -39,6 +47,11 @@ public class StringsCompleter2
 {
   private final Map<String,Candidate> candidates = new LinkedHashMap<>();
 
+  private long version;
+
+  @Nullable
+  private CandidateIndex index;
+
   public StringsCompleter2() {
     // empty
   }
@@ -54,16 +67,25 @@ public class StringsCompleter2
   /**
    * Set completion strings; replacing any existing.
    */
-  public void set(final Iterable<String> strings) {
+  public synchronized void set(final Iterable<String> strings) {
     checkNotNull(strings);
+
+    // avoid invalidating the index when refreshed with the same strings
+    Set<String> replacement = new LinkedHashSet<>();
+    strings.forEach(replacement::add);
+    if (replacement.equals(candidates.keySet())) {
+      return;
+    }
+
     candidates.clear();
-    addAll(strings);
+    changed();
+    addAll(replacement);
   }
 
   /**
    * Add all strings to existing candidates.
    */
-  public void addAll(final Iterable<String> strings) {
+  public synchronized void addAll(final Iterable<String> strings) {
     checkNotNull(strings);
     for (String string : strings) {
       add(string);
@@ -81,26 +103,42 @@ public class StringsCompleter2
   /**
    * Add a string to existing candidates.
    */
-  public void add(final String string) {
+  public synchronized void add(final String string) {
     checkNotNull(string);
     candidates.put(string, candidate(string));
+    changed();
   }
 
   /**
    * Remove string from candidates.
    */
-  public void remove(final String string) {
+  public synchronized void remove(final String string) {
     checkNotNull(string);
-    candidates.remove(string);
+    if (candidates.remove(string) != null) {
+      changed();
+    }
   }
 
   /**
    * Add string with specific completer.
    */
-  public void add(final String string, final Candidate candidate) {
+  public synchronized void add(final String string, final Candidate candidate) {
     checkNotNull(string);
     checkNotNull(candidate);
     candidates.put(string, candidate);
+    changed();
+  }
+
+  private void changed() {
+    version++;
+    index = null;
+  }
+
+  /**
+   * Returns counter incremented when candidates change.
+   */
+  public synchronized long getVersion() {
+    return version;
   }
 
   /**
@@ -117,9 +155,27 @@ public class StringsCompleter2
     return candidates.values();
   }
 
+  /**
+   * Returns candidates matching given prefix, ignoring case.
+   *
+   * When none match all candidates are returned, so the line-reader may still apply typo-tolerant matching.
+   */
+  public Collection<Candidate> getCandidates(final String prefix) {
+    checkNotNull(prefix);
+    CandidateIndex current;
+    synchronized (this) {
+      if (index == null) {
+        index = CandidateIndex.of(candidates.values());
+      }
+      current = index;
+    }
+    List<Candidate> matches = current.match(prefix);
+    return matches.isEmpty() ? current.all() : matches;
+  }
+
   @Override
   public void complete(final LineReader reader, final ParsedLine commandLine, final List<Candidate> candidates) {
     checkNotNull(candidates);
-    candidates.addAll(getCandidates());
+    candidates.addAll(getCandidates(prefix(commandLine)));
   }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.util.jline;
+
+import java.util.Collection;
+
+import org.jline.reader.Candidate;
+
+/**
+ * {@link DynamicCompleter} with candidates maintained in a {@link StringsCompleter2} delegate, which indexes them for
+ * prefix completion.
+ *
+ * @since 3.0
+ */
+public abstract class StringsDynamicCompleter
+  extends DynamicCompleter
+{
+  private final StringsCompleter2 delegate = new StringsCompleter2();
+
+  protected StringsCompleter2 getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  protected Collection<Candidate> getCandidates() {
+    return delegate.getCandidates();
+  }
+
+  /**
+   * @see StringsCompleter2#getCandidates(String)
+   */
+  @Override
+  protected Collection<Candidate> getCandidates(final String prefix) {
+    return delegate.getCandidates(prefix);
+  }
+}
@@ -15,15 +15,19 @@
  */
 package com.planet57.gshell.util.jline;
 
+import org.apache.commons.io.input.ReaderInputStream;
 import org.jline.builtins.Less;
+import org.jline.builtins.Source;
 import org.jline.terminal.Terminal;
 import org.jline.utils.AttributedString;
 import org.jline.utils.AttributedStringBuilder;
 
 import javax.annotation.Nullable;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.Iterator;
 import java.util.List;
 import java.util.function.IntBinaryOperator;
 import java.util.stream.Collectors;
@@ -88,9 +92,43 @@ public class TerminalHelper
 
   public static void pageOutput(final Terminal terminal, @Nullable final String name, final String output)
     throws IOException, InterruptedException
+  {
+    // encode incrementally; avoids a second full copy of output
+    pageOutput(terminal, new InputStreamSource(new ReaderInputStream(new StringReader(output), Charset.defaultCharset()), name));
+  }
+
+  /**
+   * Page lines as they are pulled from the given iterator.
+   *
+   * @since 3.0
+   */
+  public static void pageOutput(final Terminal terminal, @Nullable final String name, final Iterator<? extends CharSequence> lines)
+    throws IOException, InterruptedException
+  {
+    pageOutput(terminal, new IteratorSource(lines, name));
+  }
+
+  /**
+   * Page output as it is written by the given producer.
+   *
+   * @since 3.0
+   */
+  public static void pageOutput(final Terminal terminal, @Nullable final String name, final ProducerSource.Producer producer)
+    throws IOException, InterruptedException
+  {
+    try (ProducerSource source = new ProducerSource(producer, name)) {
+      pageOutput(terminal, source);
+    }
+  }
+
+  /**
+   * @since 3.0
+   */
+  public static void pageOutput(final Terminal terminal, final Source source)
+    throws IOException, InterruptedException
   {
     Less less = new Less(terminal);
-    less.run(new InputStreamSource(new ByteArrayInputStream(output.getBytes()), name));
+    less.run(source);
   }
 
   public static void pageOutput(final Terminal terminal, final String output)
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.util.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link CaptureBuffer}.
+ */
+public class CaptureBufferTest
+  extends TestSupport
+{
+  private static byte[] content(final int size) {
+    byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      bytes[i] = (byte) ('a' + i % 26);
+    }
+    return bytes;
+  }
+
+  private static void verify(final CaptureBuffer buffer, final byte[] expected) throws Exception {
+    assertEquals(expected.length, buffer.size());
+
+    ByteBuffer buff = buffer.toByteBuffer();
+    byte[] bytes = new byte[buff.remaining()];
+    buff.get(bytes);
+    assertArrayEquals(expected, bytes);
+
+    try (InputStream input = buffer.openStream()) {
+      assertArrayEquals(expected, ByteStreams.toByteArray(input));
+    }
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    buffer.writeTo(output);
+    assertArrayEquals(expected, output.toByteArray());
+  }
+
+  private static void write(final CaptureBuffer buffer, final byte[] bytes, final int chunk) throws Exception {
+    for (int i = 0; i < bytes.length; i += chunk) {
+      buffer.write(bytes, i, Math.min(chunk, bytes.length - i));
+    }
+  }
+
+  @Test
+  public void smallContentStaysOnHeap() throws Exception {
+    byte[] bytes = content(100);
+    try (CaptureBuffer buffer = new CaptureBuffer(1024, 4096, null)) {
+      write(buffer, bytes, 7);
+      assertEquals(CaptureBuffer.Stage.HEAP, buffer.getStage());
+      verify(buffer, bytes);
+    }
+  }
+
+  @Test
+  public void spillsOffHeap() throws Exception {
+    byte[] bytes = content(3000);
+    try (CaptureBuffer buffer = new CaptureBuffer(1024, 4096, null)) {
+      write(buffer, bytes, 100);
+      assertEquals(CaptureBuffer.Stage.OFF_HEAP, buffer.getStage());
+      verify(buffer, bytes);
+    }
+  }
+
+  @Test
+  public void spillsToFile() throws Exception {
+    byte[] bytes = content(200_000);
+    try (CaptureBuffer buffer = new CaptureBuffer(1024, 4096, null)) {
+      write(buffer, bytes, 1000);
+      assertEquals(CaptureBuffer.Stage.FILE, buffer.getStage());
+      verify(buffer, bytes);
+
+      // appending after reading
+      buffer.write('z');
+      assertEquals(bytes.length + 1, buffer.size());
+    }
+  }
+
+  @Test
+  public void skipsOffHeapWhenDisabled() throws Exception {
+    byte[] bytes = content(2000);
+    try (CaptureBuffer buffer = new CaptureBuffer(1024, 0, null)) {
+      write(buffer, bytes, 2000);
+      assertEquals(CaptureBuffer.Stage.FILE, buffer.getStage());
+      verify(buffer, bytes);
+    }
+  }
+}
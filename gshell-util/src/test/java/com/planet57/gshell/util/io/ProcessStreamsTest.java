@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.util.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.jline.terminal.Terminal;
+import org.jline.terminal.TerminalBuilder;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests for {@link ProcessStreams}.
+ */
+public class ProcessStreamsTest
+  extends TestSupport
+{
+  @Before
+  public void setUp() {
+    assumeTrue(new File("/bin/sh").canExecute());
+  }
+
+  private static Process sh(final String script) throws Exception {
+    return new ProcessBuilder("/bin/sh", "-c", script).start();
+  }
+
+  private static String text(final ByteArrayOutputStream output) {
+    return new String(output.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test(timeout = 30000L)
+  public void shortProcessLosesNoOutput() throws Exception {
+    for (int i = 0; i < 20; i++) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      ByteArrayOutputStream err = new ByteArrayOutputStream();
+      Process process = sh("echo out-" + i + "; echo err-" + i + " >&2");
+      ProcessStreams.Pumps pumps = ProcessStreams.start(process, out, err);
+
+      assertEquals(0, process.waitFor());
+      pumps.await();
+      assertEquals("out-" + i + "\n", text(out));
+      assertEquals("err-" + i + "\n", text(err));
+    }
+  }
+
+  @Test(timeout = 30000L)
+  public void largeOutputCopiedCompletely() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Process process = sh("i=0; while [ $i -lt 20000 ]; do echo line-$i; i=$((i+1)); done");
+    ProcessStreams.Pumps pumps = ProcessStreams.start(process, out, null);
+
+    assertEquals(0, process.waitFor());
+    pumps.await();
+    String[] lines = text(out).split("\n");
+    assertEquals(20000, lines.length);
+    assertEquals("line-19999", lines[lines.length - 1]);
+  }
+
+  @Test(timeout = 30000L)
+  public void endOfInputClosesProcessInput() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Process process = new ProcessBuilder("cat").start();
+    ProcessStreams.Pumps input = ProcessStreams.input(
+        new ByteArrayInputStream("hello\nworld\n".getBytes(StandardCharsets.UTF_8)), process);
+    ProcessStreams.Pumps output = ProcessStreams.start(process, out, null);
+
+    // cat only exits once its input is closed
+    assertTrue(process.waitFor(20, TimeUnit.SECONDS));
+    input.await();
+    output.await();
+    assertEquals("hello\nworld\n", text(out));
+  }
+
+  @Test(timeout = 30000L)
+  public void stopInterruptsPendingInput() throws Exception {
+    // connected but never written; reads block
+    PipedInputStream pending = new PipedInputStream(new PipedOutputStream());
+
+    Process process = sh("exit 3");
+    ProcessStreams.Pumps input = ProcessStreams.input(pending, process);
+    assertEquals(3, process.waitFor());
+
+    input.stop();
+    input.await();
+  }
+
+  @Test
+  public void externalTerminalNotInheritable() throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (Terminal terminal = TerminalBuilder.builder()
+        .system(false)
+        .type("dumb")
+        .streams(new ByteArrayInputStream(new byte[0]), output)
+        .build())
+    {
+      assertFalse(ProcessStreams.isSystemTerminal(terminal));
+
+      TerminalInputStream in = new TerminalInputStream(terminal);
+      TerminalPrintStream out = new TerminalPrintStream(terminal);
+      assertFalse(ProcessStreams.isInheritable(in));
+      assertFalse(ProcessStreams.isInheritable(out));
+      assertFalse(ProcessStreams.isInheritable(new ByteArrayOutputStream()));
+
+      // closing leaves the terminal open
+      out.close();
+      out.print("still open");
+      out.flush();
+      assertTrue(new String(output.toByteArray(), StandardCharsets.UTF_8).contains("still open"));
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.util.io;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link RingBuffer}.
+ */
+public class RingBufferTest
+  extends TestSupport
+{
+  private static void write(final RingBuffer buffer, final String text) {
+    byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+    buffer.write(bytes, 0, bytes.length);
+  }
+
+  private static String read(final RingBuffer buffer, final long position) throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    buffer.read(position, output);
+    return new String(output.toByteArray(), StandardCharsets.US_ASCII);
+  }
+
+  @Test
+  public void readWithinCapacity() throws Exception {
+    RingBuffer buffer = new RingBuffer(8);
+    write(buffer, "abcde");
+    assertEquals(0, buffer.start());
+    assertEquals(5, buffer.written());
+    assertEquals("abcde", read(buffer, 0));
+    assertEquals("de", read(buffer, 3));
+    assertEquals("", read(buffer, 5));
+  }
+
+  @Test
+  public void wrapAround() throws Exception {
+    RingBuffer buffer = new RingBuffer(8);
+    write(buffer, "abcde");
+    write(buffer, "fghij");
+    assertEquals(2, buffer.start());
+    assertEquals(10, buffer.written());
+
+    // overwritten content is skipped
+    assertEquals("cdefghij", read(buffer, 0));
+    assertEquals("hij", read(buffer, 7));
+
+    write(buffer, "klm");
+    assertEquals(5, buffer.start());
+    assertEquals("fghijklm", read(buffer, 0));
+  }
+
+  @Test
+  public void oversizedWriteKeepsTail() throws Exception {
+    RingBuffer buffer = new RingBuffer(4);
+    write(buffer, "ab");
+    write(buffer, "cdefghij");
+    assertEquals(10, buffer.written());
+    assertEquals(6, buffer.start());
+    assertEquals("ghij", read(buffer, 0));
+  }
+
+  @Test
+  public void awaitContentAndClose() throws Exception {
+    RingBuffer buffer = new RingBuffer(8);
+    Thread writer = new Thread(() -> {
+      write(buffer, "abc");
+      buffer.close();
+    });
+    writer.start();
+
+    long position = 0;
+    StringBuilder content = new StringBuilder();
+    while (buffer.await(position)) {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      position = buffer.read(position, output);
+      content.append(new String(output.toByteArray(), StandardCharsets.US_ASCII));
+    }
+    writer.join();
+
+    assertEquals("abc", content.toString());
+    assertTrue(buffer.isClosed());
+    assertFalse(buffer.await(position));
+  }
+}
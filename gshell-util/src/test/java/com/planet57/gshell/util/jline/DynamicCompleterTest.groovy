@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.util.jline
+
+import org.jline.reader.Candidate
+import org.jline.reader.impl.DefaultParser
+import org.sonatype.goodies.testsupport.TestSupport
+
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Tests for {@link DynamicCompleter}
+ */
+class DynamicCompleterTest
+  extends TestSupport
+{
+  int initialized
+
+  int prepared
+
+  DynamicCompleter underTest
+
+  @Before
+  void setUp() {
+    initialized = 0
+    prepared = 0
+    underTest = new DynamicCompleter() {
+      List<Candidate> candidates = []
+
+      @Override
+      protected void init() {
+        initialized++
+        candidates = ['foo', 'Food', 'bar'].collect { Candidates.candidate(it) }
+      }
+
+      @Override
+      protected void prepare() {
+        prepared++
+      }
+
+      @Override
+      protected Collection<Candidate> getCandidates() {
+        return candidates
+      }
+    }
+  }
+
+  private List<String> complete(final String word) {
+    List<Candidate> candidates = []
+    underTest.complete(null, new DefaultParser.ArgumentList(word, [word], 0, word.length(), word.length()), candidates)
+    return candidates.collect { it.value() }.sort()
+  }
+
+  @Test
+  void 'complete by prefix ignoring case'() {
+    assert complete('fo') == ['Food', 'foo']
+    assert complete('B') == ['bar']
+    assert initialized == 1
+    assert prepared == 2
+  }
+
+  @Test
+  void 'complete all when none match'() {
+    assert complete('x') == ['Food', 'bar', 'foo']
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.util.jline;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link MappedFileSource}.
+ */
+public class MappedFileSourceTest
+  extends TestSupport
+{
+  private static final int LINES = MappedFileSource.INDEX_INTERVAL * 3 + 7;
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Offset of each line of the written file.
+   */
+  private final List<Long> offsets = new ArrayList<>();
+
+  private File write(final int lines, final boolean trailingNewline) throws Exception {
+    StringBuilder buff = new StringBuilder();
+    for (int i = 0; i < lines; i++) {
+      offsets.add((long) buff.length());
+      buff.append("line-").append(i);
+      if (i < lines - 1 || trailingNewline) {
+        buff.append('\n');
+      }
+    }
+    File file = folder.newFile();
+    Files.write(file.toPath(), buff.toString().getBytes(StandardCharsets.US_ASCII));
+    return file;
+  }
+
+  private static String read(final InputStream input) throws Exception {
+    try (InputStream in = input) {
+      return new String(ByteStreams.toByteArray(in), StandardCharsets.US_ASCII);
+    }
+  }
+
+  @Test
+  public void offsetOfLine() throws Exception {
+    File file = write(LINES, true);
+    try (MappedFileSource source = new MappedFileSource(file.toPath(), null)) {
+      assertEquals(0, source.offsetOfLine(0));
+      assertEquals((long) offsets.get(1), source.offsetOfLine(1));
+      assertEquals((long) offsets.get(MappedFileSource.INDEX_INTERVAL), source.offsetOfLine(MappedFileSource.INDEX_INTERVAL));
+      assertEquals((long) offsets.get(LINES - 1), source.offsetOfLine(LINES - 1));
+      assertEquals(source.size(), source.offsetOfLine(LINES));
+      assertEquals(source.size(), source.offsetOfLine(LINES * 2));
+
+      assertEquals("line-5\n", read(source.atLine(5).read()).substring(0, 7));
+    }
+  }
+
+  @Test
+  public void offsetOfTail() throws Exception {
+    File file = write(LINES, true);
+    try (MappedFileSource source = new MappedFileSource(file.toPath(), null)) {
+      assertEquals(source.size(), source.offsetOfTail(0));
+      assertEquals((long) offsets.get(LINES - 1), source.offsetOfTail(1));
+      assertEquals((long) offsets.get(LINES - 3), source.offsetOfTail(3));
+      assertEquals(0, source.offsetOfTail(LINES + 1));
+
+      String expected = "line-" + (LINES - 2) + "\nline-" + (LINES - 1) + "\n";
+      assertEquals(expected, read(source.atTail(2).read()));
+    }
+  }
+
+  @Test
+  public void lineCount() throws Exception {
+    File file = write(LINES, true);
+    try (MappedFileSource source = new MappedFileSource(file.toPath(), null)) {
+      // resolving beyond any index entry waits for indexing to complete
+      assertEquals(source.size(), source.offsetOfLine(Long.MAX_VALUE));
+      assertEquals(LINES, source.getLineCount());
+    }
+  }
+
+  @Test
+  public void lineCountWithoutTrailingNewline() throws Exception {
+    File file = write(LINES, false);
+    try (MappedFileSource source = new MappedFileSource(file.toPath(), null)) {
+      assertEquals(source.size(), source.offsetOfLine(Long.MAX_VALUE));
+      assertEquals(LINES, source.getLineCount());
+      assertEquals((long) offsets.get(LINES - 1), source.offsetOfTail(1));
+    }
+  }
+
+  @Test
+  public void emptyFile() throws Exception {
+    File file = folder.newFile();
+    try (MappedFileSource source = new MappedFileSource(file.toPath(), null)) {
+      assertEquals(0, source.offsetOfLine(Long.MAX_VALUE));
+      assertEquals(0, source.offsetOfTail(3));
+      assertEquals(0, source.getLineCount());
+    }
+  }
+
+  @Test
+  public void truncatedWhileMapped() throws Exception {
+    File file = write(LINES, true);
+    try (MappedFileSource source = new MappedFileSource(file.toPath(), null)) {
+      try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+        raf.setLength(offsets.get(3));
+      }
+
+      // content beyond the new end would fault; reading stops there instead
+      assertEquals("line-0\nline-1\nline-2\n", read(source.read()));
+      assertEquals((long) offsets.get(3), source.size());
+      assertEquals(source.size(), source.offsetOfLine(Long.MAX_VALUE));
+      assertEquals(3, source.getLineCount());
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void readAfterClose() throws Exception {
+    File file = write(3, true);
+    MappedFileSource source = new MappedFileSource(file.toPath(), null);
+    source.close();
+    source.read();
+  }
+}
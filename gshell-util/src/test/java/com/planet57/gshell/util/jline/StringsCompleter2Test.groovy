@@ -63,4 +63,28 @@ class StringsCompleter2Test
     assert underTest.strings.empty
     assert underTest.candidates.empty
   }
+
+  @Test
+  void 'candidates matching prefix'() {
+    underTest.set('foo.bar', 'foo.baz', 'Foo.qux', 'bar')
+    assert underTest.getCandidates('foo.ba')*.value() == ['foo.bar', 'foo.baz']
+    assert underTest.getCandidates('foo')*.value() == ['foo.bar', 'foo.baz', 'Foo.qux']
+    assert underTest.getCandidates('').size() == 4
+
+    // nothing matches; all offered
+    assert underTest.getCandidates('x').size() == 4
+  }
+
+  @Test
+  void 'set same strings keeps version'() {
+    underTest.set('foo', 'bar')
+    long version = underTest.version
+
+    underTest.set('bar', 'foo')
+    assert underTest.version == version
+
+    underTest.set('foo')
+    assert underTest.version != version
+    assert underTest.getCandidates('b')*.value() == ['foo']
+  }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2009-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.planet57.gshell.util.jline
+
+import org.jline.reader.Candidate
+import org.jline.reader.impl.DefaultParser
+import org.sonatype.goodies.testsupport.TestSupport
+
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Tests for {@link StringsDynamicCompleter}
+ */
+class StringsDynamicCompleterTest
+  extends TestSupport
+{
+  int initialized
+
+  StringsDynamicCompleter underTest
+
+  @Before
+  void setUp() {
+    initialized = 0
+    underTest = new StringsDynamicCompleter() {
+      @Override
+      protected void init() {
+        initialized++
+        getDelegate().addAll('foo', 'food', 'bar')
+      }
+    }
+  }
+
+  private List<String> complete(final String word) {
+    List<Candidate> candidates = []
+    underTest.complete(null, new DefaultParser.ArgumentList(word, [word], 0, word.length(), word.length()), candidates)
+    return candidates.collect { it.value() }.sort()
+  }
+
+  @Test
+  void 'complete by prefix'() {
+    assert complete('fo') == ['foo', 'food']
+    assert complete('b') == ['bar']
+    assert initialized == 1
+  }
+
+  @Test
+  void 'complete all when none match'() {
+    assert complete('x') == ['bar', 'foo', 'food']
+  }
+
+  @Test
+  void 'complete changed candidates'() {
+    assert complete('fo') == ['foo', 'food']
+    underTest.getDelegate().remove('food')
+    underTest.getDelegate().add('fox')
+    assert complete('fo') == ['foo', 'fox']
+  }
+}